@@ -262,6 +262,18 @@ public class ConsumerConfig extends AbstractConfig {
 
     public static final String DEFAULT_ISOLATION_LEVEL = IsolationLevel.READ_UNCOMMITTED.toString().toLowerCase(Locale.ROOT);
 
+    /** <code>prefetch.max.bytes</code> */
+    public static final String PREFETCH_MAX_BYTES_CONFIG = "prefetch.max.bytes";
+    private static final String PREFETCH_MAX_BYTES_DOC = "The maximum size of the records the consumer fetches, decompresses and deserializes " +
+            "ahead of <code>poll()</code> in a background thread, which only runs while the application is not calling the consumer, e.g. while " +
+            "it processes the records returned by the last poll. Records decoded ahead are returned by the next poll without further work. " +
+            "With the default of 0, there is no background thread and records are fetched and decoded by <code>poll()</code> only.";
+
+    /** <code>compression.zstd.dictionaries</code> */
+    public static final String COMPRESSION_ZSTD_DICTIONARIES_CONFIG = "compression.zstd.dictionaries";
+    private static final String COMPRESSION_ZSTD_DICTIONARIES_DOC = "The paths of the zstd dictionaries the consumer can decompress batches with. "
+            + "Batches compressed by producers with a <code>compression.zstd.dictionary</code> can only be read if the same dictionary is listed here.";
+
     static {
         CONFIG = new ConfigDef().define(BOOTSTRAP_SERVERS_CONFIG,
                                         Type.LIST,
@@ -464,6 +476,18 @@ public class ConsumerConfig extends AbstractConfig {
                                         in(IsolationLevel.READ_COMMITTED.toString().toLowerCase(Locale.ROOT), IsolationLevel.READ_UNCOMMITTED.toString().toLowerCase(Locale.ROOT)),
                                         Importance.MEDIUM,
                                         ISOLATION_LEVEL_DOC)
+                                .define(PREFETCH_MAX_BYTES_CONFIG,
+                                        Type.INT,
+                                        0,
+                                        atLeast(0),
+                                        Importance.LOW,
+                                        PREFETCH_MAX_BYTES_DOC)
+                                .define(COMPRESSION_ZSTD_DICTIONARIES_CONFIG,
+                                        Type.LIST,
+                                        Collections.emptyList(),
+                                        new ConfigDef.NonNullValidator(),
+                                        Importance.LOW,
+                                        COMPRESSION_ZSTD_DICTIONARIES_DOC)
                                 // security support
                                 .define(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG,
                                         Type.STRING,
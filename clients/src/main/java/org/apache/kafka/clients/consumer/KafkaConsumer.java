@@ -29,6 +29,7 @@ import org.apache.kafka.clients.consumer.internals.Fetcher;
 import org.apache.kafka.clients.consumer.internals.Heartbeat;
 import org.apache.kafka.clients.consumer.internals.NoOpConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.internals.PartitionAssignor;
+import org.apache.kafka.clients.consumer.internals.Prefetcher;
 import org.apache.kafka.clients.consumer.internals.SubscriptionState;
 import org.apache.kafka.common.Cluster;
 import org.apache.kafka.common.KafkaException;
@@ -48,6 +49,7 @@ import org.apache.kafka.common.metrics.MetricsReporter;
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.network.ChannelBuilder;
 import org.apache.kafka.common.network.Selector;
+import org.apache.kafka.common.record.ZstdDictionary;
 import org.apache.kafka.common.requests.IsolationLevel;
 import org.apache.kafka.common.requests.MetadataRequest;
 import org.apache.kafka.common.serialization.Deserializer;
@@ -568,6 +570,7 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
     private final Deserializer<K> keyDeserializer;
     private final Deserializer<V> valueDeserializer;
     private final Fetcher<K, V> fetcher;
+    private final Prefetcher prefetcher;
     private final ConsumerInterceptors<K, V> interceptors;
 
     private final Time time;
@@ -800,7 +803,8 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
                     this.retryBackoffMs,
                     this.requestTimeoutMs,
                     isolationLevel);
-
+            ZstdDictionary.registerAll(config.getList(ConsumerConfig.COMPRESSION_ZSTD_DICTIONARIES_CONFIG));
+            this.prefetcher = startPrefetcher(logContext, config.getInt(ConsumerConfig.PREFETCH_MAX_BYTES_CONFIG));
             config.logUnused();
             AppInfoParser.registerAppInfo(JMX_PREFIX, clientId, metrics);
             log.debug("Kafka consumer initialized");
@@ -812,6 +816,14 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
         }
     }
 
+    private Prefetcher startPrefetcher(LogContext logContext, int prefetchMaxBytes) {
+        if (prefetchMaxBytes == 0)
+            return null;
+        Prefetcher prefetcher = new Prefetcher(logContext, clientId, this.client, this.fetcher, prefetchMaxBytes);
+        prefetcher.start();
+        return prefetcher;
+    }
+
     // visible for testing
     KafkaConsumer(LogContext logContext,
                   String clientId,
@@ -836,6 +848,7 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
         this.keyDeserializer = keyDeserializer;
         this.valueDeserializer = valueDeserializer;
         this.fetcher = fetcher;
+        this.prefetcher = null;
         this.interceptors = Objects.requireNonNull(interceptors);
         this.time = time;
         this.client = client;
@@ -2164,6 +2177,7 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
     private void close(long timeoutMs, boolean swallowException) {
         log.trace("Closing the Kafka consumer");
         AtomicReference<Throwable> firstException = new AtomicReference<>();
+        Utils.closeQuietly(prefetcher, "prefetcher", firstException);
         try {
             if (coordinator != null)
                 coordinator.close(time.timer(Math.min(timeoutMs, requestTimeoutMs)));
@@ -2242,15 +2256,20 @@ public class KafkaConsumer<K, V> implements Consumer<K, V> {
         long threadId = Thread.currentThread().getId();
         if (threadId != currentThread.get() && !currentThread.compareAndSet(NO_CURRENT_THREAD, threadId))
             throw new ConcurrentModificationException("KafkaConsumer is not safe for multi-threaded access");
-        refcount.incrementAndGet();
+        // keep the prefetch thread away from the consumer until the application thread leaves it
+        if (refcount.incrementAndGet() == 1 && prefetcher != null)
+            prefetcher.pause();
     }
 
     /**
      * Release the light lock protecting the consumer from multi-threaded access.
      */
     private void release() {
-        if (refcount.decrementAndGet() == 0)
+        if (refcount.decrementAndGet() == 0) {
+            if (prefetcher != null)
+                prefetcher.resume();
             currentThread.set(NO_CURRENT_THREAD);
+        }
     }
 
     private void throwIfNoAssignorsConfigured() {
@@ -71,6 +71,7 @@ import org.slf4j.Logger;
 
 import java.io.Closeable;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -87,6 +88,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import static java.util.Collections.emptyList;
 
@@ -132,6 +134,8 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
     private final AtomicReference<RuntimeException> cachedListOffsetsException = new AtomicReference<>();
 
     private PartitionRecords nextInLineRecords = null;
+    // Completed fetches parsed ahead of fetchedRecords() by prefetchRecords(), in the order they completed
+    private final ArrayDeque<PartitionRecords> prefetchedRecords = new ArrayDeque<>();
 
     public Fetcher(LogContext logContext,
                    ConsumerNetworkClient client,
@@ -483,7 +487,9 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
 
         try {
             while (recordsRemaining > 0) {
-                if (nextInLineRecords == null || nextInLineRecords.isFetched) {
+                if ((nextInLineRecords == null || nextInLineRecords.isFetched) && !prefetchedRecords.isEmpty()) {
+                    nextInLineRecords = prefetchedRecords.poll();
+                } else if (nextInLineRecords == null || nextInLineRecords.isFetched) {
                     CompletedFetch completedFetch = completedFetches.peek();
                     if (completedFetch == null) break;
 
@@ -541,10 +547,10 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
                     partitionRecords.partition);
         } else {
             long position = subscriptions.position(partitionRecords.partition);
-            if (partitionRecords.nextFetchOffset == position) {
+            if (partitionRecords.nextOffset() == position) {
                 List<ConsumerRecord<K, V>> partRecords = partitionRecords.fetchRecords(maxRecords);
 
-                long nextOffset = partitionRecords.nextFetchOffset;
+                long nextOffset = partitionRecords.nextOffset();
                 log.trace("Returning fetched records at offset {} for assigned partition {} and update " +
                         "position to {}", position, partitionRecords.partition, nextOffset);
                 subscriptions.position(partitionRecords.partition, nextOffset);
@@ -563,7 +569,7 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
                 // these records aren't next in line based on the last consumed position, ignore them
                 // they must be from an obsolete request
                 log.debug("Ignoring fetched records for {} at offset {} since the current position is {}",
-                        partitionRecords.partition, partitionRecords.nextFetchOffset, position);
+                        partitionRecords.partition, partitionRecords.nextOffset(), position);
             }
         }
 
@@ -571,6 +577,58 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
         return emptyList();
     }
 
+    /**
+     * Decompress and deserialize the records of completed fetches ahead of {@link #fetchedRecords()}, until the
+     * records decoded ahead take up the given number of bytes. Errors are not raised here, the fetches and records
+     * that fail are left for fetchedRecords() to report when it gets to them.
+     * @param maxBytes The maximum size of the records decoded ahead
+     * @return The size of the records decoded by this call
+     */
+    public int prefetchRecords(int maxBytes) {
+        return prefetchRecords(maxBytes, () -> false);
+    }
+
+    /**
+     * Like {@link #prefetchRecords(int)}, but stops decoding as soon as the given condition holds, which is checked
+     * before every record.
+     * @param maxBytes The maximum size of the records decoded ahead
+     * @param stop The condition to stop decoding early, e.g. because the application thread waits for the consumer
+     * @return The size of the records decoded by this call
+     */
+    public int prefetchRecords(int maxBytes, BooleanSupplier stop) {
+        int remaining = maxBytes;
+        if (nextInLineRecords != null)
+            remaining -= nextInLineRecords.prefetchedBytes;
+        for (PartitionRecords partitionRecords : prefetchedRecords)
+            remaining -= partitionRecords.prefetchedBytes;
+
+        int decoded = 0;
+        if (nextInLineRecords != null && remaining > 0)
+            decoded += nextInLineRecords.prefetch(remaining - decoded, stop);
+        for (PartitionRecords partitionRecords : prefetchedRecords) {
+            if (decoded >= remaining || stop.getAsBoolean())
+                break;
+            decoded += partitionRecords.prefetch(remaining - decoded, stop);
+        }
+        while (decoded < remaining && !stop.getAsBoolean()) {
+            CompletedFetch completedFetch = completedFetches.peek();
+            if (completedFetch == null || completedFetch.partitionData.error != Errors.NONE)
+                break;
+            PartitionRecords partitionRecords;
+            try {
+                partitionRecords = parseCompletedFetch(completedFetch);
+            } catch (Exception e) {
+                break;
+            }
+            completedFetches.poll();
+            if (partitionRecords != null) {
+                prefetchedRecords.add(partitionRecords);
+                decoded += partitionRecords.prefetch(remaining - decoded, stop);
+            }
+        }
+        return decoded;
+    }
+
     private void resetOffsetIfNeeded(TopicPartition partition, Long requestedResetTimestamp, OffsetData offsetData) {
         // we might lose the assignment while fetching the offset, or the user might seek to a different offset,
         // so verify it is still assigned and still in need of the requested reset
@@ -856,6 +914,9 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
         if (nextInLineRecords != null && !nextInLineRecords.isFetched) {
             exclude.add(nextInLineRecords.partition);
         }
+        for (PartitionRecords partitionRecords : prefetchedRecords) {
+            exclude.add(partitionRecords.partition);
+        }
         for (CompletedFetch completedFetch : completedFetches) {
             exclude.add(completedFetch.partition);
         }
@@ -1061,6 +1122,14 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
                 itr.remove();
             }
         }
+        Iterator<PartitionRecords> prefetchedItr = prefetchedRecords.iterator();
+        while (prefetchedItr.hasNext()) {
+            PartitionRecords partitionRecords = prefetchedItr.next();
+            if (!assignedPartitions.contains(partitionRecords.partition)) {
+                partitionRecords.drain();
+                prefetchedItr.remove();
+            }
+        }
         if (nextInLineRecords != null && !assignedPartitions.contains(nextInLineRecords.partition)) {
             nextInLineRecords.drain();
             nextInLineRecords = null;
@@ -1112,6 +1181,9 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
         private boolean isFetched = false;
         private Exception cachedRecordException = null;
         private boolean corruptLastRecord = false;
+        // Records decoded ahead by prefetch(), which are returned before any record that is still to be decoded
+        private final ArrayDeque<PrefetchedRecord<K, V>> prefetched = new ArrayDeque<>();
+        private int prefetchedBytes;
 
         private PartitionRecords(TopicPartition partition,
                                  CompletedFetch completedFetch,
@@ -1127,6 +1199,8 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
         private void drain() {
             if (!isFetched) {
                 maybeCloseRecordStream();
+                prefetched.clear();
+                prefetchedBytes = 0;
                 cachedRecordException = null;
                 this.isFetched = true;
                 this.completedFetch.metricAggregator.record(partition, bytesRead, recordsRead);
@@ -1180,7 +1254,9 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
                         // fetching the same batch repeatedly).
                         if (currentBatch != null)
                             nextFetchOffset = currentBatch.nextOffset();
-                        drain();
+                        // the records decoded ahead still have to be returned before the records are drained
+                        if (prefetched.isEmpty())
+                            drain();
                         return null;
                     }
 
@@ -1225,19 +1301,37 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
             }
         }
 
+        /**
+         * @return The offset of the next record to return, which the consumed position has to be at
+         */
+        private long nextOffset() {
+            return prefetched.isEmpty() ? nextFetchOffset : prefetched.peek().position;
+        }
+
         private List<ConsumerRecord<K, V>> fetchRecords(int maxRecords) {
+            List<ConsumerRecord<K, V>> records = new ArrayList<>();
+            while (records.size() < maxRecords && !prefetched.isEmpty()) {
+                PrefetchedRecord<K, V> prefetchedRecord = prefetched.poll();
+                prefetchedBytes -= prefetchedRecord.sizeInBytes;
+                records.add(prefetchedRecord.record);
+            }
+            if (records.size() == maxRecords)
+                return records;
+
             // Error when fetching the next record before deserialization.
-            if (corruptLastRecord)
+            if (corruptLastRecord) {
+                if (!records.isEmpty())
+                    return records;
                 throw new KafkaException("Received exception when fetching the next record from " + partition
                                              + ". If needed, please seek past the record to "
                                              + "continue consumption.", cachedRecordException);
+            }
 
             if (isFetched)
-                return Collections.emptyList();
+                return records;
 
-            List<ConsumerRecord<K, V>> records = new ArrayList<>();
             try {
-                for (int i = 0; i < maxRecords; i++) {
+                for (int i = records.size(); i < maxRecords; i++) {
                     // Only move to next record if there was no exception in the last fetch. Otherwise we should
                     // use the last record to do deserialization again.
                     if (cachedRecordException == null) {
@@ -1269,6 +1363,39 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
             return records;
         }
 
+        /**
+         * Decode records ahead of {@link #fetchRecords(int)}, which returns them first. Decoding stops at the first
+         * error, which fetchRecords() raises again once the records decoded before it have been returned.
+         * @return The size of the records decoded by this call
+         */
+        private int prefetch(int maxBytes, BooleanSupplier stop) {
+            if (isFetched || corruptLastRecord || cachedRecordException != null)
+                return 0;
+
+            int bytes = 0;
+            try {
+                while (bytes < maxBytes && !stop.getAsBoolean()) {
+                    long position = nextFetchOffset;
+                    corruptLastRecord = true;
+                    lastRecord = nextFetchedRecord();
+                    corruptLastRecord = false;
+                    if (lastRecord == null)
+                        break;
+                    ConsumerRecord<K, V> record = parseRecord(partition, currentBatch, lastRecord);
+                    int sizeInBytes = lastRecord.sizeInBytes();
+                    prefetched.add(new PrefetchedRecord<>(record, position, sizeInBytes));
+                    recordsRead++;
+                    bytesRead += sizeInBytes;
+                    bytes += sizeInBytes;
+                    nextFetchOffset = lastRecord.offset() + 1;
+                }
+            } catch (KafkaException e) {
+                cachedRecordException = e;
+            }
+            prefetchedBytes += bytes;
+            return bytes;
+        }
+
         private void consumeAbortedTransactionsUpTo(long offset) {
             if (abortedTransactions == null)
                 return;
@@ -1307,6 +1434,20 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
         }
     }
 
+    private static class PrefetchedRecord<K, V> {
+        private final ConsumerRecord<K, V> record;
+        // The consumed position the record is returned at, which may be before its offset if control records or
+        // aborted batches precede it
+        private final long position;
+        private final int sizeInBytes;
+
+        private PrefetchedRecord(ConsumerRecord<K, V> record, long position, int sizeInBytes) {
+            this.record = record;
+            this.position = position;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
     private static class CompletedFetch {
         private final TopicPartition partition;
         private final long fetchedOffset;
@@ -1522,6 +1663,9 @@ public class Fetcher<K, V> implements SubscriptionState.Listener, Closeable {
     public void close() {
         if (nextInLineRecords != null)
             nextInLineRecords.drain();
+        for (PartitionRecords partitionRecords : prefetchedRecords)
+            partitionRecords.drain();
+        prefetchedRecords.clear();
         decompressionBufferSupplier.close();
     }
 
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.consumer.internals;
+
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.utils.KafkaThread;
+import org.apache.kafka.common.utils.LogContext;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fetches, decompresses and deserializes records in a background thread ahead of
+ * {@link org.apache.kafka.clients.consumer.KafkaConsumer#poll(java.time.Duration)}, so that the records are ready
+ * to be returned when the application polls again.
+ * <p>
+ * The consumer is not thread-safe, so the background thread only works while the application thread is not using
+ * the consumer, typically while it processes the records returned by the last poll. The consumer holds the lock of
+ * the prefetcher from {@link #pause()} to {@link #resume()} around every call of the application. A round of the
+ * background thread stops decoding as soon as the application thread waits for the lock.
+ * <p>
+ * When a round neither decoded records nor left fetches in flight, there is nothing to do until the application
+ * changes the assignment or consumes records, so the thread parks until the next {@link #resume()}.
+ */
+public class Prefetcher implements Closeable {
+    public static final String PREFETCH_THREAD_PREFIX = "kafka-consumer-prefetch-thread";
+
+    // How long the thread waits for fetches in flight to complete when there was nothing to decode
+    private static final long FETCH_WAIT_MS = 10L;
+
+    private final Logger log;
+    private final ConsumerNetworkClient client;
+    private final Fetcher<?, ?> fetcher;
+    private final int maxBytes;
+    // fair, so that the background thread queues up behind a waiting application thread when it yields
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Object idle = new Object();
+    private final KafkaThread thread;
+    // set by resume() to wake up the background thread, guarded by idle
+    private boolean resumed = false;
+    private volatile boolean closed = false;
+
+    /**
+     * @param clientId The id of the consumer, used to name the thread
+     * @param maxBytes The maximum size of the records decoded ahead of poll
+     */
+    public Prefetcher(LogContext logContext, String clientId, ConsumerNetworkClient client, Fetcher<?, ?> fetcher,
+                      int maxBytes) {
+        this.log = logContext.logger(Prefetcher.class);
+        this.client = client;
+        this.fetcher = fetcher;
+        this.maxBytes = maxBytes;
+        this.thread = new KafkaThread(PREFETCH_THREAD_PREFIX + " | " + clientId, this::run, true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Keep the background thread from using the consumer until {@link #resume()} is called by the same thread.
+     * This waits for the current round of the background thread to complete.
+     */
+    public void pause() {
+        lock.lock();
+    }
+
+    /**
+     * Let the background thread use the consumer again, waking it up if it is parked since the application may
+     * have changed the assignment or consumed records.
+     */
+    public void resume() {
+        synchronized (idle) {
+            resumed = true;
+            idle.notify();
+        }
+        lock.unlock();
+    }
+
+    /**
+     * Send fetches, handle the completed ones and decode their records, as far as the memory bound allows. Decoding
+     * stops early if another thread waits for the lock.
+     * @return The size of the records decoded by this round
+     */
+    int prefetch() {
+        lock.lock();
+        try {
+            fetcher.sendFetches();
+            client.pollNoWakeup();
+            return fetcher.prefetchRecords(maxBytes, lock::hasQueuedThreads);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        log.debug("Prefetch thread started");
+        try {
+            while (!closed) {
+                int decoded = 0;
+                boolean fetchesInFlight = false;
+                lock.lockInterruptibly();
+                try {
+                    if (!closed) {
+                        decoded = prefetch();
+                        fetchesInFlight = client.hasPendingRequests();
+                    }
+                } catch (InterruptException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // the application thread runs into the same error when it polls
+                    log.debug("Failed to prefetch records", e);
+                } finally {
+                    lock.unlock();
+                }
+                if (decoded == 0)
+                    awaitWork(fetchesInFlight ? FETCH_WAIT_MS : 0L);
+            }
+        } catch (InterruptedException | InterruptException e) {
+            // the prefetcher is closing
+        } catch (Throwable e) {
+            log.error("Prefetch thread failed due to unexpected error", e);
+        } finally {
+            log.debug("Prefetch thread has closed");
+        }
+    }
+
+    /**
+     * Wait until the application thread resumes the prefetcher, or the given time elapses if positive.
+     */
+    private void awaitWork(long timeoutMs) throws InterruptedException {
+        synchronized (idle) {
+            if (!resumed)
+                idle.wait(timeoutMs);
+            resumed = false;
+        }
+    }
+
+    /**
+     * Stop the background thread. This must be called while the prefetcher is paused.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptException(e);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.kafka.clients.producer;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -38,17 +39,21 @@ import org.apache.kafka.clients.NetworkClient;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.producer.internals.AdaptiveBatching;
+import org.apache.kafka.clients.producer.internals.BatchCompressor;
 import org.apache.kafka.clients.producer.internals.BufferPool;
 import org.apache.kafka.clients.producer.internals.ProducerInterceptors;
 import org.apache.kafka.clients.producer.internals.ProducerMetrics;
 import org.apache.kafka.clients.producer.internals.RecordAccumulator;
 import org.apache.kafka.clients.producer.internals.Sender;
+import org.apache.kafka.clients.producer.internals.SenderShard;
 import org.apache.kafka.clients.producer.internals.TransactionManager;
 import org.apache.kafka.clients.producer.internals.TransactionalRequestResult;
 import org.apache.kafka.common.Cluster;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.Node;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigException;
@@ -72,10 +77,13 @@ import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.metrics.MetricsReporter;
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.network.ChannelBuilder;
+import org.apache.kafka.common.network.NetworkReceive;
 import org.apache.kafka.common.network.Selector;
 import org.apache.kafka.common.record.AbstractRecords;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.ZstdDictionary;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.AppInfoParser;
 import org.apache.kafka.common.utils.KafkaThread;
@@ -244,7 +252,9 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     private final Metadata metadata;
     private final RecordAccumulator accumulator;
     private final Sender sender;
-    private final Thread ioThread;
+    private final List<Sender> senders;
+    private final List<Thread> ioThreads;
+    private final BatchCompressor compressor;
     private final CompressionType compressionType;
     private final Sensor errors;
     private final Time time;
@@ -394,9 +404,18 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
             int deliveryTimeoutMs = configureDeliveryTimeout(config, log);
 
             this.apiVersions = new ApiVersions();
+            int compressionThreads = config.getInt(ProducerConfig.COMPRESSION_THREADS_CONFIG);
+            if (compressionThreads > 0 && this.compressionType != CompressionType.NONE)
+                this.compressor = new BatchCompressor(logContext, compressionThreads, clientId, this::wakeupSenders,
+                        new ProducerMetrics(this.metrics).senderMetrics, time);
+            else
+                this.compressor = null;
+            AdaptiveBatching adaptiveBatching = config.getBoolean(ProducerConfig.ADAPTIVE_BATCHING_ENABLE_CONFIG) ?
+                    new AdaptiveBatching(lingerMs(config), config.getInt(ProducerConfig.BATCH_SIZE_CONFIG),
+                            new ProducerMetrics(this.metrics).senderMetrics) : null;
             this.accumulator = new RecordAccumulator(logContext,
                     config.getInt(ProducerConfig.BATCH_SIZE_CONFIG),
-                    this.compressionType,
+                    compressionConfig(config, this.compressionType),
                     lingerMs(config),
                     retryBackoffMs,
                     deliveryTimeoutMs,
@@ -405,7 +424,9 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                     time,
                     apiVersions,
                     transactionManager,
-                    new BufferPool(this.totalMemorySize, config.getInt(ProducerConfig.BATCH_SIZE_CONFIG), metrics, time, PRODUCER_METRIC_GROUP_NAME));
+                    new BufferPool(this.totalMemorySize, config.getInt(ProducerConfig.BATCH_SIZE_CONFIG), metrics, time, PRODUCER_METRIC_GROUP_NAME),
+                    this.compressor,
+                    adaptiveBatching);
             List<InetSocketAddress> addresses = ClientUtils.parseAndValidateAddresses(
                     config.getList(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG),
                     config.getString(ProducerConfig.CLIENT_DNS_LOOKUP_CONFIG));
@@ -417,10 +438,21 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                 this.metadata.bootstrap(addresses, time.milliseconds());
             }
             this.errors = this.metrics.sensor("errors");
-            this.sender = newSender(logContext, kafkaClient, this.metadata);
-            String ioThreadName = NETWORK_THREAD_PREFIX + " | " + clientId;
-            this.ioThread = new KafkaThread(ioThreadName, this.sender, true);
-            this.ioThread.start();
+            int numSenders = kafkaClient != null ? 1 : config.getInt(ProducerConfig.NUM_SENDER_THREADS_CONFIG);
+            if (numSenders == 1) {
+                this.sender = newSender(logContext, kafkaClient, this.metadata);
+                this.senders = Collections.singletonList(this.sender);
+            } else {
+                this.senders = newSenders(logContext, this.metadata, numSenders);
+                this.sender = this.senders.get(0);
+            }
+            this.ioThreads = new ArrayList<>(numSenders);
+            for (int i = 0; i < numSenders; i++) {
+                String ioThreadName = NETWORK_THREAD_PREFIX + " | " + clientId + (numSenders == 1 ? "" : "-" + i);
+                Thread ioThread = new KafkaThread(ioThreadName, this.senders.get(i), true);
+                this.ioThreads.add(ioThread);
+                ioThread.start();
+            }
             config.logUnused();
             AppInfoParser.registerAppInfo(JMX_PREFIX, clientId, metrics);
             log.debug("Kafka producer started");
@@ -434,14 +466,56 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
 
     // visible for testing
     Sender newSender(LogContext logContext, KafkaClient kafkaClient, Metadata metadata) {
+        KafkaClient client = kafkaClient != null ? kafkaClient : newNetworkClient(logContext, metadata, 0);
+        return newSender(logContext, client, metadata, SenderShard.single(client));
+    }
+
+    private List<Sender> newSenders(LogContext logContext, Metadata metadata, int numSenders) {
+        List<KafkaClient> clients = new ArrayList<>(numSenders);
+        for (int i = 0; i < numSenders; i++)
+            clients.add(newNetworkClient(logContext, metadata, i));
+        List<Sender> senders = new ArrayList<>(numSenders);
+        for (int i = 0; i < numSenders; i++)
+            senders.add(newSender(logContext, clients.get(i), metadata, new SenderShard(i, clients)));
+        return senders;
+    }
+
+    private Sender newSender(LogContext logContext, KafkaClient client, Metadata metadata, SenderShard shard) {
+        int maxInflightRequests = configureInflightRequests(producerConfig, transactionManager != null);
+        int requestTimeoutMs = producerConfig.getInt(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG);
+        ProducerMetrics metricsRegistry = new ProducerMetrics(this.metrics);
+        int retries = configureRetries(producerConfig, transactionManager != null, log);
+        short acks = configureAcks(producerConfig, transactionManager != null, log);
+        return new Sender(logContext,
+                client,
+                metadata,
+                this.accumulator,
+                maxInflightRequests == 1,
+                producerConfig.getInt(ProducerConfig.MAX_REQUEST_SIZE_CONFIG),
+                acks,
+                retries,
+                metricsRegistry.senderMetrics,
+                time,
+                requestTimeoutMs,
+                producerConfig.getLong(ProducerConfig.RETRY_BACKOFF_MS_CONFIG),
+                this.transactionManager,
+                apiVersions,
+                shard);
+    }
+
+    private KafkaClient newNetworkClient(LogContext logContext, Metadata metadata, int senderIndex) {
         int maxInflightRequests = configureInflightRequests(producerConfig, transactionManager != null);
         int requestTimeoutMs = producerConfig.getInt(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG);
         ChannelBuilder channelBuilder = ClientUtils.createChannelBuilder(producerConfig, time);
         ProducerMetrics metricsRegistry = new ProducerMetrics(this.metrics);
         Sensor throttleTimeSensor = Sender.throttleTimeSensor(metricsRegistry.senderMetrics);
-        KafkaClient client = kafkaClient != null ? kafkaClient : new NetworkClient(
-                new Selector(producerConfig.getLong(ProducerConfig.CONNECTIONS_MAX_IDLE_MS_CONFIG),
-                        this.metrics, time, "producer", channelBuilder, logContext),
+        // the selectors of the additional senders get their own metrics
+        Map<String, String> metricTags = senderIndex == 0 ? Collections.emptyMap()
+                : Collections.singletonMap("sender-id", Integer.toString(senderIndex));
+        return new NetworkClient(
+                new Selector(NetworkReceive.UNLIMITED,
+                        producerConfig.getLong(ProducerConfig.CONNECTIONS_MAX_IDLE_MS_CONFIG),
+                        this.metrics, time, "producer", metricTags, true, channelBuilder, logContext),
                 metadata,
                 clientId,
                 maxInflightRequests,
@@ -456,22 +530,18 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                 apiVersions,
                 throttleTimeSensor,
                 logContext);
-        int retries = configureRetries(producerConfig, transactionManager != null, log);
-        short acks = configureAcks(producerConfig, transactionManager != null, log);
-        return new Sender(logContext,
-                client,
-                metadata,
-                this.accumulator,
-                maxInflightRequests == 1,
-                producerConfig.getInt(ProducerConfig.MAX_REQUEST_SIZE_CONFIG),
-                acks,
-                retries,
-                metricsRegistry.senderMetrics,
-                time,
-                requestTimeoutMs,
-                producerConfig.getLong(ProducerConfig.RETRY_BACKOFF_MS_CONFIG),
-                this.transactionManager,
-                apiVersions);
+    }
+
+    private static CompressionConfig compressionConfig(ProducerConfig config, CompressionType compressionType) {
+        int level = config.getInt(ProducerConfig.COMPRESSION_LEVEL_CONFIG);
+        if (!compressionType.isValidLevel(level) && level != CompressionConfig.DEFAULT_LEVEL)
+            throw new ConfigException(ProducerConfig.COMPRESSION_LEVEL_CONFIG, level, "Compression type " +
+                    compressionType.name + " supports levels " + compressionType.minLevel() + " to " + compressionType.maxLevel());
+        String dictionaryPath = config.getString(ProducerConfig.COMPRESSION_ZSTD_DICTIONARY_CONFIG);
+        if (compressionType != CompressionType.ZSTD || dictionaryPath == null)
+            return CompressionConfig.of(compressionType, level);
+        // Registering the dictionary lets the producer read its own batches back, e.g. to split them
+        return CompressionConfig.zstd(ZstdDictionary.register(ZstdDictionary.load(dictionaryPath)), level);
     }
 
     private static int lingerMs(ProducerConfig config) {
@@ -700,7 +770,7 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     public void commitTransaction() throws ProducerFencedException {
         throwIfNoTransactionManager();
         TransactionalRequestResult result = transactionManager.beginCommit();
-        sender.wakeup();
+        wakeupSenders();
         result.await();
     }
 
@@ -720,7 +790,7 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     public void abortTransaction() throws ProducerFencedException {
         throwIfNoTransactionManager();
         TransactionalRequestResult result = transactionManager.beginAbort();
-        sender.wakeup();
+        wakeupSenders();
         result.await();
     }
 
@@ -849,10 +919,34 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     // Verify that this producer instance has not been closed. This method throws IllegalStateException if the producer
     // has already been closed.
     private void throwIfProducerClosed() {
-        if (ioThread == null || !ioThread.isAlive())
+        if (ioThreads == null || !ioThreads.get(0).isAlive())
             throw new IllegalStateException("Cannot perform operation after producer has been closed");
     }
 
+    /**
+     * Wake up the sender that sends the batches of the given partition.
+     */
+    private void wakeupSender(Cluster cluster, TopicPartition tp) {
+        Node leader = senders.size() == 1 ? null : cluster.leaderFor(tp);
+        if (leader == null)
+            this.sender.wakeup();
+        else
+            this.senders.get(SenderShard.indexOf(leader, senders.size())).wakeup();
+    }
+
+    private static boolean anyAlive(List<Thread> threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive())
+                return true;
+        }
+        return false;
+    }
+
+    private void wakeupSenders() {
+        for (Sender shardSender : this.senders)
+            shardSender.wakeup();
+    }
+
     /**
      * Implementation of asynchronously send a record to a topic.
      */
@@ -902,13 +996,31 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
             Callback interceptCallback = new InterceptorCallback<>(callback, this.interceptors, tp);
 
             if (transactionManager != null && transactionManager.isTransactional())
-                transactionManager.maybeAddPartitionToTransaction(tp);
+                transactionManager.failIfNotReadyForSend();
 
             RecordAccumulator.RecordAppendResult result = accumulator.append(tp, timestamp, serializedKey,
-                    serializedValue, headers, interceptCallback, remainingWaitMs);
+                    serializedValue, headers, interceptCallback, remainingWaitMs, true);
+
+            if (result.abortForNewBatch) {
+                // The record would start a new batch, which lets the partitioner choose another partition first
+                int prevPartition = partition;
+                partitioner.onNewBatch(record.topic(), cluster, prevPartition);
+                partition = partition(record, serializedKey, serializedValue, cluster);
+                tp = new TopicPartition(record.topic(), partition);
+                log.trace("Retrying append due to new batch creation for topic {} partition {}. The old partition was {}",
+                        record.topic(), partition, prevPartition);
+                // producer callback will make sure to call both 'callback' and interceptor callback
+                interceptCallback = new InterceptorCallback<>(callback, this.interceptors, tp);
+
+                result = accumulator.append(tp, timestamp, serializedKey,
+                        serializedValue, headers, interceptCallback, remainingWaitMs, false);
+            }
+
+            if (transactionManager != null && transactionManager.isTransactional())
+                transactionManager.maybeAddPartitionToTransaction(tp);
             if (result.batchIsFull || result.newBatchCreated) {
                 log.trace("Waking up the sender since topic {} partition {} is either full or getting a new batch", record.topic(), partition);
-                this.sender.wakeup();
+                wakeupSender(cluster, tp);
             }
             return result.future;
             // handling exceptions and record the errors;
@@ -1067,7 +1179,7 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     public void flush() {
         log.trace("Flushing accumulated records in producer.");
         this.accumulator.beginFlush();
-        this.sender.wakeup();
+        wakeupSenders();
         try {
             this.accumulator.awaitFlushCompletion();
         } catch (InterruptedException e) {
@@ -1146,7 +1258,8 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
 
         // this will keep track of the first encountered exception
         AtomicReference<Throwable> firstException = new AtomicReference<>();
-        boolean invokedFromCallback = Thread.currentThread() == this.ioThread;
+        List<Thread> threads = this.ioThreads != null ? this.ioThreads : Collections.emptyList();
+        boolean invokedFromCallback = threads.contains(Thread.currentThread());
         if (timeoutMs > 0) {
             if (invokedFromCallback) {
                 log.warn("Overriding close timeout {} ms to 0 ms in order to prevent useless blocking due to self-join. " +
@@ -1154,33 +1267,38 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                         timeoutMs);
             } else {
                 // Try to close gracefully.
-                if (this.sender != null)
-                    this.sender.initiateClose();
-                if (this.ioThread != null) {
-                    try {
-                        this.ioThread.join(timeoutMs);
-                    } catch (InterruptedException t) {
-                        firstException.compareAndSet(null, new InterruptException(t));
-                        log.error("Interrupted while joining ioThread", t);
-                    }
+                if (this.senders != null) {
+                    for (Sender shardSender : this.senders)
+                        shardSender.initiateClose();
+                }
+                long deadlineMs = time.milliseconds() + timeoutMs;
+                try {
+                    for (Thread ioThread : threads)
+                        ioThread.join(Math.max(deadlineMs - time.milliseconds(), 1));
+                } catch (InterruptedException t) {
+                    firstException.compareAndSet(null, new InterruptException(t));
+                    log.error("Interrupted while joining ioThread", t);
                 }
             }
         }
 
-        if (this.sender != null && this.ioThread != null && this.ioThread.isAlive()) {
+        if (this.senders != null && anyAlive(threads)) {
             log.info("Proceeding to force close the producer since pending requests could not be completed " +
                     "within timeout {} ms.", timeoutMs);
-            this.sender.forceClose();
-            // Only join the sender thread when not calling from callback.
+            for (Sender shardSender : this.senders)
+                shardSender.forceClose();
+            // Only join the sender threads when not calling from callback.
             if (!invokedFromCallback) {
                 try {
-                    this.ioThread.join();
+                    for (Thread ioThread : threads)
+                        ioThread.join();
                 } catch (InterruptedException e) {
                     firstException.compareAndSet(null, new InterruptException(e));
                 }
             }
         }
 
+        Utils.closeQuietly(compressor, "producer compressor", firstException);
         Utils.closeQuietly(interceptors, "producer interceptors", firstException);
         Utils.closeQuietly(metrics, "producer metrics", firstException);
         Utils.closeQuietly(keySerializer, "producer keySerializer", firstException);
@@ -39,6 +39,19 @@ public interface Partitioner extends Configurable, Closeable {
      */
     public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster);
 
+    /**
+     * Notifies the partitioner that the record it chose a partition for does not fit in the current batch of that
+     * partition, or that the partition has no open batch, so that a new batch is about to be created. A partitioner
+     * that sticks to one partition while its batch fills up can switch partitions here; the producer then asks
+     * for the partition of the record again.
+     *
+     * @param topic The topic name
+     * @param cluster The current cluster metadata
+     * @param prevPartition The partition previously chosen for the record that triggered the new batch
+     */
+    default public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+    }
+
     /**
      * This is called when partitioner is closed.
      */
@@ -24,6 +24,7 @@ import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigDef.Importance;
 import org.apache.kafka.common.config.ConfigDef.Type;
 import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.serialization.Serializer;
 
 import java.util.Collections;
@@ -240,6 +241,45 @@ public class ProducerConfig extends AbstractConfig {
             "The default is <code>null</code>, which means transactions cannot be used. " +
             "Note that, by default, transactions require a cluster of at least three brokers which is the recommended setting for production; for development you can change this, by adjusting broker setting <code>transaction.state.log.replication.factor</code>.";
 
+    /** <code>num.sender.threads</code> */
+    public static final String NUM_SENDER_THREADS_CONFIG = "num.sender.threads";
+    private static final String NUM_SENDER_THREADS_DOC = "The number of I/O threads the producer uses to send records. Each thread drains, compresses and sends "
+            + "the batches of the partitions led by its own share of the brokers, over its own connections, so the batches of a partition are "
+            + "always sent by the same thread and stay in order. More than one thread helps when a single thread cannot keep up with compressing "
+            + "and sending the batches to many brokers. Producer id and transactional requests are always sent by the first thread.";
+
+    /** <code>compression.threads</code> */
+    public static final String COMPRESSION_THREADS_CONFIG = "compression.threads";
+    private static final String COMPRESSION_THREADS_DOC = "The number of threads the producer uses to compress batches. With the default of 0, "
+            + "records are compressed as they are appended to a batch by the thread that calls <code>send()</code>. With a positive value "
+            + "and a <code>compression.type</code> other than <code>none</code>, records are appended uncompressed, so that a batch holds up to "
+            + "<code>batch.size</code> uncompressed bytes, and each batch is compressed as a whole by one of these threads once it is full or "
+            + "ready to be sent. This only applies to batches of the current message format; older formats are compressed as they are appended.";
+
+    /** <code>compression.zstd.dictionary</code> */
+    public static final String COMPRESSION_ZSTD_DICTIONARY_CONFIG = "compression.zstd.dictionary";
+    private static final String COMPRESSION_ZSTD_DICTIONARY_DOC = "The path of a zstd dictionary to compress batches with when <code>compression.type</code> "
+            + "is <code>zstd</code>, e.g. as trained by <code>kafka-zstd-dictionary-trainer.sh</code> from the records of the topics the producer "
+            + "writes to. A dictionary greatly improves the compression ratio of batches of small records. The id of the dictionary is written "
+            + "into every compressed batch, and the brokers and consumers must be configured with the same dictionary to read them. "
+            + "This only applies to batches of the current message format.";
+
+    /** <code>adaptive.batching.enable</code> */
+    public static final String ADAPTIVE_BATCHING_ENABLE_CONFIG = "adaptive.batching.enable";
+    private static final String ADAPTIVE_BATCHING_ENABLE_DOC = "When set to 'true', the producer tunes how long the batches of each partition linger and how "
+            + "large they grow before they are sent, with <code>" + LINGER_MS_CONFIG + "</code> and <code>" + BATCH_SIZE_CONFIG + "</code> as upper bounds. "
+            + "While requests to the leader of a partition are in flight, its batches linger longer and grow larger, so that fewer, larger requests are sent "
+            + "under load. While the connection to the leader is idle and batches are sent before they fill up, they are sent sooner, so that lingering "
+            + "does not add latency under low load. The linger never exceeds the average produce request latency of the leader.";
+
+    /** <code>compression.level</code> */
+    public static final String COMPRESSION_LEVEL_CONFIG = "compression.level";
+    private static final String COMPRESSION_LEVEL_DOC = "The level to compress batches at with the codec set by <code>compression.type</code>. "
+            + "Higher levels compress better but are slower, which suits topics kept for a long time, while lower levels leave more throughput "
+            + "for busy topics. The supported levels are 1 to 9 for <code>gzip</code>, 1 to 17 for <code>lz4</code>, of which levels above 2 use "
+            + "its much slower high compression mode, and 1 to 22 for <code>zstd</code>. The default of -1 uses the default level of the codec, "
+            + "i.e. 6 for <code>gzip</code>, 1 for <code>lz4</code> and 3 for <code>zstd</code>. The level is ignored by the other codecs.";
+
     static {
         CONFIG = new ConfigDef().define(BOOTSTRAP_SERVERS_CONFIG, Type.LIST, Collections.emptyList(), new ConfigDef.NonNullValidator(), Importance.HIGH, CommonClientConfigs.BOOTSTRAP_SERVERS_DOC)
                                 .define(CLIENT_DNS_LOOKUP_CONFIG,
@@ -358,7 +398,35 @@ public class ProducerConfig extends AbstractConfig {
                                         null,
                                         new ConfigDef.NonEmptyString(),
                                         Importance.LOW,
-                                        TRANSACTIONAL_ID_DOC);
+                                        TRANSACTIONAL_ID_DOC)
+                                .define(NUM_SENDER_THREADS_CONFIG,
+                                        Type.INT,
+                                        1,
+                                        atLeast(1),
+                                        Importance.LOW,
+                                        NUM_SENDER_THREADS_DOC)
+                                .define(COMPRESSION_THREADS_CONFIG,
+                                        Type.INT,
+                                        0,
+                                        atLeast(0),
+                                        Importance.LOW,
+                                        COMPRESSION_THREADS_DOC)
+                                .define(COMPRESSION_ZSTD_DICTIONARY_CONFIG,
+                                        Type.STRING,
+                                        null,
+                                        Importance.LOW,
+                                        COMPRESSION_ZSTD_DICTIONARY_DOC)
+                                .define(ADAPTIVE_BATCHING_ENABLE_CONFIG,
+                                        Type.BOOLEAN,
+                                        false,
+                                        Importance.LOW,
+                                        ADAPTIVE_BATCHING_ENABLE_DOC)
+                                .define(COMPRESSION_LEVEL_CONFIG,
+                                        Type.INT,
+                                        CompressionConfig.DEFAULT_LEVEL,
+                                        atLeast(CompressionConfig.DEFAULT_LEVEL),
+                                        Importance.LOW,
+                                        COMPRESSION_LEVEL_DOC);
     }
 
     @Override
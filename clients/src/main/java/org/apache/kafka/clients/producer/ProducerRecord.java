@@ -26,7 +26,8 @@ import org.apache.kafka.common.header.internals.RecordHeaders;
  * <p>
  * If a valid partition number is specified that partition will be used when sending the record. If no partition is
  * specified but a key is present a partition will be chosen using a hash of the key. If neither key nor partition is
- * present a partition will be assigned in a round-robin fashion.
+ * present a partition will be assigned such that consecutive records fill up the batch of one partition before
+ * moving on to another partition.
  * <p>
  * The record also has an associated timestamp. If the user did not provide a timestamp, the producer will stamp the
  * record with its current time. The timestamp eventually used by Kafka depends on the timestamp type configured for
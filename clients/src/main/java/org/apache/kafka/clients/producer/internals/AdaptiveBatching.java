@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tunes how long the batches of each partition linger and how large they grow before they are sent, within the
+ * bounds of <code>linger.ms</code> and <code>batch.size</code>, from what the sender threads observe when they drain
+ * the batches:
+ * <ul>
+ *     <li>If requests to the leader of the partition are still in flight, or the batch was held back while it was
+ *     sendable since the leader could not take another request or the partition was muted, records would wait for
+ *     the connection anyway, so both the linger and the batch size target grow to send fewer, larger requests. Held
+ *     back batches cover <code>max.in.flight.requests.per.connection=1</code>, where a leader is only drained once it
+ *     has no request in flight.</li>
+ *     <li>If the connection is idle and the batch was sent before it filled up, the linger only added latency, so both
+ *     shrink quickly.</li>
+ *     <li>The linger never exceeds the average produce latency of the leader, as lingering for longer than a round trip
+ *     delays records more than sending them in another request does.</li>
+ * </ul>
+ * The sender threads update the partitions led by their brokers, while the accumulator reads the current targets.
+ */
+public class AdaptiveBatching {
+    // How much the batching of a partition grows at a time, as a fraction of the configured bounds
+    private static final double INCREASE_STEP = 0.125;
+    // Below this fraction of the configured bounds the batches of a partition are sent right away
+    private static final double MIN_LEVEL = 1.0 / 64;
+    // The weight of each new produce latency in the average latency of a broker
+    private static final double LATENCY_SMOOTHING = 0.2;
+    // The smallest batch size target, unless batch.size is smaller
+    private static final int MIN_BATCH_SIZE_TARGET = 1024;
+
+    private final int maxLingerMs;
+    private final int batchSize;
+    private final int minBatchSizeTarget;
+    private final ConcurrentMap<TopicPartition, PartitionBatching> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Double> produceLatencyMs = new ConcurrentHashMap<>();
+    private final Sensor lingerSensor;
+    private final Sensor batchSizeTargetSensor;
+    private final Sensor batchFillRatioSensor;
+
+    /**
+     * @param maxLingerMs The configured linger, which bounds the linger of every partition
+     * @param batchSize The configured batch size, which bounds the batch size target of every partition
+     */
+    public AdaptiveBatching(int maxLingerMs, int batchSize, SenderMetricsRegistry metrics) {
+        this.maxLingerMs = maxLingerMs;
+        this.batchSize = batchSize;
+        this.minBatchSizeTarget = Math.min(MIN_BATCH_SIZE_TARGET, batchSize);
+        this.lingerSensor = metrics.sensor("adaptive-linger");
+        this.lingerSensor.add(metrics.adaptiveLingerMsAvg, new Avg());
+        this.lingerSensor.add(metrics.adaptiveLingerMsMax, new Max());
+        this.batchSizeTargetSensor = metrics.sensor("adaptive-batch-size-target");
+        this.batchSizeTargetSensor.add(metrics.adaptiveBatchSizeTargetAvg, new Avg());
+        this.batchFillRatioSensor = metrics.sensor("batch-fill-ratio");
+        this.batchFillRatioSensor.add(metrics.batchFillRatioAvg, new Avg());
+    }
+
+    /**
+     * @return how long the batches of the partition currently linger before they are sent
+     */
+    long lingerMs(TopicPartition tp) {
+        PartitionBatching batching = partitions.get(tp);
+        return batching == null ? 0 : batching.lingerMs;
+    }
+
+    /**
+     * @return true if the batch has reached the current batch size target of its partition
+     */
+    boolean isFull(ProducerBatch batch) {
+        PartitionBatching batching = partitions.get(batch.topicPartition);
+        int batchSizeTarget = batching == null ? minBatchSizeTarget : batching.batchSizeTarget;
+        return batch.estimatedSizeInBytes() >= batchSizeTarget;
+    }
+
+    /**
+     * Adapt the batching of the partition of a batch that has just been drained.
+     *
+     * @param nodeId The id of the leader the batch is sent to
+     * @param inFlightRequests The number of requests to the leader that were in flight when the batch was drained
+     */
+    void onDrain(ProducerBatch batch, String nodeId, int inFlightRequests) {
+        PartitionBatching batching = partitions.computeIfAbsent(batch.topicPartition, tp -> new PartitionBatching());
+        int size = batch.estimatedSizeInBytes();
+        boolean full = size >= batching.batchSizeTarget;
+        // A leader is only drained once it can take another request, so its in-flight requests may not show the load,
+        // but the batches that the sender held back for it do. Retried batches also waited for their backoff.
+        boolean heldBack = batch.attempts() == 0 && batch.wasHeldBackByLeader();
+        batchFillRatioSensor.record(Math.min(1.0, size / (double) batchSize));
+        lingerSensor.record(batching.lingerMs);
+        batchSizeTargetSensor.record(batching.batchSizeTarget);
+
+        synchronized (batching) {
+            if (inFlightRequests > 0 || heldBack)
+                batching.level = Math.min(1.0, batching.level + INCREASE_STEP);
+            else if (!full)
+                batching.level = batching.level / 2 < MIN_LEVEL ? 0 : batching.level / 2;
+            Double latencyMs = produceLatencyMs.get(nodeId);
+            double lingerBoundMs = latencyMs == null ? maxLingerMs : Math.min(maxLingerMs, latencyMs);
+            batching.lingerMs = (long) (batching.level * lingerBoundMs);
+            batching.batchSizeTarget = minBatchSizeTarget + (int) (batching.level * (batchSize - minBatchSizeTarget));
+        }
+    }
+
+    /**
+     * Record the latency of a produce request to the given node.
+     */
+    void onProduceLatency(String nodeId, long latencyMs) {
+        produceLatencyMs.merge(nodeId, (double) latencyMs,
+            (average, latency) -> average + LATENCY_SMOOTHING * (latency - average));
+    }
+
+    private final class PartitionBatching {
+        // How far the batching of the partition is between sending right away and the configured bounds
+        private double level = 0;
+        private volatile long lingerMs = 0;
+        private volatile int batchSizeTarget = minBatchSizeTarget;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.utils.KafkaThread;
+import org.apache.kafka.common.utils.LogContext;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of threads that compresses complete record batches, so that neither the threads that append records nor
+ * the sender threads spend time on compression. The records of such batches are appended uncompressed and the
+ * batches are only drained once their records have been compressed.
+ */
+public class BatchCompressor implements Closeable {
+    public static final String COMPRESSION_THREAD_PREFIX = "kafka-producer-compression-thread";
+
+    private final Logger log;
+    private final ExecutorService executor;
+    private final Runnable onCompletion;
+    private final SenderMetricsRegistry metrics;
+    private final Sensor compressionTimeSensor;
+    private final Time time;
+
+    /**
+     * @param numThreads The number of compression threads
+     * @param clientId The id of the producer, used to name the threads
+     * @param onCompletion Called after each batch was compressed, to wake up the sender threads
+     */
+    public BatchCompressor(LogContext logContext, int numThreads, String clientId, Runnable onCompletion,
+                           SenderMetricsRegistry metrics, Time time) {
+        this.log = logContext.logger(BatchCompressor.class);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(numThreads, runnable -> new KafkaThread(
+                COMPRESSION_THREAD_PREFIX + " | " + clientId + "-" + threadIndex.getAndIncrement(), runnable, true));
+        this.onCompletion = onCompletion;
+        this.metrics = metrics;
+        this.compressionTimeSensor = compressionTimeSensor(metrics);
+        this.time = time;
+    }
+
+    static Sensor compressionTimeSensor(SenderMetricsRegistry metrics) {
+        Sensor compressionTimeSensor = metrics.sensor("compression-time");
+        compressionTimeSensor.add(metrics.compressionTimeAvg, new Avg());
+        compressionTimeSensor.add(metrics.compressionTimeMax, new Max());
+        return compressionTimeSensor;
+    }
+
+    /**
+     * Compress the records of the given batch in the background. The batch must have been closed for appends with
+     * {@link ProducerBatch#startCompression(BufferPool)}. If the pool has been closed, the batch is compressed right away.
+     */
+    void compress(ProducerBatch batch) {
+        try {
+            executor.execute(() -> compressNow(batch));
+        } catch (RejectedExecutionException e) {
+            log.debug("Compressing batch for partition {} in the calling thread since the compression threads have " +
+                    "been closed", batch.topicPartition);
+            compressNow(batch);
+        }
+    }
+
+    private void compressNow(ProducerBatch batch) {
+        try {
+            long startNs = time.nanoseconds();
+            if (batch.compressRecords())
+                recordCompressionTime(batch.topicPartition.topic(), time.nanoseconds() - startNs);
+        } finally {
+            onCompletion.run();
+        }
+    }
+
+    void recordCompressionTime(String topic, long compressionTimeNs) {
+        double compressionTimeMs = compressionTimeNs / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        long now = time.milliseconds();
+        compressionTimeSensor.record(compressionTimeMs, now);
+        topicCompressionTimeSensor(topic).record(compressionTimeMs, now);
+    }
+
+    private Sensor topicCompressionTimeSensor(String topic) {
+        String name = "topic." + topic + ".compression-time";
+        Sensor sensor = metrics.getSensor(name);
+        if (sensor == null) {
+            Map<String, String> metricTags = Collections.singletonMap("topic", topic);
+            sensor = metrics.sensor(name);
+            sensor.add(metrics.topicCompressionTimeAvg(metricTags), new Avg());
+            sensor.add(metrics.topicCompressionTimeMax(metricTags), new Max());
+        }
+        return sensor;
+    }
+
+    /**
+     * Stop the compression threads. Batches that are compressed afterwards are compressed by the calling thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS))
+                log.warn("Timed out waiting for the compression threads to complete");
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -185,6 +185,30 @@ public class BufferPool {
             return buffer;
     }
 
+    /**
+     * Allocate a buffer of the given size if the memory is available right away. Threads that already wait for memory
+     * take precedence, so no buffer is allocated while there are any.
+     *
+     * @param size The buffer size to allocate in bytes
+     * @return The buffer, or null if it cannot be allocated without blocking
+     */
+    public ByteBuffer tryAllocate(int size) {
+        this.lock.lock();
+        try {
+            if (!this.waiters.isEmpty())
+                return null;
+            if (size == poolableSize && !this.free.isEmpty())
+                return this.free.pollFirst();
+            if (this.nonPooledAvailableMemory + freeSize() * (long) this.poolableSize < size)
+                return null;
+            freeUp(size);
+            this.nonPooledAvailableMemory -= size;
+        } finally {
+            lock.unlock();
+        }
+        return safeAllocateByteBuffer(size);
+    }
+
     // Protected for testing
     protected void recordWaitTime(long timeNs) {
         this.waitTime.record(timeNs, time.milliseconds());
@@ -22,6 +22,7 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.RecordBatchTooLargeException;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.record.AbstractRecords;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.record.CompressionRatioEstimator;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.MemoryRecords;
@@ -63,7 +64,10 @@ public final class ProducerBatch {
     final ProduceRequestResult produceFuture;
 
     private final List<Thunk> thunks = new ArrayList<>();
-    private final MemoryRecordsBuilder recordsBuilder;
+    // The builder of the records to send, which becomes the compressed builder once a deferred compression is applied
+    private MemoryRecordsBuilder recordsBuilder;
+    // The builder the records are appended to, which owns the buffer of the batch
+    private final MemoryRecordsBuilder appendRecordsBuilder;
     private final AtomicInteger attempts = new AtomicInteger(0);
     private final boolean isSplitBatch;
     private final AtomicReference<FinalState> finalState = new AtomicReference<>(null);
@@ -73,17 +77,53 @@ public final class ProducerBatch {
     private long lastAttemptMs;
     private long lastAppendTime;
     private long drainedMs;
+    // Whether the batch was sendable but held back since its leader could not take it, guarded by the lock of its deque
+    private boolean heldBackByLeader;
     private boolean retry;
     private boolean reopened;
 
+    // The compression of the records if they are appended uncompressed and compressed as a whole by a
+    // BatchCompressor, null if they are compressed as they are appended
+    private final CompressionConfig deferredCompression;
+    private MemoryRecords uncompressedRecords;
+    private volatile MemoryRecordsBuilder compressedRecordsBuilder;
+    private volatile boolean compressionCompleted;
+    // Guards the hand-over of the buffer of the batch between a compression thread and the release of the batch
+    private final Object compressionLock = new Object();
+    // Whether a compression thread reads the uncompressed records, which are a view over the buffer of the batch
+    private boolean compressing;
+    // Returns the buffer of the batch to its pool once the compression that reads it completed
+    private Runnable releaseAfterCompression;
+    // The pool of the buffer the compressed records are written to, and that buffer once it is allocated
+    private BufferPool compressionBufferPool;
+    private ByteBuffer compressionBuffer;
+
     public ProducerBatch(TopicPartition tp, MemoryRecordsBuilder recordsBuilder, long createdMs) {
         this(tp, recordsBuilder, createdMs, false);
     }
 
     public ProducerBatch(TopicPartition tp, MemoryRecordsBuilder recordsBuilder, long createdMs, boolean isSplitBatch) {
+        this(tp, recordsBuilder, createdMs, isSplitBatch, null);
+    }
+
+    /**
+     * Create a batch whose records are appended uncompressed to the given builder and compressed with the given
+     * compression once the batch is complete, see {@link #startCompression(BufferPool)}.
+     */
+    public ProducerBatch(TopicPartition tp, MemoryRecordsBuilder recordsBuilder, long createdMs,
+                         CompressionConfig deferredCompression) {
+        this(tp, recordsBuilder, createdMs, false, deferredCompression);
+    }
+
+    private ProducerBatch(TopicPartition tp, MemoryRecordsBuilder recordsBuilder, long createdMs, boolean isSplitBatch,
+                          CompressionConfig deferredCompression) {
+        if (deferredCompression != null && recordsBuilder.compressionType() != CompressionType.NONE)
+            throw new IllegalArgumentException("Records with deferred compression must be appended uncompressed");
         this.createdMs = createdMs;
         this.lastAttemptMs = createdMs;
         this.recordsBuilder = recordsBuilder;
+        this.appendRecordsBuilder = recordsBuilder;
+        this.deferredCompression = deferredCompression;
         this.topicPartition = tp;
         this.lastAppendTime = createdMs;
         this.produceFuture = new ProduceRequestResult(topicPartition);
@@ -298,7 +338,7 @@ public final class ProducerBatch {
         // Note that we intentionally do not set producer state (producerId, epoch, sequence, and isTransactional)
         // for the newly created batch. This will be set when the batch is dequeued for sending (which is consistent
         // with how normal batches are handled).
-        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, magic(), recordsBuilder.compressionType(),
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, magic(), recordsBuilder.compressionConfig(),
                 TimestampType.CREATE_TIME, 0L);
         return new ProducerBatch(topicPartition, builder, this.createdMs, true);
     }
@@ -307,6 +347,127 @@ public final class ProducerBatch {
         return recordsBuilder.compressionType() != CompressionType.NONE;
     }
 
+    /**
+     * @return true if the records are compressed as a whole once the batch is complete and that has not happened yet
+     */
+    boolean isCompressionPending() {
+        return deferredCompression != null && !compressionCompleted;
+    }
+
+    boolean isCompressionStarted() {
+        return uncompressedRecords != null;
+    }
+
+    /**
+     * Close the batch for appends ahead of the deferred compression of its records by {@link #compressRecords()}.
+     *
+     * @param bufferPool The pool to allocate the buffer for the compressed records from, which is returned to it
+     *                   along with the buffer of the batch by {@link #releaseBuffer(Runnable)}
+     */
+    void startCompression(BufferPool bufferPool) {
+        compressionBufferPool = bufferPool;
+        appendRecordsBuilder.close();
+        uncompressedRecords = appendRecordsBuilder.build();
+    }
+
+    /**
+     * Compress the records of a batch with deferred compression. This may be called from any thread once
+     * {@link #startCompression(BufferPool)} has been called, the result is only used by {@link #applyCompression()}.
+     * The records of a batch that was completed in the meantime, e.g. since it expired or was aborted, are not
+     * compressed, since the buffer that holds them may already be released.
+     * <p>
+     * The compressed records are written to a buffer from the pool of the batch, so that they count against the
+     * memory of the producer. If the pool cannot provide the buffer right away, the records are sent uncompressed
+     * rather than holding up the compression thread.
+     *
+     * @return true if the records were compressed or failed to compress, false if the batch was completed before
+     */
+    boolean compressRecords() {
+        synchronized (compressionLock) {
+            if (isDone()) {
+                compressionCompleted = true;
+                return false;
+            }
+            compressing = true;
+        }
+        MemoryRecordsBuilder builder = null;
+        try {
+            ByteBuffer buffer = compressionBufferPool.tryAllocate(uncompressedRecords.sizeInBytes());
+            if (buffer == null) {
+                log.debug("Sending batch for partition {} uncompressed since the buffer memory is exhausted",
+                        topicPartition);
+                return true;
+            }
+            compressionBuffer = buffer;
+            builder = MemoryRecords.builder(buffer, magic(), deferredCompression, TimestampType.CREATE_TIME, 0L);
+            for (RecordBatch batch : uncompressedRecords.batches()) {
+                for (Record record : batch)
+                    builder.append(record.timestamp(), record.key(), record.value(), record.headers());
+            }
+            // The header is written when the batch is closed, once its producer state is known
+            builder.closeForRecordAppends();
+        } catch (RuntimeException e) {
+            log.warn("Failed to compress batch for partition {}, sending it uncompressed", topicPartition, e);
+            builder = null;
+            releaseCompressionBuffer();
+        } finally {
+            compressedRecordsBuilder = builder;
+            compressionCompleted = true;
+            Runnable release;
+            synchronized (compressionLock) {
+                compressing = false;
+                release = releaseAfterCompression;
+                releaseAfterCompression = null;
+            }
+            if (release != null)
+                release.run();
+        }
+        return true;
+    }
+
+    /**
+     * Release the buffer of the batch with the given action, along with the buffer of its compressed records. If a
+     * compression thread still reads the records of the batch, the buffers are only released once it is done, so that
+     * they are not reused while they are in use.
+     */
+    void releaseBuffer(Runnable release) {
+        Runnable releaseAll = () -> {
+            release.run();
+            releaseCompressionBuffer();
+        };
+        synchronized (compressionLock) {
+            if (compressing) {
+                releaseAfterCompression = releaseAll;
+                return;
+            }
+        }
+        releaseAll.run();
+    }
+
+    private void releaseCompressionBuffer() {
+        if (compressionBuffer != null) {
+            compressionBufferPool.deallocate(compressionBuffer);
+            compressionBuffer = null;
+        }
+    }
+
+    /**
+     * Replace the uncompressed records with the compressed ones once the deferred compression completed. If the
+     * compression failed, the uncompressed records are sent instead.
+     */
+    void applyCompression() {
+        if (deferredCompression == null || recordsBuilder != appendRecordsBuilder || !compressionCompleted)
+            return;
+        MemoryRecordsBuilder compressed = compressedRecordsBuilder;
+        if (compressed != null)
+            recordsBuilder = compressed;
+        else
+            // Reopen the closed batch so that its producer state can still be set before it is closed again
+            recordsBuilder.reopenAndRewriteProducerState(RecordBatch.NO_PRODUCER_ID, RecordBatch.NO_PRODUCER_EPOCH,
+                    RecordBatch.NO_SEQUENCE, false);
+        uncompressedRecords = null;
+    }
+
     /**
      * A callback and the associated FutureRecordMetadata argument to pass to it.
      */
@@ -356,6 +517,18 @@ public final class ProducerBatch {
         this.drainedMs = Math.max(drainedMs, nowMs);
     }
 
+    void heldBackByLeader() {
+        this.heldBackByLeader = true;
+    }
+
+    /**
+     * @return true if the batch was sendable at some point before it was drained, but its leader could not take another
+     * request or its partition was muted
+     */
+    boolean wasHeldBackByLeader() {
+        return heldBackByLeader;
+    }
+
     boolean isSplitBatch() {
         return isSplitBatch;
     }
@@ -426,11 +599,11 @@ public final class ProducerBatch {
     }
 
     public ByteBuffer buffer() {
-        return recordsBuilder.buffer();
+        return appendRecordsBuilder.buffer();
     }
 
     public int initialCapacity() {
-        return recordsBuilder.initialCapacity();
+        return appendRecordsBuilder.initialCapacity();
     }
 
     public boolean isWritable() {
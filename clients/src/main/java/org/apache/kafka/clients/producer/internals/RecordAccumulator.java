@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.kafka.clients.ApiVersions;
@@ -44,6 +45,7 @@ import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.metrics.stats.Meter;
 import org.apache.kafka.common.record.AbstractRecords;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.record.CompressionRatioEstimator;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.MemoryRecords;
@@ -71,7 +73,7 @@ public final class RecordAccumulator {
     private final AtomicInteger flushesInProgress;
     private final AtomicInteger appendsInProgress;
     private final int batchSize;
-    private final CompressionType compression;
+    private final CompressionConfig compression;
     private final int lingerMs;
     private final long retryBackoffMs;
     private final int deliveryTimeoutMs;
@@ -80,11 +82,13 @@ public final class RecordAccumulator {
     private final ApiVersions apiVersions;
     private final ConcurrentMap<TopicPartition, Deque<ProducerBatch>> batches;
     private final IncompleteBatches incomplete;
-    // The following variables are only accessed by the sender thread, so we don't need to protect them.
-    private final Map<TopicPartition, Long> muted;
-    private int drainIndex;
+    // The following variables are shared by the sender threads. Each node is drained by a single sender thread.
+    private final ConcurrentMap<TopicPartition, Long> muted;
+    private final ConcurrentMap<Integer, Integer> nodesDrainIndex;
     private final TransactionManager transactionManager;
-    private long nextBatchExpiryTimeMs = Long.MAX_VALUE; // the earliest time (absolute) a batch will expire.
+    private final BatchCompressor compressor;
+    private final AdaptiveBatching adaptiveBatching;
+    private volatile long nextBatchExpiryTimeMs = Long.MAX_VALUE; // the earliest time (absolute) a batch will expire.
 
     /**
      * Create a new record accumulator
@@ -115,8 +119,36 @@ public final class RecordAccumulator {
                              ApiVersions apiVersions,
                              TransactionManager transactionManager,
                              BufferPool bufferPool) {
+        this(logContext, batchSize, CompressionConfig.of(compression), lingerMs, retryBackoffMs, deliveryTimeoutMs,
+            metrics, metricGrpName, time, apiVersions, transactionManager, bufferPool, null, null);
+    }
+
+    /**
+     * Create a new record accumulator which leaves the compression of the records of each batch to the given
+     * compressor and may adapt the batching of each partition to the load, see {@link #RecordAccumulator(LogContext,
+     * int, CompressionType, int, long, int, Metrics, String, Time, ApiVersions, TransactionManager, BufferPool)} for
+     * the other parameters.
+     *
+     * @param compression The compression of the records, which may use a zstd dictionary
+     * @param compressor The compressor of the batches, or null to compress the records as they are appended
+     * @param adaptiveBatching The tuning of the linger and batch size of each partition, or null to use lingerMs and
+     *        batchSize as they are
+     */
+    public RecordAccumulator(LogContext logContext,
+                             int batchSize,
+                             CompressionConfig compression,
+                             int lingerMs,
+                             long retryBackoffMs,
+                             int deliveryTimeoutMs,
+                             Metrics metrics,
+                             String metricGrpName,
+                             Time time,
+                             ApiVersions apiVersions,
+                             TransactionManager transactionManager,
+                             BufferPool bufferPool,
+                             BatchCompressor compressor,
+                             AdaptiveBatching adaptiveBatching) {
         this.log = logContext.logger(RecordAccumulator.class);
-        this.drainIndex = 0;
         this.closed = false;
         this.flushesInProgress = new AtomicInteger(0);
         this.appendsInProgress = new AtomicInteger(0);
@@ -128,10 +160,13 @@ public final class RecordAccumulator {
         this.batches = new CopyOnWriteMap<>();
         this.free = bufferPool;
         this.incomplete = new IncompleteBatches();
-        this.muted = new HashMap<>();
+        this.muted = new ConcurrentHashMap<>();
+        this.nodesDrainIndex = new ConcurrentHashMap<>();
         this.time = time;
         this.apiVersions = apiVersions;
         this.transactionManager = transactionManager;
+        this.compressor = compression.type() == CompressionType.NONE ? null : compressor;
+        this.adaptiveBatching = adaptiveBatching;
         registerMetrics(metrics, metricGrpName);
     }
 
@@ -179,6 +214,8 @@ public final class RecordAccumulator {
      * @param headers the Headers for the record
      * @param callback The user-supplied callback to execute when the request is complete
      * @param maxTimeToBlock The maximum time in milliseconds to block for buffer memory to be available
+     * @param abortOnNewBatch A boolean that indicates returning before a new batch is created and
+     *                        running the partitioner's onNewBatch method before trying to append again
      */
     public RecordAppendResult append(TopicPartition tp,
                                      long timestamp,
@@ -186,7 +223,8 @@ public final class RecordAccumulator {
                                      byte[] value,
                                      Header[] headers,
                                      Callback callback,
-                                     long maxTimeToBlock) throws InterruptedException {
+                                     long maxTimeToBlock,
+                                     boolean abortOnNewBatch) throws InterruptedException {
         // We keep track of the number of appending thread to make sure we do not miss batches in
         // abortIncompleteBatches().
         appendsInProgress.incrementAndGet();
@@ -204,8 +242,13 @@ public final class RecordAccumulator {
             }
 
             // we don't have an in-progress record batch try to allocate a new batch
+            if (abortOnNewBatch) {
+                // Return a result that will cause another call to append.
+                return new RecordAppendResult(null, false, false, true);
+            }
+
             byte maxUsableMagic = apiVersions.maxUsableProduceMagic();
-            int size = Math.max(this.batchSize, AbstractRecords.estimateSizeInBytesUpperBound(maxUsableMagic, compression, key, value, headers));
+            int size = Math.max(this.batchSize, AbstractRecords.estimateSizeInBytesUpperBound(maxUsableMagic, compression.type(), key, value, headers));
             log.trace("Allocating a new {} byte message buffer for topic {} partition {}", size, tp.topic(), tp.partition());
             buffer = free.allocate(size, maxTimeToBlock);
             synchronized (dq) {
@@ -219,8 +262,7 @@ public final class RecordAccumulator {
                     return appendResult;
                 }
 
-                MemoryRecordsBuilder recordsBuilder = recordsBuilder(buffer, maxUsableMagic);
-                ProducerBatch batch = new ProducerBatch(tp, recordsBuilder, time.milliseconds());
+                ProducerBatch batch = newBatch(tp, buffer, maxUsableMagic);
                 FutureRecordMetadata future = Utils.notNull(batch.tryAppend(timestamp, key, value, headers, callback, time.milliseconds()));
 
                 dq.addLast(batch);
@@ -228,7 +270,7 @@ public final class RecordAccumulator {
 
                 // Don't deallocate this buffer in the finally block as it's being used in the record batch
                 buffer = null;
-                return new RecordAppendResult(future, dq.size() > 1 || batch.isFull(), true);
+                return new RecordAppendResult(future, dq.size() > 1 || isFull(batch), true, false);
             }
         } finally {
             if (buffer != null)
@@ -237,12 +279,53 @@ public final class RecordAccumulator {
         }
     }
 
-    private MemoryRecordsBuilder recordsBuilder(ByteBuffer buffer, byte maxUsableMagic) {
+    private ProducerBatch newBatch(TopicPartition tp, ByteBuffer buffer, byte maxUsableMagic) {
         if (transactionManager != null && maxUsableMagic < RecordBatch.MAGIC_VALUE_V2) {
             throw new UnsupportedVersionException("Attempting to use idempotence with a broker which does not " +
                 "support the required message format (v2). The broker must be version 0.11 or later.");
         }
-        return MemoryRecords.builder(buffer, maxUsableMagic, compression, TimestampType.CREATE_TIME, 0L);
+        // The compression of the records is only deferred for the v2 format, whose batches compress all their
+        // records the same way whether they are compressed as they are appended or afterwards
+        if (compressor != null && maxUsableMagic >= RecordBatch.MAGIC_VALUE_V2) {
+            MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, maxUsableMagic, CompressionType.NONE,
+                TimestampType.CREATE_TIME, 0L);
+            return new ProducerBatch(tp, builder, time.milliseconds(), compression);
+        }
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, maxUsableMagic, compression,
+            TimestampType.CREATE_TIME, 0L);
+        return new ProducerBatch(tp, builder, time.milliseconds());
+    }
+
+    /**
+     * Close the given batch for appends. If the compression of its records is deferred, start compressing it.
+     * This must be called under the lock of the deque of the batch.
+     */
+    private void closeForRecordAppends(ProducerBatch batch) {
+        if (batch.isCompressionPending())
+            maybeStartCompression(batch);
+        else
+            batch.closeForRecordAppends();
+    }
+
+    private void maybeStartCompression(ProducerBatch batch) {
+        if (!batch.isCompressionStarted()) {
+            batch.startCompression(free);
+            compressor.compress(batch);
+        }
+    }
+
+    /**
+     * Check whether a batch is ready to be drained as far as its compression is concerned, starting the deferred
+     * compression of its records if needed. This must be called under the lock of the deque of the batch.
+     */
+    private boolean isCompressedForDrain(ProducerBatch batch) {
+        if (batch.isCompressionPending()) {
+            // The sender threads are woken up once the compression completes
+            maybeStartCompression(batch);
+            return false;
+        }
+        batch.applyCompression();
+        return true;
     }
 
     /**
@@ -259,18 +342,37 @@ public final class RecordAccumulator {
         if (last != null) {
             FutureRecordMetadata future = last.tryAppend(timestamp, key, value, headers, callback, time.milliseconds());
             if (future == null)
-                last.closeForRecordAppends();
+                closeForRecordAppends(last);
             else
-                return new RecordAppendResult(future, deque.size() > 1 || last.isFull(), false);
+                return new RecordAppendResult(future, deque.size() > 1 || isFull(last), false, false);
         }
         return null;
     }
 
+    private boolean isFull(ProducerBatch batch) {
+        return batch.isFull() || (adaptiveBatching != null && adaptiveBatching.isFull(batch));
+    }
+
+    private long lingerMs(TopicPartition tp) {
+        return adaptiveBatching == null ? lingerMs : adaptiveBatching.lingerMs(tp);
+    }
+
+    /**
+     * @return the tuning of the batching of each partition, or null if the configured linger and batch size are used
+     */
+    AdaptiveBatching adaptiveBatching() {
+        return adaptiveBatching;
+    }
+
     private boolean isMuted(TopicPartition tp, long now) {
-        boolean result = muted.containsKey(tp) && muted.get(tp) > now;
-        if (!result)
-            muted.remove(tp);
-        return result;
+        Long throttleUntilTimeMs = muted.get(tp);
+        if (throttleUntilTimeMs == null)
+            return false;
+        if (throttleUntilTimeMs > now)
+            return true;
+        // Only remove the expired entry, not one that another sender thread has put in the meantime
+        muted.remove(tp, throttleUntilTimeMs);
+        return false;
     }
 
     public void resetNextBatchExpiryTime() {
@@ -340,7 +442,7 @@ public final class RecordAccumulator {
         // Reset the estimated compression ratio to the initial value or the big batch compression ratio, whichever
         // is bigger. There are several different ways to do the reset. We chose the most conservative one to ensure
         // the split doesn't happen too often.
-        CompressionRatioEstimator.setEstimation(bigBatch.topicPartition.topic(), compression,
+        CompressionRatioEstimator.setEstimation(bigBatch.topicPartition.topic(), compression.type(),
                                                 Math.max(1.0f, (float) bigBatch.compressionRatio()));
         Deque<ProducerBatch> dq = bigBatch.split(this.batchSize);
         int numSplitBatches = dq.size();
@@ -428,7 +530,8 @@ public final class RecordAccumulator {
      * <li><b>and <i>any</i></b> of the following are true</li>
      * <ul>
      *     <li>The record set is full</li>
-     *     <li>The record set has sat in the accumulator for at least lingerMs milliseconds</li>
+     *     <li>The record set has sat in the accumulator for at least lingerMs milliseconds, or the linger of its
+     *     partition if the batching is adaptive</li>
      *     <li>The accumulator is out of memory and threads are blocking waiting for data (in this case all partitions
      *     are immediately considered ready).</li>
      *     <li>The accumulator has been closed</li>
@@ -451,17 +554,22 @@ public final class RecordAccumulator {
                     // This is a partition for which leader is not known, but messages are available to send.
                     // Note that entries are currently not removed from batches when deque is empty.
                     unknownLeaderTopics.add(part.topic());
-                } else if (!readyNodes.contains(leader) && !isMuted(part, nowMs)) {
+                } else if (isMuted(part, nowMs)) {
+                    // the batches of the partition wait for the batch in flight or for the throttle of the leader
+                    markIfHeldBack(part, deque, nowMs);
+                } else if (!readyNodes.contains(leader)) {
                     ProducerBatch batch = deque.peekFirst();
                     if (batch != null) {
                         long waitedTimeMs = batch.waitedTimeMs(nowMs);
                         boolean backingOff = batch.attempts() > 0 && waitedTimeMs < retryBackoffMs;
-                        long timeToWaitMs = backingOff ? retryBackoffMs : lingerMs;
-                        boolean full = deque.size() > 1 || batch.isFull();
+                        long timeToWaitMs = backingOff ? retryBackoffMs : lingerMs(part);
+                        boolean full = deque.size() > 1 || isFull(batch);
                         boolean expired = waitedTimeMs >= timeToWaitMs;
                         boolean sendable = full || expired || exhausted || closed || flushInProgress();
                         if (sendable && !backingOff) {
-                            readyNodes.add(leader);
+                            // A batch whose compression is still in progress only becomes ready once it completes
+                            if (isCompressedForDrain(batch))
+                                readyNodes.add(leader);
                         } else {
                             long timeLeftMs = Math.max(timeToWaitMs - waitedTimeMs, 0);
                             // Note that this results in a conservative estimate since an un-sendable partition may have
@@ -519,80 +627,143 @@ public final class RecordAccumulator {
         return false;
     }
 
-    private List<ProducerBatch> drainBatchesForOneNode(Cluster cluster, Node node, int maxSize, long now) {
+    private void assignProducerState(ProducerBatch batch) {
+        // If the batch already has an assigned sequence, then we should not change the producer id and
+        // sequence number, since this may introduce duplicates. In particular, the previous attempt
+        // may actually have been accepted, and if we change the producer id and sequence here, this
+        // attempt will also be accepted, causing a duplicate.
+        //
+        // Additionally, we update the next sequence number bound for the partition, and also have
+        // the transaction manager track the batch so as to ensure that sequence ordering is maintained
+        // even if we receive out of order responses.
+        ProducerIdAndEpoch producerIdAndEpoch = transactionManager.producerIdAndEpoch();
+        batch.setProducerState(producerIdAndEpoch, transactionManager.sequenceNumber(batch.topicPartition),
+            transactionManager.isTransactional());
+        transactionManager.incrementSequenceNumber(batch.topicPartition, batch.recordCount);
+        log.debug("Assigned producerId {} and producerEpoch {} to batch with base sequence " +
+                "{} being sent to partition {}", producerIdAndEpoch.producerId,
+            producerIdAndEpoch.epoch, batch.baseSequence(), batch.topicPartition);
+
+        transactionManager.addInFlightBatch(batch);
+    }
+
+    /**
+     * Remember that the sendable batches of the partitions led by the given node are held back since the node cannot
+     * take another request. Adaptive batching counts these batches as load on the leader once they are drained.
+     */
+    public void markHeldBackByLeader(Cluster cluster, Node node, long nowMs) {
+        if (adaptiveBatching == null)
+            return;
+        for (PartitionInfo part : cluster.partitionsForNode(node.id())) {
+            TopicPartition tp = new TopicPartition(part.topic(), part.partition());
+            Deque<ProducerBatch> deque = getDeque(tp);
+            if (deque == null)
+                continue;
+            synchronized (deque) {
+                markIfHeldBack(tp, deque, nowMs);
+            }
+        }
+    }
+
+    /**
+     * Mark the first batch of the partition as held back by its leader if it is sendable. Retried batches are not
+     * marked, since they wait for their backoff. Must be called under the lock of the deque.
+     */
+    private void markIfHeldBack(TopicPartition tp, Deque<ProducerBatch> deque, long nowMs) {
+        if (adaptiveBatching == null)
+            return;
+        ProducerBatch first = deque.peekFirst();
+        if (first != null && first.attempts() == 0 &&
+            (deque.size() > 1 || isFull(first) || first.waitedTimeMs(nowMs) >= lingerMs(tp)))
+            first.heldBackByLeader();
+    }
+
+    private boolean isDrainable(ProducerBatch first, long now) {
+        boolean backoff = first.attempts() > 0 && first.waitedTimeMs(now) < retryBackoffMs;
+        return !backoff && isCompressedForDrain(first);
+    }
+
+    private List<ProducerBatch> drainBatchesForOneNode(Cluster cluster, Node node, int maxSize, long now,
+                                                       boolean mutePartitions) {
         int size = 0;
         List<PartitionInfo> parts = cluster.partitionsForNode(node.id());
         List<ProducerBatch> ready = new ArrayList<>();
         /* to make starvation less likely this loop doesn't start at 0 */
-        int start = drainIndex = drainIndex % parts.size();
+        Integer lastDrainIndex = nodesDrainIndex.get(node.id());
+        int drainIndex = (lastDrainIndex == null ? 0 : lastDrainIndex) % parts.size();
+        int start = drainIndex;
+        // the first partition whose batch did not fit into the request, the next drain starts there
+        int skippedIndex = -1;
         do {
             PartitionInfo part = parts.get(drainIndex);
             TopicPartition tp = new TopicPartition(part.topic(), part.partition());
-            this.drainIndex = (this.drainIndex + 1) % parts.size();
-
-            // Only proceed if the partition has no in-flight batches.
-            if (isMuted(tp, now))
-                continue;
+            int partIndex = drainIndex;
+            drainIndex = (drainIndex + 1) % parts.size();
 
             Deque<ProducerBatch> deque = getDeque(tp);
             if (deque == null)
                 continue;
 
             synchronized (deque) {
+                // Only proceed if the partition has no in-flight batches. This is checked under the lock of the deque,
+                // since a partition may move to the node of another sender thread while it has a batch in flight.
+                if (isMuted(tp, now)) {
+                    markIfHeldBack(tp, deque, now);
+                    continue;
+                }
+
                 // invariant: !isMuted(tp,now) && deque != null
                 ProducerBatch first = deque.peekFirst();
                 if (first == null)
                     continue;
 
                 // first != null
-                boolean backoff = first.attempts() > 0 && first.waitedTimeMs(now) < retryBackoffMs;
-                // Only drain the batch if it is not during backoff period.
-                if (backoff)
+                // Only drain the batch if it is not during backoff period and once its records are compressed.
+                if (!isDrainable(first, now))
                     continue;
 
                 if (size + first.estimatedSizeInBytes() > maxSize && !ready.isEmpty()) {
                     // there is a rare case that a single batch size is larger than the request size due to
-                    // compression; in this case we will still eventually send this batch in a single request
-                    break;
+                    // compression; in this case we will still eventually send this batch in a single request.
+                    // Keep packing the smaller batches of the remaining partitions into the space that is left,
+                    // so that many small partitions share one request rather than spilling into the next one.
+                    markIfHeldBack(tp, deque, now);
+                    if (skippedIndex < 0)
+                        skippedIndex = partIndex;
+                    continue;
                 } else {
                     if (shouldStopDrainBatchesForPartition(first, tp))
                         break;
 
-                    boolean isTransactional = transactionManager != null ? transactionManager.isTransactional() : false;
-                    ProducerIdAndEpoch producerIdAndEpoch =
-                        transactionManager != null ? transactionManager.producerIdAndEpoch() : null;
-                    ProducerBatch batch = deque.pollFirst();
-                    if (producerIdAndEpoch != null && !batch.hasSequence()) {
-                        // If the batch already has an assigned sequence, then we should not change the producer id and
-                        // sequence number, since this may introduce duplicates. In particular, the previous attempt
-                        // may actually have been accepted, and if we change the producer id and sequence here, this
-                        // attempt will also be accepted, causing a duplicate.
-                        //
-                        // Additionally, we update the next sequence number bound for the partition, and also have
-                        // the transaction manager track the batch so as to ensure that sequence ordering is maintained
-                        // even if we receive out of order responses.
-                        batch.setProducerState(producerIdAndEpoch, transactionManager.sequenceNumber(batch.topicPartition), isTransactional);
-                        transactionManager.incrementSequenceNumber(batch.topicPartition, batch.recordCount);
-                        log.debug("Assigned producerId {} and producerEpoch {} to batch with base sequence " +
-                                "{} being sent to partition {}", producerIdAndEpoch.producerId,
-                            producerIdAndEpoch.epoch, batch.baseSequence(), tp);
-
-                        transactionManager.addInFlightBatch(batch);
-                    }
-                    batch.close();
+                    ProducerBatch batch = pollForDrain(tp, deque, now, mutePartitions);
                     size += batch.records().sizeInBytes();
                     ready.add(batch);
-
-                    batch.drained(now);
                 }
             }
-        } while (start != drainIndex);
+        } while (start != drainIndex && size < maxSize);
+        nodesDrainIndex.put(node.id(), skippedIndex < 0 ? drainIndex : skippedIndex);
         return ready;
     }
 
+    /**
+     * Remove the first batch of the partition for sending. Must be called under the lock of the deque.
+     */
+    private ProducerBatch pollForDrain(TopicPartition tp, Deque<ProducerBatch> deque, long now, boolean mutePartitions) {
+        ProducerBatch batch = deque.pollFirst();
+        if (transactionManager != null && !batch.hasSequence())
+            assignProducerState(batch);
+        if (mutePartitions)
+            mutePartition(tp);
+        batch.close();
+        batch.drained(now);
+        return batch;
+    }
+
     /**
      * Drain all the data for the given nodes and collate them into a list of batches that will fit within the specified
-     * size on a per-node basis. This method attempts to avoid choosing the same topic-node over and over.
+     * size on a per-node basis. This method attempts to avoid choosing the same topic-node over and over. A batch that
+     * does not fit into the remaining size is left for the next drain, which starts at its partition, while the smaller
+     * batches of the other partitions are still packed into the request.
      *
      * @param cluster The current cluster metadata
      * @param nodes The list of node to drain
@@ -601,12 +772,24 @@ public final class RecordAccumulator {
      * @return A list of {@link ProducerBatch} for each node specified with total size less than the requested maxSize.
      */
     public Map<Integer, List<ProducerBatch>> drain(Cluster cluster, Set<Node> nodes, int maxSize, long now) {
+        return drain(cluster, nodes, maxSize, now, false);
+    }
+
+    /**
+     * Drain all the data for the given nodes like {@link #drain(Cluster, Set, int, long)}, optionally muting the
+     * partitions of the drained batches. The partitions are muted atomically with the drain of their batches, so
+     * that no other sender thread can drain a partition that has a batch in flight.
+     *
+     * @param mutePartitions Whether to mute the partitions of the drained batches until they are unmuted
+     */
+    public Map<Integer, List<ProducerBatch>> drain(Cluster cluster, Set<Node> nodes, int maxSize, long now,
+                                                   boolean mutePartitions) {
         if (nodes.isEmpty())
             return Collections.emptyMap();
 
         Map<Integer, List<ProducerBatch>> batches = new HashMap<>();
         for (Node node : nodes) {
-            List<ProducerBatch> ready = drainBatchesForOneNode(cluster, node, maxSize, now);
+            List<ProducerBatch> ready = drainBatchesForOneNode(cluster, node, maxSize, now, mutePartitions);
             batches.put(node.id(), ready);
         }
         return batches;
@@ -646,7 +829,7 @@ public final class RecordAccumulator {
         // Only deallocate the batch if it is not a split batch because split batch are allocated outside the
         // buffer pool.
         if (!batch.isSplitBatch())
-            free.deallocate(batch.buffer(), batch.initialCapacity());
+            batch.releaseBuffer(() -> free.deallocate(batch.buffer(), batch.initialCapacity()));
     }
 
     /**
@@ -787,11 +970,13 @@ public final class RecordAccumulator {
         public final FutureRecordMetadata future;
         public final boolean batchIsFull;
         public final boolean newBatchCreated;
+        public final boolean abortForNewBatch;
 
-        public RecordAppendResult(FutureRecordMetadata future, boolean batchIsFull, boolean newBatchCreated) {
+        public RecordAppendResult(FutureRecordMetadata future, boolean batchIsFull, boolean newBatchCreated, boolean abortForNewBatch) {
             this.future = future;
             this.batchIsFull = batchIsFull;
             this.newBatchCreated = newBatchCreated;
+            this.abortForNewBatch = abortForNewBatch;
         }
     }
 
@@ -44,6 +44,7 @@ import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.metrics.stats.Avg;
 import org.apache.kafka.common.metrics.stats.Max;
 import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.metrics.stats.Min;
 import org.apache.kafka.common.protocol.Errors;
 import org.apache.kafka.common.record.MemoryRecords;
 import org.apache.kafka.common.record.RecordBatch;
@@ -70,6 +71,9 @@ import static org.apache.kafka.common.record.RecordBatch.NO_TIMESTAMP;
 /**
  * The background thread that handles the sending of produce requests to the Kafka cluster. This thread makes metadata
  * requests to renew its view of the cluster and then sends produce requests to the appropriate nodes.
+ * <p>
+ * A producer may run several senders, each of which only drains and sends the batches of the nodes of its
+ * {@link SenderShard}. Only the primary sender handles the producer id and the transactional requests.
  */
 public class Sender implements Runnable {
 
@@ -123,6 +127,9 @@ public class Sender implements Runnable {
     // A per-partition queue of batches ordered by creation time for tracking the in-flight batches
     private final Map<TopicPartition, List<ProducerBatch>> inFlightBatches;
 
+    /* the nodes this sender sends to out of the senders of the producer */
+    private final SenderShard shard;
+
     public Sender(LogContext logContext,
                   KafkaClient client,
                   Metadata metadata,
@@ -137,6 +144,26 @@ public class Sender implements Runnable {
                   long retryBackoffMs,
                   TransactionManager transactionManager,
                   ApiVersions apiVersions) {
+        this(logContext, client, metadata, accumulator, guaranteeMessageOrder, maxRequestSize, acks, retries,
+            metricsRegistry, time, requestTimeoutMs, retryBackoffMs, transactionManager, apiVersions,
+            SenderShard.single(client));
+    }
+
+    public Sender(LogContext logContext,
+                  KafkaClient client,
+                  Metadata metadata,
+                  RecordAccumulator accumulator,
+                  boolean guaranteeMessageOrder,
+                  int maxRequestSize,
+                  short acks,
+                  int retries,
+                  SenderMetricsRegistry metricsRegistry,
+                  Time time,
+                  int requestTimeoutMs,
+                  long retryBackoffMs,
+                  TransactionManager transactionManager,
+                  ApiVersions apiVersions,
+                  SenderShard shard) {
         this.log = logContext.logger(Sender.class);
         this.client = client;
         this.accumulator = accumulator;
@@ -147,12 +174,13 @@ public class Sender implements Runnable {
         this.acks = acks;
         this.retries = retries;
         this.time = time;
-        this.sensors = new SenderMetrics(metricsRegistry, metadata, client, time);
+        this.sensors = new SenderMetrics(metricsRegistry, metadata, shard, time);
         this.requestTimeoutMs = requestTimeoutMs;
         this.retryBackoffMs = retryBackoffMs;
         this.apiVersions = apiVersions;
         this.transactionManager = transactionManager;
         this.inFlightBatches = new HashMap<>();
+        this.shard = shard;
     }
 
     public List<ProducerBatch> inFlightBatches(TopicPartition tp) {
@@ -243,16 +271,16 @@ public class Sender implements Runnable {
         // okay we stopped accepting requests but there may still be
         // requests in the accumulator or waiting for acknowledgment,
         // wait until these are completed.
-        while (!forceClose && (this.accumulator.hasUndrained() || this.client.inFlightRequestCount() > 0)) {
+        while (!forceClose && (this.accumulator.hasUndrained() || this.client.inFlightRequestCount() > 0 || hasIncompleteOfOtherSenders())) {
             try {
                 runOnce();
             } catch (Exception e) {
                 log.error("Uncaught error in kafka producer I/O thread: ", e);
             }
         }
-        if (forceClose) {
+        if (forceClose && shard.isPrimary()) {
             // We need to fail all the incomplete batches and wake up the threads waiting on
-            // the futures.
+            // the futures. The primary sender does so for the batches of all senders.
             log.debug("Aborting incomplete batches due to forced shutdown");
             this.accumulator.abortIncompleteBatches();
         }
@@ -265,12 +293,28 @@ public class Sender implements Runnable {
         log.debug("Shutdown of Kafka producer I/O thread has completed.");
     }
 
+    /**
+     * A batch sent by another sender may fail and be re-enqueued for a node of this sender after its leader moved,
+     * so with several senders each one keeps running until all batches are complete.
+     */
+    private boolean hasIncompleteOfOtherSenders() {
+        return shard.numSenders() > 1 && this.accumulator.hasIncomplete();
+    }
+
     /**
      * Run a single iteration of sending
      *
      */
     void runOnce() {
-        if (transactionManager != null) {
+        if (transactionManager != null && !shard.isPrimary()) {
+            // The primary sender takes care of the producer id and of the transaction. Meanwhile, do not send
+            // anything, just like the primary sender.
+            if (transactionManager.hasFatalError() || !transactionManager.hasProducerId()
+                    || transactionManager.hasInFlightTransactionalRequest()) {
+                client.poll(retryBackoffMs, time.milliseconds());
+                return;
+            }
+        } else if (transactionManager != null) {
             try {
                 if (transactionManager.shouldResetProducerStateAfterResolvingSequences())
                     // Check if the previous run expired batches which requires a reset of the producer state.
@@ -330,27 +374,25 @@ public class Sender implements Runnable {
             this.metadata.requestUpdate();
         }
 
-        // remove any nodes we aren't ready to send to
+        // remove any nodes of other senders and any nodes we aren't ready to send to
         Iterator<Node> iter = result.readyNodes.iterator();
         long notReadyTimeout = Long.MAX_VALUE;
         while (iter.hasNext()) {
             Node node = iter.next();
-            if (!this.client.ready(node, now)) {
+            if (!shard.owns(node)) {
+                iter.remove();
+            } else if (!this.client.ready(node, now)) {
                 iter.remove();
+                accumulator.markHeldBackByLeader(cluster, node, now);
                 notReadyTimeout = Math.min(notReadyTimeout, this.client.pollDelayMs(node, now));
             }
         }
 
-        // create produce requests
-        Map<Integer, List<ProducerBatch>> batches = this.accumulator.drain(cluster, result.readyNodes, this.maxRequestSize, now);
+        // create produce requests, muting all the partitions drained if we need to guarantee the order
+        Map<Integer, List<ProducerBatch>> batches = this.accumulator.drain(cluster, result.readyNodes, this.maxRequestSize,
+            now, guaranteeMessageOrder);
         addToInflightBatches(batches);
-        if (guaranteeMessageOrder) {
-            // Mute all the partitions drained
-            for (List<ProducerBatch> batchList : batches.values()) {
-                for (ProducerBatch batch : batchList)
-                    this.accumulator.mutePartition(batch.topicPartition);
-            }
-        }
+        adaptBatching(batches);
 
         accumulator.resetNextBatchExpiryTime();
         List<ProducerBatch> expiredInflightBatches = getExpiredInflightBatches(now);
@@ -393,6 +435,22 @@ public class Sender implements Runnable {
         return pollTimeout;
     }
 
+    /**
+     * Let the accumulator adapt the batching of the drained partitions to the requests still in flight to their
+     * leaders, before the requests of the drained batches are sent.
+     */
+    private void adaptBatching(Map<Integer, List<ProducerBatch>> batches) {
+        AdaptiveBatching adaptiveBatching = accumulator.adaptiveBatching();
+        if (adaptiveBatching == null)
+            return;
+        for (Map.Entry<Integer, List<ProducerBatch>> entry : batches.entrySet()) {
+            String nodeId = Integer.toString(entry.getKey());
+            int inFlightRequests = client.inFlightRequestCount(nodeId);
+            for (ProducerBatch batch : entry.getValue())
+                adaptiveBatching.onDrain(batch, nodeId, inFlightRequests);
+        }
+    }
+
     private boolean maybeSendTransactionalRequest() {
         if (transactionManager.isCompleting() && accumulator.hasIncomplete()) {
             if (transactionManager.isAborting())
@@ -559,6 +617,9 @@ public class Sender implements Runnable {
                     completeBatch(batch, partResp, correlationId, now, receivedTimeMs + produceResponse.throttleTimeMs());
                 }
                 this.sensors.recordLatency(response.destination(), response.requestLatencyMs());
+                AdaptiveBatching adaptiveBatching = accumulator.adaptiveBatching();
+                if (adaptiveBatching != null)
+                    adaptiveBatching.onProduceLatency(response.destination(), response.requestLatencyMs());
             } else {
                 // this is the acks = 0 case, just complete all requests
                 for (ProducerBatch batch : batches.values()) {
@@ -823,10 +884,12 @@ public class Sender implements Runnable {
         public final Sensor compressionRateSensor;
         public final Sensor maxRecordSizeSensor;
         public final Sensor batchSplitSensor;
+        public final Sensor partitionsPerRequestSensor;
+        public final Sensor bytesPerPartitionSensor;
         private final SenderMetricsRegistry metrics;
         private final Time time;
 
-        public SenderMetrics(SenderMetricsRegistry metrics, Metadata metadata, KafkaClient client, Time time) {
+        public SenderMetrics(SenderMetricsRegistry metrics, Metadata metadata, SenderShard shard, Time time) {
             this.metrics = metrics;
             this.time = time;
 
@@ -849,6 +912,14 @@ public class Sender implements Runnable {
             this.recordsPerRequestSensor.add(new Meter(metrics.recordSendRate, metrics.recordSendTotal));
             this.recordsPerRequestSensor.add(metrics.recordsPerRequestAvg, new Avg());
 
+            this.partitionsPerRequestSensor = metrics.sensor("partitions-per-request");
+            this.partitionsPerRequestSensor.add(metrics.partitionsPerRequestAvg, new Avg());
+            this.partitionsPerRequestSensor.add(metrics.partitionsPerRequestMax, new Max());
+
+            this.bytesPerPartitionSensor = metrics.sensor("request-bytes-per-partition");
+            this.bytesPerPartitionSensor.add(metrics.requestBytesPerPartitionAvg, new Avg());
+            this.bytesPerPartitionSensor.add(metrics.requestBytesPerPartitionMin, new Min());
+
             this.retrySensor = metrics.sensor("record-retries");
             this.retrySensor.add(new Meter(metrics.recordRetryRate, metrics.recordRetryTotal));
 
@@ -859,9 +930,12 @@ public class Sender implements Runnable {
             this.maxRecordSizeSensor.add(metrics.recordSizeMax, new Max());
             this.maxRecordSizeSensor.add(metrics.recordSizeAvg, new Avg());
 
-            this.metrics.addMetric(metrics.requestsInFlight, (config, now) -> client.inFlightRequestCount());
-            this.metrics.addMetric(metrics.metadataAge,
-                (config, now) -> (now - metadata.lastSuccessfulUpdate()) / 1000.0);
+            // The sensors above are shared by all senders of the producer, the primary sender registers the gauges
+            if (shard.isPrimary()) {
+                this.metrics.addMetric(metrics.requestsInFlight, (config, now) -> shard.inFlightRequestCount());
+                this.metrics.addMetric(metrics.metadataAge,
+                    (config, now) -> (now - metadata.lastSuccessfulUpdate()) / 1000.0);
+            }
 
             this.batchSplitSensor = metrics.sensor("batch-split-rate");
             this.batchSplitSensor.add(new Meter(metrics.batchSplitRate, metrics.batchSplitTotal));
@@ -909,6 +983,7 @@ public class Sender implements Runnable {
             long now = time.milliseconds();
             for (List<ProducerBatch> nodeBatch : batches.values()) {
                 int records = 0;
+                long bytes = 0;
                 for (ProducerBatch batch : nodeBatch) {
                     // register all per-topic metrics at once
                     String topic = batch.topicPartition.topic();
@@ -935,8 +1010,14 @@ public class Sender implements Runnable {
                     this.compressionRateSensor.record(batch.compressionRatio());
                     this.maxRecordSizeSensor.record(batch.maxRecordSize, now);
                     records += batch.recordCount;
+                    bytes += batch.estimatedSizeInBytes();
                 }
                 this.recordsPerRequestSensor.record(records, now);
+                // a request holds one batch per partition
+                if (!nodeBatch.isEmpty()) {
+                    this.partitionsPerRequestSensor.record(nodeBatch.size(), now);
+                    this.bytesPerPartitionSensor.record((double) bytes / nodeBatch.size(), now);
+                }
             }
         }
 
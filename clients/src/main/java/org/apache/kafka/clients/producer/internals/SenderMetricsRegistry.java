@@ -57,6 +57,16 @@ public class SenderMetricsRegistry {
     public final MetricName metadataAge;
     public final MetricName batchSplitRate;
     public final MetricName batchSplitTotal;
+    public final MetricName compressionTimeAvg;
+    public final MetricName compressionTimeMax;
+    public final MetricName adaptiveLingerMsAvg;
+    public final MetricName adaptiveLingerMsMax;
+    public final MetricName adaptiveBatchSizeTargetAvg;
+    public final MetricName batchFillRatioAvg;
+    public final MetricName partitionsPerRequestAvg;
+    public final MetricName partitionsPerRequestMax;
+    public final MetricName requestBytesPerPartitionAvg;
+    public final MetricName requestBytesPerPartitionMin;
 
     private final MetricNameTemplate topicRecordSendRate;
     private final MetricNameTemplate topicRecordSendTotal;
@@ -67,6 +77,8 @@ public class SenderMetricsRegistry {
     private final MetricNameTemplate topicRecordRetryTotal;
     private final MetricNameTemplate topicRecordErrorRate;
     private final MetricNameTemplate topicRecordErrorTotal;
+    private final MetricNameTemplate topicCompressionTimeAvg;
+    private final MetricNameTemplate topicCompressionTimeMax;
     
     private final Metrics metrics;
     private final Set<String> tags;
@@ -120,6 +132,29 @@ public class SenderMetricsRegistry {
         this.batchSplitTotal = createMetricName("batch-split-total", 
                 "The total number of batch splits");
 
+        this.compressionTimeAvg = createMetricName("compression-time-avg",
+                "The average time in ms the compression threads spent compressing a record batch.");
+        this.compressionTimeMax = createMetricName("compression-time-max",
+                "The maximum time in ms the compression threads spent compressing a record batch.");
+
+        this.adaptiveLingerMsAvg = createMetricName("adaptive-linger-ms-avg",
+                "The average time in ms the batches of a partition lingered before they were sent, as tuned by adaptive batching.");
+        this.adaptiveLingerMsMax = createMetricName("adaptive-linger-ms-max",
+                "The maximum time in ms the batches of a partition lingered before they were sent, as tuned by adaptive batching.");
+        this.adaptiveBatchSizeTargetAvg = createMetricName("adaptive-batch-size-target-avg",
+                "The average size in bytes at which the batches of a partition were sent without lingering, as tuned by adaptive batching.");
+        this.batchFillRatioAvg = createMetricName("batch-fill-ratio-avg",
+                "The average size of the batches sent with adaptive batching, as a fraction of batch.size.");
+
+        this.partitionsPerRequestAvg = createMetricName("partitions-per-request-avg",
+                "The average number of partitions per request.");
+        this.partitionsPerRequestMax = createMetricName("partitions-per-request-max",
+                "The maximum number of partitions per request.");
+        this.requestBytesPerPartitionAvg = createMetricName("request-bytes-per-partition-avg",
+                "The average number of bytes per partition in a request, i.e. the size of a request's batches divided by its number of partitions.");
+        this.requestBytesPerPartitionMin = createMetricName("request-bytes-per-partition-min",
+                "The minimum number of bytes per partition in a request, i.e. the size of a request's batches divided by its number of partitions.");
+
         this.produceThrottleTimeAvg = createMetricName("produce-throttle-time-avg",
                 "The average time in ms a request was throttled by a broker");
         this.produceThrottleTimeMax = createMetricName("produce-throttle-time-max",
@@ -148,6 +183,10 @@ public class SenderMetricsRegistry {
                 "The average per-second number of record sends that resulted in errors for a topic");
         this.topicRecordErrorTotal = createTopicTemplate("record-error-total",
                 "The total number of record sends that resulted in errors for a topic");
+        this.topicCompressionTimeAvg = createTopicTemplate("compression-time-avg",
+                "The average time in ms the compression threads spent compressing a record batch for a topic.");
+        this.topicCompressionTimeMax = createTopicTemplate("compression-time-max",
+                "The maximum time in ms the compression threads spent compressing a record batch for a topic.");
 
     }
 
@@ -196,6 +235,14 @@ public class SenderMetricsRegistry {
         return this.metrics.metricInstance(this.topicRecordErrorTotal, tags);
     }
 
+    public MetricName topicCompressionTimeAvg(Map<String, String> tags) {
+        return this.metrics.metricInstance(this.topicCompressionTimeAvg, tags);
+    }
+
+    public MetricName topicCompressionTimeMax(Map<String, String> tags) {
+        return this.metrics.metricInstance(this.topicCompressionTimeMax, tags);
+    }
+
     public List<MetricNameTemplate> allTemplates() {
         return allTemplates;
     }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import org.apache.kafka.clients.KafkaClient;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The share of the brokers that one of the {@link Sender} threads of a producer sends to. Every node belongs to
+ * exactly one sender, so that the batches of a partition are always drained and sent by the sender of its leader.
+ * The first sender is the primary one: it also takes care of the producer id and of the transactional requests.
+ */
+public class SenderShard {
+    private final int index;
+    // The clients of all the senders of the producer, by index
+    private final List<KafkaClient> clients;
+
+    public SenderShard(int index, List<KafkaClient> clients) {
+        if (index < 0 || index >= clients.size())
+            throw new IllegalArgumentException("Invalid sender index " + index + " for " + clients.size() + " senders");
+        this.index = index;
+        this.clients = clients;
+    }
+
+    /**
+     * The only sender of a producer, which sends to all nodes.
+     */
+    public static SenderShard single(KafkaClient client) {
+        return new SenderShard(0, Collections.singletonList(client));
+    }
+
+    /**
+     * @return the index of the sender that sends to the given node out of the given number of senders
+     */
+    public static int indexOf(Node node, int numSenders) {
+        return Utils.toPositive(node.id()) % numSenders;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public int numSenders() {
+        return clients.size();
+    }
+
+    public boolean isPrimary() {
+        return index == 0;
+    }
+
+    public boolean owns(Node node) {
+        return indexOf(node, clients.size()) == index;
+    }
+
+    /**
+     * @return the number of in-flight requests of all the senders
+     */
+    public int inFlightRequestCount() {
+        int count = 0;
+        for (KafkaClient client : clients)
+            count += client.inFlightRequestCount();
+        return count;
+    }
+}
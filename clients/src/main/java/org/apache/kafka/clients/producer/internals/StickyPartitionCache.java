@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * The partition each topic currently sticks to when partitioning records without a key. The partition only changes
+ * once the batch of the records sent to it is closed, so that keyless records fill up one batch at a time instead of
+ * being spread over a small batch per partition.
+ */
+public class StickyPartitionCache {
+    private final ConcurrentMap<String, Integer> indexCache = new ConcurrentHashMap<>();
+
+    /**
+     * @return the partition the topic sticks to, choosing one if there is none yet
+     */
+    public int partition(String topic, Cluster cluster) {
+        Integer part = indexCache.get(topic);
+        if (part == null)
+            return nextPartition(topic, cluster, -1);
+        return part;
+    }
+
+    /**
+     * Switch the topic to another partition, if it still sticks to the partition of the closed batch. Concurrent
+     * sends may find the same batch closed, only the first of them switches partitions.
+     *
+     * @param prevPartition the partition whose batch was closed
+     * @return the partition the topic sticks to now
+     */
+    public int nextPartition(String topic, Cluster cluster, int prevPartition) {
+        Integer oldPart = indexCache.get(topic);
+        if (oldPart != null && oldPart != prevPartition)
+            return oldPart;
+
+        Integer newPart = oldPart;
+        List<PartitionInfo> availablePartitions = cluster.availablePartitionsForTopic(topic);
+        if (availablePartitions.isEmpty()) {
+            // No partitions are available, choose a non-available partition
+            newPart = Utils.toPositive(ThreadLocalRandom.current().nextInt()) % cluster.partitionsForTopic(topic).size();
+        } else if (availablePartitions.size() == 1) {
+            newPart = availablePartitions.get(0).partition();
+        } else {
+            while (newPart == null || newPart.equals(oldPart)) {
+                int random = Utils.toPositive(ThreadLocalRandom.current().nextInt());
+                newPart = availablePartitions.get(random % availablePartitions.size()).partition();
+            }
+        }
+        if (oldPart == null)
+            indexCache.putIfAbsent(topic, newPart);
+        else
+            indexCache.replace(topic, oldPart, newPart);
+        return indexCache.get(topic);
+    }
+}
@@ -144,6 +144,20 @@ public class TopicConfig {
         "accepts 'uncompressed' which is equivalent to no compression; and 'producer' which means retain the " +
         "original compression codec set by the producer.";
 
+    public static final String COMPRESSION_LEVEL_CONFIG = "compression.level";
+    public static final String COMPRESSION_LEVEL_DOC = "The level the broker compresses batches of the topic at when it has " +
+        "to compress them itself, e.g. because the <code>compression.type</code> of the topic differs from the one of the " +
+        "producer. Higher levels compress better but are slower. The supported levels are 1 to 9 for 'gzip', 1 to 17 for " +
+        "'lz4' and 1 to 22 for 'zstd'; a level the codec does not support falls back to its default level. The default of " +
+        "-1 uses the default level of the codec. Batches compressed by producers are kept as they are.";
+
+    public static final String COMPRESSION_ZSTD_DICTIONARY_ID_CONFIG = "compression.zstd.dictionary.id";
+    public static final String COMPRESSION_ZSTD_DICTIONARY_ID_DOC = "The id of the zstd dictionary the broker compresses " +
+        "batches of the topic with when it has to compress them itself with 'zstd', e.g. because the " +
+        "<code>compression.type</code> of the topic differs from the one of the producer. The dictionary must be one of the " +
+        "<code>compression.zstd.dictionaries</code> of the broker, otherwise batches are compressed without a dictionary. " +
+        "Batches compressed by producers are kept as they are. The default of 0 means no dictionary.";
+
     public static final String PREALLOCATE_CONFIG = "preallocate";
     public static final String PREALLOCATE_DOC = "True if we should preallocate the file on disk when " +
         "creating a new log segment.";
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream that reads the output of a decompressing stream in chunks into an intermediate buffer taken from a
+ * {@link BufferSupplier}, and returns that buffer to the supplier when it is closed.
+ *
+ * Records are read a few bytes at a time, which is costly for decompressing streams that cross into native code on
+ * every call. Unlike {@link java.io.BufferedInputStream}, which allocates its buffer for every batch, this lets a
+ * caller that iterates over many batches, such as a consumer or a broker request handler thread, reuse the same
+ * buffer. The stream is not thread safe and does not support {@link #mark(int)}.
+ */
+public class ChunkedBytesStream extends FilterInputStream {
+    private final BufferSupplier bufferSupplier;
+    private ByteBuffer intermediateBuffer;
+    private byte[] chunk;
+    // The number of valid bytes in the chunk and the position of the next byte to read from it
+    private int count = 0;
+    private int pos = 0;
+
+    public ChunkedBytesStream(InputStream in, BufferSupplier bufferSupplier, int intermediateBufSize) {
+        super(in);
+        this.bufferSupplier = bufferSupplier;
+        this.intermediateBuffer = bufferSupplier.get(intermediateBufSize);
+        if (!intermediateBuffer.hasArray() || intermediateBuffer.arrayOffset() != 0)
+            throw new IllegalArgumentException("Provided buffer must be a heap buffer backed by a whole array");
+        this.chunk = intermediateBuffer.array();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= count) {
+            fill();
+            if (pos >= count)
+                return -1;
+        }
+        return chunk[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+
+        int available = count - pos;
+        if (available <= 0) {
+            // Large reads bypass the chunk, there is nothing to gain from copying the bytes twice
+            if (len >= chunk.length)
+                return in.read(b, off, len);
+            fill();
+            available = count - pos;
+            if (available <= 0)
+                return -1;
+        }
+        int read = Math.min(available, len);
+        System.arraycopy(chunk, pos, b, off, read);
+        pos += read;
+        return read;
+    }
+
+    /**
+     * Skip by reading through the chunk, since the default skip of most decompressing streams allocates a scratch
+     * buffer on every call.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            if (pos >= count) {
+                fill();
+                if (pos >= count)
+                    break;
+            }
+            int skipped = (int) Math.min(count - pos, remaining);
+            pos += skipped;
+            remaining -= skipped;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (count - pos) + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        throw new UnsupportedOperationException("mark is not supported");
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("reset is not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (intermediateBuffer != null) {
+            bufferSupplier.release(intermediateBuffer);
+            intermediateBuffer = null;
+            chunk = null;
+            count = 0;
+            pos = 0;
+        }
+        in.close();
+    }
+
+    private void fill() throws IOException {
+        ensureOpen();
+        pos = 0;
+        count = 0;
+        int read = in.read(chunk, 0, chunk.length);
+        if (read > 0)
+            count = read;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (chunk == null)
+            throw new IOException("Stream closed");
+    }
+}
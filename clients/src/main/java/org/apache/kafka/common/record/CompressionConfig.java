@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * The compression type to write records with, along with the options of the codec, i.e. the compression level and
+ * the zstd dictionary.
+ */
+public final class CompressionConfig {
+
+    /**
+     * The level to configure to compress at the {@link CompressionType#defaultLevel() default level} of each codec.
+     */
+    public static final int DEFAULT_LEVEL = -1;
+
+    public static final CompressionConfig NONE = new CompressionConfig(CompressionType.NONE, 0, null);
+
+    private final CompressionType type;
+    private final int level;
+    private final ZstdDictionary zstdDictionary;
+
+    private CompressionConfig(CompressionType type, int level, ZstdDictionary zstdDictionary) {
+        this.type = Objects.requireNonNull(type);
+        this.level = level;
+        this.zstdDictionary = zstdDictionary;
+    }
+
+    public static CompressionConfig of(CompressionType type) {
+        return of(type, DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param level the compression level, or {@link #DEFAULT_LEVEL} for the default level of the codec
+     * @throws IllegalArgumentException if the codec does not support the level
+     */
+    public static CompressionConfig of(CompressionType type, int level) {
+        return type == CompressionType.NONE ? NONE : new CompressionConfig(type, resolveLevel(type, level), null);
+    }
+
+    /**
+     * @param dictionary the dictionary to compress with, or null to compress without one
+     */
+    public static CompressionConfig zstd(ZstdDictionary dictionary) {
+        return zstd(dictionary, DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param dictionary the dictionary to compress with, or null to compress without one
+     * @param level the compression level, or {@link #DEFAULT_LEVEL} for the default level of zstd
+     * @throws IllegalArgumentException if zstd does not support the level
+     */
+    public static CompressionConfig zstd(ZstdDictionary dictionary, int level) {
+        return new CompressionConfig(CompressionType.ZSTD, resolveLevel(CompressionType.ZSTD, level), dictionary);
+    }
+
+    private static int resolveLevel(CompressionType type, int level) {
+        if (level == DEFAULT_LEVEL || !type.hasLevels())
+            return type.defaultLevel();
+        if (!type.isValidLevel(level))
+            throw new IllegalArgumentException("Compression level " + level + " is not supported by " + type.name +
+                    ", the supported levels are " + type.minLevel() + " to " + type.maxLevel());
+        return level;
+    }
+
+    public CompressionType type() {
+        return type;
+    }
+
+    /**
+     * @return the level the codec compresses at, or 0 if the codec does not support levels
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * @return the dictionary zstd compresses with, or null if there is none
+     */
+    public ZstdDictionary zstdDictionary() {
+        return zstdDictionary;
+    }
+
+    public OutputStream wrapForOutput(ByteBufferOutputStream bufferStream, byte messageVersion) {
+        if (zstdDictionary != null)
+            return zstdDictionary.wrapForOutput(bufferStream, level);
+        return type.wrapForOutput(bufferStream, messageVersion, level);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        CompressionConfig that = (CompressionConfig) o;
+        return type == that.type && level == that.level && Objects.equals(zstdDictionary, that.zstdDictionary);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, level, zstdDictionary);
+    }
+
+    @Override
+    public String toString() {
+        if (!type.hasLevels())
+            return type.name;
+        return type.name + "(level=" + level + (zstdDictionary == null ? "" : ", " + zstdDictionary) + ")";
+    }
+}
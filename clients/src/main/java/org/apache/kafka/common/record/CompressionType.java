@@ -20,8 +20,8 @@ import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.utils.ByteBufferInputStream;
 import org.apache.kafka.common.utils.ByteBufferOutputStream;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandle;
@@ -37,7 +37,7 @@ import java.util.zip.GZIPOutputStream;
 public enum CompressionType {
     NONE(0, "none", 1.0f) {
         @Override
-        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion) {
+        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion, int level) {
             return buffer;
         }
 
@@ -47,14 +47,14 @@ public enum CompressionType {
         }
     },
 
-    GZIP(1, "gzip", 1.0f) {
+    GZIP(1, "gzip", 1.0f, 1, 9, 6) {
         @Override
-        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion) {
+        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion, int level) {
             try {
                 // Set input buffer (uncompressed) to 16 KB (none by default) and output buffer (compressed) to
                 // 8 KB (0.5 KB by default) to ensure reasonable performance in cases where the caller passes a small
                 // number of bytes to write (potentially a single byte)
-                return new BufferedOutputStream(new GZIPOutputStream(buffer, 8 * 1024), 16 * 1024);
+                return new BufferedOutputStream(new LeveledGZIPOutputStream(buffer, 8 * 1024, level), 16 * 1024);
             } catch (Exception e) {
                 throw new KafkaException(e);
             }
@@ -63,11 +63,13 @@ public enum CompressionType {
         @Override
         public InputStream wrapForInput(ByteBuffer buffer, byte messageVersion, BufferSupplier decompressionBufferSupplier) {
             try {
-                // Set output buffer (uncompressed) to 16 KB (none by default) and input buffer (compressed) to
-                // 8 KB (0.5 KB by default) to ensure reasonable performance in cases where the caller reads a small
+                // Heap buffers are inflated in place with a cached inflater. Otherwise set the input buffer
+                // (compressed) to 8 KB (0.5 KB by default). In both cases set the output buffer (uncompressed) to
+                // 16 KB (none by default) to ensure reasonable performance in cases where the caller reads a small
                 // number of bytes (potentially a single byte)
-                return new BufferedInputStream(new GZIPInputStream(new ByteBufferInputStream(buffer), 8 * 1024),
-                        16 * 1024);
+                InputStream inputStream = buffer.hasArray() ? new KafkaGZIPInputStream(buffer)
+                        : new GZIPInputStream(new ByteBufferInputStream(buffer), 8 * 1024);
+                return new ChunkedBytesStream(inputStream, decompressionBufferSupplier, 16 * 1024);
             } catch (Exception e) {
                 throw new KafkaException(e);
             }
@@ -76,7 +78,7 @@ public enum CompressionType {
 
     SNAPPY(2, "snappy", 1.0f) {
         @Override
-        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion) {
+        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion, int level) {
             try {
                 return (OutputStream) SnappyConstructors.OUTPUT.invoke(buffer);
             } catch (Throwable e) {
@@ -94,11 +96,12 @@ public enum CompressionType {
         }
     },
 
-    LZ4(3, "lz4", 1.0f) {
+    LZ4(3, "lz4", 1.0f, 1, 17, 1) {
         @Override
-        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion) {
+        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion, int level) {
             try {
-                return new KafkaLZ4BlockOutputStream(buffer, messageVersion == RecordBatch.MAGIC_VALUE_V0);
+                return new KafkaLZ4BlockOutputStream(buffer, KafkaLZ4BlockOutputStream.BLOCKSIZE_64KB, false,
+                        messageVersion == RecordBatch.MAGIC_VALUE_V0, level);
             } catch (Throwable e) {
                 throw new KafkaException(e);
             }
@@ -115,11 +118,11 @@ public enum CompressionType {
         }
     },
 
-    ZSTD(4, "zstd", 1.0f) {
+    ZSTD(4, "zstd", 1.0f, 1, 22, 3) {
         @Override
-        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion) {
+        public OutputStream wrapForOutput(ByteBufferOutputStream buffer, byte messageVersion, int level) {
             try {
-                return (OutputStream) ZstdConstructors.OUTPUT.invoke(buffer);
+                return (OutputStream) ZstdConstructors.OUTPUT.invoke(buffer, level);
             } catch (Throwable e) {
                 throw new KafkaException(e);
             }
@@ -128,7 +131,15 @@ public enum CompressionType {
         @Override
         public InputStream wrapForInput(ByteBuffer buffer, byte messageVersion, BufferSupplier decompressionBufferSupplier) {
             try {
-                return (InputStream) ZstdConstructors.INPUT.invoke(new ByteBufferInputStream(buffer));
+                // Every read of the zstd stream calls into native code, so read it in chunks of 16 KB to ensure
+                // reasonable performance in cases where the caller reads a small number of bytes
+                long dictionaryId = zstdFrameDictionaryId(buffer);
+                InputStream inputStream = dictionaryId == ZSTD_NO_DICTIONARY_ID ?
+                        (InputStream) ZstdConstructors.INPUT.invoke(new ByteBufferInputStream(buffer)) :
+                        ZstdDictionary.wrapForInput(buffer, dictionaryId);
+                return new ChunkedBytesStream(inputStream, decompressionBufferSupplier, 16 * 1024);
+            } catch (KafkaException e) {
+                throw e;
             } catch (Throwable e) {
                 throw new KafkaException(e);
             }
@@ -138,34 +149,83 @@ public enum CompressionType {
     public final int id;
     public final String name;
     public final float rate;
+    private final int minLevel;
+    private final int maxLevel;
+    private final int defaultLevel;
 
     CompressionType(int id, String name, float rate) {
+        this(id, name, rate, 0, 0, 0);
+    }
+
+    CompressionType(int id, String name, float rate, int minLevel, int maxLevel, int defaultLevel) {
         this.id = id;
         this.name = name;
         this.rate = rate;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.defaultLevel = defaultLevel;
     }
 
     /**
-     * Wrap bufferStream with an OutputStream that will compress data with this CompressionType.
+     * Wrap bufferStream with an OutputStream that will compress data with this CompressionType at its default level.
      *
      * Note: Unlike {@link #wrapForInput}, {@link #wrapForOutput} cannot take {@link ByteBuffer}s directly.
      * Currently, {@link MemoryRecordsBuilder#writeDefaultBatchHeader()} and {@link MemoryRecordsBuilder#writeLegacyCompressedWrapperHeader()}
      * write to the underlying buffer in the given {@link ByteBufferOutputStream} after the compressed data has been written.
      * In the event that the buffer needs to be expanded while writing the data, access to the underlying buffer needs to be preserved.
      */
-    public abstract OutputStream wrapForOutput(ByteBufferOutputStream bufferStream, byte messageVersion);
+    public OutputStream wrapForOutput(ByteBufferOutputStream bufferStream, byte messageVersion) {
+        return wrapForOutput(bufferStream, messageVersion, defaultLevel);
+    }
+
+    /**
+     * Wrap bufferStream with an OutputStream that will compress data with this CompressionType at the given level.
+     *
+     * @param level The compression level, which must be {@link #isValidLevel(int) valid} for this CompressionType.
+     *              Higher levels trade compression speed for a better ratio. It is ignored by codecs without levels.
+     */
+    public abstract OutputStream wrapForOutput(ByteBufferOutputStream bufferStream, byte messageVersion, int level);
 
     /**
      * Wrap buffer with an InputStream that will decompress data with this CompressionType.
      *
      * @param decompressionBufferSupplier The supplier of ByteBuffer(s) used for decompression if supported.
-     *                                    For small record batches, allocating a potentially large buffer (64 KB for LZ4)
-     *                                    will dominate the cost of decompressing and iterating over the records in the
-     *                                    batch. As such, a supplier that reuses buffers will have a significant
-     *                                    performance impact.
+     *                                    For small record batches, allocating a potentially large buffer (64 KB for LZ4,
+     *                                    16 KB for GZIP and ZSTD) will dominate the cost of decompressing and iterating
+     *                                    over the records in the batch. As such, a supplier that reuses buffers will
+     *                                    have a significant performance impact.
      */
     public abstract InputStream wrapForInput(ByteBuffer buffer, byte messageVersion, BufferSupplier decompressionBufferSupplier);
 
+    /**
+     * @return true if the codec supports compression levels, i.e. gzip, lz4 and zstd
+     */
+    public boolean hasLevels() {
+        return maxLevel > 0;
+    }
+
+    public int minLevel() {
+        return minLevel;
+    }
+
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * @return the level the codec compresses at by default, the same as its library does
+     */
+    public int defaultLevel() {
+        return defaultLevel;
+    }
+
+    /**
+     * @return true if the codec supports the given level, or does not support levels at all
+     */
+    public boolean isValidLevel(int level) {
+        return !hasLevels() || (level >= minLevel && level <= maxLevel);
+    }
+
     public static CompressionType forId(int id) {
         switch (id) {
             case 0:
@@ -218,7 +278,43 @@ public enum CompressionType {
         static final MethodHandle INPUT = findConstructor("com.github.luben.zstd.ZstdInputStream",
             MethodType.methodType(void.class, InputStream.class));
         static final MethodHandle OUTPUT = findConstructor("com.github.luben.zstd.ZstdOutputStream",
-            MethodType.methodType(void.class, OutputStream.class));
+            MethodType.methodType(void.class, OutputStream.class, int.class));
+    }
+
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+        LeveledGZIPOutputStream(OutputStream out, int size, int level) throws IOException {
+            super(out, size);
+            // Nothing is deflated before the first write, so the level applies to the whole stream
+            def.setLevel(level);
+        }
+    }
+
+    // Same as ZstdDictionary.NO_DICTIONARY_ID, which is not used here so that the zstd library is only loaded for
+    // batches that need a dictionary
+    private static final long ZSTD_NO_DICTIONARY_ID = 0L;
+    private static final int ZSTD_FRAME_MAGIC = 0xFD2FB528;
+
+    /**
+     * Read the id of the dictionary a batch was compressed with from the header of its first zstd frame.
+     */
+    static long zstdFrameDictionaryId(ByteBuffer buffer) {
+        int position = buffer.position();
+        // Magic number, frame header descriptor and the largest window descriptor and dictionary id
+        if (buffer.remaining() < 4 + 1 + 1 + 4 || Integer.reverseBytes(buffer.getInt(position)) != ZSTD_FRAME_MAGIC)
+            return ZSTD_NO_DICTIONARY_ID;
+        int descriptor = buffer.get(position + 4);
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        int idPosition = position + 5 + (singleSegment ? 0 : 1);
+        switch (descriptor & 0x3) {
+            case 1:
+                return buffer.get(idPosition) & 0xffL;
+            case 2:
+                return Short.reverseBytes(buffer.getShort(idPosition)) & 0xffffL;
+            case 3:
+                return Integer.reverseBytes(buffer.getInt(idPosition)) & 0xffffffffL;
+            default:
+                return ZSTD_NO_DICTIONARY_ID;
+        }
     }
 
     private static MethodHandle findConstructor(String className, MethodType methodType) {
@@ -77,14 +77,14 @@ public class DefaultRecord implements Record {
     private final ByteBuffer value;
     private final Header[] headers;
 
-    private DefaultRecord(int sizeInBytes,
-                          byte attributes,
-                          long offset,
-                          long timestamp,
-                          int sequence,
-                          ByteBuffer key,
-                          ByteBuffer value,
-                          Header[] headers) {
+    DefaultRecord(int sizeInBytes,
+                  byte attributes,
+                  long offset,
+                  long timestamp,
+                  int sequence,
+                  ByteBuffer key,
+                  ByteBuffer value,
+                  Header[] headers) {
         this.sizeInBytes = sizeInBytes;
         this.attributes = attributes;
         this.offset = offset;
@@ -369,6 +369,133 @@ public class DefaultRecord implements Record {
         }
     }
 
+    /**
+     * Read a record from the input without reading its key, value and headers into memory: they are skipped over, and
+     * only their sizes are kept. This is cheaper than {@link #readFrom(DataInput, long, long, int, Long)} when the
+     * records are only validated, and it still checks the structure of the record in the same way.
+     */
+    public static PartialDefaultRecord readPartiallyFrom(DataInput input,
+                                                         long baseOffset,
+                                                         long baseTimestamp,
+                                                         int baseSequence,
+                                                         Long logAppendTime) throws IOException {
+        int sizeOfBodyInBytes = ByteUtils.readVarint(input);
+        int totalSizeInBytes = ByteUtils.sizeOfVarint(sizeOfBodyInBytes) + sizeOfBodyInBytes;
+        BodyReader body = new BodyReader(input, sizeOfBodyInBytes);
+        try {
+            byte attributes = body.readByte();
+            long timestampDelta = body.readVarlong();
+            long timestamp = baseTimestamp + timestampDelta;
+            if (logAppendTime != null)
+                timestamp = logAppendTime;
+
+            int offsetDelta = body.readVarint();
+            long offset = baseOffset + offsetDelta;
+            int sequence = baseSequence >= 0 ?
+                    DefaultRecordBatch.incrementSequence(baseSequence, offsetDelta) :
+                    RecordBatch.NO_SEQUENCE;
+
+            int keySize = body.skipBytesField();
+            int valueSize = body.skipBytesField();
+
+            int numHeaders = body.readVarint();
+            if (numHeaders < 0)
+                throw new InvalidRecordException("Found invalid number of record headers " + numHeaders);
+            for (int i = 0; i < numHeaders; i++) {
+                int headerKeySize = body.skipBytesField();
+                if (headerKeySize < 0)
+                    throw new InvalidRecordException("Invalid negative header key size " + headerKeySize);
+                body.skipBytesField();
+            }
+
+            // validate whether we have read all header bytes in the current record
+            if (body.remaining != 0)
+                throw new InvalidRecordException("Invalid record size: expected to read " + sizeOfBodyInBytes +
+                        " bytes in record payload, but instead read " + (sizeOfBodyInBytes - body.remaining));
+
+            return new PartialDefaultRecord(totalSizeInBytes, attributes, offset, timestamp, sequence, keySize,
+                    valueSize);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRecordException("Found invalid record structure", e);
+        }
+    }
+
+    /**
+     * Reads the body of a record from a stream, keeping track of the bytes left so that a corrupt record cannot make
+     * the reader run into the next record.
+     */
+    private static final class BodyReader {
+        private final DataInput input;
+        private int remaining;
+
+        BodyReader(DataInput input, int sizeOfBodyInBytes) {
+            this.input = input;
+            this.remaining = sizeOfBodyInBytes;
+        }
+
+        byte readByte() throws IOException {
+            if (remaining <= 0)
+                throw new InvalidRecordException("Found invalid record structure: record payload is larger than " +
+                        "its declared size");
+            remaining--;
+            return input.readByte();
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            int i = 0;
+            int b;
+            while (((b = readByte()) & 0x80) != 0) {
+                value |= (b & 0x7f) << i;
+                i += 7;
+                if (i > 28)
+                    throw new IllegalArgumentException("Varint is too long, the most significant bit in the 5th " +
+                            "byte is set, converted value: " + Integer.toHexString(value));
+            }
+            value |= b << i;
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarlong() throws IOException {
+            long value = 0L;
+            int i = 0;
+            long b;
+            while (((b = readByte()) & 0x80) != 0) {
+                value |= (b & 0x7f) << i;
+                i += 7;
+                if (i > 63)
+                    throw new IllegalArgumentException("Varlong is too long, most significant bit in the 10th " +
+                            "byte is set, converted value: " + Long.toHexString(value));
+            }
+            value |= b << i;
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Skip a field that is prefixed by its size, and return the size, which is negative for a null field.
+         */
+        int skipBytesField() throws IOException {
+            int size = readVarint();
+            if (size > remaining)
+                throw new InvalidRecordException("Found invalid record structure: field of " + size + " bytes " +
+                        "exceeds the " + remaining + " bytes left in the record payload");
+            if (size > 0) {
+                int toSkip = size;
+                while (toSkip > 0) {
+                    int skipped = input.skipBytes(toSkip);
+                    if (skipped <= 0) {
+                        // skipBytes does not tell the end of the stream apart from a stream that cannot skip
+                        input.readByte();
+                        skipped = 1;
+                    }
+                    toSkip -= skipped;
+                }
+                remaining -= size;
+            }
+            return size;
+        }
+    }
+
     private static Header[] readHeaders(ByteBuffer buffer, int numHeaders) {
         Header[] headers = new Header[numHeaders];
         for (int i = 0; i < numHeaders; i++) {
@@ -250,7 +250,7 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
         return buffer.getInt(PARTITION_LEADER_EPOCH_OFFSET);
     }
 
-    private CloseableIterator<Record> compressedIterator(BufferSupplier bufferSupplier) {
+    private CloseableIterator<Record> compressedIterator(BufferSupplier bufferSupplier, boolean skipKeyValue) {
         final ByteBuffer buffer = this.buffer.duplicate();
         buffer.position(RECORDS_OFFSET);
         final DataInputStream inputStream = new DataInputStream(compressionType().wrapForInput(buffer, magic(),
@@ -260,6 +260,9 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
             @Override
             protected Record readNext(long baseOffset, long firstTimestamp, int baseSequence, Long logAppendTime) {
                 try {
+                    if (skipKeyValue)
+                        return DefaultRecord.readPartiallyFrom(inputStream, baseOffset, firstTimestamp, baseSequence,
+                                logAppendTime);
                     return DefaultRecord.readFrom(inputStream, baseOffset, firstTimestamp, baseSequence, logAppendTime);
                 } catch (EOFException e) {
                     throw new InvalidRecordException("Incorrect declared batch size, premature EOF reached");
@@ -320,7 +323,7 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
         // for a normal iterator, we cannot ensure that the underlying compression stream is closed,
         // so we decompress the full record set here. Use cases which call for a lower memory footprint
         // can use `streamingIterator` at the cost of additional complexity
-        try (CloseableIterator<Record> iterator = compressedIterator(BufferSupplier.NO_CACHING)) {
+        try (CloseableIterator<Record> iterator = compressedIterator(BufferSupplier.NO_CACHING, false)) {
             List<Record> records = new ArrayList<>(count());
             while (iterator.hasNext())
                 records.add(iterator.next());
@@ -331,7 +334,20 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
     @Override
     public CloseableIterator<Record> streamingIterator(BufferSupplier bufferSupplier) {
         if (isCompressed())
-            return compressedIterator(bufferSupplier);
+            return compressedIterator(bufferSupplier, false);
+        else
+            return uncompressedIterator();
+    }
+
+    /**
+     * Get an iterator over the records of this batch that skips over the keys, values and headers of compressed
+     * records rather than reading them into memory, which is enough to validate the records. The keys, values and
+     * headers of the returned records can only be accessed if the batch is not compressed, see
+     * {@link PartialDefaultRecord}. The iterator must be closed like a {@link #streamingIterator(BufferSupplier)}.
+     */
+    public CloseableIterator<Record> skipKeyValueIterator(BufferSupplier bufferSupplier) {
+        if (isCompressed())
+            return compressedIterator(bufferSupplier, true);
         else
             return uncompressedIterator();
     }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A GZIP input stream that inflates a compressed record batch straight from its heap buffer.
+ *
+ * Unlike {@link java.util.zip.GZIPInputStream}, it does not copy the compressed bytes into an input buffer of its own,
+ * and it borrows its {@link Inflater} from a cache kept per thread rather than allocating a native inflater for every
+ * batch. The inflater is returned when the stream is closed, so that the consumer and the broker request handler
+ * threads reuse the same one for all the batches they decompress. Like {@link java.util.zip.GZIPInputStream}, it
+ * reads concatenated GZIP members and ignores trailing bytes that are not a GZIP member.
+ *
+ * This class is not thread safe.
+ */
+public final class KafkaGZIPInputStream extends InputStream {
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int DEFLATED = 8;
+    private static final int TRAILER_SIZE = 8;
+
+    // Header flags
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final ThreadLocal<Inflater> CACHED_INFLATER = new ThreadLocal<>();
+
+    private final ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private final byte[] singleByte = new byte[1];
+    private Inflater inflater;
+    private boolean eof = false;
+
+    /**
+     * @param buffer a heap buffer that holds the compressed data from its position to its limit; the position of the
+     *               buffer is advanced as the data is read
+     */
+    public KafkaGZIPInputStream(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasArray())
+            throw new IllegalArgumentException("Compressed data must be in a heap buffer");
+        this.buffer = buffer;
+        this.inflater = borrowInflater();
+        try {
+            readHeader();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        if (eof)
+            return -1;
+
+        try {
+            int read;
+            while ((read = inflater.inflate(b, off, len)) == 0) {
+                if (inflater.finished()) {
+                    if (readTrailer()) {
+                        eof = true;
+                        return -1;
+                    }
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected preset dictionary in GZIP stream");
+                } else if (inflater.needsInput()) {
+                    if (!buffer.hasRemaining())
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    // The inflater reads the rest of the buffer in place; whatever it does not consume is handed
+                    // back to the buffer once the member is finished
+                    inflater.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    buffer.position(buffer.limit());
+                }
+            }
+            crc.update(b, off, read);
+            return read;
+        } catch (DataFormatException e) {
+            String message = e.getMessage();
+            throw new ZipException(message != null ? message : "Invalid ZLIB data format");
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return eof ? 0 : 1;
+    }
+
+    @Override
+    public void close() {
+        if (inflater != null) {
+            releaseInflater(inflater);
+            inflater = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (inflater == null)
+            throw new IOException("Stream closed");
+    }
+
+    private void readHeader() throws IOException {
+        int start = buffer.position();
+        if (readUnsignedShort() != GZIP_MAGIC)
+            throw new ZipException("Not in GZIP format");
+        if (readUnsignedByte() != DEFLATED)
+            throw new ZipException("Unsupported compression method");
+        int flags = readUnsignedByte();
+        // Modification time, extra flags and operating system
+        skipBytes(6);
+        if ((flags & FEXTRA) != 0)
+            skipBytes(readUnsignedShort());
+        if ((flags & FNAME) != 0)
+            skipString();
+        if ((flags & FCOMMENT) != 0)
+            skipString();
+        if ((flags & FHCRC) != 0) {
+            crc.reset();
+            crc.update(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start);
+            if (readUnsignedShort() != ((int) crc.getValue() & 0xffff))
+                throw new ZipException("Corrupt GZIP header");
+        }
+        crc.reset();
+    }
+
+    /**
+     * Verify the trailer of the finished member and move on to the next member if there is one.
+     *
+     * @return true if the end of the compressed data was reached
+     */
+    private boolean readTrailer() throws IOException {
+        buffer.position(buffer.limit() - inflater.getRemaining());
+        if (buffer.remaining() < TRAILER_SIZE)
+            throw new EOFException("Unexpected end of GZIP trailer");
+        if (readUnsignedInt() != crc.getValue() || readUnsignedInt() != (inflater.getBytesWritten() & 0xffffffffL))
+            throw new ZipException("Corrupt GZIP trailer");
+
+        if (!buffer.hasRemaining())
+            return true;
+        inflater.reset();
+        try {
+            readHeader();
+        } catch (IOException e) {
+            // Not another member, ignore the trailing bytes
+            return true;
+        }
+        return false;
+    }
+
+    private long readUnsignedInt() throws IOException {
+        return ((long) readUnsignedShort() | ((long) readUnsignedShort() << 16)) & 0xffffffffL;
+    }
+
+    private int readUnsignedShort() throws IOException {
+        return readUnsignedByte() | (readUnsignedByte() << 8);
+    }
+
+    private int readUnsignedByte() throws IOException {
+        if (!buffer.hasRemaining())
+            throw new EOFException("Unexpected end of GZIP header");
+        return buffer.get() & 0xff;
+    }
+
+    private void skipBytes(int n) throws IOException {
+        if (buffer.remaining() < n)
+            throw new EOFException("Unexpected end of GZIP header");
+        buffer.position(buffer.position() + n);
+    }
+
+    private void skipString() throws IOException {
+        int b;
+        do {
+            b = readUnsignedByte();
+        } while (b != 0);
+    }
+
+    private static Inflater borrowInflater() {
+        Inflater inflater = CACHED_INFLATER.get();
+        if (inflater == null)
+            return new Inflater(true);
+        CACHED_INFLATER.set(null);
+        return inflater;
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        // Keep one inflater per thread, which covers a thread that decompresses one batch at a time
+        if (CACHED_INFLATER.get() == null) {
+            inflater.reset();
+            CACHED_INFLATER.set(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -46,6 +46,9 @@ public final class KafkaLZ4BlockOutputStream extends OutputStream {
     public static final int BLOCKSIZE_1MB = 6;
     public static final int BLOCKSIZE_4MB = 7;
 
+    // The lowest level of the LZ4 frame format that uses the high compression compressor
+    private static final int MIN_HC_LEVEL = 3;
+
     private final LZ4Compressor compressor;
     private final XXHash32 checksum;
     private final boolean useBrokenFlagDescriptorChecksum;
@@ -68,11 +71,15 @@ public final class KafkaLZ4BlockOutputStream extends OutputStream {
      *            every block of data
      * @param useBrokenFlagDescriptorChecksum Default: false. When true, writes an incorrect FrameDescriptor checksum
      *            compatible with older kafka clients.
+     * @param level Default: 1. The compression level from 1 to 17. Levels up to 2 use the fast compressor, higher
+     *            levels the high compression (HC) compressor, which is much slower but compresses better.
      * @throws IOException
      */
-    public KafkaLZ4BlockOutputStream(OutputStream out, int blockSize, boolean blockChecksum, boolean useBrokenFlagDescriptorChecksum) throws IOException {
+    public KafkaLZ4BlockOutputStream(OutputStream out, int blockSize, boolean blockChecksum, boolean useBrokenFlagDescriptorChecksum,
+                                     int level) throws IOException {
         this.out = out;
-        compressor = LZ4Factory.fastestInstance().fastCompressor();
+        compressor = level < MIN_HC_LEVEL ? LZ4Factory.fastestInstance().fastCompressor()
+                : LZ4Factory.fastestInstance().highCompressor(level);
         checksum = XXHashFactory.fastestInstance().hash32();
         this.useBrokenFlagDescriptorChecksum = useBrokenFlagDescriptorChecksum;
         bd = new BD(blockSize);
@@ -85,6 +92,22 @@ public final class KafkaLZ4BlockOutputStream extends OutputStream {
         writeHeader();
     }
 
+    /**
+     * Create a new {@link OutputStream} that will compress data using the LZ4 algorithm.
+     *
+     * @param out The output stream to compress
+     * @param blockSize Default: 4. The block size used during compression. 4=64kb, 5=256kb, 6=1mb, 7=4mb. All other
+     *            values will generate an exception
+     * @param blockChecksum Default: false. When true, a XXHash32 checksum is computed and appended to the stream for
+     *            every block of data
+     * @param useBrokenFlagDescriptorChecksum Default: false. When true, writes an incorrect FrameDescriptor checksum
+     *            compatible with older kafka clients.
+     * @throws IOException
+     */
+    public KafkaLZ4BlockOutputStream(OutputStream out, int blockSize, boolean blockChecksum, boolean useBrokenFlagDescriptorChecksum) throws IOException {
+        this(out, blockSize, blockChecksum, useBrokenFlagDescriptorChecksum, 1);
+    }
+
     /**
      * Create a new {@link OutputStream} that will compress data using the LZ4 algorithm.
      *
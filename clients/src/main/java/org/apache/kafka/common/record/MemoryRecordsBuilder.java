@@ -48,6 +48,7 @@ public class MemoryRecordsBuilder implements AutoCloseable {
 
     private final TimestampType timestampType;
     private final CompressionType compressionType;
+    private final CompressionConfig compressionConfig;
     // Used to hold a reference to the underlying ByteBuffer so that we can write the record batch header and access
     // the written bytes. ByteBufferOutputStream allocates a new ByteBuffer if the existing one is not large enough,
     // so it's not safe to hold a direct reference to the underlying ByteBuffer.
@@ -95,6 +96,25 @@ public class MemoryRecordsBuilder implements AutoCloseable {
                                 boolean isControlBatch,
                                 int partitionLeaderEpoch,
                                 int writeLimit) {
+        this(bufferStream, magic, CompressionConfig.of(compressionType), timestampType, baseOffset, logAppendTime,
+                producerId, producerEpoch, baseSequence, isTransactional, isControlBatch, partitionLeaderEpoch,
+                writeLimit);
+    }
+
+    public MemoryRecordsBuilder(ByteBufferOutputStream bufferStream,
+                                byte magic,
+                                CompressionConfig compressionConfig,
+                                TimestampType timestampType,
+                                long baseOffset,
+                                long logAppendTime,
+                                long producerId,
+                                short producerEpoch,
+                                int baseSequence,
+                                boolean isTransactional,
+                                boolean isControlBatch,
+                                int partitionLeaderEpoch,
+                                int writeLimit) {
+        CompressionType compressionType = compressionConfig.type();
         if (magic > RecordBatch.MAGIC_VALUE_V0 && timestampType == TimestampType.NO_TIMESTAMP_TYPE)
             throw new IllegalArgumentException("TimestampType must be set for magic >= 0");
         if (magic < RecordBatch.MAGIC_VALUE_V2) {
@@ -109,6 +129,7 @@ public class MemoryRecordsBuilder implements AutoCloseable {
         this.magic = magic;
         this.timestampType = timestampType;
         this.compressionType = compressionType;
+        this.compressionConfig = compressionConfig;
         this.baseOffset = baseOffset;
         this.logAppendTime = logAppendTime;
         this.numRecords = 0;
@@ -127,7 +148,7 @@ public class MemoryRecordsBuilder implements AutoCloseable {
 
         bufferStream.position(initialPosition + batchHeaderSizeInBytes);
         this.bufferStream = bufferStream;
-        this.appendStream = new DataOutputStream(compressionType.wrapForOutput(this.bufferStream, magic));
+        this.appendStream = new DataOutputStream(compressionConfig.wrapForOutput(this.bufferStream, magic));
     }
 
     /**
@@ -184,6 +205,10 @@ public class MemoryRecordsBuilder implements AutoCloseable {
         return compressionType;
     }
 
+    public CompressionConfig compressionConfig() {
+        return compressionConfig;
+    }
+
     public boolean isControlBatch() {
         return isControlBatch;
     }
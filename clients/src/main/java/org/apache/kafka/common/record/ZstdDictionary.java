@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.UnsupportedCompressionTypeException;
+import org.apache.kafka.common.utils.ByteBufferInputStream;
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A trained zstd dictionary, which improves the compression ratio of batches of small records by a lot.
+ *
+ * The id of the dictionary is written into the header of every zstd frame compressed with it, so batches do not carry
+ * anything else to tell which dictionary they need. To decompress them, the dictionary has to be {@link #register(ZstdDictionary)
+ * registered} in the process first: clients register the dictionaries of their configuration, and brokers the
+ * dictionaries they are configured with.
+ *
+ * This class is only loaded if zstd dictionaries are actually used, as it depends on the zstd library.
+ */
+public final class ZstdDictionary {
+
+    public static final long NO_DICTIONARY_ID = 0L;
+
+    private static final int DICTIONARY_MAGIC = 0xEC30A437;
+    private static final ConcurrentMap<Long, ZstdDictionary> REGISTERED = new ConcurrentHashMap<>();
+
+    private final long id;
+    private final byte[] bytes;
+    // The digested forms of the dictionary are created on first use and shared by all the streams that use it. The
+    // digested form for compression is bound to a compression level, so there is one per level in use
+    private final ConcurrentMap<Integer, ZstdDictCompress> compressDictionaries = new ConcurrentHashMap<>();
+    private volatile ZstdDictDecompress decompressDictionary;
+
+    public ZstdDictionary(byte[] bytes) {
+        this.id = dictionaryId(bytes);
+        this.bytes = bytes;
+    }
+
+    /**
+     * Read a dictionary from a file, as written by {@link #bytes()}.
+     */
+    public static ZstdDictionary load(String path) {
+        try {
+            return new ZstdDictionary(Files.readAllBytes(Paths.get(path)));
+        } catch (IOException e) {
+            throw new KafkaException("Failed to read zstd dictionary from " + path, e);
+        }
+    }
+
+    /**
+     * Train a dictionary of at most the given size from sample record payloads.
+     */
+    public static ZstdDictionary train(Collection<byte[]> samples, int dictionarySize) {
+        long samplesSize = 0;
+        for (byte[] sample : samples)
+            samplesSize += sample.length;
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(samplesSize, Integer.MAX_VALUE), dictionarySize);
+        for (byte[] sample : samples)
+            trainer.addSample(sample);
+        try {
+            return new ZstdDictionary(trainer.trainSamples());
+        } catch (RuntimeException e) {
+            throw new KafkaException("Failed to train zstd dictionary from " + samples.size() + " samples", e);
+        }
+    }
+
+    /**
+     * Make the dictionary available to decompress the batches compressed with it. Registering a dictionary again
+     * has no effect, but a different dictionary with the same id is rejected.
+     *
+     * @return the registered dictionary
+     */
+    public static ZstdDictionary register(ZstdDictionary dictionary) {
+        ZstdDictionary registered = REGISTERED.putIfAbsent(dictionary.id, dictionary);
+        if (registered == null)
+            return dictionary;
+        if (!Arrays.equals(registered.bytes, dictionary.bytes))
+            throw new IllegalArgumentException("A different zstd dictionary with id " + dictionary.id +
+                    " is already registered");
+        return registered;
+    }
+
+    /**
+     * Load and register the dictionaries in the given files.
+     */
+    public static void registerAll(List<String> paths) {
+        for (String path : paths)
+            register(load(path));
+    }
+
+    /**
+     * @return the registered dictionary with the given id, or null if there is none
+     */
+    public static ZstdDictionary registered(long id) {
+        return REGISTERED.get(id);
+    }
+
+    // Visible for testing
+    static void unregister(long id) {
+        REGISTERED.remove(id);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    OutputStream wrapForOutput(ByteBufferOutputStream buffer, int level) {
+        try {
+            return new ZstdOutputStream(buffer).setDict(compressDictionary(level));
+        } catch (IOException e) {
+            throw new KafkaException(e);
+        }
+    }
+
+    static InputStream wrapForInput(ByteBuffer buffer, long dictionaryId) {
+        ZstdDictionary dictionary = registered(dictionaryId);
+        if (dictionary == null)
+            throw new UnsupportedCompressionTypeException("Cannot decompress zstd batch compressed with unknown " +
+                    "dictionary " + dictionaryId + ", the dictionary has to be configured to read it");
+        try {
+            return new ZstdInputStream(new ByteBufferInputStream(buffer)).setDict(dictionary.decompressDictionary());
+        } catch (IOException e) {
+            throw new KafkaException(e);
+        }
+    }
+
+    private ZstdDictCompress compressDictionary(int level) {
+        return compressDictionaries.computeIfAbsent(level, l -> new ZstdDictCompress(bytes, l));
+    }
+
+    private ZstdDictDecompress decompressDictionary() {
+        ZstdDictDecompress dictionary = decompressDictionary;
+        if (dictionary == null) {
+            synchronized (this) {
+                dictionary = decompressDictionary;
+                if (dictionary == null) {
+                    dictionary = new ZstdDictDecompress(bytes);
+                    decompressDictionary = dictionary;
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private static long dictionaryId(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < 8 || buffer.getInt(0) != DICTIONARY_MAGIC)
+            throw new IllegalArgumentException("Not a zstd dictionary");
+        long id = buffer.getInt(4) & 0xffffffffL;
+        if (id == NO_DICTIONARY_ID)
+            throw new IllegalArgumentException("Zstd dictionaries must have an id");
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "ZstdDictionary(id=" + id + ", size=" + bytes.length + ")";
+    }
+}
@@ -664,6 +664,166 @@ public class FetcherTest {
         assertEquals(5, records.get(1).offset());
     }
 
+    @Test
+    public void testPrefetchRecords() {
+        Fetcher<byte[], byte[]> fetcher = createFetcher(subscriptions, new Metrics(time), 2);
+
+        List<ConsumerRecord<byte[], byte[]>> records;
+        subscriptions.assignFromUser(singleton(tp0));
+        subscriptions.seek(tp0, 1);
+
+        client.prepareResponse(matchesOffset(tp0, 1), fullFetchResponse(tp0, this.records, Errors.NONE, 100L, 0));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        // All records are decoded ahead, but the position only advances once they are returned
+        assertTrue(fetcher.prefetchRecords(Integer.MAX_VALUE) > 0);
+        assertFalse(fetcher.hasCompletedFetches());
+        assertEquals(0, fetcher.prefetchRecords(Integer.MAX_VALUE));
+        assertEquals(1L, subscriptions.position(tp0).longValue());
+        assertEquals(0, fetcher.sendFetches());
+
+        records = fetcher.fetchedRecords().get(tp0);
+        assertEquals(2, records.size());
+        assertEquals(3L, subscriptions.position(tp0).longValue());
+        assertEquals(1, records.get(0).offset());
+        assertEquals(2, records.get(1).offset());
+        assertEquals(0, fetcher.sendFetches());
+
+        records = fetcher.fetchedRecords().get(tp0);
+        assertEquals(1, records.size());
+        assertEquals(4L, subscriptions.position(tp0).longValue());
+        assertEquals(3, records.get(0).offset());
+        assertEquals(1, fetcher.sendFetches());
+    }
+
+    @Test
+    public void testPrefetchRecordsUpToMaxBytes() {
+        subscriptions.assignFromUser(Utils.mkSet(tp0, tp1));
+        subscriptions.seek(tp0, 1);
+        subscriptions.seek(tp1, 4);
+
+        LinkedHashMap<TopicPartition, FetchResponse.PartitionData<MemoryRecords>> partitions = new LinkedHashMap<>();
+        partitions.put(tp0, new FetchResponse.PartitionData<>(Errors.NONE, 100L, FetchResponse.INVALID_LAST_STABLE_OFFSET,
+                0L, null, this.records));
+        partitions.put(tp1, new FetchResponse.PartitionData<>(Errors.NONE, 100L, FetchResponse.INVALID_LAST_STABLE_OFFSET,
+                0L, null, this.nextRecords));
+        client.prepareResponse(new FetchResponse<>(Errors.NONE, partitions, 0, INVALID_SESSION_ID));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        // Only the first record is decoded ahead, the rest is decoded when the records are returned
+        assertTrue(fetcher.prefetchRecords(1) > 0);
+        assertEquals(0, fetcher.prefetchRecords(1));
+        assertTrue(fetcher.hasCompletedFetches());
+
+        Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> fetchedRecords = fetcher.fetchedRecords();
+        assertEquals(3, fetchedRecords.get(tp0).size());
+        assertEquals(1, fetchedRecords.get(tp0).get(0).offset());
+        assertEquals(3, fetchedRecords.get(tp0).get(2).offset());
+        assertEquals(2, fetchedRecords.get(tp1).size());
+        assertEquals(4L, subscriptions.position(tp0).longValue());
+        assertEquals(6L, subscriptions.position(tp1).longValue());
+    }
+
+    @Test
+    public void testPrefetchRecordsStopsWhenAsked() {
+        subscriptions.assignFromUser(singleton(tp0));
+        subscriptions.seek(tp0, 1);
+
+        client.prepareResponse(fullFetchResponse(tp0, this.records, Errors.NONE, 100L, 0));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        // The round is asked to stop after it parsed the completed fetch and decoded the first record
+        AtomicInteger checks = new AtomicInteger();
+        assertTrue(fetcher.prefetchRecords(Integer.MAX_VALUE, () -> checks.incrementAndGet() > 2) > 0);
+        assertFalse(fetcher.hasCompletedFetches());
+        assertEquals(0, fetcher.prefetchRecords(Integer.MAX_VALUE, () -> true));
+        assertTrue(fetcher.prefetchRecords(Integer.MAX_VALUE) > 0);
+
+        List<ConsumerRecord<byte[], byte[]>> records = fetcher.fetchedRecords().get(tp0);
+        assertEquals(3, records.size());
+        assertEquals(4L, subscriptions.position(tp0).longValue());
+    }
+
+    @Test
+    public void testPrefetchLeavesFetchErrorsToFetchedRecords() {
+        subscriptions.assignFromUser(singleton(tp0));
+        subscriptions.seek(tp0, 0);
+
+        client.prepareResponse(fullFetchResponse(tp0, this.records, Errors.TOPIC_AUTHORIZATION_FAILED, 100L, 0));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        assertEquals(0, fetcher.prefetchRecords(Integer.MAX_VALUE));
+        assertTrue(fetcher.hasCompletedFetches());
+        try {
+            fetcher.fetchedRecords();
+            fail("fetchedRecords should have raised");
+        } catch (TopicAuthorizationException e) {
+            assertEquals(singleton(topicName), e.unauthorizedTopics());
+        }
+    }
+
+    @Test
+    public void testPrefetchLeavesSerializationErrorsToFetchedRecords() {
+        ByteArrayDeserializer deserializer = new ByteArrayDeserializer() {
+            @Override
+            public byte[] deserialize(String topic, byte[] data) {
+                if ("value-2".equals(new String(data, StandardCharsets.UTF_8)))
+                    throw new SerializationException();
+                return data;
+            }
+        };
+        Fetcher<byte[], byte[]> fetcher = createFetcher(subscriptions, new Metrics(time), deserializer, deserializer);
+
+        subscriptions.assignFromUser(singleton(tp0));
+        subscriptions.seek(tp0, 1);
+
+        client.prepareResponse(matchesOffset(tp0, 1), fullFetchResponse(tp0, this.records, Errors.NONE, 100L, 0));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        // The record decoded before the error is returned first, then the error is raised
+        assertTrue(fetcher.prefetchRecords(Integer.MAX_VALUE) > 0);
+        List<ConsumerRecord<byte[], byte[]>> records = fetcher.fetchedRecords().get(tp0);
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).offset());
+        assertEquals(2L, subscriptions.position(tp0).longValue());
+        try {
+            fetcher.fetchedRecords();
+            fail("fetchedRecords should have raised");
+        } catch (SerializationException e) {
+            assertEquals(2L, subscriptions.position(tp0).longValue());
+        }
+    }
+
+    @Test
+    public void testPrefetchSkipsControlRecords() {
+        subscriptions.assignFromUser(singleton(tp0));
+        subscriptions.seek(tp0, 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        MemoryRecords.writeEndTransactionalMarker(buffer, 0L, time.milliseconds(), 0, 1L, (short) 0,
+                new EndTransactionMarker(ControlRecordType.COMMIT, 0));
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, CompressionType.GZIP, TimestampType.CREATE_TIME, 1L);
+        builder.append(0L, "key".getBytes(), "value".getBytes());
+        builder.close();
+        buffer.flip();
+
+        client.prepareResponse(fullFetchResponse(tp0, MemoryRecords.readableRecords(buffer), Errors.NONE, 100L, 0));
+        assertEquals(1, fetcher.sendFetches());
+        consumerClient.poll(time.timer(0));
+
+        // The decoded record is returned at the position before the control record
+        assertTrue(fetcher.prefetchRecords(Integer.MAX_VALUE) > 0);
+        List<ConsumerRecord<byte[], byte[]>> records = fetcher.fetchedRecords().get(tp0);
+        assertEquals(1, records.size());
+        assertEquals(1L, records.get(0).offset());
+        assertEquals(2L, subscriptions.position(tp0).longValue());
+    }
+
     /**
      * Test the scenario where a partition with fetched but not consumed records (i.e. max.poll.records is
      * less than the number of fetched records) is unassigned and a different partition is assigned. This is a
@@ -940,7 +1100,7 @@ public class FetcherTest {
 
         assertEquals(1, fetcherNoAutoReset.sendFetches());
 
-        Map<TopicPartition, FetchResponse.PartitionData<MemoryRecords>> partitions = new LinkedHashMap<>();
+        LinkedHashMap<TopicPartition, FetchResponse.PartitionData<MemoryRecords>> partitions = new LinkedHashMap<>();
         partitions.put(tp1, new FetchResponse.PartitionData<>(Errors.NONE, 100,
             FetchResponse.INVALID_LAST_STABLE_OFFSET, FetchResponse.INVALID_LOG_START_OFFSET, null, records));
         partitions.put(tp0, new FetchResponse.PartitionData<>(Errors.OFFSET_OUT_OF_RANGE, 100,
@@ -985,7 +1145,7 @@ public class FetcherTest {
 
         assertEquals(1, fetcherNoAutoReset.sendFetches());
 
-        Map<TopicPartition, FetchResponse.PartitionData<MemoryRecords>> partitions = new LinkedHashMap<>();
+        LinkedHashMap<TopicPartition, FetchResponse.PartitionData<MemoryRecords>> partitions = new LinkedHashMap<>();
         partitions.put(tp1, new FetchResponse.PartitionData<>(Errors.NONE, 100, FetchResponse.INVALID_LAST_STABLE_OFFSET,
                 FetchResponse.INVALID_LOG_START_OFFSET, null, records));
         partitions.put(tp0, new FetchResponse.PartitionData<>(Errors.OFFSET_OUT_OF_RANGE, 100,
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.consumer.internals;
+
+import org.apache.kafka.common.utils.LogContext;
+import org.apache.kafka.test.TestUtils;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrefetcherTest {
+    private final ConsumerNetworkClient client = mock(ConsumerNetworkClient.class);
+    private final Fetcher<?, ?> fetcher = mock(Fetcher.class);
+    private final Prefetcher prefetcher = new Prefetcher(new LogContext(), "client", client, fetcher, 1024);
+
+    @Test
+    public void testPrefetchSendsFetchesAndDecodesCompletedFetches() {
+        when(fetcher.prefetchRecords(eq(1024), any(BooleanSupplier.class))).thenReturn(100);
+
+        assertEquals(100, prefetcher.prefetch());
+        InOrder inOrder = inOrder(fetcher, client);
+        inOrder.verify(fetcher).sendFetches();
+        inOrder.verify(client).pollNoWakeup();
+        inOrder.verify(fetcher).prefetchRecords(eq(1024), any(BooleanSupplier.class));
+    }
+
+    @Test
+    public void testBackgroundThreadOnlyRunsWhileResumed() throws Exception {
+        AtomicInteger rounds = new AtomicInteger();
+        when(fetcher.prefetchRecords(anyInt(), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            rounds.incrementAndGet();
+            return 0;
+        });
+
+        prefetcher.pause();
+        try {
+            prefetcher.start();
+            Thread.sleep(50);
+            assertEquals(0, rounds.get());
+        } finally {
+            prefetcher.resume();
+        }
+        TestUtils.waitForCondition(() -> rounds.get() > 0, "The prefetch thread did not run after it was resumed");
+
+        // The thread stops when the prefetcher is closed while paused, as the consumer does
+        prefetcher.pause();
+        prefetcher.close();
+        prefetcher.resume();
+        int closedRounds = rounds.get();
+        Thread.sleep(50);
+        assertEquals(closedRounds, rounds.get());
+    }
+
+    @Test
+    public void testBackgroundThreadParksUntilResumedIfThereIsNothingToFetch() throws Exception {
+        AtomicInteger rounds = new AtomicInteger();
+        when(fetcher.prefetchRecords(anyInt(), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            rounds.incrementAndGet();
+            return 0;
+        });
+        when(client.hasPendingRequests()).thenReturn(false);
+
+        try {
+            prefetcher.start();
+            TestUtils.waitForCondition(() -> rounds.get() == 1, "The prefetch thread did not run");
+            Thread.sleep(50);
+            assertEquals(1, rounds.get());
+
+            // The application may have changed the assignment or consumed records
+            prefetcher.pause();
+            prefetcher.resume();
+            TestUtils.waitForCondition(() -> rounds.get() == 2, "The prefetch thread did not run after it was resumed");
+        } finally {
+            prefetcher.pause();
+            prefetcher.close();
+            prefetcher.resume();
+        }
+    }
+
+    @Test
+    public void testBackgroundThreadWaitsForFetchesInFlight() throws Exception {
+        AtomicInteger rounds = new AtomicInteger();
+        when(fetcher.prefetchRecords(anyInt(), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            rounds.incrementAndGet();
+            return 0;
+        });
+        when(client.hasPendingRequests()).thenReturn(true);
+
+        try {
+            prefetcher.start();
+            TestUtils.waitForCondition(() -> rounds.get() > 2, "The prefetch thread did not handle completed fetches");
+        } finally {
+            prefetcher.pause();
+            prefetcher.close();
+            prefetcher.resume();
+        }
+    }
+
+    @Test
+    public void testRoundStopsDecodingWhenApplicationThreadWaits() throws Exception {
+        CountDownLatch decoding = new CountDownLatch(1);
+        AtomicBoolean stopped = new AtomicBoolean();
+        when(fetcher.prefetchRecords(anyInt(), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            BooleanSupplier stop = invocation.getArgument(1);
+            decoding.countDown();
+            long deadlineMs = System.currentTimeMillis() + 10_000L;
+            while (System.currentTimeMillis() < deadlineMs) {
+                if (stop.getAsBoolean()) {
+                    stopped.set(true);
+                    break;
+                }
+            }
+            return 1;
+        });
+
+        prefetcher.start();
+        assertTrue(decoding.await(10, TimeUnit.SECONDS));
+        prefetcher.pause();
+        try {
+            assertTrue(stopped.get());
+            prefetcher.close();
+        } finally {
+            prefetcher.resume();
+        }
+    }
+}
@@ -73,6 +73,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -129,6 +130,31 @@ public class KafkaProducerTest {
         new KafkaProducer<>(producerProps, new ByteArraySerializer(), new ByteArraySerializer()).close();
     }
 
+    @Test
+    public void testMultipleSenderThreads() {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.CLIENT_ID_CONFIG, "testMultipleSenderThreads");
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9999");
+        props.setProperty(ProducerConfig.NUM_SENDER_THREADS_CONFIG, "3");
+        KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(props, new ByteArraySerializer(), new ByteArraySerializer());
+        try {
+            for (int i = 0; i < 3; i++)
+                assertTrue(threadExists(KafkaProducer.NETWORK_THREAD_PREFIX + " | testMultipleSenderThreads-" + i));
+        } finally {
+            producer.close(Duration.ofMillis(0));
+        }
+        for (int i = 0; i < 3; i++)
+            assertFalse(threadExists(KafkaProducer.NETWORK_THREAD_PREFIX + " | testMultipleSenderThreads-" + i));
+    }
+
+    private static boolean threadExists(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name))
+                return true;
+        }
+        return false;
+    }
+
     @Test(expected = ConfigException.class)
     public void testNoSerializerProvided() {
         Properties producerProps = new Properties();
@@ -166,6 +192,19 @@ public class KafkaProducerTest {
         }
     }
 
+    @Test
+    public void testCompressionLevelNotSupportedByCompressionType() {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9999");
+        props.setProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
+        props.setProperty(ProducerConfig.COMPRESSION_LEVEL_CONFIG, "10");
+        try (KafkaProducer<byte[], byte[]> ignored = new KafkaProducer<>(props, new ByteArraySerializer(), new ByteArraySerializer())) {
+            fail("Constructor should throw exception");
+        } catch (KafkaException e) {
+            assertTrue("Unexpected cause: " + e.getCause(), e.getCause() instanceof ConfigException);
+        }
+    }
+
     @Test
     public void testSerializerClose() {
         Map<String, Object> configs = new HashMap<>();
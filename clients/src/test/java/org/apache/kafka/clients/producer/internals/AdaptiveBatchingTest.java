@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.Record;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.MockTime;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchingTest {
+    private static final int LINGER_MS = 20;
+    private static final int BATCH_SIZE = 16 * 1024;
+
+    private final TopicPartition tp = new TopicPartition("test", 0);
+    private final MockTime time = new MockTime();
+    private final Metrics metrics = new Metrics(time);
+    private final SenderMetricsRegistry registry = new SenderMetricsRegistry(metrics);
+    private final AdaptiveBatching adaptiveBatching = new AdaptiveBatching(LINGER_MS, BATCH_SIZE, registry);
+
+    @Test
+    public void testBatchingGrowsWhileRequestsAreInFlight() {
+        ProducerBatch small = batch(100);
+        assertEquals(0, adaptiveBatching.lingerMs(tp));
+        // Without load, batches are considered full at the smallest target
+        assertFalse(adaptiveBatching.isFull(small));
+        assertTrue(adaptiveBatching.isFull(batch(2 * 1024)));
+
+        adaptiveBatching.onDrain(small, "0", 1);
+        assertEquals(LINGER_MS / 8, adaptiveBatching.lingerMs(tp));
+        assertFalse(adaptiveBatching.isFull(batch(2 * 1024)));
+
+        for (int i = 0; i < 10; i++)
+            adaptiveBatching.onDrain(small, "0", 3);
+        // The batching stops growing at the configured bounds
+        assertEquals(LINGER_MS, adaptiveBatching.lingerMs(tp));
+        assertFalse(adaptiveBatching.isFull(batch(BATCH_SIZE / 2)));
+        assertEquals(0, adaptiveBatching.lingerMs(new TopicPartition("test", 1)));
+    }
+
+    @Test
+    public void testBatchingGrowsForBatchesHeldBackByTheLeader() {
+        // With one request in flight per connection, a leader is only drained once it has no request in flight
+        ProducerBatch heldBack = batch(100);
+        time.sleep(10);
+        heldBack.heldBackByLeader();
+        heldBack.drained(time.milliseconds());
+        adaptiveBatching.onDrain(heldBack, "0", 0);
+        assertEquals(LINGER_MS / 8, adaptiveBatching.lingerMs(tp));
+
+        // A batch that was drained once it lingered does not show load
+        ProducerBatch lingered = batch(100);
+        time.sleep(LINGER_MS / 8);
+        lingered.drained(time.milliseconds());
+        adaptiveBatching.onDrain(lingered, "0", 0);
+        assertEquals(LINGER_MS / 16, adaptiveBatching.lingerMs(tp));
+    }
+
+    @Test
+    public void testBatchingDoesNotGrowForBatchesDrainedShortlyAfterTheyLingered() {
+        for (int i = 0; i < 8; i++)
+            adaptiveBatching.onDrain(batch(100), "0", 1);
+        assertEquals(LINGER_MS, adaptiveBatching.lingerMs(tp));
+
+        // Under low load, the sender wakes up a little after the linger expired
+        for (int i = 0; i < 10; i++) {
+            ProducerBatch late = batch(100);
+            time.sleep(adaptiveBatching.lingerMs(tp) + 1);
+            late.drained(time.milliseconds());
+            long lingerMs = adaptiveBatching.lingerMs(tp);
+            adaptiveBatching.onDrain(late, "0", 0);
+            assertTrue(adaptiveBatching.lingerMs(tp) <= lingerMs);
+        }
+        assertEquals(0, adaptiveBatching.lingerMs(tp));
+    }
+
+    @Test
+    public void testBatchingShrinksOnlyForBatchesSentBeforeTheyFilledUp() {
+        ProducerBatch small = batch(100);
+        for (int i = 0; i < 8; i++)
+            adaptiveBatching.onDrain(small, "0", 1);
+        assertEquals(LINGER_MS, adaptiveBatching.lingerMs(tp));
+
+        // A batch that reached the target does not wait for the linger, which is kept
+        adaptiveBatching.onDrain(batch(BATCH_SIZE), "0", 0);
+        assertEquals(LINGER_MS, adaptiveBatching.lingerMs(tp));
+
+        adaptiveBatching.onDrain(small, "0", 0);
+        assertEquals(LINGER_MS / 2, adaptiveBatching.lingerMs(tp));
+    }
+
+    @Test
+    public void testLingerIsBoundedByProduceLatency() {
+        adaptiveBatching.onProduceLatency("0", 10);
+        adaptiveBatching.onProduceLatency("0", 20);
+        for (int i = 0; i < 8; i++)
+            adaptiveBatching.onDrain(batch(100), "0", 1);
+        // The average of the latencies of the leader
+        assertEquals(12, adaptiveBatching.lingerMs(tp));
+    }
+
+    @Test
+    public void testMetrics() {
+        adaptiveBatching.onDrain(batch(BATCH_SIZE / 4), "0", 1);
+        adaptiveBatching.onDrain(batch(BATCH_SIZE / 4), "0", 1);
+        assertEquals(0.25, (double) metrics.metric(registry.batchFillRatioAvg).metricValue(), 0.01);
+        assertEquals(LINGER_MS / 8 / 2.0, (double) metrics.metric(registry.adaptiveLingerMsAvg).metricValue(), 0.01);
+        assertEquals(LINGER_MS / 8, (double) metrics.metric(registry.adaptiveLingerMsMax).metricValue(), 0.01);
+        assertTrue((double) metrics.metric(registry.adaptiveBatchSizeTargetAvg).metricValue() > 1024);
+    }
+
+    private ProducerBatch batch(int size) {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(BATCH_SIZE), RecordBatch.CURRENT_MAGIC_VALUE,
+                CompressionType.NONE, TimestampType.CREATE_TIME, 0L);
+        ProducerBatch batch = new ProducerBatch(tp, builder, time.milliseconds());
+        batch.tryAppend(time.milliseconds(), null, new byte[size], Record.EMPTY_HEADERS, null, time.milliseconds());
+        return batch;
+    }
+}
@@ -36,6 +36,7 @@ import java.util.concurrent.locks.Condition;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -83,6 +84,24 @@ public class BufferPoolTest {
         assertEquals("Non-standard size didn't go to the free list.", totalMemory - size, pool.unallocatedMemory());
     }
 
+    /**
+     * Test that tryAllocate only allocates memory that is available right away
+     */
+    @Test
+    public void testTryAllocate() throws Exception {
+        BufferPool pool = new BufferPool(2048, 1024, metrics, time, metricGroup);
+        ByteBuffer buffer = pool.allocate(1024, maxBlockTimeMs);
+        pool.deallocate(buffer);
+        assertEquals("The pooled buffer should be reused.", buffer, pool.tryAllocate(1024));
+        ByteBuffer other = pool.tryAllocate(512);
+        assertEquals(512, other.capacity());
+        assertEquals(512, pool.availableMemory());
+        assertNull("The allocation should not block.", pool.tryAllocate(1024));
+        pool.deallocate(other);
+        pool.deallocate(buffer);
+        assertEquals(2048, pool.availableMemory());
+    }
+
     /**
      * Test that we cannot try to allocate more memory then we have in the whole pool
      */
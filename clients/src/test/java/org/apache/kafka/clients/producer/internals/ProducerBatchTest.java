@@ -22,6 +22,8 @@ import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.LegacyRecord;
 import org.apache.kafka.common.record.MemoryRecords;
@@ -29,16 +31,19 @@ import org.apache.kafka.common.record.MemoryRecordsBuilder;
 import org.apache.kafka.common.record.Record;
 import org.apache.kafka.common.record.RecordBatch;
 import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Time;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.kafka.common.record.RecordBatch.MAGIC_VALUE_V0;
 import static org.apache.kafka.common.record.RecordBatch.MAGIC_VALUE_V1;
 import static org.apache.kafka.common.record.RecordBatch.MAGIC_VALUE_V2;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -266,6 +271,102 @@ public class ProducerBatchTest {
         assertEquals(null, batch.tryAppend(now + 1, null, new byte[10], Record.EMPTY_HEADERS, null, now + 1));
     }
 
+    @Test
+    public void testDeferredCompression() {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(1024), CompressionType.NONE,
+                TimestampType.CREATE_TIME, 0L);
+        ProducerBatch batch = new ProducerBatch(new TopicPartition("topic", 1), builder, now, CompressionConfig.of(CompressionType.GZIP));
+        Header[] headers = new Header[] {new RecordHeader("header-key", "header-value".getBytes())};
+        for (int i = 0; i < 3; i++)
+            assertNotNull(batch.tryAppend(now + i, ("key" + i).getBytes(), ("value" + i).getBytes(), headers, null, now));
+        assertTrue(batch.isCompressionPending());
+        assertFalse(batch.isCompressed());
+
+        BufferPool pool = new BufferPool(4096, 1024, new Metrics(), Time.SYSTEM, "producer-metrics");
+        batch.startCompression(pool);
+        assertTrue(batch.isCompressionStarted());
+        assertNull(batch.tryAppend(now, null, new byte[10], Record.EMPTY_HEADERS, null, now));
+        batch.compressRecords();
+        assertFalse(batch.isCompressionPending());
+        // The compressed records are written to a buffer of the pool
+        assertTrue(pool.availableMemory() < 4096);
+        batch.applyCompression();
+        assertTrue(batch.isCompressed());
+
+        // The producer state is only set once the compressed records replaced the uncompressed ones
+        batch.setProducerState(new ProducerIdAndEpoch(5L, (short) 1), 10, false);
+        batch.close();
+
+        int i = 0;
+        for (RecordBatch recordBatch : batch.records().batches()) {
+            assertEquals(CompressionType.GZIP, recordBatch.compressionType());
+            assertEquals(5L, recordBatch.producerId());
+            assertEquals((short) 1, recordBatch.producerEpoch());
+            assertEquals(10, recordBatch.baseSequence());
+            recordBatch.ensureValid();
+            for (Record record : recordBatch) {
+                assertEquals(now + i, record.timestamp());
+                assertEquals(ByteBuffer.wrap(("key" + i).getBytes()), record.key());
+                assertEquals(ByteBuffer.wrap(("value" + i).getBytes()), record.value());
+                assertArrayEquals(headers, record.headers());
+                i++;
+            }
+        }
+        assertEquals(3, i);
+
+        // The buffer of the compressed records goes back to the pool with the buffer of the batch
+        batch.releaseBuffer(() -> { });
+        assertEquals(4096, pool.availableMemory());
+    }
+
+    @Test
+    public void testDeferredCompressionSendsRecordsUncompressedWithoutBufferMemory() {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(1024), CompressionType.NONE,
+                TimestampType.CREATE_TIME, 0L);
+        ProducerBatch batch = new ProducerBatch(new TopicPartition("topic", 1), builder, now, CompressionConfig.of(CompressionType.GZIP));
+        assertNotNull(batch.tryAppend(now, null, "value".getBytes(), Record.EMPTY_HEADERS, null, now));
+        BufferPool pool = new BufferPool(1024, 1024, new Metrics(), Time.SYSTEM, "producer-metrics");
+        ByteBuffer allocated = pool.tryAllocate(1024);
+        batch.startCompression(pool);
+
+        assertTrue(batch.compressRecords());
+        assertFalse(batch.isCompressionPending());
+        batch.applyCompression();
+        assertFalse(batch.isCompressed());
+        batch.close();
+        for (RecordBatch recordBatch : batch.records().batches()) {
+            assertEquals(CompressionType.NONE, recordBatch.compressionType());
+            recordBatch.ensureValid();
+        }
+        pool.deallocate(allocated);
+        assertEquals(1024, pool.availableMemory());
+    }
+
+    @Test
+    public void testDeferredCompressionOfCompletedBatchIsSkipped() {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(1024), CompressionType.NONE,
+                TimestampType.CREATE_TIME, 0L);
+        ProducerBatch batch = new ProducerBatch(new TopicPartition("topic", 1), builder, now, CompressionConfig.of(CompressionType.GZIP));
+        assertNotNull(batch.tryAppend(now, null, "value".getBytes(), Record.EMPTY_HEADERS, null, now));
+        batch.startCompression(new BufferPool(1024, 1024, new Metrics(), Time.SYSTEM, "producer-metrics"));
+
+        // The batch expired while its compression was queued, its buffer may already be reused
+        batch.abort(new KafkaException("Batch expired"));
+        assertFalse(batch.compressRecords());
+        assertFalse(batch.isCompressionPending());
+
+        AtomicInteger releases = new AtomicInteger();
+        batch.releaseBuffer(releases::incrementAndGet);
+        assertEquals(1, releases.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDeferredCompressionRequiresUncompressedAppends() {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(1024), CompressionType.LZ4,
+                TimestampType.CREATE_TIME, 0L);
+        new ProducerBatch(new TopicPartition("topic", 1), builder, now, CompressionConfig.of(CompressionType.GZIP));
+    }
+
     private static class MockCallback implements Callback {
         private int invocations = 0;
         private RecordMetadata metadata;
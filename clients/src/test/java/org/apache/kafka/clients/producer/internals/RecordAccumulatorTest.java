@@ -19,6 +19,7 @@ package org.apache.kafka.clients.producer.internals;
 import org.apache.kafka.clients.ApiVersions;
 import org.apache.kafka.clients.NodeApiVersions;
 import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Partitioner;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.Cluster;
 import org.apache.kafka.common.KafkaException;
@@ -28,6 +29,7 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.UnsupportedVersionException;
 import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.protocol.ApiKeys;
+import org.apache.kafka.common.record.CompressionConfig;
 import org.apache.kafka.common.record.CompressionRatioEstimator;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.DefaultRecord;
@@ -63,6 +65,7 @@ import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -107,7 +110,7 @@ public class RecordAccumulatorTest {
         int appends = expectedNumAppends(batchSize);
         for (int i = 0; i < appends; i++) {
             // append to the first batch
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
             Deque<ProducerBatch> partitionBatches = accum.batches().get(tp1);
             assertEquals(1, partitionBatches.size());
 
@@ -118,7 +121,7 @@ public class RecordAccumulatorTest {
 
         // this append doesn't fit in the first batch, so a new batch is created and the first batch is closed
 
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         Deque<ProducerBatch> partitionBatches = accum.batches().get(tp1);
         assertEquals(2, partitionBatches.size());
         Iterator<ProducerBatch> partitionBatchesIterator = partitionBatches.iterator();
@@ -153,7 +156,7 @@ public class RecordAccumulatorTest {
         byte[] value = new byte[2 * batchSize];
         RecordAccumulator accum = createTestRecordAccumulator(
                 batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * 1024, compressionType, 0);
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
 
         Deque<ProducerBatch> batches = accum.batches().get(tp1);
@@ -192,7 +195,7 @@ public class RecordAccumulatorTest {
 
         RecordAccumulator accum = createTestRecordAccumulator(
                 batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * 1024, compressionType, 0);
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
 
         Deque<ProducerBatch> batches = accum.batches().get(tp1);
@@ -216,7 +219,7 @@ public class RecordAccumulatorTest {
         int lingerMs = 10;
         RecordAccumulator accum = createTestRecordAccumulator(
                 1024 + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * 1024, CompressionType.NONE, lingerMs);
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         assertEquals("No partitions should be ready", 0, accum.ready(cluster, time.milliseconds()).readyNodes.size());
         time.sleep(10);
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
@@ -239,7 +242,7 @@ public class RecordAccumulatorTest {
         List<TopicPartition> partitions = asList(tp1, tp2);
         for (TopicPartition tp : partitions) {
             for (int i = 0; i < appends; i++)
-                accum.append(tp, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+                accum.append(tp, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         }
         assertEquals("Partition's leader should be ready", Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
 
@@ -247,6 +250,35 @@ public class RecordAccumulatorTest {
         assertEquals("But due to size bound only one partition should have been retrieved", 1, batches.size());
     }
 
+    @Test
+    public void testDrainPacksSmallBatchesAroundLargeOnes() throws Exception {
+        TopicPartition tp4 = new TopicPartition(topic, 3);
+        Cluster cluster = new Cluster(null, Arrays.asList(node1, node2),
+                Arrays.asList(part1, part2, new PartitionInfo(topic, 3, node1, null, null)),
+                Collections.emptySet(), Collections.emptySet());
+        RecordAccumulator accum = createTestRecordAccumulator(
+                1024 + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * 1024, CompressionType.NONE, 0);
+        int appends = 600 / msgSize;
+        for (TopicPartition tp : asList(tp1, tp2)) {
+            for (int i = 0; i < appends; i++)
+                accum.append(tp, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        }
+        accum.append(tp4, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+
+        // The batch of the second partition does not fit next to the first one, the small batch behind it does
+        List<ProducerBatch> batches = accum.drain(cluster, Collections.singleton(node1), 1024, 0).get(node1.id());
+        assertEquals(2, batches.size());
+        assertEquals(tp1, batches.get(0).topicPartition);
+        assertEquals(tp4, batches.get(1).topicPartition);
+
+        // The next drain starts at the partition that was left behind
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        batches = accum.drain(cluster, Collections.singleton(node1), 1024, 0).get(node1.id());
+        assertEquals(2, batches.size());
+        assertEquals(tp2, batches.get(0).topicPartition);
+        assertEquals(tp1, batches.get(1).topicPartition);
+    }
+
     @SuppressWarnings("unused")
     @Test
     public void testStressfulSituation() throws Exception {
@@ -261,7 +293,7 @@ public class RecordAccumulatorTest {
                 public void run() {
                     for (int i = 0; i < msgs; i++) {
                         try {
-                            accum.append(new TopicPartition(topic, i % numParts), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+                            accum.append(new TopicPartition(topic, i % numParts), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
                         } catch (Exception e) {
                             e.printStackTrace();
                         }
@@ -305,7 +337,7 @@ public class RecordAccumulatorTest {
 
         // Partition on node1 only
         for (int i = 0; i < appends; i++)
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
         assertEquals("No nodes should be ready.", 0, result.readyNodes.size());
         assertEquals("Next check time should be the linger time", lingerMs, result.nextReadyCheckDelayMs);
@@ -314,14 +346,14 @@ public class RecordAccumulatorTest {
 
         // Add partition on node2 only
         for (int i = 0; i < appends; i++)
-            accum.append(tp3, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp3, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         result = accum.ready(cluster, time.milliseconds());
         assertEquals("No nodes should be ready.", 0, result.readyNodes.size());
         assertEquals("Next check time should be defined by node1, half remaining linger time", lingerMs / 2, result.nextReadyCheckDelayMs);
 
         // Add data for another partition on node1, enough to make data sendable immediately
         for (int i = 0; i < appends + 1; i++)
-            accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         result = accum.ready(cluster, time.milliseconds());
         assertEquals("Node1 should be ready", Collections.singleton(node1), result.readyNodes);
         // Note this can actually be < linger time because it may use delays from partitions that aren't sendable
@@ -343,7 +375,7 @@ public class RecordAccumulatorTest {
             new BufferPool(totalSize, batchSize, metrics, time, metricGrpName));
 
         long now = time.milliseconds();
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, now + lingerMs + 1);
         assertEquals("Node1 should be ready", Collections.singleton(node1), result.readyNodes);
         Map<Integer, List<ProducerBatch>> batches = accum.drain(cluster, result.readyNodes, Integer.MAX_VALUE, now + lingerMs + 1);
@@ -355,7 +387,7 @@ public class RecordAccumulatorTest {
         accum.reenqueue(batches.get(0).get(0), now);
 
         // Put message for partition 1 into accumulator
-        accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         result = accum.ready(cluster, now + lingerMs + 1);
         assertEquals("Node1 should be ready", Collections.singleton(node1), result.readyNodes);
 
@@ -381,7 +413,7 @@ public class RecordAccumulatorTest {
                 4 * 1024 + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 64 * 1024, CompressionType.NONE, lingerMs);
 
         for (int i = 0; i < 100; i++) {
-            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
             assertTrue(accum.hasIncomplete());
         }
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
@@ -419,7 +451,7 @@ public class RecordAccumulatorTest {
     public void testAwaitFlushComplete() throws Exception {
         RecordAccumulator accum = createTestRecordAccumulator(
             4 * 1024 + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 64 * 1024, CompressionType.NONE, Integer.MAX_VALUE);
-        accum.append(new TopicPartition(topic, 0), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(new TopicPartition(topic, 0), 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
 
         accum.beginFlush();
         assertTrue(accum.flushInProgress());
@@ -448,7 +480,7 @@ public class RecordAccumulatorTest {
             }
         }
         for (int i = 0; i < numRecords; i++)
-            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, null, new TestCallback(), maxBlockTimeMs);
+            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, null, new TestCallback(), maxBlockTimeMs, false);
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
         assertFalse(result.readyNodes.isEmpty());
         Map<Integer, List<ProducerBatch>> drained = accum.drain(cluster, result.readyNodes, Integer.MAX_VALUE, time.milliseconds());
@@ -489,7 +521,7 @@ public class RecordAccumulatorTest {
             }
         }
         for (int i = 0; i < numRecords; i++)
-            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, null, new TestCallback(), maxBlockTimeMs);
+            accum.append(new TopicPartition(topic, i % 3), 0L, key, value, null, new TestCallback(), maxBlockTimeMs, false);
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
         assertFalse(result.readyNodes.isEmpty());
         Map<Integer, List<ProducerBatch>> drained = accum.drain(cluster, result.readyNodes, Integer.MAX_VALUE,
@@ -528,7 +560,7 @@ public class RecordAccumulatorTest {
         for (Boolean mute: muteStates) {
             if (time.milliseconds() < System.currentTimeMillis())
                 time.setCurrentTimeMs(System.currentTimeMillis());
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
             assertEquals("No partition should be ready.", 0, accum.ready(cluster, time.milliseconds()).readyNodes.size());
 
             time.sleep(lingerMs);
@@ -577,11 +609,11 @@ public class RecordAccumulatorTest {
 
         // Test batches not in retry
         for (int i = 0; i < appends; i++) {
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
             assertEquals("No partitions should be ready.", 0, accum.ready(cluster, time.milliseconds()).readyNodes.size());
         }
         // Make the batches ready due to batch full
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0, false);
         Set<Node> readyNodes = accum.ready(cluster, time.milliseconds()).readyNodes;
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), readyNodes);
         // Advance the clock to expire the batch.
@@ -611,7 +643,7 @@ public class RecordAccumulatorTest {
 
         // Test batches in retry.
         // Create a retried batch
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0, false);
         time.sleep(lingerMs);
         readyNodes = accum.ready(cluster, time.milliseconds()).readyNodes;
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), readyNodes);
@@ -635,7 +667,7 @@ public class RecordAccumulatorTest {
         assertEquals("All batches should have been expired.", 0, expiredBatches.size());
 
         // Test that when being throttled muted batches are expired before the throttle time is over.
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0, false);
         time.sleep(lingerMs);
         readyNodes = accum.ready(cluster, time.milliseconds()).readyNodes;
         assertEquals("Our partition's leader should be ready", Collections.singleton(node1), readyNodes);
@@ -658,6 +690,31 @@ public class RecordAccumulatorTest {
         assertEquals("No partitions should be ready.", 1, accum.ready(cluster, time.milliseconds()).readyNodes.size());
     }
 
+    @Test
+    public void testDrainMutesPartitionsOfDrainedBatches() throws InterruptedException {
+        RecordAccumulator accum = createTestRecordAccumulator(
+                1024 + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * 1024, CompressionType.NONE, 0);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        Map<Integer, List<ProducerBatch>> drained = accum.drain(cluster, Collections.singleton(node1),
+                Integer.MAX_VALUE, time.milliseconds(), true);
+        assertEquals(1, drained.get(node1.id()).size());
+
+        // The leader moves while the batch is in flight, the next batch has to wait for it even if
+        // another sender drains the new leader
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        Cluster moved = new Cluster(null, Arrays.asList(node1, node2),
+                Arrays.asList(new PartitionInfo(topic, partition1, node2, null, null), part2, part3),
+                Collections.emptySet(), Collections.emptySet());
+        assertTrue(accum.ready(moved, time.milliseconds()).readyNodes.isEmpty());
+        drained = accum.drain(moved, Collections.singleton(node2), Integer.MAX_VALUE, time.milliseconds(), true);
+        assertTrue(drained.get(node2.id()).isEmpty());
+
+        accum.unmutePartition(tp1, 0L);
+        drained = accum.drain(moved, Collections.singleton(node2), Integer.MAX_VALUE, time.milliseconds(), true);
+        assertEquals(1, drained.get(node2.id()).size());
+        assertEquals(tp1, drained.get(node2.id()).get(0).topicPartition);
+    }
+
     @Test
     public void testMutedPartitions() throws InterruptedException {
         long now = time.milliseconds();
@@ -668,7 +725,7 @@ public class RecordAccumulatorTest {
                 batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * batchSize, CompressionType.NONE, 10);
         int appends = expectedNumAppends(batchSize);
         for (int i = 0; i < appends; i++) {
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
             assertEquals("No partitions should be ready.", 0, accum.ready(cluster, now).readyNodes.size());
         }
         time.sleep(2000);
@@ -710,7 +767,7 @@ public class RecordAccumulatorTest {
         RecordAccumulator accum = new RecordAccumulator(logContext, batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD,
             CompressionType.NONE, lingerMs, retryBackoffMs, deliveryTimeoutMs, metrics, metricGrpName, time, apiVersions, new TransactionManager(),
             new BufferPool(totalSize, batchSize, metrics, time, metricGrpName));
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0, false);
     }
 
     @Test
@@ -810,7 +867,7 @@ public class RecordAccumulatorTest {
                 int dice = random.nextInt(100);
                 byte[] value = (dice < goodCompRatioPercentage) ?
                         bytesWithGoodCompression(random) : bytesWithPoorCompression(random, 100);
-                accum.append(tp1, 0L, null, value, Record.EMPTY_HEADERS, null, 0);
+                accum.append(tp1, 0L, null, value, Record.EMPTY_HEADERS, null, 0, false);
                 BatchDrainedResult result = completeOrSplitBatches(accum, batchSize);
                 numSplit += result.numSplit;
                 numBatches += result.numBatches;
@@ -833,7 +890,7 @@ public class RecordAccumulatorTest {
         RecordAccumulator accum = createTestRecordAccumulator(
             batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10 * batchSize, CompressionType.NONE, lingerMs);
 
-        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         Set<Node> readyNodes = accum.ready(cluster, time.milliseconds()).readyNodes;
         Map<Integer, List<ProducerBatch>> drained = accum.drain(cluster, readyNodes, Integer.MAX_VALUE, time.milliseconds());
         assertTrue(drained.isEmpty());
@@ -848,7 +905,7 @@ public class RecordAccumulatorTest {
         //assertTrue(accum.soonToExpireInFlightBatches().isEmpty());
 
         // Queue another batch and advance clock such that batch expiry time is earlier than request timeout.
-        accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs);
+        accum.append(tp2, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
         time.sleep(lingerMs * 4);
 
         // Now drain and check that accumulator picked up the drained batch because its expiry is soon.
@@ -873,7 +930,7 @@ public class RecordAccumulatorTest {
 
         // Test batches in retry.
         for (Boolean mute: muteStates) {
-            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, 0, false);
             time.sleep(lingerMs);
             readyNodes = accum.ready(cluster, time.milliseconds()).readyNodes;
             assertEquals("Our partition's leader should be ready", Collections.singleton(node1), readyNodes);
@@ -904,7 +961,7 @@ public class RecordAccumulatorTest {
         CompressionRatioEstimator.setEstimation(tp1.topic(), CompressionType.GZIP, 0.1f);
         // Append 20 records of 100 bytes size with poor compression ratio should make the batch too big.
         for (int i = 0; i < numRecords; i++) {
-            accum.append(tp1, 0L, null, bytesWithPoorCompression(random, recordSize), Record.EMPTY_HEADERS, null, 0);
+            accum.append(tp1, 0L, null, bytesWithPoorCompression(random, recordSize), Record.EMPTY_HEADERS, null, 0, false);
         }
 
         RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
@@ -974,6 +1031,200 @@ public class RecordAccumulatorTest {
         }
     }
 
+    @Test
+    public void testAbortOnNewBatch() throws Exception {
+        RecordAccumulator accum = createTestRecordAccumulator(1024, 10 * 1024, CompressionType.NONE, 10);
+
+        // There is no batch to append to, so the append is aborted instead of creating one
+        RecordAccumulator.RecordAppendResult result = accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, true);
+        assertTrue(result.abortForNewBatch);
+        assertNull(result.future);
+        assertTrue(accum.batches().get(tp1).isEmpty());
+
+        result = accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        assertFalse(result.abortForNewBatch);
+        assertTrue(result.newBatchCreated);
+
+        // Appending to an open batch is never aborted
+        result = accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, true);
+        assertFalse(result.abortForNewBatch);
+        assertNotNull(result.future);
+        assertEquals(1, accum.batches().get(tp1).size());
+    }
+
+    @Test
+    public void testStickyBatches() throws Exception {
+        // Test case assumes that the records do not fill the batch completely
+        int batchSize = 1025;
+        Partitioner partitioner = new DefaultPartitioner();
+        RecordAccumulator accum = createTestRecordAccumulator(
+                batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD, 10L * batchSize, CompressionType.NONE, 10);
+        int expectedAppends = expectedNumAppends(batchSize);
+
+        // Records partitioned without a key are appended the way the producer does, filling up one batch at a time
+        int partition = partitioner.partition(topic, null, null, "value", value, cluster);
+        TopicPartition tp = new TopicPartition(topic, partition);
+        for (int i = 0; i < expectedAppends; i++)
+            tp = appendLikeProducer(accum, partitioner, tp);
+        assertEquals(1, accum.batches().get(tp).size());
+        for (TopicPartition other : Arrays.asList(tp1, tp2, tp3)) {
+            Deque<ProducerBatch> batches = accum.batches().get(other);
+            if (!other.equals(tp))
+                assertTrue(batches == null || batches.isEmpty());
+        }
+
+        // The next record does not fit anymore, so it goes to a new batch of another partition
+        TopicPartition next = appendLikeProducer(accum, partitioner, tp);
+        assertFalse(next.equals(tp));
+        assertEquals(1, accum.batches().get(tp).size());
+        assertEquals(1, accum.batches().get(next).size());
+        assertEquals(next.partition(), partitioner.partition(topic, null, null, "value", value, cluster));
+    }
+
+    @Test
+    public void testDeferredCompressionOfFullBatch() throws Exception {
+        int batchSize = 1025;
+        AtomicInteger completions = new AtomicInteger();
+        BatchCompressor compressor = new BatchCompressor(logContext, 1, "test", completions::incrementAndGet,
+                new SenderMetricsRegistry(metrics), time);
+        try {
+            RecordAccumulator accum = createTestRecordAccumulator(batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD,
+                    10L * batchSize, CompressionType.GZIP, 10, compressor);
+            // The records are appended uncompressed, so the batch fills up as it would without compression
+            int appends = expectedNumAppends(batchSize);
+            for (int i = 0; i < appends; i++)
+                accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            assertEquals(1, accum.batches().get(tp1).size());
+            assertFalse(accum.batches().get(tp1).peekFirst().isCompressed());
+
+            // The full batch is handed to the compressor once the next record goes to a new batch
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            assertEquals(2, accum.batches().get(tp1).size());
+            TestUtils.waitForCondition(() -> completions.get() == 1, "The full batch was not compressed");
+
+            assertEquals(Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
+            List<ProducerBatch> batches = accum.drain(cluster, Collections.singleton(node1), Integer.MAX_VALUE, 0).get(node1.id());
+            assertEquals(1, batches.size());
+            ProducerBatch batch = batches.get(0);
+            assertTrue(batch.isCompressed());
+            assertEquals(appends, batch.recordCount);
+            assertRecordValues(batch.records(), appends);
+            // The buffer of the compressed records counts against the buffer memory until the batch is deallocated
+            long availableMemory = accum.bufferPoolAvailableMemory();
+            accum.deallocate(batch);
+            assertTrue(accum.bufferPoolAvailableMemory() > availableMemory + batchSize + DefaultRecordBatch.RECORD_BATCH_OVERHEAD);
+            assertTrue(metrics.metrics().containsKey(metrics.metricName("compression-time-avg", SenderMetricsRegistry.TOPIC_METRIC_GROUP_NAME,
+                    Collections.singletonMap("topic", topic))));
+        } finally {
+            compressor.close();
+        }
+    }
+
+    @Test
+    public void testDeferredCompressionOfLingeringBatch() throws Exception {
+        int lingerMs = 10;
+        AtomicInteger completions = new AtomicInteger();
+        HeldBatchCompressor compressor = new HeldBatchCompressor(completions::incrementAndGet);
+        try {
+            RecordAccumulator accum = createTestRecordAccumulator(1024, 10 * 1024, CompressionType.GZIP, lingerMs, compressor);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            time.sleep(lingerMs + 1);
+
+            // The batch is sendable, but its leader is only ready once its records have been compressed
+            RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
+            assertTrue(result.readyNodes.isEmpty());
+            assertTrue(accum.batches().get(tp1).peekFirst().isCompressionStarted());
+            assertTrue(accum.drain(cluster, Collections.singleton(node1), Integer.MAX_VALUE, time.milliseconds())
+                    .get(node1.id()).isEmpty());
+            compressor.release();
+            TestUtils.waitForCondition(() -> completions.get() == 1, "The lingering batch was not compressed");
+
+            assertEquals(Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
+            List<ProducerBatch> batches = accum.drain(cluster, Collections.singleton(node1), Integer.MAX_VALUE,
+                    time.milliseconds()).get(node1.id());
+            assertEquals(1, batches.size());
+            assertTrue(batches.get(0).isCompressed());
+            assertRecordValues(batches.get(0).records(), 2);
+        } finally {
+            compressor.close();
+        }
+    }
+
+    @Test
+    public void testAbortBatchWhoseCompressionIsQueued() throws Exception {
+        int lingerMs = 10;
+        long totalSize = 10 * 1024;
+        AtomicInteger completions = new AtomicInteger();
+        HeldBatchCompressor compressor = new HeldBatchCompressor(completions::incrementAndGet);
+        try {
+            RecordAccumulator accum = createTestRecordAccumulator(1024, totalSize, CompressionType.GZIP, lingerMs, compressor);
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            time.sleep(lingerMs + 1);
+            assertTrue(accum.ready(cluster, time.milliseconds()).readyNodes.isEmpty());
+            ProducerBatch batch = accum.batches().get(tp1).peekFirst();
+            assertTrue(batch.isCompressionStarted());
+
+            // The buffer of the aborted batch goes back to the pool, the queued compression must not read it
+            accum.abortBatches(new KafkaException("Producer is closed forcefully."));
+            assertEquals(totalSize, accum.bufferPoolAvailableMemory());
+            compressor.release();
+            TestUtils.waitForCondition(() -> completions.get() == 1, "The compression did not complete");
+            assertFalse(batch.isCompressionPending());
+            assertFalse(metrics.metrics().containsKey(metrics.metricName("compression-time-avg",
+                    SenderMetricsRegistry.TOPIC_METRIC_GROUP_NAME, Collections.singletonMap("topic", topic))));
+        } finally {
+            compressor.close();
+        }
+    }
+
+    /**
+     * A compressor that only starts compressing the batches handed to it once they are released.
+     */
+    private class HeldBatchCompressor extends BatchCompressor {
+        private final List<ProducerBatch> held = new ArrayList<>();
+
+        HeldBatchCompressor(Runnable onCompletion) {
+            super(logContext, 1, "test", onCompletion, new SenderMetricsRegistry(metrics), time);
+        }
+
+        @Override
+        synchronized void compress(ProducerBatch batch) {
+            held.add(batch);
+        }
+
+        synchronized void release() {
+            for (ProducerBatch batch : held)
+                super.compress(batch);
+            held.clear();
+        }
+    }
+
+    private void assertRecordValues(MemoryRecords records, int expectedCount) {
+        int count = 0;
+        for (MutableRecordBatch batch : records.batches()) {
+            assertEquals(CompressionType.GZIP, batch.compressionType());
+            for (Record record : batch) {
+                assertEquals(count++, record.offset());
+                assertEquals(ByteBuffer.wrap(key), record.key());
+                assertEquals(ByteBuffer.wrap(value), record.value());
+            }
+        }
+        assertEquals(expectedCount, count);
+    }
+
+    // Append a record to the accumulator as KafkaProducer.doSend() does
+    private TopicPartition appendLikeProducer(RecordAccumulator accum, Partitioner partitioner, TopicPartition tp)
+            throws InterruptedException {
+        RecordAccumulator.RecordAppendResult result = accum.append(tp, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, true);
+        if (result.abortForNewBatch) {
+            partitioner.onNewBatch(topic, cluster, tp.partition());
+            tp = new TopicPartition(topic, partitioner.partition(topic, null, null, "value", value, cluster));
+            accum.append(tp, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        }
+        return tp;
+    }
+
     /**
      * Return the offset delta.
      */
@@ -991,11 +1242,69 @@ public class RecordAccumulatorTest {
     }
 
 
+    @Test
+    public void testAdaptiveLinger() throws Exception {
+        int lingerMs = 100;
+        AdaptiveBatching adaptiveBatching = new AdaptiveBatching(lingerMs, 1024, new SenderMetricsRegistry(metrics));
+        RecordAccumulator accum = createTestRecordAccumulator(1024, 10 * 1024, CompressionType.NONE, lingerMs, null,
+                adaptiveBatching);
+
+        // The batches of a partition are sent right away until there is load
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        assertEquals(Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
+        ProducerBatch batch = drainSingleBatch(accum);
+
+        // While requests are in flight, the linger grows up to the produce latency of the leader
+        adaptiveBatching.onProduceLatency("0", 40);
+        for (int i = 0; i < 10; i++)
+            adaptiveBatching.onDrain(batch, "0", 1);
+        assertEquals(40, adaptiveBatching.lingerMs(tp1));
+        accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+        RecordAccumulator.ReadyCheckResult result = accum.ready(cluster, time.milliseconds());
+        assertTrue(result.readyNodes.isEmpty());
+        assertEquals(40, result.nextReadyCheckDelayMs);
+
+        time.sleep(40);
+        assertEquals(Collections.singleton(node1), accum.ready(cluster, time.milliseconds()).readyNodes);
+        batch = drainSingleBatch(accum);
+
+        // Once the connection is idle and the batches do not fill up, the linger shrinks quickly
+        adaptiveBatching.onDrain(batch, "0", 0);
+        assertEquals(20, adaptiveBatching.lingerMs(tp1));
+        for (int i = 0; i < 10; i++) {
+            accum.append(tp1, 0L, key, value, Record.EMPTY_HEADERS, null, maxBlockTimeMs, false);
+            time.sleep(adaptiveBatching.lingerMs(tp1));
+            batch = drainSingleBatch(accum);
+            adaptiveBatching.onDrain(batch, "0", 0);
+            accum.deallocate(batch);
+        }
+        assertEquals(0, adaptiveBatching.lingerMs(tp1));
+    }
+
+    private ProducerBatch drainSingleBatch(RecordAccumulator accum) {
+        List<ProducerBatch> batches = accum.drain(cluster, Collections.singleton(node1), Integer.MAX_VALUE,
+                time.milliseconds()).get(node1.id());
+        assertEquals(1, batches.size());
+        return batches.get(0);
+    }
+
     private RecordAccumulator createTestRecordAccumulator(int batchSize, long totalSize, CompressionType type, int lingerMs) {
         int deliveryTimeoutMs = 3200;
         return createTestRecordAccumulator(deliveryTimeoutMs, batchSize, totalSize, type, lingerMs);
     }
 
+    private RecordAccumulator createTestRecordAccumulator(int batchSize, long totalSize, CompressionType type, int lingerMs,
+                                                          BatchCompressor compressor) {
+        return createTestRecordAccumulator(batchSize, totalSize, type, lingerMs, compressor, null);
+    }
+
+    private RecordAccumulator createTestRecordAccumulator(int batchSize, long totalSize, CompressionType type, int lingerMs,
+                                                          BatchCompressor compressor, AdaptiveBatching adaptiveBatching) {
+        String metricGrpName = "producer-metrics";
+        return new RecordAccumulator(logContext, batchSize, CompressionConfig.of(type), lingerMs, 100L, 3200, metrics, metricGrpName, time,
+            new ApiVersions(), null, new BufferPool(totalSize, batchSize, metrics, time, metricGrpName), compressor, adaptiveBatching);
+    }
+
     /**
      * Return a test RecordAccumulator instance
      */
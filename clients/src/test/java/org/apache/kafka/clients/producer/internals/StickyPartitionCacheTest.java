@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients.producer.internals;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class StickyPartitionCacheTest {
+    private Node node0 = new Node(0, "localhost", 99);
+    private Node node1 = new Node(1, "localhost", 100);
+    private Node[] nodes = new Node[] {node0, node1};
+    private static final String TOPIC_A = "topicA";
+    private static final String TOPIC_B = "topicB";
+
+    @Test
+    public void testStickyPartitionPerTopic() {
+        List<PartitionInfo> allPartitions = asList(new PartitionInfo(TOPIC_A, 0, node0, nodes, nodes),
+                new PartitionInfo(TOPIC_A, 1, node1, nodes, nodes),
+                new PartitionInfo(TOPIC_A, 2, node0, nodes, nodes),
+                new PartitionInfo(TOPIC_B, 0, node0, nodes, nodes));
+        Cluster cluster = new Cluster("clusterId", asList(node0, node1), allPartitions,
+                Collections.<String>emptySet(), Collections.<String>emptySet());
+        StickyPartitionCache cache = new StickyPartitionCache();
+
+        int partA = cache.partition(TOPIC_A, cluster);
+        assertEquals(partA, cache.partition(TOPIC_A, cluster));
+        assertEquals(0, cache.partition(TOPIC_B, cluster));
+
+        // Only a new batch of the sticky partition of the topic changes it
+        int changedA = cache.nextPartition(TOPIC_A, cluster, partA);
+        assertNotEquals(partA, changedA);
+        assertEquals(changedA, cache.partition(TOPIC_A, cluster));
+        assertEquals(changedA, cache.nextPartition(TOPIC_A, cluster, partA));
+        assertEquals(0, cache.partition(TOPIC_B, cluster));
+
+        // A topic with a single partition sticks to it
+        assertEquals(0, cache.nextPartition(TOPIC_B, cluster, 0));
+    }
+
+    @Test
+    public void testUnavailablePartitions() {
+        List<PartitionInfo> allPartitions = asList(new PartitionInfo(TOPIC_A, 0, null, nodes, nodes),
+                new PartitionInfo(TOPIC_A, 1, null, nodes, nodes),
+                new PartitionInfo(TOPIC_A, 2, node0, nodes, nodes),
+                new PartitionInfo(TOPIC_B, 0, null, nodes, nodes));
+        Cluster cluster = new Cluster("clusterId", asList(node0, node1), allPartitions,
+                Collections.<String>emptySet(), Collections.<String>emptySet());
+        StickyPartitionCache cache = new StickyPartitionCache();
+
+        // The only available partition is chosen, also after its batch was closed
+        assertEquals(2, cache.partition(TOPIC_A, cluster));
+        assertEquals(2, cache.nextPartition(TOPIC_A, cluster, 2));
+
+        // Without available partitions, any partition is chosen
+        assertEquals(0, cache.partition(TOPIC_B, cluster));
+    }
+}
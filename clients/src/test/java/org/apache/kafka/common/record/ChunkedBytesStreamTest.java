@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ChunkedBytesStreamTest {
+
+    private final byte[] data = new byte[1000];
+
+    public ChunkedBytesStreamTest() {
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+    }
+
+    @Test
+    public void testReadInChunks() throws IOException {
+        CountingInputStream source = new CountingInputStream(data);
+        try (ChunkedBytesStream in = new ChunkedBytesStream(source, BufferSupplier.NO_CACHING, 64)) {
+            for (int i = 0; i < 100; i++)
+                assertEquals(data[i] & 0xff, in.read());
+            // Single byte reads are served from the chunk
+            assertEquals(2, source.reads);
+
+            byte[] read = new byte[data.length];
+            assertEquals(28, in.read(read, 100, 50));
+            // Large reads bypass the chunk
+            assertEquals(200, in.read(read, 128, 200));
+            int offset = 328;
+            int n;
+            while ((n = in.read(read, offset, read.length - offset)) > 0)
+                offset += n;
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(read, 0, 1));
+        }
+    }
+
+    @Test
+    public void testSkip() throws IOException {
+        try (ChunkedBytesStream in = new ChunkedBytesStream(new ByteArrayInputStream(data), BufferSupplier.NO_CACHING, 64)) {
+            assertEquals(10, in.skip(10));
+            assertEquals(10, in.read());
+            assertEquals(500, in.skip(500));
+            assertEquals(511 & 0xff, in.read());
+            assertEquals(488, in.skip(1000));
+            assertEquals(0, in.skip(10));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testReadAllBytes() throws IOException {
+        try (ChunkedBytesStream in = new ChunkedBytesStream(new ByteArrayInputStream(data), BufferSupplier.NO_CACHING, 64)) {
+            byte[] read = new byte[data.length];
+            int offset = 0;
+            int n;
+            while ((n = in.read(read, offset, Math.min(13, read.length - offset))) > 0)
+                offset += n;
+            assertArrayEquals(data, read);
+        }
+    }
+
+    @Test
+    public void testCloseReleasesBuffer() throws IOException {
+        BufferSupplier bufferSupplier = BufferSupplier.create();
+        ByteBuffer buffer = bufferSupplier.get(64);
+        bufferSupplier.release(buffer);
+
+        ChunkedBytesStream in = new ChunkedBytesStream(new ByteArrayInputStream(data), bufferSupplier, 64);
+        in.read();
+        in.close();
+        in.close();
+        assertSame(buffer, bufferSupplier.get(64));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadAfterClose() throws IOException {
+        ChunkedBytesStream in = new ChunkedBytesStream(new ByteArrayInputStream(data), BufferSupplier.NO_CACHING, 64);
+        in.close();
+        in.read();
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+        int reads = 0;
+
+        CountingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            reads++;
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public synchronized int read() {
+            reads++;
+            return super.read();
+        }
+    }
+}
@@ -19,10 +19,22 @@ package org.apache.kafka.common.record;
 import org.apache.kafka.common.utils.ByteBufferOutputStream;
 import org.junit.Test;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class CompressionTypeTest {
 
@@ -53,4 +65,133 @@ public class CompressionTypeTest {
                 buffer, RecordBatch.MAGIC_VALUE_V1, BufferSupplier.create());
         assertFalse(in.ignoreFlagDescriptorChecksum());
     }
+
+    @Test
+    public void testRoundTripForAllCompressionTypes() throws IOException {
+        byte[] data = new byte[100000];
+        Random random = new Random(0);
+        // Compressible, but not trivially so
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) random.nextInt(16);
+
+        for (CompressionType type : CompressionType.values()) {
+            ByteBuffer compressed = compress(type, data);
+            BufferSupplier bufferSupplier = BufferSupplier.create();
+
+            byte[] read = new byte[data.length];
+            try (DataInputStream in = new DataInputStream(type.wrapForInput(compressed.duplicate(),
+                    RecordBatch.CURRENT_MAGIC_VALUE, bufferSupplier))) {
+                // Mix single byte, small and large reads
+                read[0] = in.readByte();
+                in.readFully(read, 1, 99);
+                in.readFully(read, 100, read.length - 100);
+                assertEquals(type.name, -1, in.read());
+            }
+            assertArrayEquals(type.name, data, read);
+
+            try (InputStream in = type.wrapForInput(compressed.duplicate(), RecordBatch.CURRENT_MAGIC_VALUE,
+                    bufferSupplier)) {
+                assertEquals(type.name, 50000, skipFully(in, 50000));
+                assertEquals(type.name, data[50000] & 0xff, in.read());
+            }
+        }
+    }
+
+    @Test
+    public void testDecompressionBuffersAreReturnedToSupplier() throws IOException {
+        for (CompressionType type : new CompressionType[] {CompressionType.GZIP, CompressionType.ZSTD}) {
+            ByteBuffer compressed = compress(type, new byte[1000]);
+            BufferSupplier bufferSupplier = BufferSupplier.create();
+            ByteBuffer cached = bufferSupplier.get(16 * 1024);
+            bufferSupplier.release(cached);
+
+            try (InputStream in = type.wrapForInput(compressed.duplicate(), RecordBatch.CURRENT_MAGIC_VALUE,
+                    bufferSupplier)) {
+                // The stream holds the cached buffer until it is closed
+                assertEquals(1000, skipFully(in, 1000));
+                assertNotSame(type.name, cached, bufferSupplier.get(16 * 1024));
+            }
+            assertSame(type.name, cached, bufferSupplier.get(16 * 1024));
+        }
+    }
+
+    @Test
+    public void testCompressionLevels() throws IOException {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(0);
+        String[] words = {"kafka", "topic", "partition", "offset", "broker", "replica", "leader", "batch", "record"};
+        while (text.length() < 100000)
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(1000)).append(' ');
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (CompressionType type : new CompressionType[] {CompressionType.GZIP, CompressionType.LZ4, CompressionType.ZSTD}) {
+            assertTrue(type.name, type.hasLevels());
+            assertTrue(type.name, type.isValidLevel(type.defaultLevel()));
+            assertFalse(type.name, type.isValidLevel(type.maxLevel() + 1));
+
+            ByteBuffer fastest = compress(type, data, type.minLevel());
+            ByteBuffer smallest = compress(type, data, type.maxLevel());
+            assertTrue(type.name + " compressed to " + smallest.remaining() + " bytes at level " + type.maxLevel() +
+                    " and to " + fastest.remaining() + " bytes at level " + type.minLevel(),
+                    smallest.remaining() < fastest.remaining());
+            for (ByteBuffer compressed : new ByteBuffer[] {fastest, smallest}) {
+                byte[] read = new byte[data.length];
+                try (DataInputStream in = new DataInputStream(type.wrapForInput(compressed,
+                        RecordBatch.CURRENT_MAGIC_VALUE, BufferSupplier.NO_CACHING))) {
+                    in.readFully(read);
+                    assertEquals(type.name, -1, in.read());
+                }
+                assertArrayEquals(type.name, data, read);
+            }
+        }
+
+        // Codecs without levels accept and ignore any level
+        assertFalse(CompressionType.SNAPPY.hasLevels());
+        assertTrue(CompressionType.SNAPPY.isValidLevel(42));
+    }
+
+    @Test
+    public void testCompressionConfigLevel() {
+        assertEquals(6, CompressionConfig.of(CompressionType.GZIP).level());
+        assertEquals(6, CompressionConfig.of(CompressionType.GZIP, CompressionConfig.DEFAULT_LEVEL).level());
+        assertEquals(9, CompressionConfig.of(CompressionType.GZIP, 9).level());
+        assertEquals(1, CompressionConfig.of(CompressionType.LZ4).level());
+        assertEquals(3, CompressionConfig.of(CompressionType.ZSTD).level());
+        assertEquals(19, CompressionConfig.zstd(null, 19).level());
+        assertEquals(0, CompressionConfig.of(CompressionType.SNAPPY, 5).level());
+        assertEquals(CompressionConfig.of(CompressionType.ZSTD), CompressionConfig.of(CompressionType.ZSTD, 3));
+        assertNotEquals(CompressionConfig.of(CompressionType.ZSTD), CompressionConfig.of(CompressionType.ZSTD, 4));
+
+        try {
+            CompressionConfig.of(CompressionType.GZIP, 10);
+            fail("Level 10 should not be supported by gzip");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static ByteBuffer compress(CompressionType type, byte[] data) throws IOException {
+        return compress(type, data, type.defaultLevel());
+    }
+
+    private static ByteBuffer compress(CompressionType type, byte[] data, int level) throws IOException {
+        ByteBufferOutputStream bufferStream = new ByteBufferOutputStream(1024);
+        try (OutputStream out = type.wrapForOutput(bufferStream, RecordBatch.CURRENT_MAGIC_VALUE, level)) {
+            out.write(data);
+        }
+        ByteBuffer buffer = bufferStream.buffer();
+        buffer.flip();
+        return buffer;
+    }
+
+    private static long skipFully(InputStream in, long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            long s = in.skip(n - skipped);
+            if (s <= 0)
+                break;
+            skipped += s;
+        }
+        return skipped;
+    }
 }
@@ -25,6 +25,7 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.apache.kafka.common.record.DefaultRecordBatch.RECORDS_COUNT_OFFSET;
@@ -375,6 +376,53 @@ public class DefaultRecordBatchTest {
         }
     }
 
+    @Test
+    public void testSkipKeyValueIteratorConsistency() {
+        for (CompressionType compressionType : CompressionType.values()) {
+            MemoryRecords records = MemoryRecords.withRecords(RecordBatch.MAGIC_VALUE_V2, 0L,
+                    compressionType, TimestampType.CREATE_TIME,
+                    new SimpleRecord(1L, "a".getBytes(), "1".getBytes()),
+                    new SimpleRecord(2L, null, "2".getBytes()),
+                    new SimpleRecord(3L, "c".getBytes(), null, new Header[] {new RecordHeader("k", "v".getBytes())}));
+            DefaultRecordBatch batch = new DefaultRecordBatch(records.buffer());
+            Iterator<Record> expected = batch.iterator();
+            try (CloseableIterator<Record> skipKeyValueIterator = batch.skipKeyValueIterator(BufferSupplier.create())) {
+                while (expected.hasNext()) {
+                    Record expectedRecord = expected.next();
+                    Record record = skipKeyValueIterator.next();
+                    assertEquals(expectedRecord.offset(), record.offset());
+                    assertEquals(expectedRecord.timestamp(), record.timestamp());
+                    assertEquals(expectedRecord.sequence(), record.sequence());
+                    assertEquals(expectedRecord.sizeInBytes(), record.sizeInBytes());
+                    assertEquals(expectedRecord.hasKey(), record.hasKey());
+                    assertEquals(expectedRecord.keySize(), record.keySize());
+                    assertEquals(expectedRecord.valueSize(), record.valueSize());
+                }
+                assertFalse(skipKeyValueIterator.hasNext());
+            }
+        }
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testSkipKeyValueIteratorInvalidRecordCountTooMany() {
+        DefaultRecordBatch batch = recordsWithInvalidRecordCount(RecordBatch.MAGIC_VALUE_V2,
+                System.currentTimeMillis(), CompressionType.GZIP, 5);
+        try (CloseableIterator<Record> iterator = batch.skipKeyValueIterator(BufferSupplier.NO_CACHING)) {
+            while (iterator.hasNext())
+                iterator.next();
+        }
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testSkipKeyValueIteratorInvalidRecordCountTooLittle() {
+        DefaultRecordBatch batch = recordsWithInvalidRecordCount(RecordBatch.MAGIC_VALUE_V2,
+                System.currentTimeMillis(), CompressionType.GZIP, 2);
+        try (CloseableIterator<Record> iterator = batch.skipKeyValueIterator(BufferSupplier.NO_CACHING)) {
+            while (iterator.hasNext())
+                iterator.next();
+        }
+    }
+
     @Test
     public void testIncrementSequence() {
         assertEquals(10, DefaultRecordBatch.incrementSequence(5, 5));
@@ -18,17 +18,21 @@ package org.apache.kafka.common.record;
 
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.utils.ByteBufferInputStream;
 import org.apache.kafka.common.utils.ByteBufferOutputStream;
 import org.apache.kafka.common.utils.ByteUtils;
 import org.junit.Test;
 
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class DefaultRecordTest {
 
@@ -74,6 +78,119 @@ public class DefaultRecordTest {
         }
     }
 
+    @Test
+    public void testReadPartially() throws IOException {
+        Header[] headers = new Header[] {
+            new RecordHeader("foo", "value".getBytes()),
+            new RecordHeader("bar", (byte[]) null)
+        };
+
+        SimpleRecord[] records = new SimpleRecord[] {
+            new SimpleRecord("hi".getBytes(), "there".getBytes()),
+            new SimpleRecord(null, "there".getBytes()),
+            new SimpleRecord("hi".getBytes(), null),
+            new SimpleRecord(null, null),
+            new SimpleRecord(15L, "hi".getBytes(), "there".getBytes(), headers)
+        };
+
+        int baseSequence = 723;
+        long baseOffset = 37;
+        int offsetDelta = 10;
+        long baseTimestamp = System.currentTimeMillis();
+        long timestampDelta = 323;
+
+        ByteBufferOutputStream out = new ByteBufferOutputStream(1024);
+        for (SimpleRecord record : records)
+            DefaultRecord.writeTo(new DataOutputStream(out), offsetDelta, timestampDelta, record.key(), record.value(),
+                    record.headers());
+        ByteBuffer buffer = out.buffer();
+        buffer.flip();
+
+        DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer));
+        for (SimpleRecord record : records) {
+            PartialDefaultRecord logRecord = DefaultRecord.readPartiallyFrom(input, baseOffset, baseTimestamp,
+                    baseSequence, null);
+            assertEquals(baseOffset + offsetDelta, logRecord.offset());
+            assertEquals(baseSequence + offsetDelta, logRecord.sequence());
+            assertEquals(baseTimestamp + timestampDelta, logRecord.timestamp());
+            assertEquals(record.key() != null, logRecord.hasKey());
+            assertEquals(record.key() == null ? -1 : record.key().remaining(), logRecord.keySize());
+            assertEquals(record.value() != null, logRecord.hasValue());
+            assertEquals(record.value() == null ? -1 : record.value().remaining(), logRecord.valueSize());
+            assertEquals(DefaultRecord.sizeInBytes(offsetDelta, timestampDelta, record.key(), record.value(),
+                    record.headers()), logRecord.sizeInBytes());
+        }
+        // All records were consumed, no byte more or less
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testReadPartiallyWithLogAppendTime() throws IOException {
+        ByteBufferOutputStream out = new ByteBufferOutputStream(1024);
+        DefaultRecord.writeTo(new DataOutputStream(out), 0, 5L, ByteBuffer.wrap("hi".getBytes()), null,
+                Record.EMPTY_HEADERS);
+        ByteBuffer buffer = out.buffer();
+        buffer.flip();
+
+        PartialDefaultRecord logRecord = DefaultRecord.readPartiallyFrom(
+                new DataInputStream(new ByteBufferInputStream(buffer)), 0L, 100L, RecordBatch.NO_SEQUENCE, 1000L);
+        assertEquals(1000L, logRecord.timestamp());
+        assertEquals(RecordBatch.NO_SEQUENCE, logRecord.sequence());
+        assertTrue(logRecord.hasKey());
+        assertFalse(logRecord.hasValue());
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testReadPartiallyInvalidHeaderCountTooHigh() throws IOException {
+        readPartiallyWithHeaderCount((byte) 8);
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testReadPartiallyInvalidHeaderCountTooLow() throws IOException {
+        readPartiallyWithHeaderCount((byte) 2);
+    }
+
+    private void readPartiallyWithHeaderCount(byte numHeaders) throws IOException {
+        Header[] headers = new Header[] {
+            new RecordHeader("foo", "value".getBytes()),
+            new RecordHeader("bar", (byte[]) null)
+        };
+
+        ByteBufferOutputStream out = new ByteBufferOutputStream(1024);
+        DefaultRecord.writeTo(new DataOutputStream(out), 10, 323, ByteBuffer.wrap("hi".getBytes()),
+                ByteBuffer.wrap("there".getBytes()), headers);
+        // Append another record, which a corrupt record must not run into
+        DefaultRecord.writeTo(new DataOutputStream(out), 11, 323, ByteBuffer.wrap("hi".getBytes()),
+                ByteBuffer.wrap("there".getBytes()), headers);
+        ByteBuffer buffer = out.buffer();
+        buffer.flip();
+        buffer.put(14, numHeaders);
+
+        DefaultRecord.readPartiallyFrom(new DataInputStream(new ByteBufferInputStream(buffer)), 37L,
+                System.currentTimeMillis(), 723, null);
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testReadPartiallyInvalidKeySize() throws IOException {
+        byte attributes = 0;
+        long timestampDelta = 2;
+        int offsetDelta = 1;
+        int sizeOfBodyInBytes = 100;
+        int keySize = 105; // use a key size larger than the full message
+
+        ByteBuffer buf = ByteBuffer.allocate(sizeOfBodyInBytes + ByteUtils.sizeOfVarint(sizeOfBodyInBytes) + 10);
+        ByteUtils.writeVarint(sizeOfBodyInBytes, buf);
+        buf.put(attributes);
+        ByteUtils.writeVarlong(timestampDelta, buf);
+        ByteUtils.writeVarint(offsetDelta, buf);
+        ByteUtils.writeVarint(keySize, buf);
+        buf.position(buf.limit());
+
+        buf.flip();
+        DefaultRecord.readPartiallyFrom(new DataInputStream(new ByteBufferInputStream(buf)), 0L, 0L,
+                RecordBatch.NO_SEQUENCE, null);
+    }
+
     @Test(expected = InvalidRecordException.class)
     public void testBasicSerdeInvalidHeaderCountTooHigh() throws IOException {
         Header[] headers = new Header[] {
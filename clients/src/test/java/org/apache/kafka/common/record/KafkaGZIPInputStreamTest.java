@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class KafkaGZIPInputStreamTest {
+
+    private static final byte[] DATA = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testReadConcatenatedMembers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(gzip(DATA));
+        out.write(gzip(DATA));
+        assertArrayEquals(concat(DATA, DATA), readAll(ByteBuffer.wrap(out.toByteArray())));
+    }
+
+    @Test
+    public void testIgnoreTrailingBytes() throws IOException {
+        byte[] compressed = gzip(DATA);
+        byte[] withGarbage = concat(compressed, new byte[] {1, 2, 3});
+        assertArrayEquals(DATA, readAll(ByteBuffer.wrap(withGarbage)));
+    }
+
+    @Test
+    public void testReadFromBufferSlice() throws IOException {
+        byte[] compressed = gzip(DATA);
+        byte[] padded = concat(concat(new byte[] {9, 9}, compressed), new byte[] {9});
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 2, compressed.length).slice();
+        assertArrayEquals(DATA, readAll(buffer));
+    }
+
+    @Test
+    public void testHeaderWithOptionalFields() throws IOException {
+        byte[] compressed = gzip(DATA);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(new byte[] {0x1f, (byte) 0x8b, 8, 2 | 4 | 8 | 16, 0, 0, 0, 0, 0, (byte) 0xff});
+        // Extra field of 3 bytes, name and comment
+        header.write(new byte[] {3, 0, 'a', 'b', 'c'});
+        header.write("name\0comment\0".getBytes(StandardCharsets.US_ASCII));
+        CRC32 crc = new CRC32();
+        crc.update(header.toByteArray());
+        header.write((int) crc.getValue() & 0xff);
+        header.write((int) (crc.getValue() >> 8) & 0xff);
+        // Replace the 10 bytes of the plain header
+        header.write(compressed, 10, compressed.length - 10);
+        assertArrayEquals(DATA, readAll(ByteBuffer.wrap(header.toByteArray())));
+
+        byte[] corrupt = header.toByteArray();
+        corrupt[corrupt.length - compressed.length + 10 - 1] ^= 1;
+        assertFails(ZipException.class, corrupt);
+    }
+
+    @Test
+    public void testCorruptTrailer() throws IOException {
+        byte[] compressed = gzip(DATA);
+        compressed[compressed.length - 1] ^= 1;
+        assertFails(ZipException.class, compressed);
+    }
+
+    @Test
+    public void testTruncatedData() throws IOException {
+        byte[] compressed = gzip(DATA);
+        byte[] truncated = new byte[compressed.length - 10];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        assertFails(EOFException.class, truncated);
+    }
+
+    @Test
+    public void testNotGzip() {
+        try {
+            new KafkaGZIPInputStream(ByteBuffer.wrap(DATA));
+            fail("Expected ZipException");
+        } catch (IOException e) {
+            assertEquals(ZipException.class, e.getClass());
+        }
+    }
+
+    @Test
+    public void testReadAfterClose() throws IOException {
+        InputStream in = new KafkaGZIPInputStream(ByteBuffer.wrap(gzip(DATA)));
+        in.close();
+        try {
+            in.read();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void assertFails(Class<? extends IOException> exceptionClass, byte[] compressed) {
+        try {
+            readAll(ByteBuffer.wrap(compressed));
+            fail("Expected " + exceptionClass.getSimpleName());
+        } catch (IOException e) {
+            assertEquals(exceptionClass, e.getClass());
+        }
+    }
+
+    private static byte[] readAll(ByteBuffer buffer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new KafkaGZIPInputStream(buffer)) {
+            byte[] chunk = new byte[7];
+            int read;
+            while ((read = in.read(chunk)) != -1)
+                out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.errors.UnsupportedCompressionTypeException;
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ZstdDictionaryTest {
+
+    private final List<Long> registered = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (long id : registered)
+            ZstdDictionary.unregister(id);
+    }
+
+    @Test
+    public void testRoundTripWithDictionary() {
+        List<byte[]> samples = samples(2000, 1);
+        ZstdDictionary dictionary = register(ZstdDictionary.train(samples, 4 * 1024));
+
+        MemoryRecords withDictionary = records(CompressionConfig.zstd(dictionary), samples.subList(0, 10));
+        MemoryRecords withoutDictionary = records(CompressionConfig.of(CompressionType.ZSTD), samples.subList(0, 10));
+        assertTrue("The dictionary should improve the compression of small records",
+                withDictionary.sizeInBytes() < withoutDictionary.sizeInBytes());
+
+        assertEquals(dictionary.id(), frameDictionaryId(withDictionary));
+        assertEquals(ZstdDictionary.NO_DICTIONARY_ID, frameDictionaryId(withoutDictionary));
+
+        int i = 0;
+        for (Record record : withDictionary.records())
+            assertArrayEquals(samples.get(i++), Utils.toArray(record.value()));
+        assertEquals(10, i);
+    }
+
+    @Test
+    public void testRoundTripWithDictionaryAtLevels() {
+        List<byte[]> samples = samples(2000, 6);
+        ZstdDictionary dictionary = register(ZstdDictionary.train(samples, 4 * 1024));
+
+        for (int level : new int[] {1, 3, 19}) {
+            MemoryRecords records = records(CompressionConfig.zstd(dictionary, level), samples.subList(0, 10));
+            assertEquals(dictionary.id(), frameDictionaryId(records));
+            int i = 0;
+            for (Record record : records.records())
+                assertArrayEquals(samples.get(i++), Utils.toArray(record.value()));
+            assertEquals(10, i);
+        }
+    }
+
+    @Test
+    public void testUnknownDictionary() {
+        ZstdDictionary dictionary = ZstdDictionary.train(samples(2000, 2), 4 * 1024);
+        ZstdDictionary.register(dictionary);
+        MemoryRecords records = records(CompressionConfig.zstd(dictionary), samples(10, 3));
+        ZstdDictionary.unregister(dictionary.id());
+
+        try {
+            records.records().iterator().next();
+            fail("Batches compressed with an unknown dictionary should not be readable");
+        } catch (UnsupportedCompressionTypeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRegister() {
+        ZstdDictionary dictionary = register(ZstdDictionary.train(samples(2000, 4), 4 * 1024));
+        assertSame(dictionary, ZstdDictionary.registered(dictionary.id()));
+        assertSame(dictionary, ZstdDictionary.register(new ZstdDictionary(dictionary.bytes().clone())));
+
+        // A different dictionary with the same id
+        byte[] bytes = dictionary.bytes().clone();
+        bytes[bytes.length - 1] ^= 1;
+        try {
+            ZstdDictionary.register(new ZstdDictionary(bytes));
+            fail("A different dictionary with the same id should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertNull(ZstdDictionary.registered(dictionary.id() + 1));
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        ZstdDictionary dictionary = ZstdDictionary.train(samples(2000, 5), 4 * 1024);
+        Path path = Files.createTempFile("zstd", ".dict");
+        try {
+            Files.write(path, dictionary.bytes());
+            ZstdDictionary loaded = ZstdDictionary.load(path.toString());
+            assertEquals(dictionary.id(), loaded.id());
+            assertArrayEquals(dictionary.bytes(), loaded.bytes());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDictionary() {
+        new ZstdDictionary("not a dictionary".getBytes());
+    }
+
+    @Test
+    public void testFrameDictionaryIdOfOtherPayloads() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        try (OutputStream out = CompressionType.ZSTD.wrapForOutput(new ByteBufferOutputStream(buffer), RecordBatch.CURRENT_MAGIC_VALUE)) {
+            out.write("value".getBytes());
+        }
+        buffer.flip();
+        assertEquals(ZstdDictionary.NO_DICTIONARY_ID, CompressionType.zstdFrameDictionaryId(buffer));
+        assertEquals(ZstdDictionary.NO_DICTIONARY_ID, CompressionType.zstdFrameDictionaryId(ByteBuffer.allocate(3)));
+        assertEquals(ZstdDictionary.NO_DICTIONARY_ID, CompressionType.zstdFrameDictionaryId(ByteBuffer.wrap("not a frame".getBytes())));
+    }
+
+    private ZstdDictionary register(ZstdDictionary dictionary) {
+        registered.add(dictionary.id());
+        return ZstdDictionary.register(dictionary);
+    }
+
+    private static MemoryRecords records(CompressionConfig compressionConfig, List<byte[]> values) {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(64 * 1024), RecordBatch.CURRENT_MAGIC_VALUE,
+                compressionConfig, TimestampType.CREATE_TIME, 0L);
+        for (byte[] value : values)
+            builder.append(0L, null, value);
+        return builder.build();
+    }
+
+    private static long frameDictionaryId(MemoryRecords records) {
+        ByteBuffer buffer = records.buffer();
+        buffer.position(DefaultRecordBatch.RECORD_BATCH_OVERHEAD);
+        return CompressionType.zstdFrameDictionaryId(buffer.slice());
+    }
+
+    // Small records that share most of their structure, like the JSON events of a topic
+    private static List<byte[]> samples(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> names = Arrays.asList("checkout", "login", "logout", "search", "view", "cart");
+        List<byte[]> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String sample = "{\"event\":\"" + names.get(random.nextInt(names.size())) + "\",\"userId\":" +
+                    random.nextInt(100000) + ",\"timestamp\":" + (1500000000000L + random.nextInt(1000000)) +
+                    ",\"country\":\"" + (random.nextBoolean() ? "US" : "DE") + "\",\"amount\":" + random.nextInt(500) + "}";
+            samples.add(sample.getBytes());
+        }
+        return samples;
+    }
+}
@@ -18,8 +18,10 @@ package org.apache.kafka.connect.data;
 
 import org.apache.kafka.connect.errors.DataException;
 
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -27,6 +29,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 
 public class ConnectSchema implements Schema {
     /**
@@ -47,6 +50,12 @@ public class ConnectSchema implements Schema {
      */
     private static final Map<Class<?>, Type> JAVA_CLASS_SCHEMA_TYPES = new HashMap<>();
 
+    /**
+     * The canonical instance of each interned schema. The values only weakly reference the keys, which are the
+     * canonical instances themselves, so that a schema is dropped once nothing but this map refers to it.
+     */
+    private static final Map<ConnectSchema, WeakReference<ConnectSchema>> INTERNED_SCHEMAS = new WeakHashMap<>();
+
     static {
         SCHEMA_TYPE_CLASSES.put(Type.INT8, Collections.singletonList((Class) Byte.class));
         SCHEMA_TYPE_CLASSES.put(Type.INT16, Collections.singletonList((Class) Short.class));
@@ -100,6 +109,9 @@ public class ConnectSchema implements Schema {
     private final Map<String, String> parameters;
     // precomputed hash code. There is no need to re-compute every time hashCode() is called.
     private Integer hash = null;
+    // Whether this is the canonical instance of its schema, see intern(). Only ever changes from false to true, and a
+    // thread that does not see the change yet just falls back to the deep comparison in equals().
+    private boolean interned = false;
 
     /**
      * Construct a Schema. Most users should not construct schemas manually, preferring {@link SchemaBuilder} instead.
@@ -254,6 +266,7 @@ public class ConnectSchema implements Schema {
         switch (schema.type()) {
             case STRUCT:
                 Struct struct = (Struct) value;
+                // Struct.validate() returns right away for structs that have been validated before
                 if (!struct.schema().equals(schema))
                     throw new DataException("Struct schemas do not match.");
                 struct.validate();
@@ -294,12 +307,65 @@ public class ConnectSchema implements Schema {
         return this;
     }
 
+    /**
+     * Get the canonical instance of a schema, so that all equal schemas share one instance. The field, key and value
+     * schemas of the canonical instance are interned as well. Interned schemas compare by identity, which makes
+     * comparing them, e.g. when a {@link Struct} is validated or a schema is looked up in a cache, cheap no matter how
+     * wide or deeply nested they are.
+     * <p>
+     * Converters should intern the schemas they produce, since they usually rebuild equal schemas for every record.
+     *
+     * @param schema the schema to intern; may be null
+     * @return the canonical instance of the schema, or the schema itself if it is neither a {@link ConnectSchema}
+     *         nor a {@link SchemaBuilder}
+     */
+    public static Schema intern(Schema schema) {
+        if (schema instanceof SchemaBuilder)
+            schema = ((SchemaBuilder) schema).build();
+        if (schema == null || schema.getClass() != ConnectSchema.class)
+            return schema;
+        ConnectSchema connectSchema = (ConnectSchema) schema;
+        if (connectSchema.interned)
+            return connectSchema;
+
+        // Intern the nested schemas first, so that the canonical instance only refers to canonical instances
+        List<Field> internedFields = connectSchema.fields;
+        boolean changed = false;
+        if (connectSchema.fields != null) {
+            internedFields = new ArrayList<>(connectSchema.fields.size());
+            for (Field field : connectSchema.fields) {
+                Schema fieldSchema = intern(field.schema());
+                changed |= fieldSchema != field.schema();
+                internedFields.add(fieldSchema == field.schema() ? field : new Field(field.name(), field.index(), fieldSchema));
+            }
+            internedFields = Collections.unmodifiableList(internedFields);
+        }
+        Schema keySchema = intern(connectSchema.keySchema);
+        Schema valueSchema = intern(connectSchema.valueSchema);
+        changed |= keySchema != connectSchema.keySchema || valueSchema != connectSchema.valueSchema;
+        ConnectSchema candidate = !changed ? connectSchema : new ConnectSchema(connectSchema.type, connectSchema.optional,
+                connectSchema.defaultValue, connectSchema.name, connectSchema.version, connectSchema.doc,
+                connectSchema.parameters, internedFields, keySchema, valueSchema);
+
+        synchronized (INTERNED_SCHEMAS) {
+            WeakReference<ConnectSchema> existing = INTERNED_SCHEMAS.get(candidate);
+            ConnectSchema canonical = existing == null ? null : existing.get();
+            if (canonical != null)
+                return canonical;
+            candidate.interned = true;
+            INTERNED_SCHEMAS.put(candidate, new WeakReference<>(candidate));
+            return candidate;
+        }
+    }
+
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ConnectSchema schema = (ConnectSchema) o;
+        // There is only one interned instance of each schema
+        if (interned && schema.interned) return false;
         return Objects.equals(optional, schema.optional) &&
                 Objects.equals(version, schema.version) &&
                 Objects.equals(name, schema.name) &&
@@ -45,6 +45,8 @@ public class Struct {
 
     private final Schema schema;
     private final Object[] values;
+    // Whether the struct is known to be valid. Every put validates the value it sets, so a valid struct stays valid
+    private boolean validated;
 
     /**
      * Create a new Struct for this {@link Schema}
@@ -57,6 +59,30 @@ public class Struct {
         this.values = new Object[schema.fields().size()];
     }
 
+    private Struct(Schema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+        this.validated = true;
+    }
+
+    /**
+     * Create a Struct that takes ownership of the given values without copying or validating them. This is meant for
+     * converters, whose output already matches the schema it is converted with, and saves validating every field
+     * again, including the fields of all nested structs.
+     *
+     * @param schema the {@link Schema} for the Struct
+     * @param values the values of the fields, indexed like the fields of the schema; must not be modified afterwards
+     * @return the Struct
+     * @throws DataException if the schema is not a struct schema or the number of values does not match its fields
+     */
+    public static Struct withValidatedValues(Schema schema, Object[] values) {
+        if (schema.type() != Schema.Type.STRUCT)
+            throw new DataException("Not a struct schema: " + schema);
+        if (values.length != schema.fields().size())
+            throw new DataException("Expected " + schema.fields().size() + " values for " + schema + " but got " + values.length);
+        return new Struct(schema, values);
+    }
+
     /**
      * Get the schema for this Struct.
      * @return the Struct's schema
@@ -225,8 +251,13 @@ public class Struct {
      * Validates that this struct has filled in all the necessary data with valid values. For required fields
      * without defaults, this validates that a value has been set and has matching types/schemas. If any validation
      * fails, throws a DataException.
+     * <p>
+     * A struct is only validated once: since every put validates its value, a struct that was valid stays valid and
+     * later calls return right away. Lists and maps set as values must therefore not be modified afterwards.
      */
     public void validate() {
+        if (validated)
+            return;
         for (Field field : schema.fields()) {
             Schema fieldSchema = field.schema();
             Object value = values[field.index()];
@@ -234,6 +265,7 @@ public class Struct {
                 continue;
             ConnectSchema.validateValue(field.name(), fieldSchema, value);
         }
+        validated = true;
     }
 
     @Override
@@ -69,4 +69,22 @@ public interface OffsetStorageReader {
      * @return a map of partition identifiers to decoded offsets   分区标识符到解码偏移量的映射
      */
     <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions);
+
+    /**
+     * <p>
+     * Get the offsets of all partitions of data that have been stored for this connector. Connectors that track
+     * many partitions, e.g. one per file or table, can use this to load all of their offsets at once instead of
+     * first determining and then looking up each of their partitions.
+     * </p>
+     * <p>
+     * Not every offset storage supports listing offsets, in which case this returns null and
+     * {@link #offsets(Collection)} has to be used instead.
+     * </p>
+     *
+     * @return a map of partition identifiers to decoded offsets, or null if the offset storage does not support
+     *         listing offsets
+     */
+    default Map<Map<String, Object>, Map<String, Object>> offsets() {
+        return null;
+    }
 }
@@ -31,6 +31,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class ConnectSchemaTest {
     private static final Schema MAP_INT_STRING_SCHEMA = SchemaBuilder.map(Schema.INT32_SCHEMA, Schema.STRING_SCHEMA).build();
@@ -316,4 +317,45 @@ public class ConnectSchemaTest {
         new Struct(emptyStruct);
     }
 
+    @Test
+    public void testInternCanonicalizesEqualSchemas() {
+        Schema s1 = SchemaBuilder.struct().name("record")
+                .field("id", Schema.INT64_SCHEMA)
+                .field("tags", SchemaBuilder.array(SchemaBuilder.string().build()).build())
+                .field("nested", SchemaBuilder.struct().field("int8", SchemaBuilder.int8().build()).build())
+                .build();
+        Schema s2 = SchemaBuilder.struct().name("record")
+                .field("id", SchemaBuilder.int64().build())
+                .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+                .field("nested", SchemaBuilder.struct().field("int8", Schema.INT8_SCHEMA).build())
+                .build();
+
+        Schema interned = ConnectSchema.intern(s1);
+        assertEquals(s1, interned);
+        assertSame(interned, ConnectSchema.intern(s2));
+        assertSame(interned, ConnectSchema.intern(interned));
+        // Nested schemas are interned as well
+        assertSame(ConnectSchema.intern(s2.field("nested").schema()), interned.field("nested").schema());
+        assertSame(ConnectSchema.intern(Schema.STRING_SCHEMA), interned.field("tags").schema().valueSchema());
+    }
+
+    @Test
+    public void testInternedSchemasCompareByIdentity() {
+        Schema s1 = ConnectSchema.intern(SchemaBuilder.struct().field("field", Schema.INT8_SCHEMA).build());
+        Schema s2 = ConnectSchema.intern(SchemaBuilder.struct().field("field", Schema.INT16_SCHEMA).build());
+        Schema notInterned = SchemaBuilder.struct().field("field", Schema.INT8_SCHEMA).build();
+
+        assertNotEquals(s1, s2);
+        assertEquals(s1, notInterned);
+        assertEquals(notInterned, s1);
+        assertEquals(s1.hashCode(), notInterned.hashCode());
+    }
+
+    @Test
+    public void testInternBuildsSchemaBuilders() {
+        SchemaBuilder builder = SchemaBuilder.int32().optional();
+        assertSame(ConnectSchema.intern(Schema.OPTIONAL_INT32_SCHEMA), ConnectSchema.intern(builder));
+        assertNull(ConnectSchema.intern(null));
+    }
+
 }
@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -339,4 +340,43 @@ public class StructTest {
         thrown.expectMessage("Invalid value: null used for required field: \"fieldName\", schema type: STRING");
         struct.put(fieldName, null);
     }
+    @Test
+    public void testValidateOnlyOnce() {
+        List<Object> array = new ArrayList<>();
+        array.add((byte) 1);
+        Struct struct = new Struct(NESTED_SCHEMA)
+                .put("array", array)
+                .put("map", Collections.singletonMap(1, "one"))
+                .put("nested", new Struct(NESTED_CHILD_SCHEMA).put("int8", (byte) 12));
+        struct.validate();
+
+        // Modifying a list that was set as a value is not supported, and is not detected anymore
+        array.add("not a byte");
+        struct.validate();
+
+        // Every put is still validated
+        thrown.expect(DataException.class);
+        struct.put("map", Collections.singletonMap("one", 1));
+    }
+
+    @Test
+    public void testWithValidatedValues() {
+        Struct nested = Struct.withValidatedValues(NESTED_CHILD_SCHEMA, new Object[] {(byte) 12});
+        Struct struct = new Struct(NESTED_SCHEMA)
+                .put("array", Collections.singletonList((byte) 1))
+                .put("map", Collections.singletonMap(1, "one"))
+                .put("nested", nested);
+
+        assertEquals(new Struct(NESTED_CHILD_SCHEMA).put("int8", (byte) 12), nested);
+        assertEquals((byte) 12, struct.getStruct("nested").getInt8("int8").byteValue());
+        struct.validate();
+    }
+
+    @Test
+    public void testWithValidatedValuesRequiresValueOfEveryField() {
+        thrown.expect(DataException.class);
+        thrown.expectMessage("Expected 1 values");
+        Struct.withValidatedValues(NESTED_CHILD_SCHEMA, new Object[0]);
+    }
+
 }
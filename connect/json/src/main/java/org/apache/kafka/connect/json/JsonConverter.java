@@ -56,6 +56,9 @@ import java.util.Map;
  * and headers with schemas, although this can be disabled with {@link JsonConverterConfig#SCHEMAS_ENABLE_CONFIG schemas.enable}
  * configuration option.
  *
+ * With {@link JsonConverterConfig#STREAMING_ENABLE_CONFIG streaming.enable} the converter reads and writes JSON through Jackson's
+ * streaming API instead of building a JSON tree for every record, see {@link JsonStreamingCodec}.
+ *
  * This implementation currently does nothing with the topic names or header names.
  */
 public class JsonConverter implements Converter, HeaderConverter {
@@ -187,7 +190,7 @@ public class JsonConverter implements Converter, HeaderConverter {
 
     // Convert values in Kafka Connect form into their logical types. These logical converters are discovered by logical type
     // names specified in the field
-    private static final HashMap<String, LogicalTypeConverter> TO_CONNECT_LOGICAL_CONVERTERS = new HashMap<>();
+    static final HashMap<String, LogicalTypeConverter> TO_CONNECT_LOGICAL_CONVERTERS = new HashMap<>();
     static {
         TO_CONNECT_LOGICAL_CONVERTERS.put(Decimal.LOGICAL_NAME, new LogicalTypeConverter() {
             @Override
@@ -226,7 +229,7 @@ public class JsonConverter implements Converter, HeaderConverter {
         });
     }
 
-    private static final HashMap<String, LogicalTypeConverter> TO_JSON_LOGICAL_CONVERTERS = new HashMap<>();
+    static final HashMap<String, LogicalTypeConverter> TO_JSON_LOGICAL_CONVERTERS = new HashMap<>();
     static {
         TO_JSON_LOGICAL_CONVERTERS.put(Decimal.LOGICAL_NAME, new LogicalTypeConverter() {
             @Override
@@ -270,6 +273,7 @@ public class JsonConverter implements Converter, HeaderConverter {
     private int cacheSize = JsonConverterConfig.SCHEMAS_CACHE_SIZE_DEFAULT;
     private Cache<Schema, ObjectNode> fromConnectSchemaCache;
     private Cache<JsonNode, Schema> toConnectSchemaCache;
+    private JsonStreamingCodec streamingCodec;
 
     private final JsonSerializer serializer = new JsonSerializer();
     private final JsonDeserializer deserializer = new JsonDeserializer();
@@ -291,6 +295,7 @@ public class JsonConverter implements Converter, HeaderConverter {
 
         fromConnectSchemaCache = new SynchronizedCache<>(new LRUCache<Schema, ObjectNode>(cacheSize));
         toConnectSchemaCache = new SynchronizedCache<>(new LRUCache<JsonNode, Schema>(cacheSize));
+        streamingCodec = config.streamingEnabled() ? new JsonStreamingCodec(this, enableSchemas, cacheSize) : null;
     }
 
     @Override
@@ -321,6 +326,9 @@ public class JsonConverter implements Converter, HeaderConverter {
             return null;
         }
 
+        if (streamingCodec != null)
+            return streamingCodec.fromConnectData(schema, value);
+
         JsonNode jsonValue = enableSchemas ? convertToJsonWithEnvelope(schema, value) : convertToJsonWithoutEnvelope(schema, value);
         try {
             return serializer.serialize(topic, jsonValue);
@@ -338,6 +346,12 @@ public class JsonConverter implements Converter, HeaderConverter {
             return SchemaAndValue.NULL;
         }
 
+        if (streamingCodec != null) {
+            SchemaAndValue result = streamingCodec.toConnectData(value);
+            if (result != null)
+                return result;
+        }
+
         try {
             jsonValue = deserializer.deserialize(topic, value);
         } catch (SerializationException e) {
@@ -553,7 +567,8 @@ public class JsonConverter implements Converter, HeaderConverter {
         if (schemaDefaultNode != null)
             builder.defaultValue(convertToConnect(builder, schemaDefaultNode));
 
-        Schema result = builder.build();
+        // Records of a topic mostly share a few schemas, intern them so that they compare cheaply downstream
+        Schema result = ConnectSchema.intern(builder.build());
         toConnectSchemaCache.put(jsonSchema, result);
         return result;
     }
@@ -755,7 +770,7 @@ public class JsonConverter implements Converter, HeaderConverter {
         Object convert(Schema schema, JsonNode value);
     }
 
-    private interface LogicalTypeConverter {
+    interface LogicalTypeConverter {
         Object convert(Schema schema, Object value);
     }
 }
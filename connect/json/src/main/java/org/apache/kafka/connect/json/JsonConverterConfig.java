@@ -39,6 +39,13 @@ public class JsonConverterConfig extends ConverterConfig {
     private static final String SCHEMAS_CACHE_SIZE_DOC = "The maximum number of schemas that can be cached in this converter instance.";
     private static final String SCHEMAS_CACHE_SIZE_DISPLAY = "Schema Cache Size";
 
+    public static final String STREAMING_ENABLE_CONFIG = "streaming.enable";
+    public static final boolean STREAMING_ENABLE_DEFAULT = false;
+    private static final String STREAMING_ENABLE_DOC = "Read and write JSON with Jackson's streaming parser and generator directly against "
+            + "Connect schemas and values, instead of building a JSON tree for every record. Readers and writers are compiled once "
+            + "per schema and cached, up to the configured schema cache size. The produced JSON is the same in both modes.";
+    private static final String STREAMING_ENABLE_DISPLAY = "Enable Streaming Conversion";
+
     private final static ConfigDef CONFIG;
 
     static {
@@ -49,6 +56,11 @@ public class JsonConverterConfig extends ConverterConfig {
                       orderInGroup++, Width.MEDIUM, SCHEMAS_ENABLE_DISPLAY);
         CONFIG.define(SCHEMAS_CACHE_SIZE_CONFIG, Type.INT, SCHEMAS_CACHE_SIZE_DEFAULT, Importance.HIGH, SCHEMAS_CACHE_SIZE_DOC, group,
                       orderInGroup++, Width.MEDIUM, SCHEMAS_CACHE_SIZE_DISPLAY);
+
+        group = "Serialization";
+        orderInGroup = 0;
+        CONFIG.define(STREAMING_ENABLE_CONFIG, Type.BOOLEAN, STREAMING_ENABLE_DEFAULT, Importance.LOW, STREAMING_ENABLE_DOC, group,
+                      orderInGroup++, Width.SHORT, STREAMING_ENABLE_DISPLAY);
     }
 
     public static ConfigDef configDef() {
@@ -76,4 +88,13 @@ public class JsonConverterConfig extends ConverterConfig {
     public int schemaCacheSize() {
         return getInt(SCHEMAS_CACHE_SIZE_CONFIG);
     }
+
+    /**
+     * Return whether the streaming conversion is enabled.
+     *
+     * @return true if enabled, or false otherwise
+     */
+    public boolean streamingEnabled() {
+        return getBoolean(STREAMING_ENABLE_CONFIG);
+    }
 }
@@ -0,0 +1,644 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
+import org.apache.kafka.connect.data.ConnectSchema;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts between Connect data and JSON through Jackson's streaming {@link JsonGenerator} and {@link JsonParser},
+ * without building a {@link com.fasterxml.jackson.databind.JsonNode} tree for every record.
+ * <p>
+ * Writers and readers are compiled once per schema and cached. A writer carries the serialized JSON schema for the
+ * envelope, and readers are looked up by the raw bytes of the envelope's schema, so converting records with a known
+ * schema neither serializes nor parses the schema again. The JSON written is identical to the tree based conversion
+ * of {@link JsonConverter}. Input that the streaming reader does not expect is left to the tree based conversion,
+ * so that lenient coercions and error reporting stay the same.
+ */
+class JsonStreamingCodec {
+
+    private static final SerializedString SCHEMA_FIELD = new SerializedString(JsonSchema.ENVELOPE_SCHEMA_FIELD_NAME);
+    private static final SerializedString PAYLOAD_FIELD = new SerializedString(JsonSchema.ENVELOPE_PAYLOAD_FIELD_NAME);
+
+    private static final ValueWriter SCHEMALESS_WRITER = new ValueWriter(null, null, null, JsonStreamingCodec::writeSchemaless);
+    private static final ValueReader SCHEMALESS_READER = new ValueReader(null, JsonStreamingCodec::readSchemaless);
+
+    private final JsonConverter converter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+    private final boolean enableSchemas;
+    private final Cache<Schema, ValueWriter> writers;
+    private final Cache<ByteBuffer, ValueReader> readers;
+
+    /**
+     * @param converter the converter whose JSON schema translation and caches are used when compiling new schemas
+     */
+    JsonStreamingCodec(JsonConverter converter, boolean enableSchemas, int cacheSize) {
+        this.converter = converter;
+        this.enableSchemas = enableSchemas;
+        this.writers = new SynchronizedCache<>(new LRUCache<Schema, ValueWriter>(cacheSize));
+        this.readers = new SynchronizedCache<>(new LRUCache<ByteBuffer, ValueReader>(cacheSize));
+    }
+
+    byte[] fromConnectData(Schema schema, Object value) {
+        ValueWriter writer = writerFor(schema);
+        ByteArrayBuilder out = new ByteArrayBuilder();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            if (enableSchemas) {
+                generator.writeStartObject();
+                generator.writeFieldName(SCHEMA_FIELD);
+                if (writer.jsonSchema == null)
+                    generator.writeNull();
+                else
+                    generator.writeRawValue(writer.jsonSchema);
+                generator.writeFieldName(PAYLOAD_FIELD);
+                writer.write(generator, value);
+                generator.writeEndObject();
+            } else {
+                writer.write(generator, value);
+            }
+        } catch (IOException e) {
+            throw new DataException("Converting Kafka Connect data to byte[] failed due to serialization error: ", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the converted data, or null if the input has to be converted through the JSON tree instead
+     */
+    SchemaAndValue toConnectData(byte[] value) {
+        try (JsonParser parser = jsonFactory.createParser(value)) {
+            if (!enableSchemas) {
+                if (parser.nextToken() == null)
+                    return null;
+                return new SchemaAndValue(null, readSchemaless(parser));
+            }
+
+            if (parser.nextToken() != JsonToken.START_OBJECT || !nextFieldIs(parser, SCHEMA_FIELD))
+                return null;
+            final ValueReader reader;
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                reader = SCHEMALESS_READER;
+            } else if (token == JsonToken.START_OBJECT) {
+                long start = parser.getCurrentLocation().getByteOffset() - 1;
+                parser.skipChildren();
+                long end = parser.getCurrentLocation().getByteOffset();
+                if (start < 0 || end <= start)
+                    return null;
+                reader = readerFor(value, (int) start, (int) end);
+            } else {
+                return null;
+            }
+
+            if (!nextFieldIs(parser, PAYLOAD_FIELD))
+                return null;
+            parser.nextToken();
+            Object payload = reader.read(parser);
+            if (parser.nextToken() != JsonToken.END_OBJECT)
+                return null;
+            return new SchemaAndValue(reader.schema, payload);
+        } catch (IOException e) {
+            // Malformed JSON as well as values of an unexpected JSON type end up here
+            return null;
+        }
+    }
+
+    private static boolean nextFieldIs(JsonParser parser, SerializableString name) throws IOException {
+        return parser.nextToken() == JsonToken.FIELD_NAME && name.getValue().equals(parser.getCurrentName());
+    }
+
+    private ValueWriter writerFor(Schema schema) {
+        if (schema == null)
+            return SCHEMALESS_WRITER;
+
+        ValueWriter cached = writers.get(schema);
+        if (cached != null)
+            return cached;
+
+        SerializableString jsonSchema = null;
+        if (enableSchemas) {
+            try {
+                jsonSchema = new SerializedString(objectMapper.writeValueAsString(converter.asJsonSchema(schema)));
+            } catch (IOException e) {
+                throw new DataException("Converting Kafka Connect schema to JSON failed due to serialization error: ", e);
+            }
+        }
+        ValueWriter writer = compileWriter(schema, jsonSchema);
+        writers.put(schema, writer);
+        return writer;
+    }
+
+    private ValueReader readerFor(byte[] value, int start, int end) throws IOException {
+        ValueReader cached = readers.get(ByteBuffer.wrap(value, start, end - start));
+        if (cached != null)
+            return cached;
+
+        byte[] jsonSchema = Arrays.copyOfRange(value, start, end);
+        ValueReader reader = compileReader(converter.asConnectSchema(objectMapper.readTree(jsonSchema)));
+        readers.put(ByteBuffer.wrap(jsonSchema), reader);
+        return reader;
+    }
+
+    private static ValueWriter compileWriter(Schema schema, SerializableString jsonSchema) {
+        final TypeWriter typeWriter;
+        switch (schema.type()) {
+            case INT8:
+                typeWriter = (generator, value) -> generator.writeNumber((Byte) value);
+                break;
+            case INT16:
+                typeWriter = (generator, value) -> generator.writeNumber((Short) value);
+                break;
+            case INT32:
+                typeWriter = (generator, value) -> generator.writeNumber((Integer) value);
+                break;
+            case INT64:
+                typeWriter = (generator, value) -> generator.writeNumber((Long) value);
+                break;
+            case FLOAT32:
+                typeWriter = (generator, value) -> generator.writeNumber((Float) value);
+                break;
+            case FLOAT64:
+                typeWriter = (generator, value) -> generator.writeNumber((Double) value);
+                break;
+            case BOOLEAN:
+                typeWriter = (generator, value) -> generator.writeBoolean((Boolean) value);
+                break;
+            case STRING:
+                typeWriter = (generator, value) -> generator.writeString(((CharSequence) value).toString());
+                break;
+            case BYTES:
+                typeWriter = JsonStreamingCodec::writeBytes;
+                break;
+            case ARRAY: {
+                ValueWriter elementWriter = compileWriter(schema.valueSchema(), null);
+                typeWriter = (generator, value) -> {
+                    generator.writeStartArray();
+                    for (Object element : (Collection<?>) value)
+                        elementWriter.write(generator, element);
+                    generator.writeEndArray();
+                };
+                break;
+            }
+            case MAP: {
+                Schema keySchema = schema.keySchema();
+                ValueWriter keyWriter = compileWriter(keySchema, null);
+                ValueWriter valueWriter = compileWriter(schema.valueSchema(), null);
+                if (keySchema.type() == Schema.Type.STRING) {
+                    typeWriter = (generator, value) -> {
+                        generator.writeStartObject();
+                        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                            generator.writeFieldName(objectKey(keySchema, entry.getKey()));
+                            valueWriter.write(generator, entry.getValue());
+                        }
+                        generator.writeEndObject();
+                    };
+                } else {
+                    typeWriter = (generator, value) -> {
+                        generator.writeStartArray();
+                        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                            generator.writeStartArray();
+                            keyWriter.write(generator, entry.getKey());
+                            valueWriter.write(generator, entry.getValue());
+                            generator.writeEndArray();
+                        }
+                        generator.writeEndArray();
+                    };
+                }
+                break;
+            }
+            case STRUCT: {
+                List<Field> fields = schema.fields();
+                Field[] structFields = fields.toArray(new Field[0]);
+                SerializableString[] names = new SerializableString[structFields.length];
+                ValueWriter[] fieldWriters = new ValueWriter[structFields.length];
+                for (int i = 0; i < structFields.length; i++) {
+                    names[i] = new SerializedString(structFields[i].name());
+                    fieldWriters[i] = compileWriter(structFields[i].schema(), null);
+                }
+                typeWriter = (generator, value) -> {
+                    Struct struct = (Struct) value;
+                    if (struct.schema() != schema && !struct.schema().equals(schema))
+                        throw new DataException("Mismatching schema.");
+                    generator.writeStartObject();
+                    for (int i = 0; i < structFields.length; i++) {
+                        generator.writeFieldName(names[i]);
+                        fieldWriters[i].write(generator, struct.get(structFields[i]));
+                    }
+                    generator.writeEndObject();
+                };
+                break;
+            }
+            default:
+                throw new DataException("Couldn't translate unsupported schema type " + schema + ".");
+        }
+
+        JsonConverter.LogicalTypeConverter logicalConverter =
+                schema.name() == null ? null : JsonConverter.TO_JSON_LOGICAL_CONVERTERS.get(schema.name());
+        return new ValueWriter(schema, jsonSchema, logicalConverter, typeWriter);
+    }
+
+    private static String objectKey(Schema keySchema, Object key) {
+        Object value = key != null ? key : keySchema.defaultValue();
+        if (value == null) {
+            if (keySchema.isOptional())
+                return "null";
+            throw new DataException("Conversion error: null value for field that is required and has no default value");
+        }
+        try {
+            return ((CharSequence) value).toString();
+        } catch (ClassCastException e) {
+            throw new DataException("Invalid type for " + keySchema.type() + ": " + value.getClass());
+        }
+    }
+
+    private static void writeBytes(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof byte[])
+            generator.writeBinary((byte[]) value);
+        else if (value instanceof ByteBuffer)
+            generator.writeBinary(((ByteBuffer) value).array());
+        else
+            throw new DataException("Invalid type for bytes type: " + value.getClass());
+    }
+
+    private static void writeSchemaless(JsonGenerator generator, Object value) throws IOException {
+        Schema.Type schemaType = ConnectSchema.schemaType(value.getClass());
+        if (schemaType == null)
+            throw new DataException("Java class " + value.getClass() + " does not have corresponding schema type.");
+
+        switch (schemaType) {
+            case INT8:
+                generator.writeNumber((Byte) value);
+                break;
+            case INT16:
+                generator.writeNumber((Short) value);
+                break;
+            case INT32:
+                generator.writeNumber((Integer) value);
+                break;
+            case INT64:
+                generator.writeNumber((Long) value);
+                break;
+            case FLOAT32:
+                generator.writeNumber((Float) value);
+                break;
+            case FLOAT64:
+                generator.writeNumber((Double) value);
+                break;
+            case BOOLEAN:
+                generator.writeBoolean((Boolean) value);
+                break;
+            case STRING:
+                generator.writeString(((CharSequence) value).toString());
+                break;
+            case BYTES:
+                writeBytes(generator, value);
+                break;
+            case ARRAY:
+                generator.writeStartArray();
+                for (Object element : (Collection<?>) value)
+                    SCHEMALESS_WRITER.write(generator, element);
+                generator.writeEndArray();
+                break;
+            case MAP: {
+                Map<?, ?> map = (Map<?, ?>) value;
+                boolean objectMode = true;
+                for (Object key : map.keySet()) {
+                    if (!(key instanceof String)) {
+                        objectMode = false;
+                        break;
+                    }
+                }
+                if (objectMode) {
+                    generator.writeStartObject();
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        generator.writeFieldName((String) entry.getKey());
+                        SCHEMALESS_WRITER.write(generator, entry.getValue());
+                    }
+                    generator.writeEndObject();
+                } else {
+                    generator.writeStartArray();
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        generator.writeStartArray();
+                        SCHEMALESS_WRITER.write(generator, entry.getKey());
+                        SCHEMALESS_WRITER.write(generator, entry.getValue());
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndArray();
+                }
+                break;
+            }
+            default:
+                // Structs always carry a schema, which a schemaless value can never match
+                throw new DataException("Mismatching schema.");
+        }
+    }
+
+    private static ValueReader compileReader(Schema schema) {
+        if (schema == null)
+            return SCHEMALESS_READER;
+
+        final TypeReader typeReader;
+        switch (schema.type()) {
+            case BOOLEAN:
+                typeReader = parser -> {
+                    JsonToken token = parser.currentToken();
+                    if (token != JsonToken.VALUE_TRUE && token != JsonToken.VALUE_FALSE)
+                        throw unexpected(parser, schema);
+                    return token == JsonToken.VALUE_TRUE;
+                };
+                break;
+            case INT8:
+                typeReader = parser -> (byte) number(parser, schema).getIntValue();
+                break;
+            case INT16:
+                typeReader = parser -> (short) number(parser, schema).getIntValue();
+                break;
+            case INT32:
+                typeReader = parser -> number(parser, schema).getIntValue();
+                break;
+            case INT64:
+                typeReader = parser -> number(parser, schema).getLongValue();
+                break;
+            case FLOAT32:
+                typeReader = parser -> {
+                    // Integral values are narrowed directly, like the tree's IntNode and LongNode do
+                    if (number(parser, schema).currentToken() == JsonToken.VALUE_NUMBER_FLOAT)
+                        return parser.getFloatValue();
+                    return parser.getNumberType() == JsonParser.NumberType.INT ? (float) parser.getIntValue() : (float) parser.getLongValue();
+                };
+                break;
+            case FLOAT64:
+                typeReader = parser -> number(parser, schema).getDoubleValue();
+                break;
+            case BYTES:
+                typeReader = parser -> {
+                    if (parser.currentToken() != JsonToken.VALUE_STRING)
+                        throw unexpected(parser, schema);
+                    return parser.getBinaryValue();
+                };
+                break;
+            case STRING:
+                typeReader = parser -> {
+                    if (parser.currentToken() != JsonToken.VALUE_STRING)
+                        throw unexpected(parser, schema);
+                    return parser.getText();
+                };
+                break;
+            case ARRAY: {
+                ValueReader elementReader = compileReader(schema.valueSchema());
+                typeReader = parser -> {
+                    if (parser.currentToken() != JsonToken.START_ARRAY)
+                        throw unexpected(parser, schema);
+                    List<Object> result = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY)
+                        result.add(elementReader.read(parser));
+                    return result;
+                };
+                break;
+            }
+            case MAP:
+                typeReader = mapReader(schema);
+                break;
+            case STRUCT:
+                typeReader = structReader(schema);
+                break;
+            default:
+                throw new DataException("Unknown schema type: " + schema.type());
+        }
+
+        JsonConverter.LogicalTypeConverter logicalConverter =
+                schema.name() == null ? null : JsonConverter.TO_CONNECT_LOGICAL_CONVERTERS.get(schema.name());
+        return new ValueReader(schema, logicalConverter == null ? typeReader : parser ->
+                logicalConverter.convert(schema, typeReader.read(parser)));
+    }
+
+    private static TypeReader mapReader(Schema schema) {
+        ValueReader keyReader = compileReader(schema.keySchema());
+        ValueReader valueReader = compileReader(schema.valueSchema());
+        if (schema.keySchema().type() == Schema.Type.STRING) {
+            return parser -> {
+                if (parser.currentToken() != JsonToken.START_OBJECT)
+                    throw unexpected(parser, schema);
+                Map<Object, Object> result = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    result.put(key, valueReader.read(parser));
+                }
+                return result;
+            };
+        } else {
+            return parser -> {
+                if (parser.currentToken() != JsonToken.START_ARRAY)
+                    throw unexpected(parser, schema);
+                Map<Object, Object> result = new HashMap<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() != JsonToken.START_ARRAY || parser.nextToken() == JsonToken.END_ARRAY)
+                        throw unexpected(parser, schema);
+                    Object key = keyReader.read(parser);
+                    if (parser.nextToken() == JsonToken.END_ARRAY)
+                        throw unexpected(parser, schema);
+                    Object value = valueReader.read(parser);
+                    if (parser.nextToken() != JsonToken.END_ARRAY)
+                        throw unexpected(parser, schema);
+                    result.put(key, value);
+                }
+                return result;
+            };
+        }
+    }
+
+    private static TypeReader structReader(Schema schema) {
+        Schema structSchema = schema.schema();
+        Field[] structFields = structSchema.fields().toArray(new Field[0]);
+        ValueReader[] fieldReaders = new ValueReader[structFields.length];
+        Map<String, Integer> fieldIndexes = new HashMap<>();
+        for (int i = 0; i < structFields.length; i++) {
+            fieldReaders[i] = compileReader(structFields[i].schema());
+            fieldIndexes.put(structFields[i].name(), i);
+        }
+        return parser -> {
+            if (parser.currentToken() != JsonToken.START_OBJECT)
+                throw unexpected(parser, schema);
+            Object[] values = new Object[structFields.length];
+            boolean[] present = new boolean[structFields.length];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Integer index = fieldIndexes.get(parser.getCurrentName());
+                parser.nextToken();
+                if (index == null) {
+                    parser.skipChildren();
+                } else {
+                    values[index] = fieldReaders[index].read(parser);
+                    present[index] = true;
+                }
+            }
+            for (int i = 0; i < structFields.length; i++) {
+                if (!present[i])
+                    values[i] = fieldReaders[i].nullValue();
+            }
+            // The readers only return values of the type of their schema and reject nulls of required fields, so the
+            // struct can take the values as they are
+            return Struct.withValidatedValues(structSchema, values);
+        };
+    }
+
+    private static JsonParser number(JsonParser parser, Schema schema) throws IOException {
+        if (!parser.currentToken().isNumeric())
+            throw unexpected(parser, schema);
+        return parser;
+    }
+
+    private static Object readSchemaless(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+                return false;
+            case VALUE_NUMBER_INT:
+                return parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_STRING:
+                return parser.getText();
+            case START_ARRAY: {
+                List<Object> result = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY)
+                    result.add(readSchemaless(parser));
+                return result;
+            }
+            case START_OBJECT: {
+                Map<Object, Object> result = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    parser.nextToken();
+                    result.put(key, readSchemaless(parser));
+                }
+                return result;
+            }
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + parser.currentToken() + " for schemaless value");
+        }
+    }
+
+    private static JsonParseException unexpected(JsonParser parser, Schema schema) {
+        return new JsonParseException(parser, "Unexpected token " + parser.currentToken() + " for " + schema.type() + " value");
+    }
+
+    private interface TypeWriter {
+        void write(JsonGenerator generator, Object value) throws IOException;
+    }
+
+    private interface TypeReader {
+        Object read(JsonParser parser) throws IOException;
+    }
+
+    private static final class ValueWriter {
+        private final Schema schema;
+        // The JSON schema written into the envelope, only set for top level writers
+        private final SerializableString jsonSchema;
+        private final JsonConverter.LogicalTypeConverter logicalConverter;
+        private final TypeWriter typeWriter;
+
+        ValueWriter(Schema schema,
+                    SerializableString jsonSchema,
+                    JsonConverter.LogicalTypeConverter logicalConverter,
+                    TypeWriter typeWriter) {
+            this.schema = schema;
+            this.jsonSchema = jsonSchema;
+            this.logicalConverter = logicalConverter;
+            this.typeWriter = typeWriter;
+        }
+
+        void write(JsonGenerator generator, Object logicalValue) throws IOException {
+            if (logicalValue == null) {
+                if (schema == null) {
+                    generator.writeNull();
+                    return;
+                }
+                if (schema.defaultValue() != null) {
+                    write(generator, schema.defaultValue());
+                    return;
+                }
+                if (schema.isOptional()) {
+                    generator.writeNull();
+                    return;
+                }
+                throw new DataException("Conversion error: null value for field that is required and has no default value");
+            }
+
+            Object value = logicalConverter == null ? logicalValue : logicalConverter.convert(schema, logicalValue);
+            try {
+                typeWriter.write(generator, value);
+            } catch (ClassCastException e) {
+                String schemaTypeStr = (schema != null) ? schema.type().toString() : "unknown schema";
+                throw new DataException("Invalid type for " + schemaTypeStr + ": " + value.getClass());
+            }
+        }
+    }
+
+    private static final class ValueReader {
+        private final Schema schema;
+        private final TypeReader typeReader;
+
+        ValueReader(Schema schema, TypeReader typeReader) {
+            this.schema = schema;
+            this.typeReader = typeReader;
+        }
+
+        Object read(JsonParser parser) throws IOException {
+            if (schema != null && parser.currentToken() == JsonToken.VALUE_NULL)
+                return nullValue();
+            return typeReader.read(parser);
+        }
+
+        Object nullValue() {
+            if (schema.defaultValue() != null)
+                return schema.defaultValue(); // any logical type conversions should already have been applied
+            if (schema.isOptional())
+                return null;
+            throw new DataException("Invalid null value for required " + schema.type() + " field");
+        }
+    }
+}
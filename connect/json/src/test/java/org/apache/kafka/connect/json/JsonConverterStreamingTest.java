@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs all {@link JsonConverterTest} cases against the streaming conversion, and checks that it writes exactly
+ * the same JSON as the tree based conversion.
+ */
+public class JsonConverterStreamingTest extends JsonConverterTest {
+
+    private static final Schema ADDRESS_SCHEMA = SchemaBuilder.struct().name("address")
+            .field("street", Schema.STRING_SCHEMA)
+            .field("number", Schema.OPTIONAL_INT32_SCHEMA)
+            .build();
+
+    private static final Schema RECORD_SCHEMA = SchemaBuilder.struct().name("record").version(2).doc("a record")
+            .field("int8", Schema.INT8_SCHEMA)
+            .field("int16", Schema.INT16_SCHEMA)
+            .field("int32", Schema.INT32_SCHEMA)
+            .field("int64", Schema.INT64_SCHEMA)
+            .field("float32", Schema.FLOAT32_SCHEMA)
+            .field("float64", Schema.FLOAT64_SCHEMA)
+            .field("boolean", Schema.BOOLEAN_SCHEMA)
+            .field("string", Schema.STRING_SCHEMA)
+            .field("bytes", Schema.BYTES_SCHEMA)
+            .field("defaulted", SchemaBuilder.string().defaultValue("fallback").build())
+            .field("optional", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("decimal", Decimal.schema(2))
+            .field("date", Date.SCHEMA)
+            .field("time", Time.SCHEMA)
+            .field("timestamp", Timestamp.SCHEMA)
+            .field("array", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .field("stringMap", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.INT32_SCHEMA).build())
+            .field("intMap", SchemaBuilder.map(Schema.INT32_SCHEMA, ADDRESS_SCHEMA).build())
+            .field("address", ADDRESS_SCHEMA)
+            .build();
+
+    private final JsonConverter treeConverter = new JsonConverter();
+
+    @Before
+    @Override
+    public void setUp() {
+        converter.configure(Collections.singletonMap(JsonConverterConfig.STREAMING_ENABLE_CONFIG, true), false);
+        treeConverter.configure(Collections.emptyMap(), false);
+    }
+
+    @Test
+    public void shouldWriteSameJsonAsTreeConversion() {
+        Struct record = record();
+        byte[] streamed = converter.fromConnectData(TOPIC, RECORD_SCHEMA, record);
+        assertArrayEquals(treeConverter.fromConnectData(TOPIC, RECORD_SCHEMA, record), streamed);
+        // reading fills in the default of the unset field
+        record.put("defaulted", "fallback");
+        assertEquals(new SchemaAndValue(RECORD_SCHEMA, record), converter.toConnectData(TOPIC, streamed));
+        assertEquals(treeConverter.toConnectData(TOPIC, streamed), converter.toConnectData(TOPIC, streamed));
+    }
+
+    @Test
+    public void shouldWriteSameJsonAsTreeConversionWithoutSchemas() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, false);
+        props.put(JsonConverterConfig.STREAMING_ENABLE_CONFIG, true);
+        converter.configure(props, false);
+        treeConverter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, false), false);
+
+        Struct record = record();
+        assertArrayEquals(treeConverter.fromConnectData(TOPIC, RECORD_SCHEMA, record), converter.fromConnectData(TOPIC, RECORD_SCHEMA, record));
+
+        Map<Object, Object> schemaless = new LinkedHashMap<>();
+        schemaless.put("list", Arrays.asList(1L, 2.5, "three", null, true));
+        schemaless.put("nested", Collections.singletonMap(7, "seven"));
+        schemaless.put("bytes", new byte[] {1, 2, 3});
+        byte[] streamed = converter.fromConnectData(TOPIC, null, schemaless);
+        assertArrayEquals(treeConverter.fromConnectData(TOPIC, null, schemaless), streamed);
+        assertEquals(treeConverter.toConnectData(TOPIC, streamed), converter.toConnectData(TOPIC, streamed));
+    }
+
+    @Test
+    public void shouldReuseCompiledReaderForSameSchema() {
+        byte[] first = converter.fromConnectData(TOPIC, RECORD_SCHEMA, record());
+        converter.toConnectData(TOPIC, first);
+        converter.toConnectData(TOPIC, first);
+
+        Cache<JsonNode, Schema> schemaCache = Whitebox.getInternalState(converter, "toConnectSchemaCache");
+        long cachedSchemas = schemaCache.size();
+        JsonStreamingCodec codec = Whitebox.getInternalState(converter, "streamingCodec");
+        Cache<?, ?> readers = Whitebox.getInternalState(codec, "readers");
+        assertEquals(1L, readers.size());
+
+        converter.toConnectData(TOPIC, converter.fromConnectData(TOPIC, RECORD_SCHEMA, record()));
+        assertEquals(1L, readers.size());
+        assertEquals(cachedSchemas, schemaCache.size());
+    }
+
+    @Test
+    public void shouldFallBackToTreeConversionForPayloadBeforeSchema() {
+        byte[] json = "{ \"payload\": 12, \"schema\": { \"type\": \"int32\" } }".getBytes(StandardCharsets.UTF_8);
+        assertEquals(new SchemaAndValue(Schema.INT32_SCHEMA, 12), converter.toConnectData(TOPIC, json));
+    }
+
+    @Test
+    public void shouldFallBackToTreeConversionForUnexpectedJsonType() {
+        // the tree conversion reads textual values as 0 for numeric schemas
+        byte[] json = "{ \"schema\": { \"type\": \"int32\" }, \"payload\": \"12\" }".getBytes(StandardCharsets.UTF_8);
+        assertEquals(treeConverter.toConnectData(TOPIC, json), converter.toConnectData(TOPIC, json));
+    }
+
+    @Test
+    public void shouldUseDefaultForMissingStructField() {
+        Schema schema = SchemaBuilder.struct()
+                .field("present", Schema.INT32_SCHEMA)
+                .field("defaulted", SchemaBuilder.int32().defaultValue(7).build())
+                .build();
+        byte[] json = ("{ \"schema\": { \"type\": \"struct\", \"fields\": [ { \"type\": \"int32\", \"field\": \"present\" }, "
+                + "{ \"type\": \"int32\", \"default\": 7, \"field\": \"defaulted\" } ] }, \"payload\": { \"present\": 1, \"unknown\": [1, 2] } }")
+                .getBytes(StandardCharsets.UTF_8);
+        assertEquals(new SchemaAndValue(schema, new Struct(schema).put("present", 1).put("defaulted", 7)), converter.toConnectData(TOPIC, json));
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldThrowForMissingRequiredStructField() {
+        byte[] json = ("{ \"schema\": { \"type\": \"struct\", \"fields\": [ { \"type\": \"int32\", \"field\": \"present\" } ] }, "
+                + "\"payload\": { } }").getBytes(StandardCharsets.UTF_8);
+        converter.toConnectData(TOPIC, json);
+    }
+
+    private static Struct record() {
+        Map<String, Integer> stringMap = new LinkedHashMap<>();
+        stringMap.put("a", 1);
+        stringMap.put("b", 2);
+        Map<Integer, Struct> intMap = new LinkedHashMap<>();
+        intMap.put(1, new Struct(ADDRESS_SCHEMA).put("street", "Main Street").put("number", 12));
+        intMap.put(2, new Struct(ADDRESS_SCHEMA).put("street", "Side Street"));
+        return new Struct(RECORD_SCHEMA)
+                .put("int8", (byte) 8)
+                .put("int16", (short) 16)
+                .put("int32", 32)
+                .put("int64", 64L)
+                .put("float32", 32.5f)
+                .put("float64", 64.25)
+                .put("boolean", true)
+                .put("string", "quote \" and unicode é")
+                .put("bytes", new byte[] {0, 1, 2, -1})
+                .put("decimal", new BigDecimal("12.34"))
+                .put("date", new java.util.Date(86400000L))
+                .put("time", new java.util.Date(1000L))
+                .put("timestamp", new java.util.Date(1234567890L))
+                .put("array", Arrays.asList("x", "y"))
+                .put("stringMap", stringMap)
+                .put("intMap", intMap)
+                .put("address", new Struct(ADDRESS_SCHEMA).put("street", "Home"));
+    }
+}
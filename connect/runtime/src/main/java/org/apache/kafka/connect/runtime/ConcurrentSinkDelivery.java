@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTask;
+import org.apache.kafka.connect.util.ConnectorTaskId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers a batch of sink records through up to {@code concurrency} concurrent {@link SinkTask#put} calls.
+ * <p>
+ * The consumed partitions of a batch are spread over the calls, and all records of a partition are passed to the
+ * same call in the order they were consumed, so per-partition ordering is preserved. One of the calls is made on the
+ * calling thread, the others on a pool of {@code concurrency - 1} threads. {@link #deliver} only returns once every
+ * call has completed, so the task is never called concurrently with anything but its own {@code put} method.
+ */
+class ConcurrentSinkDelivery implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentSinkDelivery.class);
+
+    private final ConnectorTaskId id;
+    private final SinkTask task;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    ConcurrentSinkDelivery(final ConnectorTaskId id,
+                           final SinkTask task,
+                           final int concurrency,
+                           final ClassLoader loader) {
+        if (concurrency < 2)
+            throw new IllegalArgumentException("Concurrent delivery requires a concurrency of at least 2, but was " + concurrency);
+        this.id = id;
+        this.task = task;
+        this.concurrency = concurrency;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency - 1, runnable -> {
+            Thread thread = new Thread(runnable, "task-" + id + "-put-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(loader);
+            return thread;
+        });
+    }
+
+    /**
+     * Deliver the records to the task.
+     *
+     * @param records the records to deliver, in the order they were consumed
+     * @param partitions the consumed partition of each record
+     * @return the partitions whose records could not be delivered because the task threw a {@link RetriableException};
+     *         never null
+     * @throws RetriableException if the batch is delivered through a single call and that call threw it
+     * @throws RuntimeException any other exception thrown by the task
+     */
+    Set<TopicPartition> deliver(final List<SinkRecord> records, final List<TopicPartition> partitions) {
+        final List<List<SinkRecord>> laneRecords = new ArrayList<>();
+        final List<Set<TopicPartition>> lanePartitions = new ArrayList<>();
+        final Map<TopicPartition, Integer> partitionLanes = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            final TopicPartition partition = partitions.get(i);
+            Integer lane = partitionLanes.get(partition);
+            if (lane == null) {
+                lane = partitionLanes.size() % concurrency;
+                partitionLanes.put(partition, lane);
+                if (lane == laneRecords.size()) {
+                    laneRecords.add(new ArrayList<>());
+                    lanePartitions.add(new HashSet<>());
+                }
+                lanePartitions.get(lane).add(partition);
+            }
+            laneRecords.get(lane).add(records.get(i));
+        }
+
+        if (laneRecords.size() <= 1) {
+            // Nothing to spread out, so there is no need to hand over to another thread
+            task.put(laneRecords.isEmpty() ? new ArrayList<>() : laneRecords.get(0));
+            return Collections.emptySet();
+        }
+
+        log.trace("{} Delivering {} records of {} partitions through {} concurrent calls",
+                this, records.size(), partitionLanes.size(), laneRecords.size());
+        final List<Future<?>> futures = new ArrayList<>(laneRecords.size() - 1);
+        for (int lane = 1; lane < laneRecords.size(); lane++) {
+            final List<SinkRecord> batch = laneRecords.get(lane);
+            futures.add(executor.submit(() -> task.put(batch)));
+        }
+
+        final Set<TopicPartition> failed = new HashSet<>();
+        RuntimeException fatal = null;
+        try {
+            task.put(laneRecords.get(0));
+        } catch (RuntimeException e) {
+            fatal = onFailure(e, lanePartitions.get(0), failed);
+        }
+        fatal = awaitLanes(futures, lanePartitions, failed, fatal);
+
+        if (fatal != null)
+            throw fatal;
+        return failed;
+    }
+
+    private RuntimeException awaitLanes(final List<Future<?>> futures,
+                                        final List<Set<TopicPartition>> lanePartitions,
+                                        final Set<TopicPartition> failed,
+                                        RuntimeException fatal) {
+        for (int lane = 1; lane <= futures.size(); lane++) {
+            try {
+                futures.get(lane - 1).get();
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException ?
+                        (RuntimeException) e.getCause() : new ConnectException(e.getCause());
+                RuntimeException error = onFailure(cause, lanePartitions.get(lane), failed);
+                if (fatal == null)
+                    fatal = error;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (fatal == null)
+                    fatal = new ConnectException("Interrupted while waiting for records to be delivered", e);
+            }
+        }
+        return fatal;
+    }
+
+    private RuntimeException onFailure(final RuntimeException error,
+                                       final Set<TopicPartition> partitions,
+                                       final Set<TopicPartition> failed) {
+        if (error instanceof RetriableException) {
+            log.debug("{} RetriableException while delivering records of partitions {}", this, partitions, error);
+            failed.addAll(partitions);
+            return null;
+        }
+        return error;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentSinkDelivery{" +
+                "id=" + id +
+                '}';
+    }
+}
@@ -94,6 +94,9 @@ public class ConnectMetricsRegistry {
     public final MetricNameTemplate rebalanceTimeMax;
     public final MetricNameTemplate rebalanceTimeAvg;
     public final MetricNameTemplate rebalanceTimeSinceLast;
+    public final MetricNameTemplate revokedTasksTotal;
+    public final MetricNameTemplate taskDowntimeMax;
+    public final MetricNameTemplate taskDowntimeAvg;
     public final MetricNameTemplate recordProcessingFailures;
     public final MetricNameTemplate recordProcessingErrors;
     public final MetricNameTemplate recordsSkipped;
@@ -303,6 +306,12 @@ public class ConnectMetricsRegistry {
                                           "The average time in milliseconds spent by this worker to rebalance.", rebalanceTags);
         rebalanceTimeSinceLast = createTemplate("time-since-last-rebalance-ms", WORKER_REBALANCE_GROUP_NAME,
                                                 "The time in milliseconds since this worker completed the most recent rebalance.", rebalanceTags);
+        revokedTasksTotal = createTemplate("revoked-tasks-total", WORKER_REBALANCE_GROUP_NAME,
+                                           "The total number of tasks this worker stopped because of rebalances or task reconfigurations.", rebalanceTags);
+        taskDowntimeMax = createTemplate("task-downtime-max-ms", WORKER_REBALANCE_GROUP_NAME,
+                                         "The maximum time in milliseconds from stopping tasks for a rebalance until this worker resumed its assigned work.", rebalanceTags);
+        taskDowntimeAvg = createTemplate("task-downtime-avg-ms", WORKER_REBALANCE_GROUP_NAME,
+                                         "The average time in milliseconds from stopping tasks for a rebalance until this worker resumed its assigned work.", rebalanceTags);
 
         /***** Task Error Handling Metrics *****/
         Set<String> taskErrorHandlingTags = new LinkedHashSet<>(tags);
@@ -43,6 +43,14 @@ public class SinkConnectorConfig extends ConnectorConfig {
     public static final String TOPICS_REGEX_DEFAULT = "";
     private static final String TOPICS_REGEX_DISPLAY = "Topics regex";
 
+    public static final String PUT_CONCURRENCY_CONFIG = "put.concurrency";
+    private static final String PUT_CONCURRENCY_DOC = "The maximum number of concurrent calls each task makes to deliver a batch " +
+        "of records to the sink, each with the records of different topic partitions. The records of a partition are always " +
+        "delivered in order by a single call, and the offsets of a partition are only committed once all of its records have " +
+        "been delivered. Values above 1 require the sink task to support concurrent calls to <code>put</code>.";
+    public static final int PUT_CONCURRENCY_DEFAULT = 1;
+    private static final String PUT_CONCURRENCY_DISPLAY = "Put concurrency";
+
     public static final String DLQ_PREFIX = "errors.deadletterqueue.";
 
     public static final String DLQ_TOPIC_NAME_CONFIG = DLQ_PREFIX + "topic.name";
@@ -67,6 +75,7 @@ public class SinkConnectorConfig extends ConnectorConfig {
     static ConfigDef config = ConnectorConfig.configDef()
         .define(TOPICS_CONFIG, ConfigDef.Type.LIST, TOPICS_DEFAULT, ConfigDef.Importance.HIGH, TOPICS_DOC, COMMON_GROUP, 4, ConfigDef.Width.LONG, TOPICS_DISPLAY)
         .define(TOPICS_REGEX_CONFIG, ConfigDef.Type.STRING, TOPICS_REGEX_DEFAULT, new RegexValidator(), ConfigDef.Importance.HIGH, TOPICS_REGEX_DOC, COMMON_GROUP, 4, ConfigDef.Width.LONG, TOPICS_REGEX_DISPLAY)
+        .define(PUT_CONCURRENCY_CONFIG, ConfigDef.Type.INT, PUT_CONCURRENCY_DEFAULT, ConfigDef.Range.atLeast(1), Importance.LOW, PUT_CONCURRENCY_DOC, COMMON_GROUP, 5, ConfigDef.Width.SHORT, PUT_CONCURRENCY_DISPLAY)
         .define(DLQ_TOPIC_NAME_CONFIG, ConfigDef.Type.STRING, DLQ_TOPIC_DEFAULT, Importance.MEDIUM, DLQ_TOPIC_NAME_DOC, ERROR_GROUP, 6, ConfigDef.Width.MEDIUM, DLQ_TOPIC_DISPLAY)
         .define(DLQ_TOPIC_REPLICATION_FACTOR_CONFIG, ConfigDef.Type.SHORT, DLQ_TOPIC_REPLICATION_FACTOR_CONFIG_DEFAULT, Importance.MEDIUM, DLQ_TOPIC_REPLICATION_FACTOR_CONFIG_DOC, ERROR_GROUP, 7, ConfigDef.Width.MEDIUM, DLQ_TOPIC_REPLICATION_FACTOR_CONFIG_DISPLAY)
         .define(DLQ_CONTEXT_HEADERS_ENABLE_CONFIG, ConfigDef.Type.BOOLEAN, DLQ_CONTEXT_HEADERS_ENABLE_DEFAULT, Importance.MEDIUM, DLQ_CONTEXT_HEADERS_ENABLE_DOC, ERROR_GROUP, 8, ConfigDef.Width.MEDIUM, DLQ_CONTEXT_HEADERS_ENABLE_DISPLAY);
@@ -108,6 +117,10 @@ public class SinkConnectorConfig extends ConnectorConfig {
         return topicsRegexStr != null && !topicsRegexStr.trim().isEmpty();
     }
 
+    public int putConcurrency() {
+        return getInt(PUT_CONCURRENCY_CONFIG);
+    }
+
     public String dlqTopicName() {
         return getString(DLQ_TOPIC_NAME_CONFIG);
     }
@@ -17,13 +17,24 @@
 package org.apache.kafka.connect.runtime;
 
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigDef.Importance;
 import org.apache.kafka.connect.runtime.isolation.Plugins;
 
 import java.util.Map;
 
 public class SourceConnectorConfig extends ConnectorConfig {
 
-    private static ConfigDef config = ConnectorConfig.configDef();
+    public static final String CONVERSION_PIPELINING_ENABLE_CONFIG = "conversion.pipelining.enable";
+    private static final String CONVERSION_PIPELINING_ENABLE_DOC = "Whether each task applies the transformations and converters " +
+        "to a batch of records on a separate thread, while it polls the next batch and sends the previous one. This can increase " +
+        "the throughput of tasks with expensive transformations or converters. Batches are still converted one at a time and in order, " +
+        "but a batch is only sent after the next poll has returned.";
+    public static final boolean CONVERSION_PIPELINING_ENABLE_DEFAULT = false;
+    private static final String CONVERSION_PIPELINING_ENABLE_DISPLAY = "Conversion pipelining";
+
+    private static ConfigDef config = ConnectorConfig.configDef()
+        .define(CONVERSION_PIPELINING_ENABLE_CONFIG, ConfigDef.Type.BOOLEAN, CONVERSION_PIPELINING_ENABLE_DEFAULT, Importance.LOW,
+            CONVERSION_PIPELINING_ENABLE_DOC, COMMON_GROUP, 4, ConfigDef.Width.SHORT, CONVERSION_PIPELINING_ENABLE_DISPLAY);
 
     public static ConfigDef configDef() {
         return config;
@@ -33,6 +44,10 @@ public class SourceConnectorConfig extends ConnectorConfig {
         super(plugins, config, props);
     }
 
+    public boolean conversionPipeliningEnabled() {
+        return getBoolean(CONVERSION_PIPELINING_ENABLE_CONFIG);
+    }
+
     public static void main(String[] args) {
         System.out.println(config.toHtmlTable());
     }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime;
+
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the records of a source task that have been dispatched to the producer, per source partition and in the
+ * order they were submitted. The offset of a record can be committed once it and every record submitted before it
+ * for the same source partition have been acknowledged.
+ * <p>
+ * Records are submitted by the task thread, acknowledged from producer callbacks, and drained by the thread that
+ * commits offsets, without a shared monitor: submission appends to a per-partition queue, acknowledgment only sets
+ * a flag on the record, and {@link #committableOffsets()} removes acknowledged records from the head of each queue.
+ */
+class SubmittedRecords {
+    // Stands in for a null source partition, which the concurrent map cannot hold as a key
+    private static final Map<String, ?> NULL_PARTITION = Collections.singletonMap(null, null);
+
+    private final ConcurrentMap<Map<String, ?>, Deque<SubmittedRecord>> records = new ConcurrentHashMap<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile CountDownLatch allAcknowledged;
+
+    /**
+     * Start tracking a record that is about to be dispatched to the producer.
+     *
+     * @param record the record; may not be null
+     * @return the tracked record, to be {@link SubmittedRecord#ack() acknowledged} once the producer has completed it
+     */
+    SubmittedRecord submit(SourceRecord record) {
+        return submit(record.sourcePartition(), record.sourceOffset());
+    }
+
+    // Visible for testing
+    SubmittedRecord submit(Map<String, ?> partition, Map<String, ?> offset) {
+        final SubmittedRecord result = new SubmittedRecord(partition, offset);
+        outstanding.incrementAndGet();
+        // compute() only locks this partition's entry, and guards against the queue being removed concurrently
+        records.compute(key(partition), (p, queue) -> {
+            if (queue == null)
+                queue = new ConcurrentLinkedDeque<>();
+            queue.addLast(result);
+            return queue;
+        });
+        return result;
+    }
+
+    /**
+     * Stop tracking a record that was submitted but could not be dispatched to the producer, so that it does not
+     * hold back the offsets of its partition. The record may be submitted again when it is retried.
+     *
+     * @param record the record to remove; may not be null
+     * @return whether the record was still tracked
+     */
+    boolean remove(SubmittedRecord record) {
+        final Deque<SubmittedRecord> queue = records.get(key(record.partition));
+        if (queue == null || !queue.removeLastOccurrence(record))
+            return false;
+        onCompleted();
+        return true;
+    }
+
+    /**
+     * Remove all acknowledged records at the head of each partition's queue, and return the offset of the last one
+     * of each partition. This should only be called from one thread at a time.
+     *
+     * @return the committable offset of every source partition that has one; never null
+     */
+    Map<Map<String, ?>, Map<String, ?>> committableOffsets() {
+        final Map<Map<String, ?>, Map<String, ?>> result = new HashMap<>();
+        for (Map.Entry<Map<String, ?>, Deque<SubmittedRecord>> entry : records.entrySet()) {
+            final Deque<SubmittedRecord> queue = entry.getValue();
+            SubmittedRecord committable = null;
+            SubmittedRecord head;
+            while ((head = queue.peekFirst()) != null && head.acked) {
+                queue.pollFirst();
+                committable = head;
+            }
+            if (committable != null)
+                result.put(committable.partition, committable.offset);
+            // Drop the queues of partitions without outstanding records, unless one was submitted in the meantime
+            records.computeIfPresent(entry.getKey(), (p, q) -> q.isEmpty() ? null : q);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of submitted records that have been neither acknowledged nor removed
+     */
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * Wait until every submitted record has been acknowledged or removed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of {@code timeout}
+     * @return whether all records completed within the timeout
+     */
+    boolean awaitAllMessages(long timeout, TimeUnit unit) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        allAcknowledged = latch;
+        if (outstanding.get() == 0)
+            return true;
+        try {
+            return latch.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Map<String, ?> key(Map<String, ?> partition) {
+        return partition == null ? NULL_PARTITION : partition;
+    }
+
+    private void onCompleted() {
+        if (outstanding.decrementAndGet() == 0) {
+            final CountDownLatch latch = allAcknowledged;
+            if (latch != null)
+                latch.countDown();
+        }
+    }
+
+    class SubmittedRecord {
+        private final Map<String, ?> partition;
+        private final Map<String, ?> offset;
+        private volatile boolean acked;
+
+        private SubmittedRecord(Map<String, ?> partition, Map<String, ?> offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+
+        /**
+         * Mark the record as completed by the producer. Should be called at most once.
+         */
+        void ack() {
+            acked = true;
+            onCompleted();
+        }
+    }
+}
@@ -16,31 +16,61 @@
  */
 package org.apache.kafka.connect.runtime;
 
+import org.apache.kafka.common.cache.Cache;
+import org.apache.kafka.common.cache.LRUCache;
+import org.apache.kafka.common.cache.SynchronizedCache;
 import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.runtime.errors.RetryWithToleranceOperator;
 import org.apache.kafka.connect.runtime.errors.Stage;
 import org.apache.kafka.connect.transforms.Transformation;
+import org.apache.kafka.connect.transforms.StructProjectingTransformation;
+import org.apache.kafka.connect.transforms.StructProjectingTransformation.Operand;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
 
+/**
+ * Applies a list of transformations to records.
+ * <p>
+ * Consecutive {@link StructProjectingTransformation}s that rewrite the same struct operand are fused: for each schema
+ * of that operand their projections are combined once into a single {@link StructProjection}, which then rewrites
+ * each record in one pass instead of building an intermediate struct per transformation. Records the projection
+ * doesn't apply to, or fails on, go through the transformations one by one.
+ */
 public class TransformationChain<R extends ConnectRecord<R>> {
     private static final Logger log = LoggerFactory.getLogger(TransformationChain.class);
 
     private final List<Transformation<R>> transformations;
+    private final List<FusedTransformations> fusedTransformations;
     private final RetryWithToleranceOperator retryWithToleranceOperator;
 
     public TransformationChain(List<Transformation<R>> transformations, RetryWithToleranceOperator retryWithToleranceOperator) {
         this.transformations = transformations;
+        this.fusedTransformations = fuse(transformations);
         this.retryWithToleranceOperator = retryWithToleranceOperator;
     }
 
     public R apply(R record) {
         if (transformations.isEmpty()) return record;
 
+        for (final FusedTransformations fused : fusedTransformations) {
+            record = fused.apply(record);
+
+            if (record == null) break;
+        }
+
+        return record;
+    }
+
+    private R apply(List<? extends Transformation<R>> transformations, R record) {
         for (final Transformation<R> transformation : transformations) {
             final R current = record;
 
@@ -55,6 +85,31 @@ public class TransformationChain<R extends ConnectRecord<R>> {
         return record;
     }
 
+    @SuppressWarnings("unchecked")
+    private List<FusedTransformations> fuse(List<Transformation<R>> transformations) {
+        final List<FusedTransformations> result = new ArrayList<>();
+        List<StructProjectingTransformation<R>> run = new ArrayList<>();
+        for (Transformation<R> transformation : transformations) {
+            if (transformation instanceof StructProjectingTransformation) {
+                final StructProjectingTransformation<R> projecting = (StructProjectingTransformation<R>) transformation;
+                if (!run.isEmpty() && run.get(0).operand() != projecting.operand()) {
+                    result.add(new FusedTransformations(run));
+                    run = new ArrayList<>();
+                }
+                run.add(projecting);
+            } else {
+                if (!run.isEmpty()) {
+                    result.add(new FusedTransformations(run));
+                    run = new ArrayList<>();
+                }
+                result.add(new FusedTransformations(transformation));
+            }
+        }
+        if (!run.isEmpty())
+            result.add(new FusedTransformations(run));
+        return result;
+    }
+
     public void close() {
         for (Transformation<R> transformation : transformations) {
             transformation.close();
@@ -81,4 +136,101 @@ public class TransformationChain<R extends ConnectRecord<R>> {
         }
         return chain.toString();
     }
+
+    /**
+     * A single transformation, or a run of consecutive struct projecting transformations of the same operand.
+     */
+    private class FusedTransformations {
+        private final List<? extends Transformation<R>> transformations;
+        private final Operand operand;
+        // The fused projection of each input schema, null when the transformations cannot be fused for it
+        private final Cache<Schema, CompiledProjection> compiled;
+        private volatile CompiledProjection lastCompiled;
+
+        FusedTransformations(Transformation<R> transformation) {
+            this.transformations = Collections.singletonList(transformation);
+            this.operand = null;
+            this.compiled = null;
+        }
+
+        FusedTransformations(List<StructProjectingTransformation<R>> transformations) {
+            this.transformations = transformations;
+            this.operand = transformations.size() > 1 ? transformations.get(0).operand() : null;
+            this.compiled = operand != null ? new SynchronizedCache<>(new LRUCache<>(16)) : null;
+        }
+
+        R apply(R record) {
+            if (operand == null)
+                return TransformationChain.this.apply(transformations, record);
+
+            final Object value = operand == Operand.KEY ? record.key() : record.value();
+            final Schema schema = operand == Operand.KEY ? record.keySchema() : record.valueSchema();
+            if (schema == null || !(value instanceof Struct) || retryWithToleranceOperator.failed())
+                return TransformationChain.this.apply(transformations, record);
+            final Struct struct = (Struct) value;
+            final StructProjection<R> projection = projection(struct.schema());
+            if (projection == null)
+                return TransformationChain.this.apply(transformations, record);
+
+            final Struct updated;
+            try {
+                updated = projection.apply(struct, record);
+            } catch (RuntimeException e) {
+                // Apply the transformations one by one, so that the failure is handled and reported for the right one
+                log.trace("Fused transformations {} failed on {}, applying them one by one", transformations, record, e);
+                return TransformationChain.this.apply(transformations, record);
+            }
+
+            log.trace("Applied fused transformations {} to {}", transformations, record);
+            final R transformed = operand == Operand.KEY
+                    ? record.newRecord(record.topic(), record.kafkaPartition(), projection.schema(), updated,
+                            record.valueSchema(), record.value(), record.timestamp())
+                    : record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(),
+                            projection.schema(), updated, record.timestamp());
+            // Keep the processing context in the same state as after applying the transformations one by one
+            final Class<?> last = transformations.get(transformations.size() - 1).getClass();
+            return retryWithToleranceOperator.execute(() -> transformed, Stage.TRANSFORMATION, last);
+        }
+
+        private StructProjection<R> projection(Schema schema) {
+            CompiledProjection result = lastCompiled;
+            if (result == null || result.inputSchema != schema) {
+                result = compiled.get(schema);
+                if (result == null) {
+                    result = new CompiledProjection(schema, compile(schema));
+                    compiled.put(schema, result);
+                }
+                lastCompiled = result;
+            }
+            return result.projection;
+        }
+
+        @SuppressWarnings("unchecked")
+        private StructProjection<R> compile(Schema schema) {
+            StructProjection<R> fused = null;
+            try {
+                for (Transformation<R> transformation : transformations) {
+                    final StructProjection<R> projection =
+                            ((StructProjectingTransformation<R>) transformation).projection(fused == null ? schema : fused.schema());
+                    if (projection == null)
+                        return null;
+                    fused = fused == null ? projection : fused.andThen(projection);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Could not fuse transformations {} for schema {}", transformations, schema, e);
+                return null;
+            }
+            return fused;
+        }
+    }
+
+    private class CompiledProjection {
+        private final Schema inputSchema;
+        private final StructProjection<R> projection;
+
+        CompiledProjection(Schema inputSchema, StructProjection<R> projection) {
+            this.inputSchema = inputSchema;
+            this.projection = projection;
+        }
+    }
 }
@@ -34,6 +34,7 @@ import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.runtime.ConnectMetrics.LiteralSupplier;
 import org.apache.kafka.connect.runtime.ConnectMetrics.MetricGroup;
 import org.apache.kafka.connect.runtime.distributed.ClusterConfigState;
+import org.apache.kafka.connect.runtime.distributed.DistributedConfig;
 import org.apache.kafka.connect.runtime.errors.DeadLetterQueueReporter;
 import org.apache.kafka.connect.runtime.errors.ErrorHandlingMetrics;
 import org.apache.kafka.connect.runtime.errors.ErrorReporter;
@@ -47,10 +48,12 @@ import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
 import org.apache.kafka.connect.storage.Converter;
 import org.apache.kafka.connect.storage.HeaderConverter;
+import org.apache.kafka.connect.storage.IndexedOffsetBackingStore;
 import org.apache.kafka.connect.storage.OffsetBackingStore;
 import org.apache.kafka.connect.storage.OffsetStorageReader;
 import org.apache.kafka.connect.storage.OffsetStorageReaderImpl;
 import org.apache.kafka.connect.storage.OffsetStorageWriter;
+import org.apache.kafka.connect.storage.TransactionalOffsetBackingStore;
 import org.apache.kafka.connect.util.ConnectorTaskId;
 import org.apache.kafka.connect.util.SinkUtils;
 import org.slf4j.Logger;
@@ -139,6 +142,8 @@ public class Worker {
 
         this.offsetBackingStore = offsetBackingStore;
         this.offsetBackingStore.configure(config);
+        if (offsetBackingStore instanceof IndexedOffsetBackingStore)
+            ((IndexedOffsetBackingStore) offsetBackingStore).configureIndex(internalKeyConverter, internalValueConverter);
 
         this.workerConfigTransformer = initConfigTransformer();
 
@@ -467,13 +472,23 @@ public class Worker {
             throw new ConnectException("Task already exists in this worker: " + id);
 
         executor.submit(workerTask);
-        if (workerTask instanceof WorkerSourceTask) {
+        // Exactly-once source tasks commit their offsets along with their records
+        if (workerTask instanceof WorkerSourceTask && !exactlyOnceSourceEnabled()) {
             sourceTaskOffsetCommitter.schedule(id, (WorkerSourceTask) workerTask);
         }
         workerMetricsGroup.recordTaskSuccess();
         return true;
     }
 
+    private boolean exactlyOnceSourceEnabled() {
+        return config instanceof DistributedConfig && ((DistributedConfig) config).exactlyOnceSourceEnabled();
+    }
+
+    // The transactional ID stays the same when the task moves to another worker, which fences the previous producer
+    private String transactionalId(ConnectorTaskId id) {
+        return config.getString(DistributedConfig.GROUP_ID_CONFIG) + "-" + id.connector() + "-" + id.task();
+    }
+
     private WorkerTask buildWorkerTask(ClusterConfigState configState,
                                        ConnectorConfig connConfig,
                                        ConnectorTaskId id,
@@ -497,15 +512,25 @@ public class Worker {
             log.info("Initializing: {}", transformationChain);
             OffsetStorageReader offsetReader = new OffsetStorageReaderImpl(offsetBackingStore, id.connector(),
                     internalKeyConverter, internalValueConverter);
-            OffsetStorageWriter offsetWriter = new OffsetStorageWriter(offsetBackingStore, id.connector(),
-                    internalKeyConverter, internalValueConverter);
             Map<String, Object> producerProps = producerConfigs(config);
+            boolean exactlyOnce = exactlyOnceSourceEnabled();
+            if (exactlyOnce) {
+                producerProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+                producerProps.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId(id));
+            }
             KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(producerProps);
+            // With exactly-once, the task writes its offsets in the same transactions as its records
+            OffsetBackingStore offsetWriterStore = exactlyOnce
+                    ? new TransactionalOffsetBackingStore(producer, config.getString(DistributedConfig.OFFSET_STORAGE_TOPIC_CONFIG))
+                    : offsetBackingStore;
+            OffsetStorageWriter offsetWriter = new OffsetStorageWriter(offsetWriterStore, id.connector(),
+                    internalKeyConverter, internalValueConverter);
+            SourceConnectorConfig sourceConfig = new SourceConnectorConfig(plugins, connConfig.originalsStrings());
 
             // Note we pass the configState as it performs dynamic transformations under the covers
             return new WorkerSourceTask(id, (SourceTask) task, statusListener, initialState, keyConverter, valueConverter,
                     headerConverter, transformationChain, producer, offsetReader, offsetWriter, config, configState, metrics, loader,
-                    time, retryWithToleranceOperator);
+                    time, retryWithToleranceOperator, sourceConfig.conversionPipeliningEnabled(), exactlyOnce);
         } else if (task instanceof SinkTask) {
             TransformationChain<SinkRecord> transformationChain = new TransformationChain<>(connConfig.<SinkRecord>transformations(), retryWithToleranceOperator);
             log.info("Initializing: {}", transformationChain);
@@ -517,7 +542,7 @@ public class Worker {
 
             return new WorkerSinkTask(id, (SinkTask) task, statusListener, initialState, config, configState, metrics, keyConverter,
                                       valueConverter, headerConverter, transformationChain, consumer, loader, time,
-                                      retryWithToleranceOperator);
+                                      retryWithToleranceOperator, sinkConfig.putConcurrency());
         } else {
             log.error("Tasks must be a subclass of either SourceTask or SinkTask", task);
             throw new ConnectException("Tasks must be a subclass of either SourceTask or SinkTask");
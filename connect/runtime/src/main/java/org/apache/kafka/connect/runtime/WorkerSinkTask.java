@@ -55,8 +55,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import static java.util.Collections.singleton;
@@ -80,6 +82,11 @@ class WorkerSinkTask extends WorkerTask {
     private KafkaConsumer<byte[], byte[]> consumer;
     private WorkerSinkTaskContext context;
     private final List<SinkRecord> messageBatch;
+    // The consumed partition of each record in messageBatch, only tracked for concurrent delivery
+    private final List<TopicPartition> messageBatchPartitions;
+    // Offsets of consumed records that have not been delivered yet, only tracked for concurrent delivery
+    private final Map<TopicPartition, OffsetAndMetadata> undeliveredOffsets;
+    private final ConcurrentSinkDelivery concurrentDelivery;
     private Map<TopicPartition, OffsetAndMetadata> lastCommittedOffsets;
     private Map<TopicPartition, OffsetAndMetadata> currentOffsets;
     private final Map<TopicPartition, OffsetAndMetadata> origOffsets;
@@ -105,7 +112,8 @@ class WorkerSinkTask extends WorkerTask {
                           KafkaConsumer<byte[], byte[]> consumer,
                           ClassLoader loader,
                           Time time,
-                          RetryWithToleranceOperator retryWithToleranceOperator) {
+                          RetryWithToleranceOperator retryWithToleranceOperator,
+                          int putConcurrency) {
         super(id, statusListener, initialState, loader, connectMetrics, retryWithToleranceOperator);
 
         this.workerConfig = workerConfig;
@@ -117,6 +125,9 @@ class WorkerSinkTask extends WorkerTask {
         this.transformationChain = transformationChain;
         this.time = time;
         this.messageBatch = new ArrayList<>();
+        this.messageBatchPartitions = new ArrayList<>();
+        this.undeliveredOffsets = new HashMap<>();
+        this.concurrentDelivery = putConcurrency > 1 ? new ConcurrentSinkDelivery(id, task, putConcurrency, loader) : null;
         this.currentOffsets = new HashMap<>();
         this.origOffsets = new HashMap<>();
         this.pausedForRedelivery = false;
@@ -171,6 +182,13 @@ class WorkerSinkTask extends WorkerTask {
         } catch (Throwable t) {
             log.warn("Could not close transformation chain", t);
         }
+        if (concurrentDelivery != null) {
+            try {
+                concurrentDelivery.close();
+            } catch (Throwable t) {
+                log.warn("Could not close concurrent delivery", t);
+            }
+        }
     }
 
     @Override
@@ -463,12 +481,12 @@ class WorkerSinkTask extends WorkerTask {
 
             SinkRecord transRecord = convertAndTransformRecord(msg);
 
-            origOffsets.put(
-                    new TopicPartition(msg.topic(), msg.partition()),
-                    new OffsetAndMetadata(msg.offset() + 1)
-            );
+            TopicPartition partition = new TopicPartition(msg.topic(), msg.partition());
+            origOffsets.put(partition, new OffsetAndMetadata(msg.offset() + 1));
             if (transRecord != null) {
                 messageBatch.add(transRecord);
+                if (concurrentDelivery != null)
+                    messageBatchPartitions.add(partition);
             } else {
                 log.trace(
                         "{} Converters and transformations returned null, possibly because of too many retries, so " +
@@ -530,6 +548,11 @@ class WorkerSinkTask extends WorkerTask {
     }
 
     private void deliverMessages() {
+        if (concurrentDelivery != null) {
+            deliverMessagesConcurrently();
+            return;
+        }
+
         // Finally, deliver this batch to the sink
         try {
             // Since we reuse the messageBatch buffer, ensure we give the task its own copy
@@ -561,6 +584,71 @@ class WorkerSinkTask extends WorkerTask {
         }
     }
 
+    /**
+     * Deliver this batch to the sink through concurrent put calls. The offsets of a partition only advance once all of
+     * its consumed records have been delivered, and only the records of partitions whose delivery failed with a
+     * {@link RetriableException} are redelivered.
+     */
+    private void deliverMessagesConcurrently() {
+        undeliveredOffsets.putAll(origOffsets);
+        try {
+            log.trace("{} Delivering batch of {} messages to task concurrently", this, messageBatch.size());
+            long start = time.milliseconds();
+            Set<TopicPartition> failed = concurrentDelivery.deliver(messageBatch, messageBatchPartitions);
+            sinkTaskMetricsGroup.recordPut(time.milliseconds() - start);
+            recordBatch(retainUndelivered(failed));
+
+            if (!failed.isEmpty()) {
+                log.error("{} RetriableException from SinkTask, redelivering the records of partitions {}", this, failed);
+                pausedForRedelivery = true;
+                pauseAll();
+            } else if (pausedForRedelivery) {
+                if (!shouldPause())
+                    resumeAll();
+                pausedForRedelivery = false;
+            }
+        } catch (RetriableException e) {
+            log.error("{} RetriableException from SinkTask:", this, e);
+            pausedForRedelivery = true;
+            pauseAll();
+        } catch (Throwable t) {
+            log.error("{} Task threw an uncaught and unrecoverable exception. Task is being killed and will not "
+                    + "recover until manually restarted.", this, t);
+            throw new ConnectException("Exiting WorkerSinkTask due to unrecoverable exception.", t);
+        }
+    }
+
+    /**
+     * Advance the offsets of all partitions that were delivered and keep only the records of the failed partitions.
+     *
+     * @return the number of delivered records
+     */
+    private int retainUndelivered(Set<TopicPartition> failed) {
+        Iterator<Map.Entry<TopicPartition, OffsetAndMetadata>> offsets = undeliveredOffsets.entrySet().iterator();
+        while (offsets.hasNext()) {
+            Map.Entry<TopicPartition, OffsetAndMetadata> entry = offsets.next();
+            if (!failed.contains(entry.getKey())) {
+                currentOffsets.put(entry.getKey(), entry.getValue());
+                offsets.remove();
+            }
+        }
+
+        int delivered = 0;
+        int retained = 0;
+        for (int i = 0; i < messageBatch.size(); i++) {
+            if (failed.contains(messageBatchPartitions.get(i))) {
+                messageBatch.set(retained, messageBatch.get(i));
+                messageBatchPartitions.set(retained, messageBatchPartitions.get(i));
+                retained++;
+            } else {
+                delivered++;
+            }
+        }
+        messageBatch.subList(retained, messageBatch.size()).clear();
+        messageBatchPartitions.subList(retained, messageBatchPartitions.size()).clear();
+        return delivered;
+    }
+
     private void rewind() {
         Map<TopicPartition, Long> offsets = context.offsets();
         if (offsets.isEmpty()) {
@@ -668,6 +756,8 @@ class WorkerSinkTask extends WorkerTask {
 
             // Make sure we don't have any leftover data since offsets will be reset to committed positions
             messageBatch.clear();
+            messageBatchPartitions.clear();
+            undeliveredOffsets.clear();
         }
     }
 
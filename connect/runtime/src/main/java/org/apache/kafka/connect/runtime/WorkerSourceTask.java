@@ -34,7 +34,9 @@ import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.header.Header;
 import org.apache.kafka.connect.header.Headers;
 import org.apache.kafka.connect.runtime.ConnectMetrics.MetricGroup;
+import org.apache.kafka.connect.runtime.SubmittedRecords.SubmittedRecord;
 import org.apache.kafka.connect.runtime.distributed.ClusterConfigState;
+import org.apache.kafka.connect.runtime.distributed.DistributedConfig;
 import org.apache.kafka.connect.runtime.errors.RetryWithToleranceOperator;
 import org.apache.kafka.connect.runtime.errors.Stage;
 import org.apache.kafka.connect.source.SourceRecord;
@@ -49,11 +51,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.IdentityHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -65,6 +70,7 @@ class WorkerSourceTask extends WorkerTask {
     private static final Logger log = LoggerFactory.getLogger(WorkerSourceTask.class);
 
     private static final long SEND_FAILED_BACKOFF_MS = 100;
+    private static final long CONVERSION_SHUTDOWN_TIMEOUT_MS = 5000;
 
     private final WorkerConfig workerConfig;
     private final SourceTask task;
@@ -80,13 +86,21 @@ class WorkerSourceTask extends WorkerTask {
     private final SourceTaskMetricsGroup sourceTaskMetricsGroup;
 
     private List<SourceRecord> toSend;
-    private boolean lastSendFailed; // Whether the last send failed *synchronously*, i.e. never made it into the producer's RecordAccumulator
-    // Use IdentityHashMap to ensure correctness with duplicate records. This is a HashMap because
-    // there is no IdentityHashSet.
-    private IdentityHashMap<ProducerRecord<byte[], byte[]>, ProducerRecord<byte[], byte[]>> outstandingMessages;
-    // A second buffer is used while an offset flush is running
-    private IdentityHashMap<ProducerRecord<byte[], byte[]>, ProducerRecord<byte[], byte[]>> outstandingMessagesBacklog;
-    private boolean flushing;
+    // The converted toSend records, in the same order
+    private List<ConvertedRecord> converted;
+    // Converts each polled batch while the previous one is sent, if conversion pipelining is enabled
+    private final ExecutorService conversionExecutor;
+    private List<SourceRecord> toConvert;
+    private Future<List<ConvertedRecord>> conversion;
+    // Records dispatched to the producer, tracked per source partition until their offsets can be committed
+    private final SubmittedRecords submittedRecords;
+    // Whether records and offsets are written in producer transactions, in which case submittedRecords is not used
+    private final boolean transactional;
+    private final long transactionCommitIntervalMs;
+    // The latest offset of each source partition written in the open transaction
+    private final Map<Map<String, ?>, Map<String, ?>> transactionOffsets = new HashMap<>();
+    // When the open transaction began, or -1 if there is none
+    private long transactionStartMs = -1;
     private CountDownLatch stopRequestedLatch;
 
     private Map<String, String> taskConfig;
@@ -110,7 +124,9 @@ class WorkerSourceTask extends WorkerTask {
                             ConnectMetrics connectMetrics,
                             ClassLoader loader,
                             Time time,
-                            RetryWithToleranceOperator retryWithToleranceOperator) {
+                            RetryWithToleranceOperator retryWithToleranceOperator,
+                            boolean pipelineConversion,
+                            boolean transactional) {
 
         super(id, statusListener, initialState, loader, connectMetrics, retryWithToleranceOperator);
 
@@ -127,10 +143,16 @@ class WorkerSourceTask extends WorkerTask {
         this.time = time;
 
         this.toSend = null;
-        this.lastSendFailed = false;
-        this.outstandingMessages = new IdentityHashMap<>();
-        this.outstandingMessagesBacklog = new IdentityHashMap<>();
-        this.flushing = false;
+        this.conversionExecutor = pipelineConversion ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-" + id + "-converter");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(loader);
+            return thread;
+        }) : null;
+        this.submittedRecords = new SubmittedRecords();
+        this.transactional = transactional;
+        this.transactionCommitIntervalMs = transactional
+                ? workerConfig.getLong(DistributedConfig.EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_CONFIG) : 0L;
         this.stopRequestedLatch = new CountDownLatch(1);
         this.sourceTaskMetricsGroup = new SourceTaskMetricsGroup(id, connectMetrics);
     }
@@ -157,6 +179,7 @@ class WorkerSourceTask extends WorkerTask {
                 log.warn("Could not close producer", t);
             }
         }
+        stopConversion();
         try {
             transformationChain.close();
         } catch (Throwable t) {
@@ -195,6 +218,11 @@ class WorkerSourceTask extends WorkerTask {
     @Override
     public void execute() {
         try {
+            if (transactional) {
+                // Fence off any earlier instance of this task before its offsets are read, so that it can't commit
+                // records anymore
+                producer.initTransactions();
+            }
             task.initialize(new WorkerSourceTaskContext(offsetReader, this, configState));
             task.start(taskConfig);
             log.info("{} Source task finished initialization and start", this);
@@ -208,6 +236,8 @@ class WorkerSourceTask extends WorkerTask {
 
             while (!isStopping()) {
                 if (shouldPause()) {
+                    // Don't leave the transaction open while paused, it would time out
+                    commitTransaction();
                     onPause();
                     if (awaitUnpause()) {
                         onResume();
@@ -218,16 +248,21 @@ class WorkerSourceTask extends WorkerTask {
                 if (toSend == null) {
                     log.trace("{} Nothing to send to Kafka. Polling source for additional records", this);
                     long start = time.milliseconds();
-                    toSend = poll();
-                    if (toSend != null) {
-                        recordPollReturned(toSend.size(), time.milliseconds() - start);
+                    List<SourceRecord> polled = poll();
+                    if (polled != null) {
+                        recordPollReturned(polled.size(), time.milliseconds() - start);
                     }
+                    toSend = conversionExecutor != null ? pipelineConversion(polled) : polled;
                 }
-                if (toSend == null)
+                if (toSend == null) {
+                    maybeCommitTransaction();
                     continue;
+                }
                 log.debug("{} About to send " + toSend.size() + " records to Kafka", this);
                 if (!sendRecords())
                     stopRequestedLatch.await(SEND_FAILED_BACKOFF_MS, TimeUnit.MILLISECONDS);
+                else
+                    maybeCommitTransaction();
             }
         } catch (InterruptedException e) {
             // Ignore and allow to exit.
@@ -235,7 +270,12 @@ class WorkerSourceTask extends WorkerTask {
             // It should still be safe to commit offsets since any exception would have
             // simply resulted in not getting more records but all the existing records should be ok to flush
             // and commit offsets. Worst case, task.flush() will also throw an exception causing the offset commit
-            // to fail.
+            // to fail. Give the outstanding messages a chance to complete first, so that their offsets are included.
+            long commitTimeoutMs = workerConfig.getLong(WorkerConfig.OFFSET_COMMIT_TIMEOUT_MS_CONFIG);
+            if (!submittedRecords.awaitAllMessages(commitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.error("{} Timed out while waiting for producer to flush outstanding {} messages",
+                        this, submittedRecords.outstanding());
+            }
             commitOffsets();
         }
     }
@@ -250,6 +290,60 @@ class WorkerSourceTask extends WorkerTask {
         }
     }
 
+    /**
+     * Start converting the polled records on the conversion thread, so that they are converted while the previously
+     * polled records are sent. Only one batch is converted at a time, so the transformations and converters are never
+     * used concurrently.
+     *
+     * @param polled the records returned by the last poll; may be null
+     * @return the records polled before, which have been converted and can be sent, or null if there are none
+     */
+    private List<SourceRecord> pipelineConversion(final List<SourceRecord> polled) throws InterruptedException {
+        final List<SourceRecord> previous = toConvert;
+        if (previous != null) {
+            try {
+                converted = conversion.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new ConnectException("Failed to convert records", e.getCause());
+            }
+        }
+        toConvert = polled;
+        conversion = polled == null ? null : conversionExecutor.submit(() -> convertRecords(polled));
+        return previous;
+    }
+
+    private void stopConversion() {
+        if (conversionExecutor == null)
+            return;
+        conversionExecutor.shutdownNow();
+        try {
+            if (!conversionExecutor.awaitTermination(CONVERSION_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                log.warn("{} Timed out waiting for the conversion of records to stop", this);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Apply the transformations and converters to the records.
+     *
+     * @param records the records returned by the task
+     * @return the converted records, in the same order
+     */
+    private List<ConvertedRecord> convertRecords(List<SourceRecord> records) {
+        final List<ConvertedRecord> result = new ArrayList<>(records.size());
+        for (SourceRecord preTransformRecord : records) {
+            retryWithToleranceOperator.sourceRecord(preTransformRecord);
+            final SourceRecord record = transformationChain.apply(preTransformRecord);
+            final ProducerRecord<byte[], byte[]> producerRecord = convertTransformedRecord(record);
+            result.add(new ConvertedRecord(preTransformRecord, record,
+                    retryWithToleranceOperator.failed() ? null : producerRecord));
+        }
+        return result;
+    }
+
     /**
      * Convert the source record into a producer record.
      *
@@ -287,33 +381,27 @@ class WorkerSourceTask extends WorkerTask {
         int processed = 0;
         recordBatch(toSend.size());
         final SourceRecordWriteCounter counter = new SourceRecordWriteCounter(toSend.size(), sourceTaskMetricsGroup);
-        for (final SourceRecord preTransformRecord : toSend) {
-
-            retryWithToleranceOperator.sourceRecord(preTransformRecord);
-            final SourceRecord record = transformationChain.apply(preTransformRecord);
-            final ProducerRecord<byte[], byte[]> producerRecord = convertTransformedRecord(record);
-            if (producerRecord == null || retryWithToleranceOperator.failed()) {
+        if (converted == null)
+            converted = convertRecords(toSend);
+        beginTransaction();
+        for (final ConvertedRecord convertedRecord : converted) {
+            final SourceRecord preTransformRecord = convertedRecord.preTransformRecord;
+            final SourceRecord record = convertedRecord.record;
+            final ProducerRecord<byte[], byte[]> producerRecord = convertedRecord.producerRecord;
+            if (producerRecord == null) {
                 counter.skipRecord();
                 commitTaskRecord(preTransformRecord);
+                if (transactional)
+                    transactionOffsets.put(preTransformRecord.sourcePartition(), preTransformRecord.sourceOffset());
+                processed++;
                 continue;
             }
 
             log.trace("{} Appending record with key {}, value {}", this, record.key(), record.value());
             // We need this queued first since the callback could happen immediately (even synchronously in some cases).
-            // Because of this we need to be careful about handling retries -- we always save the previously attempted
-            // record as part of toSend and need to use a flag to track whether we should actually add it to the outstanding
-            // messages and update the offsets.
-            synchronized (this) {
-                if (!lastSendFailed) {
-                    if (!flushing) {
-                        outstandingMessages.put(producerRecord, producerRecord);
-                    } else {
-                        outstandingMessagesBacklog.put(producerRecord, producerRecord);
-                    }
-                    // Offsets are converted & serialized in the OffsetWriter
-                    offsetWriter.offset(record.sourcePartition(), record.sourceOffset());
-                }
-            }
+            // If the send fails synchronously the record is removed again, and submitted anew when it is retried.
+            // Transactions commit the offsets of all their records at once, so they need no tracking.
+            final SubmittedRecord submittedRecord = transactional ? null : submittedRecords.submit(record);
             try {
                 final String topic = producerRecord.topic();
                 producer.send(
@@ -336,23 +424,31 @@ class WorkerSourceTask extends WorkerTask {
                                             recordMetadata.offset());
                                     commitTaskRecord(preTransformRecord);
                                 }
-                                recordSent(producerRecord);
+                                if (submittedRecord != null)
+                                    submittedRecord.ack();
                                 counter.completeRecord();
                             }
                         });
-                lastSendFailed = false;
             } catch (RetriableException e) {
                 log.warn("{} Failed to send {}, backing off before retrying:", this, producerRecord, e);
+                if (submittedRecord != null)
+                    submittedRecords.remove(submittedRecord);
+                // The remaining records are retried as they were converted
                 toSend = toSend.subList(processed, toSend.size());
-                lastSendFailed = true;
+                converted = converted.subList(processed, converted.size());
                 counter.retryRemaining();
                 return false;
             } catch (KafkaException e) {
+                if (submittedRecord != null)
+                    submittedRecords.remove(submittedRecord);
                 throw new ConnectException("Unrecoverable exception trying to send", e);
             }
+            if (transactional)
+                transactionOffsets.put(record.sourcePartition(), record.sourceOffset());
             processed++;
         }
         toSend = null;
+        converted = null;
         return true;
     }
 
@@ -378,21 +474,81 @@ class WorkerSourceTask extends WorkerTask {
         }
     }
 
-    private synchronized void recordSent(final ProducerRecord<byte[], byte[]> record) {
-        ProducerRecord<byte[], byte[]> removed = outstandingMessages.remove(record);
-        // While flushing, we may also see callbacks for items in the backlog
-        if (removed == null && flushing)
-            removed = outstandingMessagesBacklog.remove(record);
-        // But if neither one had it, something is very wrong
-        if (removed == null) {
-            log.error("{} CRITICAL Saw callback for record that was not present in the outstanding message set: {}", this, record);
-        } else if (flushing && outstandingMessages.isEmpty()) {
-            // flush thread may be waiting on the outstanding messages to clear
-            this.notifyAll();
+    private void beginTransaction() {
+        if (!transactional || transactionStartMs >= 0)
+            return;
+        producer.beginTransaction();
+        transactionStartMs = time.milliseconds();
+    }
+
+    // Commit the open transaction at the end of a poll cycle, unless it has been open for less than the commit interval
+    private void maybeCommitTransaction() {
+        if (transactionStartMs >= 0 && time.milliseconds() - transactionStartMs >= transactionCommitIntervalMs)
+            commitTransaction();
+    }
+
+    /**
+     * Commit the open transaction along with the latest offsets of the records written in it, if a transaction is
+     * open. A failed commit fails the task: the records of the transaction can't be polled again, so the task has to
+     * be restarted from the offsets of the last committed transaction.
+     *
+     * @throws ConnectException if the transaction could not be committed
+     */
+    private void commitTransaction() {
+        if (transactionStartMs < 0)
+            return;
+        long started = time.milliseconds();
+        log.debug("{} Committing transaction with the offsets of {} source partitions", this, transactionOffsets.size());
+        for (Map.Entry<Map<String, ?>, Map<String, ?>> entry : transactionOffsets.entrySet())
+            offsetWriter.offset(entry.getKey(), entry.getValue());
+        transactionOffsets.clear();
+        transactionStartMs = -1;
+
+        try {
+            // The offsets are sent with the producer, so committing the transaction also waits for them to be written
+            if (offsetWriter.beginFlush() && offsetWriter.doFlush(new org.apache.kafka.connect.util.Callback<Void>() {
+                @Override
+                public void onCompletion(Throwable error, Void result) {
+                    if (error != null)
+                        log.error("{} Failed to write offsets in transaction: ", WorkerSourceTask.this, error);
+                }
+            }) == null)
+                throw new ConnectException("Failed to serialize offsets");
+            producer.commitTransaction();
+        } catch (KafkaException e) {
+            // ConnectException is a KafkaException as well
+            recordCommitFailure(time.milliseconds() - started, e);
+            finishFailedFlush();
+            abortTransaction();
+            throw new ConnectException("Failed to commit transaction", e);
+        }
+
+        long durationMillis = time.milliseconds() - started;
+        recordCommitSuccess(durationMillis);
+        log.debug("{} Finished committing transaction in {} ms", this, durationMillis);
+        commitSourceTask();
+    }
+
+    private void abortTransaction() {
+        try {
+            producer.abortTransaction();
+        } catch (KafkaException e) {
+            // E.g. the producer has been fenced, in which case the transaction is aborted anyway
+            log.warn("{} Failed to abort transaction", this, e);
         }
     }
 
     public boolean commitOffsets() {
+        if (transactional) {
+            try {
+                commitTransaction();
+                return true;
+            } catch (ConnectException e) {
+                log.error("{} Failed to commit transaction on shutdown", this, e);
+                return false;
+            }
+        }
+
         long commitTimeoutMs = workerConfig.getLong(WorkerConfig.OFFSET_COMMIT_TIMEOUT_MS_CONFIG);
 
         log.info("{} Committing offsets", this);
@@ -400,54 +556,26 @@ class WorkerSourceTask extends WorkerTask {
         long started = time.milliseconds();
         long timeout = started + commitTimeoutMs;
 
-        synchronized (this) {
-            // First we need to make sure we snapshot everything in exactly the current state. This
-            // means both the current set of messages we're still waiting to finish, stored in this
-            // class, which setting flushing = true will handle by storing any new values into a new
-            // buffer; and the current set of user-specified offsets, stored in the
-            // OffsetStorageWriter, for which we can use beginFlush() to initiate the snapshot.
-            flushing = true;
-            boolean flushStarted = offsetWriter.beginFlush();
-            // Still wait for any producer records to flush, even if there aren't any offsets to write
-            // to persistent storage
-
-            // Next we need to wait for all outstanding messages to finish sending
-            log.info("{} flushing {} outstanding messages for offset commit", this, outstandingMessages.size());
-            while (!outstandingMessages.isEmpty()) {
-                try {
-                    long timeoutMs = timeout - time.milliseconds();
-                    if (timeoutMs <= 0) {
-                        log.error("{} Failed to flush, timed out while waiting for producer to flush outstanding {} messages", this, outstandingMessages.size());
-                        finishFailedFlush();
-                        recordCommitFailure(time.milliseconds() - started, null);
-                        return false;
-                    }
-                    this.wait(timeoutMs);
-                } catch (InterruptedException e) {
-                    // We can get interrupted if we take too long committing when the work thread shutdown is requested,
-                    // requiring a forcible shutdown. Give up since we can't safely commit any offsets, but also need
-                    // to stop immediately
-                    log.error("{} Interrupted while flushing messages, offsets will not be committed", this);
-                    finishFailedFlush();
-                    recordCommitFailure(time.milliseconds() - started, null);
-                    return false;
-                }
-            }
+        // Only offsets of records that completed along with every earlier record of the same source partition
+        // can be committed. Records still in flight don't hold up the commit, a later one picks up their offsets.
+        Map<Map<String, ?>, Map<String, ?>> committableOffsets = submittedRecords.committableOffsets();
+        log.debug("{} Committing offsets of {} source partitions, {} messages still outstanding",
+                this, committableOffsets.size(), submittedRecords.outstanding());
+        for (Map.Entry<Map<String, ?>, Map<String, ?>> entry : committableOffsets.entrySet()) {
+            // Offsets are converted & serialized in the OffsetWriter
+            offsetWriter.offset(entry.getKey(), entry.getValue());
+        }
 
-            if (!flushStarted) {
-                // There was nothing in the offsets to process, but we still waited for the data in the
-                // buffer to flush. This is useful since this can feed into metrics to monitor, e.g.
-                // flush time, which can be used for monitoring even if the connector doesn't record any
-                // offsets.
-                finishSuccessfulFlush();
-                long durationMillis = time.milliseconds() - started;
-                recordCommitSuccess(durationMillis);
-                log.debug("{} Finished offset commitOffsets successfully in {} ms",
-                        this, durationMillis);
-
-                commitSourceTask();
-                return true;
-            }
+        if (!offsetWriter.beginFlush()) {
+            // There was nothing in the offsets to process. Still record the commit, since this can feed
+            // into metrics to monitor, e.g. flush time, even if the connector doesn't record any offsets.
+            long durationMillis = time.milliseconds() - started;
+            recordCommitSuccess(durationMillis);
+            log.debug("{} Finished offset commitOffsets successfully in {} ms",
+                    this, durationMillis);
+
+            commitSourceTask();
+            return true;
         }
 
         // Now we can actually flush the offsets to user storage.
@@ -491,7 +619,6 @@ class WorkerSourceTask extends WorkerTask {
             return false;
         }
 
-        finishSuccessfulFlush();
         long durationMillis = time.milliseconds() - started;
         recordCommitSuccess(durationMillis);
         log.info("{} Finished commitOffsets successfully in {} ms",
@@ -510,19 +637,9 @@ class WorkerSourceTask extends WorkerTask {
         }
     }
 
-    private synchronized void finishFailedFlush() {
+    private void finishFailedFlush() {
+        // The offsets of the failed flush are kept by the writer and included in the next one
         offsetWriter.cancelFlush();
-        outstandingMessages.putAll(outstandingMessagesBacklog);
-        outstandingMessagesBacklog.clear();
-        flushing = false;
-    }
-
-    private synchronized void finishSuccessfulFlush() {
-        // If we were successful, we can just swap instead of replacing items back into the original map
-        IdentityHashMap<ProducerRecord<byte[], byte[]>, ProducerRecord<byte[], byte[]>> temp = outstandingMessages;
-        outstandingMessages = outstandingMessagesBacklog;
-        outstandingMessagesBacklog = temp;
-        flushing = false;
     }
 
     @Override
@@ -540,6 +657,18 @@ class WorkerSourceTask extends WorkerTask {
         return sourceTaskMetricsGroup;
     }
 
+    private static final class ConvertedRecord {
+        final SourceRecord preTransformRecord;
+        final SourceRecord record;
+        final ProducerRecord<byte[], byte[]> producerRecord;
+
+        ConvertedRecord(SourceRecord preTransformRecord, SourceRecord record, ProducerRecord<byte[], byte[]> producerRecord) {
+            this.preTransformRecord = preTransformRecord;
+            this.record = record;
+            this.producerRecord = producerRecord;
+        }
+    }
+
     static class SourceRecordWriteCounter {
         private final SourceTaskMetricsGroup metricsGroup;
         private final int batchSize;
@@ -26,6 +26,7 @@ import org.apache.kafka.connect.util.ConnectorTaskId;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -48,10 +49,16 @@ public class ConnectProtocol {
     public static final int CONNECTOR_TASK = -1;
 
     public static final short CONNECT_PROTOCOL_V0 = 0;
+    // Version 1 is used by incremental cooperative rebalancing: workers include the connectors and tasks they currently
+    // run in their metadata, and an assignment lists everything the worker should run, so that whatever the worker runs
+    // but is no longer assigned to it is revoked
+    public static final short CONNECT_PROTOCOL_V1 = 1;
     public static final Schema CONNECT_PROTOCOL_HEADER_SCHEMA = new Schema(
             new Field(VERSION_KEY_NAME, Type.INT16));
     private static final Struct CONNECT_PROTOCOL_HEADER_V0 = new Struct(CONNECT_PROTOCOL_HEADER_SCHEMA)
             .set(VERSION_KEY_NAME, CONNECT_PROTOCOL_V0);
+    private static final Struct CONNECT_PROTOCOL_HEADER_V1 = new Struct(CONNECT_PROTOCOL_HEADER_SCHEMA)
+            .set(VERSION_KEY_NAME, CONNECT_PROTOCOL_V1);
 
     public static final Schema CONFIG_STATE_V0 = new Schema(
             new Field(URL_KEY_NAME, Type.STRING),
@@ -70,13 +77,29 @@ public class ConnectProtocol {
             new Field(CONFIG_OFFSET_KEY_NAME, Type.INT64),
             new Field(ASSIGNMENT_KEY_NAME, new ArrayOf(CONNECTOR_ASSIGNMENT_V0)));
 
+    public static final Schema CONFIG_STATE_V1 = new Schema(
+            new Field(URL_KEY_NAME, Type.STRING),
+            new Field(CONFIG_OFFSET_KEY_NAME, Type.INT64),
+            new Field(ASSIGNMENT_KEY_NAME, new ArrayOf(CONNECTOR_ASSIGNMENT_V0)));
+    // The assignment has the same format in version 1, only the connectors and tasks a worker runs before it are interpreted
+    // differently
+    public static final Schema ASSIGNMENT_V1 = ASSIGNMENT_V0;
+
     public static ByteBuffer serializeMetadata(WorkerState workerState) {
-        Struct struct = new Struct(CONFIG_STATE_V0);
+        return serializeMetadata(workerState, CONNECT_PROTOCOL_V0);
+    }
+
+    public static ByteBuffer serializeMetadata(WorkerState workerState, short version) {
+        Struct header = version >= CONNECT_PROTOCOL_V1 ? CONNECT_PROTOCOL_HEADER_V1 : CONNECT_PROTOCOL_HEADER_V0;
+        Schema schema = version >= CONNECT_PROTOCOL_V1 ? CONFIG_STATE_V1 : CONFIG_STATE_V0;
+        Struct struct = new Struct(schema);
         struct.set(URL_KEY_NAME, workerState.url());
         struct.set(CONFIG_OFFSET_KEY_NAME, workerState.offset());
-        ByteBuffer buffer = ByteBuffer.allocate(CONNECT_PROTOCOL_HEADER_V0.sizeOf() + CONFIG_STATE_V0.sizeOf(struct));
-        CONNECT_PROTOCOL_HEADER_V0.writeTo(buffer);
-        CONFIG_STATE_V0.write(buffer, struct);
+        if (version >= CONNECT_PROTOCOL_V1)
+            struct.set(ASSIGNMENT_KEY_NAME, connectorAssignments(workerState.connectors(), workerState.tasks()));
+        ByteBuffer buffer = ByteBuffer.allocate(header.sizeOf() + schema.sizeOf(struct));
+        header.writeTo(buffer);
+        schema.write(buffer, struct);
         buffer.flip();
         return buffer;
     }
@@ -85,31 +108,29 @@ public class ConnectProtocol {
         Struct header = CONNECT_PROTOCOL_HEADER_SCHEMA.read(buffer);
         Short version = header.getShort(VERSION_KEY_NAME);
         checkVersionCompatibility(version);
-        Struct struct = CONFIG_STATE_V0.read(buffer);
+        Struct struct = (version >= CONNECT_PROTOCOL_V1 ? CONFIG_STATE_V1 : CONFIG_STATE_V0).read(buffer);
         long configOffset = struct.getLong(CONFIG_OFFSET_KEY_NAME);
         String url = struct.getString(URL_KEY_NAME);
-        return new WorkerState(url, configOffset);
+        List<String> connectorIds = new ArrayList<>();
+        List<ConnectorTaskId> taskIds = new ArrayList<>();
+        if (version >= CONNECT_PROTOCOL_V1)
+            parseConnectorAssignments(struct.getArray(ASSIGNMENT_KEY_NAME), connectorIds, taskIds);
+        return new WorkerState(url, configOffset, connectorIds, taskIds);
     }
 
     public static ByteBuffer serializeAssignment(Assignment assignment) {
-        Struct struct = new Struct(ASSIGNMENT_V0);
+        Struct header = assignment.version() >= CONNECT_PROTOCOL_V1 ? CONNECT_PROTOCOL_HEADER_V1 : CONNECT_PROTOCOL_HEADER_V0;
+        Schema schema = assignment.version() >= CONNECT_PROTOCOL_V1 ? ASSIGNMENT_V1 : ASSIGNMENT_V0;
+        Struct struct = new Struct(schema);
         struct.set(ERROR_KEY_NAME, assignment.error());
         struct.set(LEADER_KEY_NAME, assignment.leader());
         struct.set(LEADER_URL_KEY_NAME, assignment.leaderUrl());
         struct.set(CONFIG_OFFSET_KEY_NAME, assignment.offset());
-        List<Struct> taskAssignments = new ArrayList<>();
-        for (Map.Entry<String, List<Integer>> connectorEntry : assignment.asMap().entrySet()) {
-            Struct taskAssignment = new Struct(CONNECTOR_ASSIGNMENT_V0);
-            taskAssignment.set(CONNECTOR_KEY_NAME, connectorEntry.getKey());
-            List<Integer> tasks = connectorEntry.getValue();
-            taskAssignment.set(TASKS_KEY_NAME, tasks.toArray());
-            taskAssignments.add(taskAssignment);
-        }
-        struct.set(ASSIGNMENT_KEY_NAME, taskAssignments.toArray());
+        struct.set(ASSIGNMENT_KEY_NAME, connectorAssignments(assignment.connectors(), assignment.tasks()));
 
-        ByteBuffer buffer = ByteBuffer.allocate(CONNECT_PROTOCOL_HEADER_V0.sizeOf() + ASSIGNMENT_V0.sizeOf(struct));
-        CONNECT_PROTOCOL_HEADER_V0.writeTo(buffer);
-        ASSIGNMENT_V0.write(buffer, struct);
+        ByteBuffer buffer = ByteBuffer.allocate(header.sizeOf() + schema.sizeOf(struct));
+        header.writeTo(buffer);
+        schema.write(buffer, struct);
         buffer.flip();
         return buffer;
     }
@@ -118,14 +139,32 @@ public class ConnectProtocol {
         Struct header = CONNECT_PROTOCOL_HEADER_SCHEMA.read(buffer);
         Short version = header.getShort(VERSION_KEY_NAME);
         checkVersionCompatibility(version);
-        Struct struct = ASSIGNMENT_V0.read(buffer);
+        Struct struct = (version >= CONNECT_PROTOCOL_V1 ? ASSIGNMENT_V1 : ASSIGNMENT_V0).read(buffer);
         short error = struct.getShort(ERROR_KEY_NAME);
         String leader = struct.getString(LEADER_KEY_NAME);
         String leaderUrl = struct.getString(LEADER_URL_KEY_NAME);
         long offset = struct.getLong(CONFIG_OFFSET_KEY_NAME);
         List<String> connectorIds = new ArrayList<>();
         List<ConnectorTaskId> taskIds = new ArrayList<>();
-        for (Object structObj : struct.getArray(ASSIGNMENT_KEY_NAME)) {
+        parseConnectorAssignments(struct.getArray(ASSIGNMENT_KEY_NAME), connectorIds, taskIds);
+        return new Assignment(error, leader, leaderUrl, offset, connectorIds, taskIds,
+                version >= CONNECT_PROTOCOL_V1 ? CONNECT_PROTOCOL_V1 : CONNECT_PROTOCOL_V0);
+    }
+
+    private static Object[] connectorAssignments(List<String> connectorIds, List<ConnectorTaskId> taskIds) {
+        List<Struct> taskAssignments = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> connectorEntry : asMap(connectorIds, taskIds).entrySet()) {
+            Struct taskAssignment = new Struct(CONNECTOR_ASSIGNMENT_V0);
+            taskAssignment.set(CONNECTOR_KEY_NAME, connectorEntry.getKey());
+            List<Integer> tasks = connectorEntry.getValue();
+            taskAssignment.set(TASKS_KEY_NAME, tasks.toArray());
+            taskAssignments.add(taskAssignment);
+        }
+        return taskAssignments.toArray();
+    }
+
+    private static void parseConnectorAssignments(Object[] assignments, List<String> connectorIds, List<ConnectorTaskId> taskIds) {
+        for (Object structObj : assignments) {
             Struct assignment = (Struct) structObj;
             String connector = assignment.getString(CONNECTOR_KEY_NAME);
             for (Object taskIdObj : assignment.getArray(TASKS_KEY_NAME)) {
@@ -136,16 +175,50 @@ public class ConnectProtocol {
                     taskIds.add(new ConnectorTaskId(connector, taskId));
             }
         }
-        return new Assignment(error, leader, leaderUrl, offset, connectorIds, taskIds);
+    }
+
+    private static Map<String, List<Integer>> asMap(List<String> connectorIds, List<ConnectorTaskId> taskIds) {
+        // Using LinkedHashMap preserves the ordering, which is helpful for tests and debugging
+        Map<String, List<Integer>> taskMap = new LinkedHashMap<>();
+        for (String connectorId : new HashSet<>(connectorIds)) {
+            List<Integer> connectorTasks = taskMap.get(connectorId);
+            if (connectorTasks == null) {
+                connectorTasks = new ArrayList<>();
+                taskMap.put(connectorId, connectorTasks);
+            }
+            connectorTasks.add(CONNECTOR_TASK);
+        }
+        for (ConnectorTaskId taskId : taskIds) {
+            String connectorId = taskId.connector();
+            List<Integer> connectorTasks = taskMap.get(connectorId);
+            if (connectorTasks == null) {
+                connectorTasks = new ArrayList<>();
+                taskMap.put(connectorId, connectorTasks);
+            }
+            connectorTasks.add(taskId.task());
+        }
+        return taskMap;
     }
 
     public static class WorkerState {
         private final String url;
         private final long offset;
+        private final List<String> connectorIds;
+        private final List<ConnectorTaskId> taskIds;
 
         public WorkerState(String url, long offset) {
+            this(url, offset, Collections.<String>emptyList(), Collections.<ConnectorTaskId>emptyList());
+        }
+
+        /**
+         * Create the state of a worker that currently runs the given connectors and tasks. These are only included in
+         * the metadata of version 1 and later.
+         */
+        public WorkerState(String url, long offset, List<String> connectorIds, List<ConnectorTaskId> taskIds) {
             this.url = url;
             this.offset = offset;
+            this.connectorIds = connectorIds;
+            this.taskIds = taskIds;
         }
 
         public String url() {
@@ -156,11 +229,21 @@ public class ConnectProtocol {
             return offset;
         }
 
+        public List<String> connectors() {
+            return connectorIds;
+        }
+
+        public List<ConnectorTaskId> tasks() {
+            return taskIds;
+        }
+
         @Override
         public String toString() {
             return "WorkerState{" +
                     "url='" + url + '\'' +
                     ", offset=" + offset +
+                    ", connectorIds=" + connectorIds +
+                    ", taskIds=" + taskIds +
                     '}';
         }
     }
@@ -177,6 +260,7 @@ public class ConnectProtocol {
         private final long offset;
         private final List<String> connectorIds;
         private final List<ConnectorTaskId> taskIds;
+        private final short version;
 
         /**
          * Create an assignment indicating responsibility for the given connector instances and task Ids.
@@ -185,6 +269,17 @@ public class ConnectProtocol {
          */
         public Assignment(short error, String leader, String leaderUrl, long configOffset,
                           List<String> connectorIds, List<ConnectorTaskId> taskIds) {
+            this(error, leader, leaderUrl, configOffset, connectorIds, taskIds, CONNECT_PROTOCOL_V0);
+        }
+
+        /**
+         * Create an assignment of the given protocol version. From version 1 on, the connectors and tasks are all the work
+         * of the worker, including what it already runs.
+         * @param version the version of the protocol that produced the assignment
+         */
+        public Assignment(short error, String leader, String leaderUrl, long configOffset,
+                          List<String> connectorIds, List<ConnectorTaskId> taskIds, short version) {
+            this.version = version;
             this.error = error;
             this.leader = leader;
             this.leaderUrl = leaderUrl;
@@ -197,6 +292,18 @@ public class ConnectProtocol {
             return error;
         }
 
+        public short version() {
+            return version;
+        }
+
+        /**
+         * @return whether the assignment was made by incremental cooperative rebalancing, so that only the connectors and
+         * tasks that are not part of it have been revoked
+         */
+        public boolean incremental() {
+            return version >= CONNECT_PROTOCOL_V1;
+        }
+
         public String leader() {
             return leader;
         }
@@ -230,31 +337,9 @@ public class ConnectProtocol {
                     ", offset=" + offset +
                     ", connectorIds=" + connectorIds +
                     ", taskIds=" + taskIds +
+                    ", version=" + version +
                     '}';
         }
-
-        private Map<String, List<Integer>> asMap() {
-            // Using LinkedHashMap preserves the ordering, which is helpful for tests and debugging
-            Map<String, List<Integer>> taskMap = new LinkedHashMap<>();
-            for (String connectorId : new HashSet<>(connectorIds)) {
-                List<Integer> connectorTasks = taskMap.get(connectorId);
-                if (connectorTasks == null) {
-                    connectorTasks = new ArrayList<>();
-                    taskMap.put(connectorId, connectorTasks);
-                }
-                connectorTasks.add(CONNECTOR_TASK);
-            }
-            for (ConnectorTaskId taskId : taskIds) {
-                String connectorId = taskId.connector();
-                List<Integer> connectorTasks = taskMap.get(connectorId);
-                if (connectorTasks == null) {
-                    connectorTasks = new ArrayList<>();
-                    taskMap.put(connectorId, connectorTasks);
-                }
-                connectorTasks.add(taskId.task());
-            }
-            return taskMap;
-        }
     }
 
     private static void checkVersionCompatibility(short version) {
@@ -262,7 +347,7 @@ public class ConnectProtocol {
         if (version < CONNECT_PROTOCOL_V0)
             throw new SchemaException("Unsupported subscription version: " + version);
 
-        // otherwise, assume versions can be parsed as V0
+        // otherwise, assume versions can be parsed as the latest known version
     }
 
 }
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime.distributed;
+
+import java.util.Locale;
+
+/**
+ * The rebalance protocols that Connect workers can use to distribute connectors and tasks.
+ */
+public enum ConnectProtocolCompatibility {
+    /**
+     * Every rebalance stops all connectors and tasks of all workers, which are then started again according to the new
+     * assignment.
+     */
+    EAGER(WorkerCoordinator.DEFAULT_SUBPROTOCOL),
+
+    /**
+     * Connectors and tasks keep running through rebalances unless they are revoked from their worker, so that only the
+     * work that moves to another worker is stopped. Falls back to {@link #EAGER} while any worker in the group does not
+     * support incremental rebalancing.
+     */
+    COMPATIBLE(WorkerCoordinator.COMPATIBLE_SUBPROTOCOL);
+
+    private final String protocol;
+
+    ConnectProtocolCompatibility(String protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * @return the name of the subprotocol in the group membership protocol
+     */
+    public String protocol() {
+        return protocol;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param name the name used in the worker configuration, e.g. {@code compatible}
+     * @return the matching compatibility mode
+     */
+    public static ConnectProtocolCompatibility forName(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @param protocol the name of a subprotocol of the group membership protocol
+     * @return the compatibility mode that uses the given subprotocol
+     */
+    public static ConnectProtocolCompatibility forProtocol(String protocol) {
+        for (ConnectProtocolCompatibility compatibility : values()) {
+            if (compatibility.protocol.equals(protocol))
+                return compatibility;
+        }
+        throw new IllegalArgumentException("Unknown Connect protocol " + protocol);
+    }
+}
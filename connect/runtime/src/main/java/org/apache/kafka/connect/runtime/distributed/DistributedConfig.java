@@ -84,6 +84,17 @@ public class DistributedConfig extends WorkerConfig {
             " fails to catch up within worker.sync.timeout.ms, leave the Connect cluster for this long before rejoining.";
     public static final int WORKER_UNSYNC_BACKOFF_MS_DEFAULT = 5 * 60 * 1000;
 
+    /**
+     * <code>connect.protocol</code>
+     */
+    public static final String CONNECT_PROTOCOL_CONFIG = "connect.protocol";
+    private static final String CONNECT_PROTOCOL_DOC = "Compatibility mode for the rebalancing protocol of the workers. " +
+            "With <code>eager</code>, every worker stops all its connectors and tasks whenever the group rebalances. " +
+            "With <code>compatible</code>, workers rebalance incrementally and only stop the connectors and tasks that " +
+            "move to another worker, as long as every worker in the group uses <code>compatible</code>; otherwise the " +
+            "group falls back to eager rebalancing.";
+    public static final String CONNECT_PROTOCOL_DEFAULT = ConnectProtocolCompatibility.COMPATIBLE.toString();
+
     /**
      * <code>offset.storage.topic</code>
      */
@@ -132,6 +143,36 @@ public class DistributedConfig extends WorkerConfig {
     public static final String STATUS_STORAGE_REPLICATION_FACTOR_CONFIG = "status.storage.replication.factor";
     private static final String STATUS_STORAGE_REPLICATION_FACTOR_CONFIG_DOC = "Replication factor used when creating the status storage topic";
 
+    /**
+     * <code>internal.snapshot.dir</code>
+     */
+    public static final String INTERNAL_SNAPSHOT_DIR_CONFIG = "internal.snapshot.dir";
+    private static final String INTERNAL_SNAPSHOT_DIR_CONFIG_DOC = "The directory where the worker keeps local snapshots " +
+            "of the config and offset storage topics. On restart, the worker resumes reading these topics from its " +
+            "snapshots instead of from the beginning, and falls back to reading them in full if a snapshot is missing or " +
+            "does not match the topic. Snapshots are disabled if this is empty.";
+
+    /**
+     * <code>exactly.once.source.enabled</code>
+     */
+    public static final String EXACTLY_ONCE_SOURCE_ENABLED_CONFIG = "exactly.once.source.enabled";
+    private static final String EXACTLY_ONCE_SOURCE_ENABLED_DOC = "Whether source tasks write their records and their " +
+            "source offsets in producer transactions, so that the offsets are committed if and only if the records " +
+            "are. A restarted task then resumes exactly after the records that were committed. Each task uses a " +
+            "transactional producer with a transactional ID derived from the group ID and the task ID, and the worker " +
+            "only reads committed offsets. Requires brokers that support transactions.";
+    public static final boolean EXACTLY_ONCE_SOURCE_ENABLED_DEFAULT = false;
+
+    /**
+     * <code>exactly.once.source.commit.interval.ms</code>
+     */
+    public static final String EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_CONFIG = "exactly.once.source.commit.interval.ms";
+    private static final String EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_DOC = "The minimum time a transaction of a " +
+            "source task stays open when " + EXACTLY_ONCE_SOURCE_ENABLED_CONFIG + " is true. The transaction is " +
+            "committed at the end of the first poll cycle after this time, so that the records of several polls share " +
+            "one commit. 0 commits a transaction after every poll cycle.";
+    public static final long EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_DEFAULT = 100L;
+
     static {
         CONFIG = baseConfigDef()
                 .define(GROUP_ID_CONFIG,
@@ -224,6 +265,14 @@ public class DistributedConfig extends WorkerConfig {
                         WORKER_UNSYNC_BACKOFF_MS_DEFAULT,
                         ConfigDef.Importance.MEDIUM,
                         WORKER_UNSYNC_BACKOFF_MS_DOC)
+                .define(CONNECT_PROTOCOL_CONFIG,
+                        ConfigDef.Type.STRING,
+                        CONNECT_PROTOCOL_DEFAULT,
+                        ConfigDef.ValidString.in(
+                                ConnectProtocolCompatibility.EAGER.toString(),
+                                ConnectProtocolCompatibility.COMPATIBLE.toString()),
+                        ConfigDef.Importance.LOW,
+                        CONNECT_PROTOCOL_DOC)
                 .define(OFFSET_STORAGE_TOPIC_CONFIG,
                         ConfigDef.Type.STRING,
                         ConfigDef.Importance.HIGH,
@@ -265,7 +314,30 @@ public class DistributedConfig extends WorkerConfig {
                         (short) 3,
                         atLeast(1),
                         ConfigDef.Importance.LOW,
-                        STATUS_STORAGE_REPLICATION_FACTOR_CONFIG_DOC);
+                        STATUS_STORAGE_REPLICATION_FACTOR_CONFIG_DOC)
+                .define(INTERNAL_SNAPSHOT_DIR_CONFIG,
+                        ConfigDef.Type.STRING,
+                        "",
+                        ConfigDef.Importance.LOW,
+                        INTERNAL_SNAPSHOT_DIR_CONFIG_DOC)
+                .define(EXACTLY_ONCE_SOURCE_ENABLED_CONFIG,
+                        ConfigDef.Type.BOOLEAN,
+                        EXACTLY_ONCE_SOURCE_ENABLED_DEFAULT,
+                        ConfigDef.Importance.MEDIUM,
+                        EXACTLY_ONCE_SOURCE_ENABLED_DOC)
+                .define(EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_CONFIG,
+                        ConfigDef.Type.LONG,
+                        EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_DEFAULT,
+                        atLeast(0L),
+                        ConfigDef.Importance.LOW,
+                        EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_DOC);
+    }
+
+    /**
+     * @return whether source tasks write their records and offsets in transactions
+     */
+    public boolean exactlyOnceSourceEnabled() {
+        return getBoolean(EXACTLY_ONCE_SOURCE_ENABLED_CONFIG);
     }
 
     @Override
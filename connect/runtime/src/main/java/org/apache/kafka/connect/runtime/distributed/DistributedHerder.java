@@ -148,6 +148,8 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
     // herder's main thread.
     private Set<String> connectorTargetStateChanges = new HashSet<>();
     private boolean needsReconfigRebalance;
+    // Connectors whose task configs changed, whose running tasks have to be restarted with incremental rebalancing
+    private Set<String> taskConfigUpdates = new HashSet<>();
     private volatile int generation;
 
     private final DistributedConfig config;
@@ -277,6 +279,7 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
         // Process any configuration updates
         Set<String> connectorConfigUpdatesCopy = null;
         Set<String> connectorTargetStateChangesCopy = null;
+        Set<String> taskConfigUpdatesCopy = null;
         synchronized (this) {
             if (needsReconfigRebalance || !connectorConfigUpdates.isEmpty() || !connectorTargetStateChanges.isEmpty()) {
                 // Connector reconfigs only need local updates since there is no coordination between workers required.
@@ -289,11 +292,17 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
                     // this loop, which will then ensure the rebalance occurs without any other requests being
                     // processed until it completes.
                     member.requestRejoin();
-                    // Any connector config updates or target state changes will be addressed during the rebalance too
-                    connectorConfigUpdates.clear();
-                    connectorTargetStateChanges.clear();
+                    // With eager rebalancing, any connector config updates or target state changes will be addressed
+                    // during the rebalance too, since all connectors and tasks are restarted. With incremental
+                    // rebalancing, the connectors and tasks that remain assigned keep running, so the updates are kept
+                    // and processed by the next tick, once the rebalance has completed.
+                    if (assignment == null || !assignment.incremental()) {
+                        connectorConfigUpdates.clear();
+                        connectorTargetStateChanges.clear();
+                    }
                     needsReconfigRebalance = false;
-                    return;
+                    taskConfigUpdatesCopy = taskConfigUpdates;
+                    taskConfigUpdates = new HashSet<>();
                 } else {
                     if (!connectorConfigUpdates.isEmpty()) {
                         // We can't start/stop while locked since starting connectors can cause task updates that will
@@ -313,6 +322,11 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
             }
         }
 
+        if (taskConfigUpdatesCopy != null) {
+            processTaskConfigUpdates(taskConfigUpdatesCopy);
+            return;
+        }
+
         if (connectorConfigUpdatesCopy != null)
             processConnectorConfigUpdates(connectorConfigUpdatesCopy);
 
@@ -329,6 +343,24 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
         }
     }
 
+    private void processTaskConfigUpdates(Set<String> taskConfigUpdates) {
+        // With eager rebalancing all tasks are stopped during the rebalance. With incremental rebalancing the tasks
+        // that remain assigned to this worker keep running, so stop the ones with new configs now and let them be
+        // started again once the rebalance has completed.
+        if (assignment == null || !assignment.incremental())
+            return;
+        List<ConnectorTaskId> reconfiguredTasks = new ArrayList<>();
+        for (ConnectorTaskId taskId : worker.taskIds()) {
+            if (taskConfigUpdates.contains(taskId.connector()))
+                reconfiguredTasks.add(taskId);
+        }
+        if (reconfiguredTasks.isEmpty())
+            return;
+        log.info("Stopping tasks {} to apply their updated configs", reconfiguredTasks);
+        // They are started again after the rebalance, since they remain assigned but no longer run
+        stopTasks(reconfiguredTasks);
+    }
+
     private void processConnectorConfigUpdates(Set<String> connectorConfigUpdates) {
         // If we only have connector config updates, we can just bounce the updated connectors that are
         // currently assigned to this worker.
@@ -846,20 +878,34 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
     }
 
     private void startWork() {
-        // Start assigned connectors and tasks
+        // Start assigned connectors and tasks. With incremental rebalancing, the ones that kept running through the
+        // rebalance are left alone.
         log.info("Starting connectors and tasks using config offset {}", assignment.offset());
+        Set<String> runningConnectors = assignment.incremental() ? worker.connectorNames() : Collections.<String>emptySet();
+        Set<ConnectorTaskId> runningTasks = assignment.incremental() ? worker.taskIds() : Collections.<ConnectorTaskId>emptySet();
         List<Callable<Void>> callables = new ArrayList<>();
         for (String connectorName : assignment.connectors()) {
-            callables.add(getConnectorStartingCallable(connectorName));
+            if (!runningConnectors.contains(connectorName))
+                callables.add(getConnectorStartingCallable(connectorName));
         }
 
         for (ConnectorTaskId taskId : assignment.tasks()) {
-            callables.add(getTaskStartingCallable(taskId));
+            if (!runningTasks.contains(taskId))
+                callables.add(getTaskStartingCallable(taskId));
         }
         startAndStop(callables);
         log.info("Finished starting connectors and tasks");
     }
 
+    private void stopTasks(Collection<ConnectorTaskId> taskIds) {
+        List<Callable<Void>> callables = new ArrayList<>();
+        for (ConnectorTaskId taskId : taskIds) {
+            callables.add(getTaskStoppingCallable(taskId));
+        }
+        startAndStop(callables);
+        herderMetrics.tasksStopped(taskIds.size(), time.milliseconds());
+    }
+
     private boolean startTask(ConnectorTaskId taskId) {
         log.info("Starting task {}", taskId);
         return worker.startTask(
@@ -1117,6 +1163,8 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
             // connectors clearly don't need any coordination.
             synchronized (DistributedHerder.this) {
                 needsReconfigRebalance = true;
+                for (ConnectorTaskId taskId : tasks)
+                    taskConfigUpdates.add(taskId.connector());
             }
             member.wakeup();
         }
@@ -1240,35 +1288,43 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
             // Note that since we don't reset the assignment, we don't revoke leadership here. During a rebalance,
             // it is still important to have a leader that can write configs, offsets, etc.
 
-            if (rebalanceResolved) {
-                // TODO: Technically we don't have to stop connectors at all until we know they've really been removed from
-                // this worker. Instead, we can let them continue to run but buffer any update requests (which should be
-                // rare anyway). This would avoid a steady stream of start/stop, which probably also includes lots of
-                // unnecessary repeated connections to the source/sink system.
-                List<Callable<Void>> callables = new ArrayList<>();
-                for (final String connectorName : connectors) {
-                    callables.add(getConnectorStoppingCallable(connectorName));
-                }
-
-                // TODO: We need to at least commit task offsets, but if we could commit offsets & pause them instead of
-                // stopping them then state could continue to be reused when the task remains on this worker. For example,
-                // this would avoid having to close a connection and then reopen it when the task is assigned back to this
-                // worker again.
-                for (final ConnectorTaskId taskId : tasks) {
-                    callables.add(getTaskStoppingCallable(taskId));
-                }
+            if (!rebalanceResolved && assignment != null && assignment.incremental()) {
+                // Work that kept running through earlier incremental rebalances may still be running even though
+                // the last assignment was not resolved, so stop whatever is actually running
+                connectors = new ArrayList<>(connectors);
+                connectors.retainAll(worker.connectorNames());
+                tasks = new ArrayList<>(tasks);
+                tasks.retainAll(worker.taskIds());
+            } else if (!rebalanceResolved) {
+                log.info("Wasn't unable to resume work after last rebalance, can skip stopping connectors and tasks");
+                return;
+            }
 
-                // The actual timeout for graceful task stop is applied in worker's stopAndAwaitTask method.
-                startAndStop(callables);
+            // With eager rebalancing this stops everything and relies on the new assignment to start it again. With
+            // incremental rebalancing, only the connectors and tasks that moved to another worker or were removed
+            // are stopped.
+            List<Callable<Void>> callables = new ArrayList<>();
+            for (final String connectorName : connectors) {
+                callables.add(getConnectorStoppingCallable(connectorName));
+            }
 
-                // Ensure that all status updates have been pushed to the storage system before rebalancing.
-                // Otherwise, we may inadvertently overwrite the state with a stale value after the rebalance
-                // completes.
-                statusBackingStore.flush();
-                log.info("Finished stopping tasks in preparation for rebalance");
-            } else {
-                log.info("Wasn't unable to resume work after last rebalance, can skip stopping connectors and tasks");
+            // TODO: We need to at least commit task offsets, but if we could commit offsets & pause them instead of
+            // stopping them then state could continue to be reused when the task remains on this worker. For example,
+            // this would avoid having to close a connection and then reopen it when the task is assigned back to this
+            // worker again.
+            for (final ConnectorTaskId taskId : tasks) {
+                callables.add(getTaskStoppingCallable(taskId));
             }
+
+            // The actual timeout for graceful task stop is applied in worker's stopAndAwaitTask method.
+            startAndStop(callables);
+            herderMetrics.tasksStopped(tasks.size(), time.milliseconds());
+
+            // Ensure that all status updates have been pushed to the storage system before rebalancing.
+            // Otherwise, we may inadvertently overwrite the state with a stale value after the rebalance
+            // completes.
+            statusBackingStore.flush();
+            log.info("Finished stopping tasks in preparation for rebalance");
         }
     }
 
@@ -1276,9 +1332,12 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
         private final MetricGroup metricGroup;
         private final Sensor rebalanceCompletedCounts;
         private final Sensor rebalanceTime;
+        private final Sensor revokedTasks;
+        private final Sensor taskDowntime;
         private volatile long lastRebalanceCompletedAtMillis = Long.MIN_VALUE;
         private volatile boolean rebalancing = false;
         private volatile long rebalanceStartedAtMillis = 0L;
+        private volatile long tasksStoppedAtMillis = Long.MIN_VALUE;
 
         public HerderMetrics(ConnectMetrics connectMetrics) {
             ConnectMetricsRegistry registry = connectMetrics.registry();
@@ -1310,6 +1369,13 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
             rebalanceTime.add(metricGroup.metricName(registry.rebalanceTimeMax), new Max());
             rebalanceTime.add(metricGroup.metricName(registry.rebalanceTimeAvg), new Avg());
 
+            revokedTasks = metricGroup.sensor("revoked-tasks");
+            revokedTasks.add(metricGroup.metricName(registry.revokedTasksTotal), new Total());
+
+            taskDowntime = metricGroup.sensor("task-downtime");
+            taskDowntime.add(metricGroup.metricName(registry.taskDowntimeMax), new Max());
+            taskDowntime.add(metricGroup.metricName(registry.taskDowntimeAvg), new Avg());
+
             metricGroup.addValueMetric(registry.rebalanceTimeSinceLast, new LiteralSupplier<Double>() {
                 @Override
                 public Double metricValue(long now) {
@@ -1333,6 +1399,19 @@ public class DistributedHerder extends AbstractHerder implements Runnable {
             rebalanceCompletedCounts.record(1.0);
             rebalanceTime.record(duration);
             lastRebalanceCompletedAtMillis = now;
+            if (tasksStoppedAtMillis != Long.MIN_VALUE) {
+                taskDowntime.record(Math.max(0L, now - tasksStoppedAtMillis));
+                tasksStoppedAtMillis = Long.MIN_VALUE;
+            }
+        }
+
+        void tasksStopped(int count, long now) {
+            if (count == 0)
+                return;
+            revokedTasks.record(count);
+            // The downtime lasts from the first tasks being stopped until the assigned work is started again
+            if (tasksStoppedAtMillis == Long.MIN_VALUE)
+                tasksStoppedAtMillis = now;
         }
 
         protected MetricGroup metricGroup() {
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime.distributed;
+
+import org.apache.kafka.connect.util.ConnectorTaskId;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the assignments of incremental cooperative rebalancing, which move as little work between workers as possible.
+ * <p>
+ * Each worker keeps the connectors and tasks it already runs, unless they have been removed from the configuration or are
+ * also run by another worker. Connectors and tasks that no worker runs are assigned to the workers with the least work.
+ * If a worker runs more than its share, the excess is revoked: it is left out of the worker's assignment, and since the
+ * worker still runs it until it learns of the revocation, it is not assigned to any other worker in the same round. The
+ * workers rejoin the group once the revoked work is stopped, and the next round assigns it.
+ * <p>
+ * Connectors and tasks are balanced independently. The shares of a worker differ by at most one from those of any other,
+ * and the workers that already run the most work get the larger shares, which makes repeated rounds converge.
+ */
+class IncrementalCooperativeAssignor {
+    private final Logger log;
+
+    IncrementalCooperativeAssignor(Logger log) {
+        this.log = log;
+    }
+
+    /**
+     * Assign the connectors to the members.
+     *
+     * @param memberConfigs the state of every member, including the connectors it runs
+     * @param connectors all configured connectors
+     * @return the connectors of each member
+     */
+    Map<String, List<String>> assignConnectors(Map<String, ConnectProtocol.WorkerState> memberConfigs,
+                                               Collection<String> connectors) {
+        Map<String, List<String>> owned = new HashMap<>();
+        for (Map.Entry<String, ConnectProtocol.WorkerState> entry : memberConfigs.entrySet())
+            owned.put(entry.getKey(), entry.getValue().connectors());
+        return assign(owned, connectors, "connectors");
+    }
+
+    /**
+     * Assign the tasks to the members.
+     *
+     * @param memberConfigs the state of every member, including the tasks it runs
+     * @param tasks all configured tasks
+     * @return the tasks of each member
+     */
+    Map<String, List<ConnectorTaskId>> assignTasks(Map<String, ConnectProtocol.WorkerState> memberConfigs,
+                                                   Collection<ConnectorTaskId> tasks) {
+        Map<String, List<ConnectorTaskId>> owned = new HashMap<>();
+        for (Map.Entry<String, ConnectProtocol.WorkerState> entry : memberConfigs.entrySet())
+            owned.put(entry.getKey(), entry.getValue().tasks());
+        return assign(owned, tasks, "tasks");
+    }
+
+    private <T extends Comparable<T>> Map<String, List<T>> assign(Map<String, List<T>> owned, Collection<T> configured, String kind) {
+        final List<String> members = sorted(owned.keySet());
+        final Set<T> configuredSet = new HashSet<>(configured);
+
+        // Keep what each member runs, unless it was deleted or another member runs it too
+        final Set<T> claimed = new HashSet<>();
+        final Map<String, List<T>> kept = new HashMap<>();
+        for (String member : members) {
+            List<T> memberKept = new ArrayList<>();
+            for (T item : sorted(owned.get(member))) {
+                if (configuredSet.contains(item) && claimed.add(item))
+                    memberKept.add(item);
+            }
+            kept.put(member, memberKept);
+        }
+
+        // The members that run the most get the larger shares, so members only give up work they run in excess
+        final List<String> byLoad = new ArrayList<>(members);
+        Collections.sort(byLoad, new Comparator<String>() {
+            @Override
+            public int compare(String member1, String member2) {
+                int byCount = Integer.compare(kept.get(member2).size(), kept.get(member1).size());
+                return byCount != 0 ? byCount : member1.compareTo(member2);
+            }
+        });
+        final Map<String, Integer> shares = new HashMap<>();
+        for (int i = 0; i < byLoad.size(); i++)
+            shares.put(byLoad.get(i), configured.size() / members.size() + (i < configured.size() % members.size() ? 1 : 0));
+
+        final Map<String, List<T>> assignments = new HashMap<>();
+        for (String member : members) {
+            List<T> memberKept = kept.get(member);
+            int share = shares.get(member);
+            if (memberKept.size() > share) {
+                List<T> revoked = memberKept.subList(share, memberKept.size());
+                log.info("Revoking {} {} from {} to balance the load", kind, revoked, member);
+                memberKept = new ArrayList<>(memberKept.subList(0, share));
+            }
+            assignments.put(member, memberKept);
+        }
+
+        // Work that no member runs fills up the members below their share
+        final List<T> unassigned = new ArrayList<>();
+        for (T item : sorted(configured)) {
+            if (!claimed.contains(item))
+                unassigned.add(item);
+        }
+        int next = 0;
+        for (String member : members) {
+            List<T> memberAssignment = assignments.get(member);
+            while (next < unassigned.size() && memberAssignment.size() < shares.get(member)) {
+                log.trace("Assigning {} to {}", unassigned.get(next), member);
+                memberAssignment.add(unassigned.get(next++));
+            }
+        }
+        return assignments;
+    }
+
+    private static <T extends Comparable<T>> List<T> sorted(Collection<T> items) {
+        List<T> result = new ArrayList<>(items);
+        Collections.sort(result);
+        return result;
+    }
+}
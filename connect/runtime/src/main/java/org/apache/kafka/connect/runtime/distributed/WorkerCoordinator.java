@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import java.io.Closeable;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,13 +46,21 @@ import java.util.Map;
  * to workers.
  */
 public final class WorkerCoordinator extends AbstractCoordinator implements Closeable {
-    // Currently doesn't support multiple task assignment strategies, so we just fill in a default value
+    // The subprotocol of eager rebalancing, which every worker supports
     public static final String DEFAULT_SUBPROTOCOL = "default";
+    // The subprotocol of incremental cooperative rebalancing
+    public static final String COMPATIBLE_SUBPROTOCOL = "compatible";
 
     private final Logger log;
     private final String restUrl;
     private final ConfigBackingStore configStorage;
+    private final ConnectProtocolCompatibility protocolCompatibility;
     private ConnectProtocol.Assignment assignmentSnapshot;
+    // The connectors and tasks assigned to this worker that have not been revoked since
+    private List<String> ownedConnectors;
+    private List<ConnectorTaskId> ownedTasks;
+    // The protocol selected for the current generation of the group
+    private ConnectProtocolCompatibility currentProtocol;
     private ClusterConfigState configSnapshot;
     private final WorkerRebalanceListener listener;
     private LeaderState leaderState;
@@ -73,7 +82,8 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
                              long retryBackoffMs,
                              String restUrl,
                              ConfigBackingStore configStorage,
-                             WorkerRebalanceListener listener) {
+                             WorkerRebalanceListener listener,
+                             ConnectProtocolCompatibility protocolCompatibility) {
         super(logContext,
               client,
               groupId,
@@ -88,7 +98,11 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
         this.log = logContext.logger(WorkerCoordinator.class);
         this.restUrl = restUrl;
         this.configStorage = configStorage;
+        this.protocolCompatibility = protocolCompatibility;
         this.assignmentSnapshot = null;
+        this.ownedConnectors = Collections.emptyList();
+        this.ownedTasks = Collections.emptyList();
+        this.currentProtocol = ConnectProtocolCompatibility.EAGER;
         new WorkerCoordinatorMetrics(metrics, metricGrpPrefix);
         this.listener = listener;
         this.rejoinRequested = false;
@@ -146,25 +160,75 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
     @Override
     public List<ProtocolMetadata> metadata() {
         configSnapshot = configStorage.snapshot();
-        ConnectProtocol.WorkerState workerState = new ConnectProtocol.WorkerState(restUrl, configSnapshot.offset());
-        ByteBuffer metadata = ConnectProtocol.serializeMetadata(workerState);
-        return Collections.singletonList(new ProtocolMetadata(DEFAULT_SUBPROTOCOL, metadata));
+        ConnectProtocol.WorkerState workerState = new ConnectProtocol.WorkerState(restUrl, configSnapshot.offset(),
+                ownedConnectors, ownedTasks);
+        ProtocolMetadata eager = new ProtocolMetadata(DEFAULT_SUBPROTOCOL, ConnectProtocol.serializeMetadata(workerState));
+        if (protocolCompatibility == ConnectProtocolCompatibility.EAGER)
+            return Collections.singletonList(eager);
+        // Prefer incremental rebalancing, but fall back to eager rebalancing if any other worker does not support it
+        ProtocolMetadata compatible = new ProtocolMetadata(COMPATIBLE_SUBPROTOCOL,
+                ConnectProtocol.serializeMetadata(workerState, ConnectProtocol.CONNECT_PROTOCOL_V1));
+        return Arrays.asList(compatible, eager);
     }
 
     @Override
     protected void onJoinComplete(int generation, String memberId, String protocol, ByteBuffer memberAssignment) {
-        assignmentSnapshot = ConnectProtocol.deserializeAssignment(memberAssignment);
+        ConnectProtocol.Assignment newAssignment = ConnectProtocol.deserializeAssignment(memberAssignment);
+        currentProtocol = ConnectProtocolCompatibility.forProtocol(protocol);
+        boolean revoked = false;
+        if (!newAssignment.failed()) {
+            if (newAssignment.incremental()) {
+                revoked = revokeUnassigned(newAssignment);
+            } else {
+                // Nothing is owned anymore after eager rebalancing revoked the previous assignment, unless the group just
+                // switched from incremental rebalancing. The new assignment assumes no work is running, so stop it all.
+                revokeOwned(newAssignment.leader());
+            }
+            ownedConnectors = newAssignment.connectors();
+            ownedTasks = newAssignment.tasks();
+        }
+        assignmentSnapshot = newAssignment;
         // At this point we always consider ourselves to be a member of the cluster, even if there was an assignment
         // error (the leader couldn't make the assignment) or we are behind the config and cannot yet work on our assigned
         // tasks. It's the responsibility of the code driving this process to decide how to react (e.g. trying to get
         // up to date, try to rejoin again, leaving the group and backing off, etc.).
-        rejoinRequested = false;
+        // Work revoked by incremental rebalancing has been stopped, so rejoin right away to get it reassigned.
+        rejoinRequested = revoked;
         listener.onAssigned(assignmentSnapshot, generation);
     }
 
+    /**
+     * Stop the owned connectors and tasks that are not part of an incremental assignment.
+     *
+     * @return whether anything was revoked
+     */
+    private boolean revokeUnassigned(ConnectProtocol.Assignment newAssignment) {
+        List<String> revokedConnectors = new ArrayList<>(ownedConnectors);
+        revokedConnectors.removeAll(newAssignment.connectors());
+        List<ConnectorTaskId> revokedTasks = new ArrayList<>(ownedTasks);
+        revokedTasks.removeAll(newAssignment.tasks());
+        if (revokedConnectors.isEmpty() && revokedTasks.isEmpty())
+            return false;
+        log.info("Revoking connectors {} and tasks {} that were assigned to other workers or removed", revokedConnectors, revokedTasks);
+        listener.onRevoked(newAssignment.leader(), revokedConnectors, revokedTasks);
+        return true;
+    }
+
+    private void revokeOwned(String leader) {
+        if (ownedConnectors.isEmpty() && ownedTasks.isEmpty())
+            return;
+        log.info("Revoking all connectors {} and tasks {}", ownedConnectors, ownedTasks);
+        listener.onRevoked(leader, ownedConnectors, ownedTasks);
+        ownedConnectors = Collections.emptyList();
+        ownedTasks = Collections.emptyList();
+    }
+
     @Override
     protected Map<String, ByteBuffer> performAssignment(String leaderId, String protocol, Map<String, ByteBuffer> allMemberMetadata) {
-        log.debug("Performing task assignment");
+        ConnectProtocolCompatibility compatibility = ConnectProtocolCompatibility.forProtocol(protocol);
+        log.debug("Performing task assignment using {} rebalancing", compatibility);
+        short version = compatibility == ConnectProtocolCompatibility.EAGER ?
+                ConnectProtocol.CONNECT_PROTOCOL_V0 : ConnectProtocol.CONNECT_PROTOCOL_V1;
 
         Map<String, ConnectProtocol.WorkerState> memberConfigs = new HashMap<>();
         for (Map.Entry<String, ByteBuffer> entry : allMemberMetadata.entrySet())
@@ -175,8 +239,10 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
         if (leaderOffset == null)
             return fillAssignmentsAndSerialize(memberConfigs.keySet(), ConnectProtocol.Assignment.CONFIG_MISMATCH,
                     leaderId, memberConfigs.get(leaderId).url(), maxOffset,
-                    new HashMap<String, List<String>>(), new HashMap<String, List<ConnectorTaskId>>());
-        return performTaskAssignment(leaderId, leaderOffset, memberConfigs);
+                    new HashMap<String, List<String>>(), new HashMap<String, List<ConnectorTaskId>>(), version);
+        if (compatibility == ConnectProtocolCompatibility.EAGER)
+            return performTaskAssignment(leaderId, leaderOffset, memberConfigs);
+        return performIncrementalTaskAssignment(leaderId, leaderOffset, memberConfigs);
     }
 
     private long findMaxMemberConfigOffset(Map<String, ConnectProtocol.WorkerState> memberConfigs) {
@@ -254,7 +320,24 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
         this.leaderState = new LeaderState(memberConfigs, connectorAssignments, taskAssignments);
 
         return fillAssignmentsAndSerialize(memberConfigs.keySet(), ConnectProtocol.Assignment.NO_ERROR,
-                leaderId, memberConfigs.get(leaderId).url(), maxOffset, connectorAssignments, taskAssignments);
+                leaderId, memberConfigs.get(leaderId).url(), maxOffset, connectorAssignments, taskAssignments,
+                ConnectProtocol.CONNECT_PROTOCOL_V0);
+    }
+
+    private Map<String, ByteBuffer> performIncrementalTaskAssignment(String leaderId, long maxOffset,
+                                                                      Map<String, ConnectProtocol.WorkerState> memberConfigs) {
+        IncrementalCooperativeAssignor assignor = new IncrementalCooperativeAssignor(log);
+        Map<String, List<String>> connectorAssignments = assignor.assignConnectors(memberConfigs, configSnapshot.connectors());
+        List<ConnectorTaskId> tasks = new ArrayList<>();
+        for (String connectorId : configSnapshot.connectors())
+            tasks.addAll(configSnapshot.tasks(connectorId));
+        Map<String, List<ConnectorTaskId>> taskAssignments = assignor.assignTasks(memberConfigs, tasks);
+
+        this.leaderState = new LeaderState(memberConfigs, connectorAssignments, taskAssignments);
+
+        return fillAssignmentsAndSerialize(memberConfigs.keySet(), ConnectProtocol.Assignment.NO_ERROR,
+                leaderId, memberConfigs.get(leaderId).url(), maxOffset, connectorAssignments, taskAssignments,
+                ConnectProtocol.CONNECT_PROTOCOL_V1);
     }
 
     private Map<String, ByteBuffer> fillAssignmentsAndSerialize(Collection<String> members,
@@ -263,7 +346,8 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
                                                                 String leaderUrl,
                                                                 long maxOffset,
                                                                 Map<String, List<String>> connectorAssignments,
-                                                                Map<String, List<ConnectorTaskId>> taskAssignments) {
+                                                                Map<String, List<ConnectorTaskId>> taskAssignments,
+                                                                short version) {
 
         Map<String, ByteBuffer> groupAssignment = new HashMap<>();
         for (String member : members) {
@@ -273,7 +357,8 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
             List<ConnectorTaskId> tasks = taskAssignments.get(member);
             if (tasks == null)
                 tasks = Collections.emptyList();
-            ConnectProtocol.Assignment assignment = new ConnectProtocol.Assignment(error, leaderId, leaderUrl, maxOffset, connectors, tasks);
+            ConnectProtocol.Assignment assignment = new ConnectProtocol.Assignment(error, leaderId, leaderUrl, maxOffset,
+                    connectors, tasks, version);
             log.debug("Assignment: {} -> {}", member, assignment);
             groupAssignment.put(member, ConnectProtocol.serializeAssignment(assignment));
         }
@@ -284,9 +369,19 @@ public final class WorkerCoordinator extends AbstractCoordinator implements Clos
     @Override
     protected void onJoinPrepare(int generation, String memberId) {
         this.leaderState = null;
-        log.debug("Revoking previous assignment {}", assignmentSnapshot);
-        if (assignmentSnapshot != null && !assignmentSnapshot.failed())
-            listener.onRevoked(assignmentSnapshot.leader(), assignmentSnapshot.connectors(), assignmentSnapshot.tasks());
+        if (currentProtocol == ConnectProtocolCompatibility.EAGER) {
+            log.debug("Revoking previous assignment {}", assignmentSnapshot);
+            if (assignmentSnapshot != null && !assignmentSnapshot.failed())
+                listener.onRevoked(assignmentSnapshot.leader(), assignmentSnapshot.connectors(), assignmentSnapshot.tasks());
+            ownedConnectors = Collections.emptyList();
+            ownedTasks = Collections.emptyList();
+        } else if (generation == Generation.NO_GENERATION.generationId) {
+            // This worker dropped out of the group, so its work may already have been assigned to other workers
+            log.debug("Revoking previous assignment {} after leaving the group", assignmentSnapshot);
+            revokeOwned(assignmentSnapshot == null ? null : assignmentSnapshot.leader());
+        } else {
+            log.debug("Keeping previous assignment {} until the leader revokes parts of it", assignmentSnapshot);
+        }
     }
 
     @Override
@@ -138,7 +138,8 @@ public class WorkerGroupMember {
                     retryBackoffMs,
                     restUrl,
                     configStorage,
-                    listener);
+                    listener,
+                    ConnectProtocolCompatibility.forName(config.getString(DistributedConfig.CONNECT_PROTOCOL_CONFIG)));
 
             AppInfoParser.registerAppInfo(JMX_PREFIX, clientId, metrics);
             log.debug("Connect group member created");
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.apache.kafka.connect.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * An {@link OffsetBackingStore} that also keeps the offsets it stores deserialized and grouped by namespace, i.e. by
+ * connector. Readers can then look up offsets without deserializing them again, and list all offsets of a namespace
+ * without knowing its source partitions and without going through the offsets of other namespaces.
+ * </p>
+ * <p>
+ * Keys are expected to be serialized as a list of the namespace and the source partition, like
+ * {@link OffsetStorageWriter} does. Entries with other keys, or values that cannot be deserialized into offsets, are
+ * left out of the index.
+ * </p>
+ */
+public interface IndexedOffsetBackingStore extends OffsetBackingStore {
+
+    /**
+     * Set the converters to deserialize the stored keys and values with. This has to be called before the store is
+     * started, otherwise the lookups of this interface are not available.
+     * @param keyConverter the converter of the keys
+     * @param valueConverter the converter of the values
+     */
+    void configureIndex(Converter keyConverter, Converter valueConverter);
+
+    /**
+     * Get the deserialized offsets for the specified keys of a namespace.
+     * @param namespace the namespace of the keys
+     * @param keys the serialized keys to look up
+     * @param callback callback to invoke on completion
+     * @return future for the resulting map from each key to its offset, which is null if there is none
+     */
+    Future<Map<ByteBuffer, Map<String, Object>>> offsets(
+            String namespace,
+            Collection<ByteBuffer> keys,
+            Callback<Map<ByteBuffer, Map<String, Object>>> callback);
+
+    /**
+     * Get the deserialized offsets of all source partitions of a namespace.
+     * @param namespace the namespace to list
+     * @param callback callback to invoke on completion
+     * @return future for the resulting map from source partition to offset
+     */
+    Future<Map<Map<String, Object>, Map<String, Object>>> offsets(
+            String namespace,
+            Callback<Map<Map<String, Object>, Map<String, Object>>> callback);
+}
@@ -22,14 +22,17 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.requests.IsolationLevel;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.connect.runtime.WorkerConfig;
 import org.apache.kafka.connect.runtime.distributed.DistributedConfig;
 import org.apache.kafka.connect.util.Callback;
 import org.apache.kafka.connect.util.ConvertingFutureCallback;
 import org.apache.kafka.connect.util.KafkaBasedLog;
+import org.apache.kafka.connect.util.KafkaBasedLogSnapshot;
 import org.apache.kafka.connect.util.TopicAdmin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +40,7 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -53,11 +57,13 @@ import java.util.concurrent.TimeoutException;
  *     to ensure correct behavior (e.g. acks, auto.offset.reset).
  * </p>
  */
-public class KafkaOffsetBackingStore implements OffsetBackingStore {
+public class KafkaOffsetBackingStore implements IndexedOffsetBackingStore {
     private static final Logger log = LoggerFactory.getLogger(KafkaOffsetBackingStore.class);
 
     private KafkaBasedLog<byte[], byte[]> offsetLog;
     private HashMap<ByteBuffer, ByteBuffer> data;
+    // Like data, only accessed from the thread of the offset log once the store has been started
+    private OffsetIndex index;
 
     @Override
     public void configure(final WorkerConfig config) {
@@ -76,6 +82,9 @@ public class KafkaOffsetBackingStore implements OffsetBackingStore {
         Map<String, Object> consumerProps = new HashMap<>(originals);
         consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
         consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        // Source tasks write offsets in transactions, which only count once they are committed
+        if (config.getBoolean(DistributedConfig.EXACTLY_ONCE_SOURCE_ENABLED_CONFIG))
+            consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, IsolationLevel.READ_COMMITTED.name().toLowerCase(Locale.ROOT));
 
         Map<String, Object> adminProps = new HashMap<>(originals);
         NewTopic topicDescription = TopicAdmin.defineTopic(topic).
@@ -84,13 +93,17 @@ public class KafkaOffsetBackingStore implements OffsetBackingStore {
                 replicationFactor(config.getShort(DistributedConfig.OFFSET_STORAGE_REPLICATION_FACTOR_CONFIG)).
                 build();
 
-        offsetLog = createKafkaBasedLog(topic, producerProps, consumerProps, consumedCallback, topicDescription, adminProps);
+        KafkaBasedLogSnapshot<byte[], byte[]> snapshot = KafkaBasedLogSnapshot.inDirectory(
+                config.getString(DistributedConfig.INTERNAL_SNAPSHOT_DIR_CONFIG), topic, config, Serdes.ByteArray(), Serdes.ByteArray());
+
+        offsetLog = createKafkaBasedLog(topic, producerProps, consumerProps, consumedCallback, topicDescription, adminProps, snapshot);
     }
 
     private KafkaBasedLog<byte[], byte[]> createKafkaBasedLog(String topic, Map<String, Object> producerProps,
                                                               Map<String, Object> consumerProps,
                                                               Callback<ConsumerRecord<byte[], byte[]>> consumedCallback,
-                                                              final NewTopic topicDescription, final Map<String, Object> adminProps) {
+                                                              final NewTopic topicDescription, final Map<String, Object> adminProps,
+                                                              KafkaBasedLogSnapshot<byte[], byte[]> snapshot) {
         Runnable createTopics = new Runnable() {
             @Override
             public void run() {
@@ -100,7 +113,7 @@ public class KafkaOffsetBackingStore implements OffsetBackingStore {
                 }
             }
         };
-        return new KafkaBasedLog<>(topic, producerProps, consumerProps, consumedCallback, Time.SYSTEM, createTopics);
+        return new KafkaBasedLog<>(topic, producerProps, consumerProps, consumedCallback, Time.SYSTEM, createTopics, snapshot);
     }
 
     @Override
@@ -137,6 +150,45 @@ public class KafkaOffsetBackingStore implements OffsetBackingStore {
         return future;
     }
 
+    @Override
+    public void configureIndex(Converter keyConverter, Converter valueConverter) {
+        index = new OffsetIndex(keyConverter, valueConverter);
+    }
+
+    @Override
+    public Future<Map<ByteBuffer, Map<String, Object>>> offsets(final String namespace, final Collection<ByteBuffer> keys,
+                                                                final Callback<Map<ByteBuffer, Map<String, Object>>> callback) {
+        checkIndexed();
+        ConvertingFutureCallback<Void, Map<ByteBuffer, Map<String, Object>>> future = new ConvertingFutureCallback<Void, Map<ByteBuffer, Map<String, Object>>>(callback) {
+            @Override
+            public Map<ByteBuffer, Map<String, Object>> convert(Void result) {
+                return index.offsets(namespace, keys);
+            }
+        };
+        // Read to the end for the same reasons as get()
+        offsetLog.readToEnd(future);
+        return future;
+    }
+
+    @Override
+    public Future<Map<Map<String, Object>, Map<String, Object>>> offsets(final String namespace,
+                                                                         final Callback<Map<Map<String, Object>, Map<String, Object>>> callback) {
+        checkIndexed();
+        ConvertingFutureCallback<Void, Map<Map<String, Object>, Map<String, Object>>> future = new ConvertingFutureCallback<Void, Map<Map<String, Object>, Map<String, Object>>>(callback) {
+            @Override
+            public Map<Map<String, Object>, Map<String, Object>> convert(Void result) {
+                return index.offsets(namespace);
+            }
+        };
+        offsetLog.readToEnd(future);
+        return future;
+    }
+
+    private void checkIndexed() {
+        if (index == null)
+            throw new IllegalStateException("The offsets are not indexed since no converters have been configured");
+    }
+
     @Override
     public Future<Void> set(final Map<ByteBuffer, ByteBuffer> values, final Callback<Void> callback) {
         SetCallbackFuture producerCallback = new SetCallbackFuture(values.size(), callback);
@@ -156,10 +208,12 @@ public class KafkaOffsetBackingStore implements OffsetBackingStore {
             ByteBuffer key = record.key() != null ? ByteBuffer.wrap(record.key()) : null;
             ByteBuffer value = record.value() != null ? ByteBuffer.wrap(record.value()) : null;
             data.put(key, value);
+            if (index != null)
+                index.update(key, value);
         }
     };
 
-    private static class SetCallbackFuture implements org.apache.kafka.clients.producer.Callback, Future<Void> {
+    static class SetCallbackFuture implements org.apache.kafka.clients.producer.Callback, Future<Void> {
         private int numLeft;
         private boolean completed = false;
         private Throwable exception = null;
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The deserialized offsets of an {@link IndexedOffsetBackingStore}, grouped by namespace and looked up by the serialized
+ * key they are stored under. The index is not thread safe, the store has to update and read it from a single thread.
+ */
+class OffsetIndex {
+    private static final Logger log = LoggerFactory.getLogger(OffsetIndex.class);
+
+    // Marks the keys whose offsets could not be deserialized, which lookups leave out of their result
+    private static final Entry INVALID = new Entry(null, null);
+
+    private final Converter keyConverter;
+    private final Converter valueConverter;
+    private final Map<String, Map<ByteBuffer, Entry>> namespaces = new HashMap<>();
+
+    OffsetIndex(Converter keyConverter, Converter valueConverter) {
+        this.keyConverter = keyConverter;
+        this.valueConverter = valueConverter;
+    }
+
+    /**
+     * Index a stored key and value, replacing the earlier value of the key.
+     * @param key the serialized key
+     * @param value the serialized value; null removes the offset of the key
+     */
+    @SuppressWarnings("unchecked")
+    void update(ByteBuffer key, ByteBuffer value) {
+        List<Object> namespaceAndPartition = deserializeKey(key);
+        if (namespaceAndPartition == null)
+            return;
+        String namespace = (String) namespaceAndPartition.get(0);
+        Map<String, Object> partition = (Map<String, Object>) namespaceAndPartition.get(1);
+
+        Map<ByteBuffer, Entry> entries = namespaces.get(namespace);
+        if (value == null) {
+            if (entries != null && entries.remove(key) != null && entries.isEmpty())
+                namespaces.remove(namespace);
+            return;
+        }
+        if (entries == null) {
+            entries = new HashMap<>();
+            namespaces.put(namespace, entries);
+        }
+        try {
+            Object offset = valueConverter.toConnectData(namespace, value.array()).value();
+            OffsetUtils.validateFormat(offset);
+            entries.put(key, new Entry(partition, (Map<String, Object>) offset));
+        } catch (RuntimeException e) {
+            log.error("CRITICAL: Failed to deserialize offset data of partition {} for namespace {}. No value for "
+                    + "this partition will be returned, which may break the task or cause it to skip some data. This "
+                    + "could either be due to an error in the connector implementation or incompatible schema.",
+                    partition, namespace, e);
+            entries.put(key, INVALID);
+        }
+    }
+
+    // Returns the namespace and the source partition of the key, or null if the key does not consist of them
+    @SuppressWarnings("unchecked")
+    private List<Object> deserializeKey(ByteBuffer key) {
+        if (key == null)
+            return null;
+        Object deserializedKey;
+        try {
+            // The namespace is not known before the key is deserialized, unlike when the key was serialized
+            deserializedKey = keyConverter.toConnectData(null, key.array()).value();
+        } catch (RuntimeException e) {
+            log.warn("Not indexing offset since its key cannot be deserialized", e);
+            return null;
+        }
+        if (!(deserializedKey instanceof List))
+            return null;
+        List<Object> namespaceAndPartition = (List<Object>) deserializedKey;
+        if (namespaceAndPartition.size() != 2 || !(namespaceAndPartition.get(0) instanceof String)
+                || !(namespaceAndPartition.get(1) instanceof Map))
+            return null;
+        return namespaceAndPartition;
+    }
+
+    /**
+     * @return the offset of each of the keys in the namespace, null for keys without offset; keys whose offset could
+     *         not be deserialized are left out
+     */
+    Map<ByteBuffer, Map<String, Object>> offsets(String namespace, Collection<ByteBuffer> keys) {
+        Map<ByteBuffer, Entry> entries = namespaces.get(namespace);
+        Map<ByteBuffer, Map<String, Object>> result = new HashMap<>(keys.size());
+        for (ByteBuffer key : keys) {
+            Entry entry = entries == null ? null : entries.get(key);
+            if (entry != INVALID)
+                result.put(key, entry == null ? null : copy(entry.offset));
+        }
+        return result;
+    }
+
+    /**
+     * @return the offset of every source partition of the namespace
+     */
+    Map<Map<String, Object>, Map<String, Object>> offsets(String namespace) {
+        Map<ByteBuffer, Entry> entries = namespaces.get(namespace);
+        Map<Map<String, Object>, Map<String, Object>> result = new HashMap<>();
+        if (entries == null)
+            return result;
+        for (Entry entry : entries.values()) {
+            if (entry != INVALID)
+                result.put(copy(entry.partition), copy(entry.offset));
+        }
+        return result;
+    }
+
+    // Callers may modify what they get, which must not change the index
+    private static Map<String, Object> copy(Map<String, Object> map) {
+        return map == null ? null : new HashMap<>(map);
+    }
+
+    private static final class Entry {
+        final Map<String, Object> partition;
+        final Map<String, Object> offset;
+
+        Entry(Map<String, Object> partition, Map<String, Object> offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+    }
+}
@@ -73,6 +73,9 @@ public class OffsetStorageReaderImpl implements OffsetStorageReader {
             }
         }
 
+        if (backingStore instanceof IndexedOffsetBackingStore)
+            return indexedOffsets((IndexedOffsetBackingStore) backingStore, serializedToOriginal, partitions.size());
+
         // Get serialized key -> serialized value from backing store
         Map<ByteBuffer, ByteBuffer> raw;
         try {
@@ -108,4 +111,40 @@ public class OffsetStorageReaderImpl implements OffsetStorageReader {
 
         return result;
     }
+
+    @Override
+    public Map<Map<String, Object>, Map<String, Object>> offsets() {
+        if (!(backingStore instanceof IndexedOffsetBackingStore))
+            return null;
+        try {
+            return ((IndexedOffsetBackingStore) backingStore).offsets(namespace, null).get();
+        } catch (Exception e) {
+            log.error("Failed to fetch offsets from namespace {}: ", namespace, e);
+            throw new ConnectException("Failed to fetch offsets.", e);
+        }
+    }
+
+    // The store has already deserialized the offsets, so they only need to be mapped back to the original keys
+    private <T> Map<Map<String, T>, Map<String, Object>> indexedOffsets(IndexedOffsetBackingStore store,
+                                                                        Map<ByteBuffer, Map<String, T>> serializedToOriginal,
+                                                                        int numPartitions) {
+        Map<ByteBuffer, Map<String, Object>> offsets;
+        try {
+            offsets = store.offsets(namespace, serializedToOriginal.keySet(), null).get();
+        } catch (Exception e) {
+            log.error("Failed to fetch offsets from namespace {}: ", namespace, e);
+            throw new ConnectException("Failed to fetch offsets.", e);
+        }
+
+        Map<Map<String, T>, Map<String, Object>> result = new HashMap<>(numPartitions);
+        for (Map.Entry<ByteBuffer, Map<String, Object>> entry : offsets.entrySet()) {
+            if (!serializedToOriginal.containsKey(entry.getKey())) {
+                log.error("Should be able to map {} back to a requested partition-offset key, backing "
+                        + "store may have returned invalid data", entry.getKey());
+                continue;
+            }
+            result.put(serializedToOriginal.get(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.apache.kafka.connect.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * An {@link OffsetBackingStore} that writes offsets to the offset storage topic with the transactional producer of a
+ * source task, so that the offsets become part of the transaction the task writes its records in. The offsets are
+ * only written once the caller commits that transaction.
+ * </p>
+ * <p>
+ * The store can only write offsets. Offsets are read from the {@link KafkaOffsetBackingStore} of the worker, which
+ * consumes the committed offsets from the same topic.
+ * </p>
+ */
+public class TransactionalOffsetBackingStore implements OffsetBackingStore {
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+
+    /**
+     * @param producer the transactional producer of the source task
+     * @param topic the offset storage topic
+     */
+    public TransactionalOffsetBackingStore(Producer<byte[], byte[]> producer, String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+
+    @Override
+    public void configure(WorkerConfig config) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public Future<Map<ByteBuffer, ByteBuffer>> get(Collection<ByteBuffer> keys,
+                                                   Callback<Map<ByteBuffer, ByteBuffer>> callback) {
+        throw new UnsupportedOperationException("Offsets are read from the offset store of the worker");
+    }
+
+    /**
+     * Send the offsets within the current transaction of the producer. The returned future completes once the
+     * producer has sent them, at the latest when the transaction is committed.
+     */
+    @Override
+    public Future<Void> set(Map<ByteBuffer, ByteBuffer> values, Callback<Void> callback) {
+        KafkaOffsetBackingStore.SetCallbackFuture producerCallback =
+                new KafkaOffsetBackingStore.SetCallbackFuture(values.size(), callback);
+        for (Map.Entry<ByteBuffer, ByteBuffer> entry : values.entrySet()) {
+            ByteBuffer key = entry.getKey();
+            ByteBuffer value = entry.getValue();
+            producer.send(new ProducerRecord<>(topic, key == null ? null : key.array(), value == null ? null : value.array()),
+                    producerCallback);
+        }
+        return producerCallback;
+    }
+}
@@ -39,6 +39,9 @@ import java.util.Map;
  * testing of distributed Kafka Connect.
  *
  * If logging is left enabled, log output on stdout can be easily ignored by checking whether a given line is valid JSON.
+ *
+ * To measure throughput without printing every message, the tasks can be configured to only print the messages whose
+ * seqno is a multiple of a given report interval.
  */
 public class VerifiableSourceTask extends SourceTask {
     private static final Logger log = LoggerFactory.getLogger(VerifiableSourceTask.class);
@@ -47,6 +50,7 @@ public class VerifiableSourceTask extends SourceTask {
     public static final String ID_CONFIG = "id";
     public static final String TOPIC_CONFIG = "topic";
     public static final String THROUGHPUT_CONFIG = "throughput";
+    public static final String REPORT_INTERVAL_CONFIG = "report.interval";
 
     private static final String ID_FIELD = "id";
     private static final String SEQNO_FIELD = "seqno";
@@ -60,6 +64,7 @@ public class VerifiableSourceTask extends SourceTask {
     private long startingSeqno;
     private long seqno;
     private ThroughputThrottler throttler;
+    private long reportInterval;
 
     @Override
     public String version() {
@@ -74,6 +79,7 @@ public class VerifiableSourceTask extends SourceTask {
             id = Integer.parseInt(props.get(ID_CONFIG));
             topic = props.get(TOPIC_CONFIG);
             throughput = Long.parseLong(props.get(THROUGHPUT_CONFIG));
+            reportInterval = props.containsKey(REPORT_INTERVAL_CONFIG) ? Long.parseLong(props.get(REPORT_INTERVAL_CONFIG)) : 1;
         } catch (NumberFormatException e) {
             throw new ConnectException("Invalid VerifiableSourceTask configuration", e);
         }
@@ -96,21 +102,21 @@ public class VerifiableSourceTask extends SourceTask {
         if (throttler.shouldThrottle(seqno - startingSeqno, sendStartMs))
             throttler.throttle();
 
-        long nowMs = System.currentTimeMillis();
-
-        Map<String, Object> data = new HashMap<>();
-        data.put("name", name);
-        data.put("task", id);
-        data.put("topic", this.topic);
-        data.put("time_ms", nowMs);
-        data.put("seqno", seqno);
-        String dataJson;
-        try {
-            dataJson = JSON_SERDE.writeValueAsString(data);
-        } catch (JsonProcessingException e) {
-            dataJson = "Bad data can't be written as json: " + e.getMessage();
+        if (seqno % reportInterval == 0) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", name);
+            data.put("task", id);
+            data.put("topic", this.topic);
+            data.put("time_ms", System.currentTimeMillis());
+            data.put("seqno", seqno);
+            String dataJson;
+            try {
+                dataJson = JSON_SERDE.writeValueAsString(data);
+            } catch (JsonProcessingException e) {
+                dataJson = "Bad data can't be written as json: " + e.getMessage();
+            }
+            System.out.println(dataJson);
         }
-        System.out.println(dataJson);
 
         Map<String, Long> ccOffset = Collections.singletonMap(SEQNO_FIELD, seqno);
         SourceRecord srcRecord = new SourceRecord(partition, ccOffset, topic, Schema.INT32_SCHEMA, id, Schema.INT64_SCHEMA, seqno);
@@ -121,6 +127,9 @@ public class VerifiableSourceTask extends SourceTask {
 
     @Override
     public void commitRecord(SourceRecord record) throws InterruptedException {
+        if ((Long) record.value() % reportInterval != 0)
+            return;
+
         Map<String, Object> data = new HashMap<>();
         data.put("name", name);
         data.put("task", id);
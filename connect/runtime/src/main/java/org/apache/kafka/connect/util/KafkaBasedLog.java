@@ -35,9 +35,12 @@ import org.apache.kafka.connect.errors.ConnectException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +69,11 @@ import java.util.concurrent.Future;
  *     calling class keeps track of state based on the log and only writes to it when consume callbacks are invoked
  *     and only reads it in {@link #readToEnd(Callback)} callbacks then no additional synchronization will be required.
  * </p>
+ * <p>
+ *     For compacted topics, the log can keep a {@link KafkaBasedLogSnapshot local snapshot} of what it consumed. On start,
+ *     a valid snapshot is replayed to the callback and the topic is only consumed from where the snapshot ends, instead of
+ *     from the beginning.
+ * </p>
  */
 public class KafkaBasedLog<K, V> {
     private static final Logger log = LoggerFactory.getLogger(KafkaBasedLog.class);
@@ -83,6 +91,7 @@ public class KafkaBasedLog<K, V> {
     private boolean stopRequested;
     private Queue<Callback<Void>> readLogEndOffsetCallbacks;
     private Runnable initializer;
+    private final KafkaBasedLogSnapshot<K, V> snapshot;
 
     /**
      * Create a new KafkaBasedLog object. This does not start reading the log and writing is not permitted until
@@ -107,6 +116,30 @@ public class KafkaBasedLog<K, V> {
                          Callback<ConsumerRecord<K, V>> consumedCallback,
                          Time time,
                          Runnable initializer) {
+        this(topic, producerConfigs, consumerConfigs, consumedCallback, time, initializer, null);
+    }
+
+    /**
+     * Create a new KafkaBasedLog object that keeps a local snapshot of the compacted topic it reads, to resume reading
+     * from the snapshot when it is started again. This does not start reading the log and writing is not permitted until
+     * {@link #start()} is invoked.
+     *
+     * @param topic the topic to treat as a log; must be compacted
+     * @param producerConfigs configuration options to use when creating the internal producer
+     * @param consumerConfigs configuration options to use when creating the internal consumer
+     * @param consumedCallback callback to invoke for each {@link ConsumerRecord} consumed when tailing the log
+     * @param time Time interface
+     * @param initializer the component that should be run when this log is {@link #start() started}; may be null
+     * @param snapshot the snapshot to resume from and to update as the log is read; may be null to always read the
+     *                 whole topic
+     */
+    public KafkaBasedLog(String topic,
+                         Map<String, Object> producerConfigs,
+                         Map<String, Object> consumerConfigs,
+                         Callback<ConsumerRecord<K, V>> consumedCallback,
+                         Time time,
+                         Runnable initializer,
+                         KafkaBasedLogSnapshot<K, V> snapshot) {
         this.topic = topic;
         this.producerConfigs = producerConfigs;
         this.consumerConfigs = consumerConfigs;
@@ -114,6 +147,7 @@ public class KafkaBasedLog<K, V> {
         this.stopRequested = false;
         this.readLogEndOffsetCallbacks = new ArrayDeque<>();
         this.time = time;
+        this.snapshot = snapshot;
         this.initializer = initializer != null ? initializer : new Runnable() {
             @Override
             public void run() {
@@ -146,11 +180,14 @@ public class KafkaBasedLog<K, V> {
             partitions.add(new TopicPartition(partition.topic(), partition.partition()));
         consumer.assign(partitions);
 
-        // Always consume from the beginning of all partitions. Necessary to ensure that we don't use committed offsets
-        // when a 'group.id' is specified (if offsets happen to have been committed unexpectedly).
-        consumer.seekToBeginning(partitions);
+        if (!resumeFromSnapshot(partitions)) {
+            // Always consume from the beginning of all partitions. Necessary to ensure that we don't use committed offsets
+            // when a 'group.id' is specified (if offsets happen to have been committed unexpectedly).
+            consumer.seekToBeginning(partitions);
+        }
 
         readToLogEnd();
+        writeSnapshot();
 
         thread = new WorkThread();
         thread.start();
@@ -175,6 +212,8 @@ public class KafkaBasedLog<K, V> {
                     "down it's producer and consumer.", e);
         }
 
+        writeSnapshot();
+
         try {
             producer.close();
         } catch (KafkaException e) {
@@ -256,9 +295,114 @@ public class KafkaBasedLog<K, V> {
         return new KafkaConsumer<>(consumerConfigs);
     }
 
+    /**
+     * Replay the snapshot and position the consumer where it ends, if the snapshot is consistent with the topic.
+     *
+     * @return whether the log resumes from the snapshot
+     */
+    private boolean resumeFromSnapshot(List<TopicPartition> partitions) {
+        if (snapshot == null)
+            return false;
+        Map<TopicPartition, Long> positions = snapshot.load(new HashSet<>(partitions));
+        if (positions == null)
+            return false;
+
+        // A topic that was recreated or had records deleted no longer has the history the snapshot was taken of
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        for (TopicPartition partition : partitions) {
+            long position = positions.get(partition);
+            if (position < beginningOffsets.get(partition) || position > endOffsets.get(partition)) {
+                log.warn("Reading topic {} from the beginning since its snapshot at positions {} is outside of the log " +
+                        "between offsets {} and {}", topic, positions, beginningOffsets, endOffsets);
+                snapshot.clear();
+                return false;
+            }
+        }
+
+        // A topic that was recreated with as many records has a different record at the offset the snapshot ends at
+        if (!lastRecordsMatch(partitions, positions, beginningOffsets, endOffsets)) {
+            log.warn("Reading topic {} from the beginning since the last records of its snapshot at positions {} are " +
+                    "no longer in the log", topic, positions);
+            snapshot.clear();
+            return false;
+        }
+
+        for (TopicPartition partition : partitions) {
+            for (ConsumerRecord<K, V> record : snapshot.records(partition))
+                consumedCallback.onCompletion(null, record);
+            consumer.seek(partition, positions.get(partition));
+        }
+        log.info("Resuming topic {} from snapshot at positions {}", topic, positions);
+        return true;
+    }
+
+    /**
+     * Read the last record of each partition the snapshot tracked back from the topic, and compare it to the snapshot.
+     *
+     * @return whether each of these records is still in the topic, at the same offset and with the same key and value
+     */
+    private boolean lastRecordsMatch(List<TopicPartition> partitions, Map<TopicPartition, Long> positions,
+                                     Map<TopicPartition, Long> beginningOffsets, Map<TopicPartition, Long> endOffsets) {
+        Set<TopicPartition> unverified = new HashSet<>();
+        for (TopicPartition partition : partitions) {
+            Long lastOffset = snapshot.lastOffset(partition);
+            if (lastOffset == null) {
+                consumer.seek(partition, positions.get(partition));
+                continue;
+            }
+            if (lastOffset < beginningOffsets.get(partition))
+                return false;
+            consumer.seek(partition, lastOffset);
+            unverified.add(partition);
+        }
+
+        try {
+            while (!unverified.isEmpty()) {
+                ConsumerRecords<K, V> records = consumer.poll(Duration.ofMillis(Integer.MAX_VALUE));
+                for (ConsumerRecord<K, V> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (!unverified.contains(partition) || record.offset() < snapshot.lastOffset(partition))
+                        continue;
+                    // The first record at or after the offset is the last record, unless it was removed
+                    if (!snapshot.isLastRecord(record))
+                        return false;
+                    unverified.remove(partition);
+                }
+                for (TopicPartition partition : unverified) {
+                    if (consumer.position(partition) >= endOffsets.get(partition))
+                        return false;
+                }
+            }
+        } catch (KafkaException e) {
+            log.warn("Failed to read the last records of the snapshot of topic {}", topic, e);
+            return false;
+        }
+        return true;
+    }
+
+    private void writeSnapshot() {
+        if (snapshot == null)
+            return;
+        try {
+            Map<TopicPartition, Long> positions = new HashMap<>();
+            for (TopicPartition partition : consumer.assignment())
+                positions.put(partition, consumer.position(partition));
+            snapshot.write(positions);
+        } catch (IOException | KafkaException e) {
+            // The previous snapshot remains valid, it only covers less of the log
+            log.warn("Failed to write snapshot of topic {}", topic, e);
+        }
+    }
+
     private void poll(long timeoutMs) {
         try {
             ConsumerRecords<K, V> records = consumer.poll(Duration.ofMillis(timeoutMs));
+            // Track the whole batch first, since the consumer's position already covers it
+            if (snapshot != null) {
+                for (ConsumerRecord<K, V> record : records)
+                    snapshot.track(record);
+            }
             for (ConsumerRecord<K, V> record : records)
                 consumedCallback.onCompletion(null, record);
         } catch (WakeupException e) {
@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.util;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.runtime.WorkerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * <p>
+ *     A local snapshot of a compacted topic read by a {@link KafkaBasedLog}: the latest record of every key in each
+ *     partition, in offset order, along with the position up to which each partition was read.
+ * </p>
+ * <p>
+ *     Replaying the snapshot and then consuming the topic from those positions yields the same state as consuming the
+ *     whole topic, since the snapshot only drops what log compaction may drop as well. This lets a restarted worker
+ *     skip the history of the topic it read before.
+ * </p>
+ * <p>
+ *     The snapshot records the Kafka cluster it was taken of, and the offset and checksum of the last record it tracked
+ *     in each partition, so that the log can tell whether the topic it resumes is still the topic the snapshot was taken
+ *     of, even if the topic was recreated with as many records as before.
+ * </p>
+ * <p>
+ *     The snapshot is not thread safe. The log only updates it from the thread that consumes the topic.
+ * </p>
+ */
+public class KafkaBasedLogSnapshot<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(KafkaBasedLogSnapshot.class);
+
+    private static final int MAGIC = 0x4b424c53;
+    private static final short VERSION = 1;
+
+    private final File file;
+    private final String clusterId;
+    private final Serde<K> keySerde;
+    private final Serde<V> valueSerde;
+    // The latest record of each serialized key per partition, ordered by offset
+    private final Map<TopicPartition, LinkedHashMap<ByteBuffer, StoredRecord>> partitions = new HashMap<>();
+    // The positions the loaded snapshot was taken at
+    private final Map<TopicPartition, Long> positions = new HashMap<>();
+    // The offset and checksum of the last record tracked in each partition
+    private final Map<TopicPartition, Long> lastOffsets = new HashMap<>();
+    private final Map<TopicPartition, Long> lastChecksums = new HashMap<>();
+
+    /**
+     * @param file the file that holds the snapshot; its directory is created if needed
+     * @param clusterId the id of the Kafka cluster that hosts the topic; may be null if the cluster does not report it
+     * @param keySerde the serde of the keys of the topic
+     * @param valueSerde the serde of the values of the topic
+     */
+    public KafkaBasedLogSnapshot(File file, String clusterId, Serde<K> keySerde, Serde<V> valueSerde) {
+        this.file = file;
+        this.clusterId = clusterId == null ? "" : clusterId;
+        this.keySerde = keySerde;
+        this.valueSerde = valueSerde;
+    }
+
+    /**
+     * @param directory the directory of the snapshots of a worker; may be null or empty to disable snapshots
+     * @param topic the topic to snapshot
+     * @param config the config of the worker, used to look up the id of the Kafka cluster if snapshots are enabled
+     * @return the snapshot of the topic in the directory, or null if snapshots are disabled
+     */
+    public static <K, V> KafkaBasedLogSnapshot<K, V> inDirectory(String directory, String topic, WorkerConfig config,
+                                                                Serde<K> keySerde, Serde<V> valueSerde) {
+        if (directory == null || directory.trim().isEmpty())
+            return null;
+        return new KafkaBasedLogSnapshot<>(new File(directory, topic + ".snapshot"),
+                ConnectUtils.lookupKafkaClusterId(config), keySerde, valueSerde);
+    }
+
+    /**
+     * Load the snapshot file, replacing whatever the snapshot held.
+     *
+     * @param expectedPartitions the partitions the topic has now
+     * @return the position up to which each partition was read when the snapshot was taken, or null if there is no
+     *         usable snapshot of exactly these partitions
+     */
+    Map<TopicPartition, Long> load(Set<TopicPartition> expectedPartitions) {
+        clear();
+        if (!file.exists()) {
+            log.info("No snapshot of topic {} found at {}", topic(expectedPartitions), file);
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream fileStream = Files.newInputStream(file.toPath());
+             DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(fileStream), crc))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                return invalid("it has an unknown format");
+            String topic = in.readUTF();
+            String snapshotClusterId = in.readUTF();
+            int numPartitions = in.readInt();
+            for (int i = 0; i < numPartitions; i++)
+                readPartition(in, new TopicPartition(topic, in.readInt()));
+            long computedCrc = crc.getValue();
+            if (in.readLong() != computedCrc)
+                return invalid("its checksum does not match");
+            if (!Objects.equals(snapshotClusterId, clusterId))
+                return invalid("it was taken of Kafka cluster '" + snapshotClusterId + "' instead of '" + clusterId + "'");
+            if (!positions.keySet().equals(expectedPartitions))
+                return invalid("it covers partitions " + positions.keySet() + " instead of " + expectedPartitions);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read snapshot {}", file, e);
+            return invalid("it could not be read");
+        }
+        log.info("Loaded snapshot of topic {} at positions {} from {}", topic(expectedPartitions), positions, file);
+        return new HashMap<>(positions);
+    }
+
+    private void readPartition(DataInputStream in, TopicPartition partition) throws IOException {
+        positions.put(partition, in.readLong());
+        long lastOffset = in.readLong();
+        long lastChecksum = in.readLong();
+        if (lastOffset >= 0) {
+            lastOffsets.put(partition, lastOffset);
+            lastChecksums.put(partition, lastChecksum);
+        }
+        LinkedHashMap<ByteBuffer, StoredRecord> records = recordsOf(partition);
+        int numRecords = in.readInt();
+        for (int i = 0; i < numRecords; i++) {
+            StoredRecord record = new StoredRecord(in.readLong(), in.readLong(),
+                    TimestampType.forName(in.readUTF()), readBytes(in), readBytes(in));
+            records.put(record.key == null ? null : ByteBuffer.wrap(record.key), record);
+        }
+    }
+
+    private Map<TopicPartition, Long> invalid(String reason) {
+        log.warn("Ignoring snapshot {} since {}", file, reason);
+        clear();
+        return null;
+    }
+
+    /**
+     * @return the offset of the last record tracked in the given partition, or null if the snapshot has no record of it
+     */
+    Long lastOffset(TopicPartition partition) {
+        return lastOffsets.get(partition);
+    }
+
+    /**
+     * @return whether the record has the offset and the checksum of the last record tracked in its partition
+     */
+    boolean isLastRecord(ConsumerRecord<K, V> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        Long lastOffset = lastOffsets.get(partition);
+        if (lastOffset == null || lastOffset != record.offset())
+            return false;
+        byte[] key = record.key() == null ? null : keySerde.serializer().serialize(record.topic(), record.key());
+        byte[] value = record.value() == null ? null : valueSerde.serializer().serialize(record.topic(), record.value());
+        return lastChecksums.get(partition) == checksum(key, value);
+    }
+
+    /**
+     * @return the records of the given partition in the snapshot, in offset order
+     */
+    List<ConsumerRecord<K, V>> records(TopicPartition partition) {
+        List<ConsumerRecord<K, V>> result = new ArrayList<>();
+        LinkedHashMap<ByteBuffer, StoredRecord> records = partitions.get(partition);
+        if (records == null)
+            return result;
+        String topic = partition.topic();
+        for (StoredRecord record : records.values()) {
+            result.add(new ConsumerRecord<>(topic, partition.partition(), record.offset, record.timestamp,
+                    record.timestampType, ConsumerRecord.NULL_CHECKSUM,
+                    record.key == null ? ConsumerRecord.NULL_SIZE : record.key.length,
+                    record.value == null ? ConsumerRecord.NULL_SIZE : record.value.length,
+                    record.key == null ? null : keySerde.deserializer().deserialize(topic, record.key),
+                    record.value == null ? null : valueSerde.deserializer().deserialize(topic, record.value)));
+        }
+        return result;
+    }
+
+    /**
+     * Add a record consumed from the topic, replacing any earlier record with the same key in the same partition.
+     */
+    void track(ConsumerRecord<K, V> record) {
+        byte[] key = record.key() == null ? null : keySerde.serializer().serialize(record.topic(), record.key());
+        byte[] value = record.value() == null ? null : valueSerde.serializer().serialize(record.topic(), record.value());
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        LinkedHashMap<ByteBuffer, StoredRecord> records = recordsOf(partition);
+        ByteBuffer keyBuffer = key == null ? null : ByteBuffer.wrap(key);
+        // Remove the previous record first, so that the iteration order stays the offset order
+        records.remove(keyBuffer);
+        records.put(keyBuffer, new StoredRecord(record.offset(), record.timestamp(), record.timestampType(), key, value));
+        lastOffsets.put(partition, record.offset());
+        lastChecksums.put(partition, checksum(key, value));
+    }
+
+    /**
+     * Forget all records, e.g. before the topic is read from the beginning.
+     */
+    void clear() {
+        partitions.clear();
+        positions.clear();
+        lastOffsets.clear();
+        lastChecksums.clear();
+    }
+
+    /**
+     * Write the snapshot file. The file is replaced atomically, so that a failure leaves the previous snapshot intact.
+     *
+     * @param positions the position up to which each partition of the topic has been read and tracked
+     */
+    void write(Map<TopicPartition, Long> positions) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        File tmp = new File(directory, file.getName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream fileStream = Files.newOutputStream(tmp.toPath());
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileStream), crc))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(topic(positions.keySet()));
+            out.writeUTF(clusterId);
+            out.writeInt(positions.size());
+            for (Map.Entry<TopicPartition, Long> entry : positions.entrySet()) {
+                out.writeInt(entry.getKey().partition());
+                out.writeLong(entry.getValue());
+                Long lastOffset = lastOffsets.get(entry.getKey());
+                out.writeLong(lastOffset == null ? -1L : lastOffset);
+                out.writeLong(lastOffset == null ? 0L : lastChecksums.get(entry.getKey()));
+                LinkedHashMap<ByteBuffer, StoredRecord> records = recordsOf(entry.getKey());
+                out.writeInt(records.size());
+                for (StoredRecord record : records.values()) {
+                    out.writeLong(record.offset);
+                    out.writeLong(record.timestamp);
+                    out.writeUTF(record.timestampType.name);
+                    writeBytes(out, record.key);
+                    writeBytes(out, record.value);
+                }
+            }
+            out.writeLong(crc.getValue());
+        }
+        Utils.atomicMoveWithFallback(tmp.toPath(), file.toPath());
+        log.debug("Wrote snapshot at positions {} to {}", positions, file);
+    }
+
+    private LinkedHashMap<ByteBuffer, StoredRecord> recordsOf(TopicPartition partition) {
+        LinkedHashMap<ByteBuffer, StoredRecord> records = partitions.get(partition);
+        if (records == null) {
+            records = new LinkedHashMap<>();
+            partitions.put(partition, records);
+        }
+        return records;
+    }
+
+    private static String topic(Set<TopicPartition> partitions) {
+        return partitions.isEmpty() ? "" : partitions.iterator().next().topic();
+    }
+
+    private static long checksum(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        updateChecksum(crc, key);
+        updateChecksum(crc, value);
+        return crc.getValue();
+    }
+
+    private static void updateChecksum(CRC32 crc, byte[] bytes) {
+        // The length tells a null key or value from an empty one
+        crc.update(ByteBuffer.allocate(4).putInt(bytes == null ? -1 : bytes.length).array());
+        if (bytes != null)
+            crc.update(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static final class StoredRecord {
+        final long offset;
+        final long timestamp;
+        final TimestampType timestampType;
+        final byte[] key;
+        final byte[] value;
+
+        StoredRecord(long offset, long timestamp, TimestampType timestampType, byte[] key, byte[] value) {
+            this.offset = offset;
+            this.timestamp = timestamp;
+            this.timestampType = timestampType;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
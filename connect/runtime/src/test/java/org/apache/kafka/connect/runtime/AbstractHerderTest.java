@@ -224,14 +224,14 @@ public class AbstractHerderTest {
         assertEquals(TestSourceConnector.class.getName(), result.name());
         assertEquals(Arrays.asList(ConnectorConfig.COMMON_GROUP, ConnectorConfig.TRANSFORMS_GROUP, ConnectorConfig.ERROR_GROUP), result.groups());
         assertEquals(2, result.errorCount());
-        // Base connector config has 13 fields, connector's configs add 2
-        assertEquals(15, result.values().size());
+        // Source connector config has 14 fields, connector's configs add 2
+        assertEquals(16, result.values().size());
         // Missing name should generate an error
         assertEquals(ConnectorConfig.NAME_CONFIG, result.values().get(0).configValue().name());
         assertEquals(1, result.values().get(0).configValue().errors().size());
         // "required" config from connector should generate an error
-        assertEquals("required", result.values().get(13).configValue().name());
-        assertEquals(1, result.values().get(13).configValue().errors().size());
+        assertEquals("required", result.values().get(14).configValue().name());
+        assertEquals(1, result.values().get(14).configValue().errors().size());
 
         verifyAll();
     }
@@ -286,15 +286,15 @@ public class AbstractHerderTest {
         );
         assertEquals(expectedGroups, result.groups());
         assertEquals(2, result.errorCount());
-        // Base connector config has 13 fields, connector's configs add 2, 2 type fields from the transforms, and
+        // Source connector config has 14 fields, connector's configs add 2, 2 type fields from the transforms, and
         // 1 from the valid transformation's config
-        assertEquals(18, result.values().size());
+        assertEquals(19, result.values().size());
         // Should get 2 type fields from the transforms, first adds its own config since it has a valid class
-        assertEquals("transforms.xformA.type", result.values().get(13).configValue().name());
-        assertTrue(result.values().get(13).configValue().errors().isEmpty());
-        assertEquals("transforms.xformA.subconfig", result.values().get(14).configValue().name());
-        assertEquals("transforms.xformB.type", result.values().get(15).configValue().name());
-        assertFalse(result.values().get(15).configValue().errors().isEmpty());
+        assertEquals("transforms.xformA.type", result.values().get(14).configValue().name());
+        assertTrue(result.values().get(14).configValue().errors().isEmpty());
+        assertEquals("transforms.xformA.subconfig", result.values().get(15).configValue().name());
+        assertEquals("transforms.xformB.type", result.values().get(16).configValue().name());
+        assertFalse(result.values().get(16).configValue().errors().isEmpty());
 
         verifyAll();
     }
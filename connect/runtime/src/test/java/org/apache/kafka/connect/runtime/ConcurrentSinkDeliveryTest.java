@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTask;
+import org.apache.kafka.connect.util.ConnectorTaskId;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentSinkDeliveryTest {
+    private static final String TOPIC = "topic";
+    private static final TopicPartition TP0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition TP1 = new TopicPartition(TOPIC, 1);
+    private static final TopicPartition TP2 = new TopicPartition(TOPIC, 2);
+
+    private final RecordingSinkTask task = new RecordingSinkTask();
+    private ConcurrentSinkDelivery delivery;
+
+    @After
+    public void tearDown() {
+        if (delivery != null)
+            delivery.close();
+    }
+
+    @Test
+    public void shouldDeliverEachPartitionInOrderThroughOneCall() {
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), task, 2, getClass().getClassLoader());
+        List<SinkRecord> records = new ArrayList<>();
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (int offset = 0; offset < 5; offset++) {
+            for (TopicPartition partition : new TopicPartition[] {TP0, TP1, TP2}) {
+                records.add(record(partition, offset));
+                partitions.add(partition);
+            }
+        }
+
+        assertEquals(Collections.emptySet(), delivery.deliver(records, partitions));
+
+        // three partitions are spread over two calls
+        assertEquals(2, task.batches.size());
+        Map<Integer, List<Long>> offsetsByPartition = new HashMap<>();
+        Map<Integer, Integer> callsByPartition = new HashMap<>();
+        for (Collection<SinkRecord> batch : task.batches) {
+            Set<Integer> partitionsInBatch = new HashSet<>();
+            for (SinkRecord record : batch) {
+                offsetsByPartition.computeIfAbsent(record.kafkaPartition(), p -> new ArrayList<>()).add(record.kafkaOffset());
+                partitionsInBatch.add(record.kafkaPartition());
+            }
+            for (Integer partition : partitionsInBatch)
+                callsByPartition.merge(partition, 1, Integer::sum);
+        }
+        for (int partition = 0; partition < 3; partition++) {
+            assertEquals(Integer.valueOf(1), callsByPartition.get(partition));
+            assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), offsetsByPartition.get(partition));
+        }
+    }
+
+    @Test
+    public void shouldCallTaskConcurrently() {
+        CountDownLatch bothCalled = new CountDownLatch(2);
+        SinkTask blockingTask = new RecordingSinkTask() {
+            @Override
+            public void put(Collection<SinkRecord> records) {
+                bothCalled.countDown();
+                try {
+                    if (!bothCalled.await(30, TimeUnit.SECONDS))
+                        throw new ConnectException("Calls were not concurrent");
+                } catch (InterruptedException e) {
+                    throw new ConnectException(e);
+                }
+            }
+        };
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), blockingTask, 2, getClass().getClassLoader());
+
+        delivery.deliver(Arrays.asList(record(TP0, 0), record(TP1, 0)), Arrays.asList(TP0, TP1));
+
+        assertEquals(0, bothCalled.getCount());
+    }
+
+    @Test
+    public void shouldReturnPartitionsOfCallsThatFailedWithRetriableException() {
+        task.failingPartition = 1;
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), task, 3, getClass().getClassLoader());
+
+        Set<TopicPartition> failed = delivery.deliver(
+            Arrays.asList(record(TP0, 0), record(TP1, 0), record(TP2, 0)),
+            Arrays.asList(TP0, TP1, TP2));
+
+        assertEquals(Collections.singleton(TP1), failed);
+        assertEquals(3, task.batches.size());
+    }
+
+    @Test
+    public void shouldThrowNonRetriableExceptionAfterAllCallsCompleted() {
+        task.failure = new ConnectException("fatal");
+        task.failingPartition = 2;
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), task, 3, getClass().getClassLoader());
+
+        try {
+            delivery.deliver(
+                Arrays.asList(record(TP0, 0), record(TP1, 0), record(TP2, 0)),
+                Arrays.asList(TP0, TP1, TP2));
+            fail("Should have thrown the task's exception");
+        } catch (ConnectException e) {
+            assertEquals("fatal", e.getMessage());
+        }
+        assertEquals(3, task.batches.size());
+    }
+
+    @Test
+    public void shouldDeliverSinglePartitionAndEmptyBatchOnCallingThread() {
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), task, 2, getClass().getClassLoader());
+
+        delivery.deliver(Collections.<SinkRecord>emptyList(), Collections.<TopicPartition>emptyList());
+        delivery.deliver(Arrays.asList(record(TP0, 0), record(TP0, 1)), Arrays.asList(TP0, TP0));
+
+        assertEquals(2, task.batches.size());
+        assertTrue(task.batches.get(0).isEmpty());
+        assertEquals(2, task.batches.get(1).size());
+        assertEquals(Collections.singleton(Thread.currentThread()), new HashSet<>(task.threads));
+    }
+
+    @Test(expected = RetriableException.class)
+    public void shouldThrowRetriableExceptionOfSingleCall() {
+        task.failingPartition = 0;
+        delivery = new ConcurrentSinkDelivery(new ConnectorTaskId("connector", 0), task, 2, getClass().getClassLoader());
+
+        delivery.deliver(Collections.singletonList(record(TP0, 0)), Collections.singletonList(TP0));
+    }
+
+    private static SinkRecord record(TopicPartition partition, long offset) {
+        return new SinkRecord(partition.topic(), partition.partition(), null, null, Schema.INT64_SCHEMA, offset, offset);
+    }
+
+    private static class RecordingSinkTask extends SinkTask {
+        final List<Collection<SinkRecord>> batches = Collections.synchronizedList(new ArrayList<Collection<SinkRecord>>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        volatile Integer failingPartition;
+        volatile RuntimeException failure = new RetriableException("retry");
+
+        @Override
+        public String version() {
+            return "1.0";
+        }
+
+        @Override
+        public void start(Map<String, String> props) {
+        }
+
+        @Override
+        public void put(Collection<SinkRecord> records) {
+            batches.add(new ArrayList<>(records));
+            threads.add(Thread.currentThread());
+            for (SinkRecord record : records) {
+                if (failingPartition != null && failingPartition.equals(record.kafkaPartition()))
+                    throw failure;
+            }
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
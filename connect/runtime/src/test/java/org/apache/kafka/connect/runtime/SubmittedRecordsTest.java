@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime;
+
+import org.apache.kafka.connect.runtime.SubmittedRecords.SubmittedRecord;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SubmittedRecordsTest {
+    private static final Map<String, ?> PARTITION1 = Collections.singletonMap("table", "one");
+    private static final Map<String, ?> PARTITION2 = Collections.singletonMap("table", "two");
+
+    private final SubmittedRecords submittedRecords = new SubmittedRecords();
+
+    @Test
+    public void shouldCommitUpToLastRecordAcknowledgedInOrder() {
+        SubmittedRecord first = submittedRecords.submit(PARTITION1, offset(1));
+        SubmittedRecord second = submittedRecords.submit(PARTITION1, offset(2));
+        SubmittedRecord third = submittedRecords.submit(PARTITION1, offset(3));
+        assertEquals(Collections.emptyMap(), submittedRecords.committableOffsets());
+
+        // An earlier record is still outstanding, so nothing can be committed yet
+        second.ack();
+        assertEquals(Collections.emptyMap(), submittedRecords.committableOffsets());
+
+        first.ack();
+        assertEquals(Collections.singletonMap(PARTITION1, offset(2)), submittedRecords.committableOffsets());
+        // Offsets that were returned once are not returned again
+        assertEquals(Collections.emptyMap(), submittedRecords.committableOffsets());
+
+        third.ack();
+        assertEquals(Collections.singletonMap(PARTITION1, offset(3)), submittedRecords.committableOffsets());
+        assertEquals(0, submittedRecords.outstanding());
+    }
+
+    @Test
+    public void shouldTrackPartitionsIndependently() {
+        SubmittedRecord partition1Record = submittedRecords.submit(PARTITION1, offset(1));
+        SubmittedRecord partition2Record = submittedRecords.submit(PARTITION2, offset(7));
+
+        partition2Record.ack();
+        assertEquals(Collections.singletonMap(PARTITION2, offset(7)), submittedRecords.committableOffsets());
+        assertEquals(1, submittedRecords.outstanding());
+
+        partition1Record.ack();
+        submittedRecords.submit(PARTITION2, offset(8));
+        assertEquals(Collections.singletonMap(PARTITION1, offset(1)), submittedRecords.committableOffsets());
+        assertEquals(1, submittedRecords.outstanding());
+    }
+
+    @Test
+    public void shouldNotHoldBackOffsetsForRemovedRecords() {
+        SubmittedRecord first = submittedRecords.submit(PARTITION1, offset(1));
+        SubmittedRecord failed = submittedRecords.submit(PARTITION1, offset(2));
+        assertTrue(submittedRecords.remove(failed));
+        assertFalse(submittedRecords.remove(failed));
+        assertEquals(1, submittedRecords.outstanding());
+
+        first.ack();
+        assertEquals(Collections.singletonMap(PARTITION1, offset(1)), submittedRecords.committableOffsets());
+
+        // The retried record is submitted again
+        submittedRecords.submit(PARTITION1, offset(2)).ack();
+        assertEquals(Collections.singletonMap(PARTITION1, offset(2)), submittedRecords.committableOffsets());
+    }
+
+    @Test
+    public void shouldTrackNullPartition() {
+        submittedRecords.submit(null, offset(1)).ack();
+        submittedRecords.submit(Collections.<String, Object>emptyMap(), offset(2)).ack();
+
+        Map<Map<String, ?>, Map<String, ?>> expected = new HashMap<>();
+        expected.put(null, offset(1));
+        expected.put(Collections.<String, Object>emptyMap(), offset(2));
+        assertEquals(expected, submittedRecords.committableOffsets());
+    }
+
+    @Test
+    public void shouldAwaitAllMessages() throws Exception {
+        assertTrue(submittedRecords.awaitAllMessages(0, TimeUnit.MILLISECONDS));
+
+        SubmittedRecord record = submittedRecords.submit(PARTITION1, offset(1));
+        assertFalse(submittedRecords.awaitAllMessages(10, TimeUnit.MILLISECONDS));
+
+        CountDownLatch awaiting = new CountDownLatch(1);
+        Thread acknowledger = new Thread(() -> {
+            try {
+                awaiting.await();
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            record.ack();
+        });
+        acknowledger.start();
+        awaiting.countDown();
+        assertTrue(submittedRecords.awaitAllMessages(30, TimeUnit.SECONDS));
+        acknowledger.join();
+    }
+
+    private static Map<String, ?> offset(long position) {
+        return Collections.singletonMap("position", position);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.runtime;
+
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.runtime.errors.ErrorHandlingMetrics;
+import org.apache.kafka.connect.runtime.errors.RetryWithToleranceOperator;
+import org.apache.kafka.connect.runtime.errors.Stage;
+import org.apache.kafka.connect.runtime.errors.ToleranceType;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.transforms.Cast;
+import org.apache.kafka.connect.transforms.InsertField;
+import org.apache.kafka.connect.transforms.RegexRouter;
+import org.apache.kafka.connect.transforms.ReplaceField;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class TransformationChainTest {
+
+    private static final Schema VALUE_SCHEMA = SchemaBuilder.struct().name("value")
+            .field("id", Schema.INT64_SCHEMA)
+            .field("amount", Schema.STRING_SCHEMA)
+            .field("secret", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("note", SchemaBuilder.string().optional().defaultValue("none").build())
+            .build();
+
+    private static final Schema KEY_SCHEMA = SchemaBuilder.struct().name("key")
+            .field("id", Schema.INT64_SCHEMA)
+            .build();
+
+    private RetryWithToleranceOperator retryWithToleranceOperator;
+
+    @Before
+    public void setup() {
+        retryWithToleranceOperator = new RetryWithToleranceOperator(0, 0, ToleranceType.NONE, Time.SYSTEM);
+        retryWithToleranceOperator.metrics(new ErrorHandlingMetrics());
+    }
+
+    @Test
+    public void shouldProduceSameRecordsAsAppliedOneByOne() {
+        List<Transformation<SinkRecord>> transformations = Arrays.asList(
+                replaceField(new ReplaceField.Value<>(), "blacklist", "secret", "renames", "amount:total"),
+                cast(new Cast.Value<>(), "total:int32,id:string"),
+                insertField(new InsertField.Value<>(), "offset.field", "offset", "timestamp.field", "ts"),
+                cast(new Cast.Key<>(), "id:int32"),
+                replaceField(new ReplaceField.Key<>(), "renames", "id:key_id"),
+                configure(new RegexRouter<>(), "regex", "(.*)", "replacement", "$1-routed"),
+                cast(new Cast.Value<>(), "offset:string"));
+        TransformationChain<SinkRecord> chain = new TransformationChain<>(transformations, retryWithToleranceOperator);
+
+        for (int i = 0; i < 3; i++) {
+            SinkRecord record = record(i, i == 1 ? null : 1000L + i);
+            assertEquals(applyOneByOne(transformations, record), chain.apply(record));
+        }
+
+        // The value and the key transformations before the router are each fused into one projection
+        List<?> fused = Whitebox.getInternalState(chain, "fusedTransformations");
+        assertEquals(4, fused.size());
+        for (Object run : fused.subList(0, 2)) {
+            Object compiled = Whitebox.getInternalState(run, "lastCompiled");
+            assertNotNull(Whitebox.getInternalState(compiled, "projection"));
+        }
+    }
+
+    @Test
+    public void shouldApplyTransformationsOneByOneToSchemalessRecords() {
+        List<Transformation<SinkRecord>> transformations = Arrays.asList(
+                replaceField(new ReplaceField.Value<>(), "renames", "amount:total"),
+                cast(new Cast.Value<>(), "total:int32"));
+        TransformationChain<SinkRecord> chain = new TransformationChain<>(transformations, retryWithToleranceOperator);
+
+        Map<String, Object> value = new HashMap<>();
+        value.put("amount", "12");
+        SinkRecord record = new SinkRecord("topic", 0, null, null, null, value, 0);
+
+        assertEquals(Collections.singletonMap("total", 12), chain.apply(record).value());
+    }
+
+    @Test
+    public void shouldHandleFailureOfFusedTransformations() {
+        List<Transformation<SinkRecord>> transformations = Arrays.asList(
+                replaceField(new ReplaceField.Value<>(), "renames", "amount:total"),
+                cast(new Cast.Value<>(), "total:int32"));
+        TransformationChain<SinkRecord> chain = new TransformationChain<>(transformations, retryWithToleranceOperator);
+
+        SinkRecord record = new SinkRecord("topic", 0, null, null, VALUE_SCHEMA,
+                new Struct(VALUE_SCHEMA).put("id", 1L).put("amount", "not a number"), 0);
+        try {
+            chain.apply(record);
+            fail("Should have failed to cast");
+        } catch (ConnectException e) {
+            // The failure went through the error handling of the transformations
+            assertEquals(DataException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void shouldSkipTransformationsAfterEarlierFailure() {
+        TransformationChain<SinkRecord> chain = new TransformationChain<>(Arrays.asList(
+                replaceField(new ReplaceField.Value<>(), "renames", "amount:total"),
+                cast(new Cast.Value<>(), "id:string")), retryWithToleranceOperator);
+
+        try {
+            retryWithToleranceOperator.execute(() -> {
+                throw new ConnectException("converter failure");
+            }, Stage.VALUE_CONVERTER, getClass());
+            fail("Should have failed");
+        } catch (ConnectException e) {
+            // expected
+        }
+        assertNull(chain.apply(record(0, null)));
+    }
+
+    private static SinkRecord applyOneByOne(List<Transformation<SinkRecord>> transformations, SinkRecord record) {
+        for (Transformation<SinkRecord> transformation : transformations) {
+            record = transformation.apply(record);
+        }
+        return record;
+    }
+
+    private static SinkRecord record(long id, Long timestamp) {
+        Struct key = new Struct(KEY_SCHEMA).put("id", id);
+        Struct value = new Struct(VALUE_SCHEMA).put("id", id).put("amount", Long.toString(id * 100)).put("secret", "s3cr3t");
+        return new SinkRecord("topic", 0, KEY_SCHEMA, key, VALUE_SCHEMA, value, 100 + id,
+                timestamp, timestamp == null ? TimestampType.NO_TIMESTAMP_TYPE : TimestampType.CREATE_TIME);
+    }
+
+    private static <T extends Transformation<SinkRecord>> T configure(T transformation, String... props) {
+        Map<String, String> configs = new HashMap<>();
+        for (int i = 0; i < props.length; i += 2)
+            configs.put(props[i], props[i + 1]);
+        transformation.configure(configs);
+        return transformation;
+    }
+
+    private static ReplaceField<SinkRecord> replaceField(ReplaceField<SinkRecord> transformation, String... props) {
+        return configure(transformation, props);
+    }
+
+    private static Cast<SinkRecord> cast(Cast<SinkRecord> transformation, String spec) {
+        return configure(transformation, Cast.SPEC_CONFIG, spec);
+    }
+
+    private static InsertField<SinkRecord> insertField(InsertField<SinkRecord> transformation, String... props) {
+        return configure(transformation, props);
+    }
+}
@@ -64,6 +64,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -162,11 +163,15 @@ public class WorkerSinkTaskTest {
     }
 
     private void createTask(TargetState initialState) {
+        createTask(initialState, 1);
+    }
+
+    private void createTask(TargetState initialState, int putConcurrency) {
         workerTask = new WorkerSinkTask(
             taskId, sinkTask, statusListener, initialState, workerConfig, ClusterConfigState.EMPTY, metrics,
             keyConverter, valueConverter, headerConverter,
             transformationChain, consumer, pluginLoader, time,
-            RetryWithToleranceOperatorTest.NOOP_OPERATOR);
+            RetryWithToleranceOperatorTest.NOOP_OPERATOR, putConcurrency);
     }
 
     @After
@@ -370,6 +375,85 @@ public class WorkerSinkTaskTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testConcurrentPollRedeliversOnlyFailedPartitions() throws Exception {
+        createTask(initialState, 2);
+
+        expectInitializeTask();
+        expectPollInitialAssignment();
+
+        // One record for each partition, delivered through separate put calls
+        EasyMock.expect(consumer.poll(Duration.ofMillis(EasyMock.anyLong()))).andAnswer(
+            new IAnswer<ConsumerRecords<byte[], byte[]>>() {
+                @Override
+                public ConsumerRecords<byte[], byte[]> answer() throws Throwable {
+                    Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> records = new LinkedHashMap<>();
+                    records.put(TOPIC_PARTITION, Collections.singletonList(
+                        new ConsumerRecord<>(TOPIC, PARTITION, FIRST_OFFSET, RAW_KEY, RAW_VALUE)));
+                    records.put(TOPIC_PARTITION2, Collections.singletonList(
+                        new ConsumerRecord<>(TOPIC, PARTITION2, FIRST_OFFSET, RAW_KEY, RAW_VALUE)));
+                    return new ConsumerRecords<>(records);
+                }
+            });
+        expectConversionAndTransformation(2);
+        final List<Collection<SinkRecord>> delivered = Collections.synchronizedList(new ArrayList<Collection<SinkRecord>>());
+        final Capture<Collection<SinkRecord>> records = EasyMock.newCapture();
+        sinkTask.put(EasyMock.capture(records));
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            public Object answer() {
+                @SuppressWarnings("unchecked")
+                Collection<SinkRecord> batch = (Collection<SinkRecord>) EasyMock.getCurrentArguments()[0];
+                delivered.add(batch);
+                if (batch.iterator().next().kafkaPartition() == PARTITION2)
+                    throw new RetriableException("retry");
+                return null;
+            }
+        }).times(2);
+        // Pause
+        HashSet<TopicPartition> partitions = new HashSet<>(asList(TOPIC_PARTITION, TOPIC_PARTITION2));
+        EasyMock.expect(consumer.assignment()).andReturn(partitions);
+        consumer.pause(partitions);
+        PowerMock.expectLastCall();
+
+        // Only the record of the failed partition is redelivered
+        expectConsumerPoll(0);
+        sinkTask.put(EasyMock.capture(records));
+        EasyMock.expectLastCall();
+        // And unpause
+        EasyMock.expect(consumer.assignment()).andReturn(partitions);
+        consumer.resume(singleton(TOPIC_PARTITION));
+        PowerMock.expectLastCall();
+        consumer.resume(singleton(TOPIC_PARTITION2));
+        PowerMock.expectLastCall();
+
+        PowerMock.replayAll();
+
+        workerTask.initialize(TASK_CONFIG);
+        workerTask.initializeAndStart();
+        workerTask.iteration();
+        workerTask.iteration();
+
+        assertEquals(2, delivered.size());
+        for (Collection<SinkRecord> batch : delivered)
+            assertEquals(1, batch.size());
+        Map<TopicPartition, OffsetAndMetadata> offsets = Whitebox.getInternalState(workerTask, "currentOffsets");
+        assertEquals(new OffsetAndMetadata(FIRST_OFFSET + 1), offsets.get(TOPIC_PARTITION));
+        assertEquals(new OffsetAndMetadata(FIRST_OFFSET), offsets.get(TOPIC_PARTITION2));
+        assertSinkMetricValue("sink-record-send-total", 1.0);
+
+        workerTask.iteration();
+
+        assertEquals(1, records.getValue().size());
+        assertEquals(PARTITION2, records.getValue().iterator().next().kafkaPartition().intValue());
+        offsets = Whitebox.getInternalState(workerTask, "currentOffsets");
+        assertEquals(new OffsetAndMetadata(FIRST_OFFSET + 1), offsets.get(TOPIC_PARTITION));
+        assertEquals(new OffsetAndMetadata(FIRST_OFFSET + 1), offsets.get(TOPIC_PARTITION2));
+        assertSinkMetricValue("sink-record-send-total", 2.0);
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testErrorInRebalancePartitionRevocation() throws Exception {
         RuntimeException exception = new RuntimeException("Revocation error");
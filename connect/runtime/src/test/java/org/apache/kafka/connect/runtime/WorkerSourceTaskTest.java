@@ -19,14 +19,17 @@ package org.apache.kafka.connect.runtime;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.record.InvalidRecordException;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.runtime.ConnectMetrics.MetricGroup;
 import org.apache.kafka.connect.runtime.WorkerSourceTask.SourceTaskMetricsGroup;
 import org.apache.kafka.connect.runtime.distributed.ClusterConfigState;
+import org.apache.kafka.connect.runtime.distributed.DistributedConfig;
 import org.apache.kafka.connect.runtime.errors.RetryWithToleranceOperatorTest;
 import org.apache.kafka.connect.runtime.isolation.Plugins;
 import org.apache.kafka.connect.runtime.standalone.StandaloneConfig;
@@ -73,6 +76,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @PowerMockIgnore({"javax.management.*",
                   "org.apache.kafka.connect.runtime.isolation.*"})
@@ -150,9 +154,28 @@ public class WorkerSourceTaskTest extends ThreadedTest {
     }
 
     private void createWorkerTask(TargetState initialState) {
+        createWorkerTask(initialState, false);
+    }
+
+    private void createWorkerTask(TargetState initialState, boolean pipelineConversion) {
         workerTask = new WorkerSourceTask(taskId, sourceTask, statusListener, initialState, keyConverter, valueConverter, headerConverter,
                 transformationChain, producer, offsetReader, offsetWriter, config, clusterConfigState, metrics, plugins.delegatingLoader(), Time.SYSTEM,
-                RetryWithToleranceOperatorTest.NOOP_OPERATOR);
+                RetryWithToleranceOperatorTest.NOOP_OPERATOR, pipelineConversion, false);
+    }
+
+    private void createTransactionalWorkerTask(long commitIntervalMs) {
+        Map<String, String> workerProps = new HashMap<>();
+        workerProps.put("key.converter", "org.apache.kafka.connect.json.JsonConverter");
+        workerProps.put("value.converter", "org.apache.kafka.connect.json.JsonConverter");
+        workerProps.put(DistributedConfig.GROUP_ID_CONFIG, "connect-cluster");
+        workerProps.put(DistributedConfig.CONFIG_TOPIC_CONFIG, "connect-configs");
+        workerProps.put(DistributedConfig.OFFSET_STORAGE_TOPIC_CONFIG, "connect-offsets");
+        workerProps.put(DistributedConfig.STATUS_STORAGE_TOPIC_CONFIG, "connect-status");
+        workerProps.put(DistributedConfig.EXACTLY_ONCE_SOURCE_ENABLED_CONFIG, "true");
+        workerProps.put(DistributedConfig.EXACTLY_ONCE_SOURCE_COMMIT_INTERVAL_MS_CONFIG, Long.toString(commitIntervalMs));
+        workerTask = new WorkerSourceTask(taskId, sourceTask, statusListener, TargetState.STARTED, keyConverter, valueConverter, headerConverter,
+                transformationChain, producer, offsetReader, offsetWriter, new DistributedConfig(workerProps), clusterConfigState, metrics,
+                plugins.delegatingLoader(), Time.SYSTEM, RetryWithToleranceOperatorTest.NOOP_OPERATOR, false, true);
     }
 
     @Test
@@ -518,25 +541,29 @@ public class WorkerSourceTaskTest extends ThreadedTest {
         SourceRecord record3 = new SourceRecord(PARTITION, OFFSET, "topic", 3, KEY_SCHEMA, KEY, RECORD_SCHEMA, RECORD);
 
         // First round
-        expectSendRecordOnce(false);
+        expectSendRecordOnce();
         // Any Producer retriable exception should work here
         expectSendRecordSyncFailure(new org.apache.kafka.common.errors.TimeoutException("retriable sync failure"));
+        // The whole batch is converted before it is sent
+        expectConvertKeyValue(false);
+        expectApplyTransformationChain(false);
 
-        // Second round
-        expectSendRecordOnce(true);
-        expectSendRecordOnce(false);
+        // Second round, the remaining records are sent as they were converted
+        expectProduceRecord(false, true);
+        expectProduceRecord(false, true);
 
         PowerMock.replayAll();
 
         // Try to send 3, make first pass, second fail. Should save last two
         Whitebox.setInternalState(workerTask, "toSend", Arrays.asList(record1, record2, record3));
         Whitebox.invokeMethod(workerTask, "sendRecords");
-        assertEquals(true, Whitebox.getInternalState(workerTask, "lastSendFailed"));
         assertEquals(Arrays.asList(record2, record3), Whitebox.getInternalState(workerTask, "toSend"));
+        // The record that failed to send does not hold back the offsets
+        SubmittedRecords submittedRecords = Whitebox.getInternalState(workerTask, "submittedRecords");
+        assertEquals(0, submittedRecords.outstanding());
 
         // Next they all succeed
         Whitebox.invokeMethod(workerTask, "sendRecords");
-        assertEquals(false, Whitebox.getInternalState(workerTask, "lastSendFailed"));
         assertNull(Whitebox.getInternalState(workerTask, "toSend"));
 
         PowerMock.verifyAll();
@@ -552,20 +579,166 @@ public class WorkerSourceTaskTest extends ThreadedTest {
         SourceRecord record3 = new SourceRecord(PARTITION, OFFSET, "topic", 3, KEY_SCHEMA, KEY, RECORD_SCHEMA, RECORD);
 
         // Source task commit record failure will not cause the task to abort
-        expectSendRecordOnce(false);
-        expectSendRecordTaskCommitRecordFail(false, false);
-        expectSendRecordOnce(false);
+        expectSendRecordOnce();
+        expectSendRecordTaskCommitRecordFail(false);
+        expectSendRecordOnce();
 
         PowerMock.replayAll();
 
         Whitebox.setInternalState(workerTask, "toSend", Arrays.asList(record1, record2, record3));
         Whitebox.invokeMethod(workerTask, "sendRecords");
-        assertEquals(false, Whitebox.getInternalState(workerTask, "lastSendFailed"));
         assertNull(Whitebox.getInternalState(workerTask, "toSend"));
 
         PowerMock.verifyAll();
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCommitOffsetsDoesNotWaitForOutstandingMessages() throws Exception {
+        createWorkerTask();
+
+        SourceRecord record = new SourceRecord(PARTITION, OFFSET, "topic", null, KEY_SCHEMA, KEY, RECORD_SCHEMA, RECORD);
+        expectConvertKeyValue(false);
+        expectApplyTransformationChain(false);
+        // The producer does not complete the send until after the first commit
+        EasyMock.expect(producer.send(EasyMock.anyObject(ProducerRecord.class), EasyMock.capture(producerCallbacks)))
+                .andReturn(sendFuture);
+
+        // Nothing can be committed while the record is outstanding
+        EasyMock.expect(offsetWriter.beginFlush()).andReturn(false);
+        sourceTask.commit();
+        EasyMock.expectLastCall();
+
+        expectTaskCommitRecord(false, true);
+        offsetWriter.offset(PARTITION, OFFSET);
+        PowerMock.expectLastCall();
+        expectOffsetFlush(true);
+
+        PowerMock.replayAll();
+
+        Whitebox.setInternalState(workerTask, "toSend", Collections.singletonList(record));
+        Whitebox.invokeMethod(workerTask, "sendRecords");
+        assertTrue(workerTask.commitOffsets());
+
+        producerCallbacks.getValue().onCompletion(new RecordMetadata(new TopicPartition("foo", 0), 0, 0, 0L, 0L, 0, 0), null);
+        assertTrue(workerTask.commitOffsets());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testPipelinedConversion() throws Exception {
+        createWorkerTask(TargetState.STARTED, true);
+
+        SourceRecord record1 = new SourceRecord(PARTITION, OFFSET, "topic", 1, KEY_SCHEMA, KEY, RECORD_SCHEMA, RECORD);
+        SourceRecord record2 = new SourceRecord(PARTITION, OFFSET, "topic", 2, KEY_SCHEMA, KEY, RECORD_SCHEMA, RECORD);
+
+        // Each polled batch is transformed and converted once, on the conversion thread
+        final List<String> conversionThreads = Collections.synchronizedList(new ArrayList<String>());
+        expectConvertKeyValue(false);
+        expectConvertKeyValue(false);
+        EasyMock.expect(transformationChain.apply(EasyMock.anyObject(SourceRecord.class))).andAnswer(new IAnswer<SourceRecord>() {
+            @Override
+            public SourceRecord answer() {
+                conversionThreads.add(Thread.currentThread().getName());
+                return (SourceRecord) EasyMock.getCurrentArguments()[0];
+            }
+        }).times(2);
+        Capture<ProducerRecord<byte[], byte[]>> sent = expectProduceRecord(false, true);
+
+        PowerMock.replayAll();
+
+        // The first batch is converted while the next one is polled
+        assertNull(Whitebox.invokeMethod(workerTask, "pipelineConversion", Collections.singletonList(record1)));
+        List<SourceRecord> converted = Whitebox.invokeMethod(workerTask, "pipelineConversion", Collections.singletonList(record2));
+        assertEquals(Collections.singletonList(record1), converted);
+
+        Whitebox.setInternalState(workerTask, "toSend", converted);
+        Whitebox.invokeMethod(workerTask, "sendRecords");
+        assertEquals(Integer.valueOf(1), sent.getValue().partition());
+
+        // No records were polled since, so the second batch is now ready to be sent
+        assertEquals(Collections.singletonList(record2), Whitebox.invokeMethod(workerTask, "pipelineConversion", (Object) null));
+        assertEquals(Arrays.asList("task-" + taskId + "-converter", "task-" + taskId + "-converter"), conversionThreads);
+        Whitebox.invokeMethod(workerTask, "stopConversion");
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testTransactionalSendCommitsRecordsWithOffsets() throws Exception {
+        createTransactionalWorkerTask(0L);
+
+        producer.beginTransaction();
+        PowerMock.expectLastCall();
+        expectSendRecordOnce();
+        // The offsets are written in the transaction of the records
+        offsetWriter.offset(PARTITION, OFFSET);
+        PowerMock.expectLastCall();
+        expectTransactionCommit(true);
+
+        PowerMock.replayAll();
+
+        Whitebox.setInternalState(workerTask, "toSend", RECORDS);
+        Whitebox.invokeMethod(workerTask, "sendRecords");
+        Whitebox.invokeMethod(workerTask, "maybeCommitTransaction");
+        // There is no open transaction left to commit
+        Whitebox.invokeMethod(workerTask, "maybeCommitTransaction");
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testTransactionCommitsAreBatchedOverCommitInterval() throws Exception {
+        createTransactionalWorkerTask(60000L);
+
+        // Both poll cycles are written in one transaction, which is only committed on shutdown
+        producer.beginTransaction();
+        PowerMock.expectLastCall();
+        expectSendRecordAnyTimes();
+        expectTransactionCommit(true);
+
+        PowerMock.replayAll();
+
+        for (int i = 0; i < 2; i++) {
+            Whitebox.setInternalState(workerTask, "toSend", RECORDS);
+            Whitebox.invokeMethod(workerTask, "sendRecords");
+            Whitebox.invokeMethod(workerTask, "maybeCommitTransaction");
+        }
+        assertTrue(workerTask.commitOffsets());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testFailedTransactionCommitFailsTask() throws Exception {
+        createTransactionalWorkerTask(0L);
+
+        producer.beginTransaction();
+        PowerMock.expectLastCall();
+        expectSendRecordOnce();
+        offsetWriter.offset(PARTITION, OFFSET);
+        PowerMock.expectLastCall();
+        expectTransactionCommit(false);
+        offsetWriter.cancelFlush();
+        PowerMock.expectLastCall();
+        producer.abortTransaction();
+        PowerMock.expectLastCall();
+
+        PowerMock.replayAll();
+
+        Whitebox.setInternalState(workerTask, "toSend", RECORDS);
+        Whitebox.invokeMethod(workerTask, "sendRecords");
+        try {
+            Whitebox.invokeMethod(workerTask, "maybeCommitTransaction");
+            fail("Should have failed to commit the transaction");
+        } catch (ConnectException e) {
+            // expected
+        }
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testSlowTaskStart() throws Exception {
         final CountDownLatch startupLatch = new CountDownLatch(1);
@@ -694,9 +867,6 @@ public class WorkerSourceTaskTest extends ThreadedTest {
         expectConvertKeyValue(false);
         expectApplyTransformationChain(false);
 
-        offsetWriter.offset(PARTITION, OFFSET);
-        PowerMock.expectLastCall();
-
         EasyMock.expect(
                 producer.send(EasyMock.anyObject(ProducerRecord.class),
                         EasyMock.anyObject(org.apache.kafka.clients.producer.Callback.class)))
@@ -704,35 +874,35 @@ public class WorkerSourceTaskTest extends ThreadedTest {
     }
 
     private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordAnyTimes() throws InterruptedException {
-        return expectSendRecordTaskCommitRecordSucceed(true, false);
+        return expectSendRecordTaskCommitRecordSucceed(true);
     }
 
-    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordOnce(boolean isRetry) throws InterruptedException {
-        return expectSendRecordTaskCommitRecordSucceed(false, isRetry);
+    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordOnce() throws InterruptedException {
+        return expectSendRecordTaskCommitRecordSucceed(false);
     }
 
-    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordTaskCommitRecordSucceed(boolean anyTimes, boolean isRetry) throws InterruptedException {
-        return expectSendRecord(anyTimes, isRetry, true);
+    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordTaskCommitRecordSucceed(boolean anyTimes) throws InterruptedException {
+        return expectSendRecord(anyTimes, true);
     }
 
-    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordTaskCommitRecordFail(boolean anyTimes, boolean isRetry) throws InterruptedException {
-        return expectSendRecord(anyTimes, isRetry, false);
+    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecordTaskCommitRecordFail(boolean anyTimes) throws InterruptedException {
+        return expectSendRecord(anyTimes, false);
     }
 
-    @SuppressWarnings("unchecked")
-    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecord(boolean anyTimes, boolean isRetry, boolean succeed) throws InterruptedException {
+    private Capture<ProducerRecord<byte[], byte[]>> expectSendRecord(boolean anyTimes, boolean succeed) throws InterruptedException {
         expectConvertKeyValue(anyTimes);
         expectApplyTransformationChain(anyTimes);
+        return expectProduceRecord(anyTimes, succeed);
+    }
 
+    @SuppressWarnings("unchecked")
+    private Capture<ProducerRecord<byte[], byte[]>> expectProduceRecord(boolean anyTimes, boolean succeed) throws InterruptedException {
         Capture<ProducerRecord<byte[], byte[]>> sent = EasyMock.newCapture();
 
-        // 1. Offset data is passed to the offset storage.
-        if (!isRetry) {
+        // 1. Offset data of completed records may be passed to the offset storage by a commit
+        if (anyTimes) {
             offsetWriter.offset(PARTITION, OFFSET);
-            if (anyTimes)
-                PowerMock.expectLastCall().anyTimes();
-            else
-                PowerMock.expectLastCall();
+            PowerMock.expectLastCall().anyTimes();
         }
 
         // 2. Converted data passed to the producer, which will need callbacks invoked for flush to work
@@ -834,6 +1004,21 @@ public class WorkerSourceTaskTest extends ThreadedTest {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void expectTransactionCommit(boolean succeed) throws InterruptedException {
+        EasyMock.expect(offsetWriter.beginFlush()).andReturn(true);
+        Future<Void> flushFuture = PowerMock.createMock(Future.class);
+        EasyMock.expect(offsetWriter.doFlush(EasyMock.anyObject(Callback.class))).andReturn(flushFuture);
+        producer.commitTransaction();
+        if (succeed) {
+            PowerMock.expectLastCall();
+            sourceTask.commit();
+            EasyMock.expectLastCall();
+        } else {
+            PowerMock.expectLastCall().andThrow(new KafkaException("Failed to commit"));
+        }
+    }
+
     private void assertPollMetrics(int minimumPollCountExpected) {
         MetricGroup sourceTaskGroup = workerTask.sourceTaskMetricsGroup().metricGroup();
         MetricGroup taskGroup = workerTask.taskMetricsGroup().metricGroup();
@@ -522,7 +522,9 @@ public class WorkerTest extends ThreadedTest {
                 anyObject(ConnectMetrics.class),
                 anyObject(ClassLoader.class),
                 anyObject(Time.class),
-                anyObject(RetryWithToleranceOperator.class))
+                anyObject(RetryWithToleranceOperator.class),
+                EasyMock.eq(false),
+                EasyMock.eq(false))
                 .andReturn(workerTask);
         Map<String, String> origProps = new HashMap<>();
         origProps.put(TaskConfig.TASK_CLASS_CONFIG, TestSourceTask.class.getName());
@@ -660,7 +662,9 @@ public class WorkerTest extends ThreadedTest {
                 anyObject(ConnectMetrics.class),
                 EasyMock.eq(pluginLoader),
                 anyObject(Time.class),
-                anyObject(RetryWithToleranceOperator.class))
+                anyObject(RetryWithToleranceOperator.class),
+                EasyMock.eq(false),
+                EasyMock.eq(false))
                 .andReturn(workerTask);
         Map<String, String> origProps = new HashMap<>();
         origProps.put(TaskConfig.TASK_CLASS_CONFIG, TestSourceTask.class.getName());
@@ -752,7 +756,9 @@ public class WorkerTest extends ThreadedTest {
                 anyObject(ConnectMetrics.class),
                 EasyMock.eq(pluginLoader),
                 anyObject(Time.class),
-                anyObject(RetryWithToleranceOperator.class))
+                anyObject(RetryWithToleranceOperator.class),
+                EasyMock.eq(false),
+                EasyMock.eq(false))
                 .andReturn(workerTask);
         Map<String, String> origProps = new HashMap<>();
         origProps.put(TaskConfig.TASK_CLASS_CONFIG, TestSourceTask.class.getName());
@@ -279,6 +279,52 @@ public class DistributedHerderTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testIncrementalRebalance() throws Exception {
+        // Join group and get assignment
+        EasyMock.expect(member.memberId()).andStubReturn("member");
+        EasyMock.expect(worker.getPlugins()).andReturn(plugins);
+        expectRebalance(null, null, ConnectProtocol.Assignment.NO_ERROR, 1, Arrays.asList(CONN1), Arrays.asList(TASK1, TASK2),
+                ConnectProtocol.CONNECT_PROTOCOL_V1);
+        expectPostRebalanceCatchup(SNAPSHOT);
+        EasyMock.expect(worker.connectorNames()).andReturn(Collections.<String>emptySet());
+        EasyMock.expect(worker.taskIds()).andReturn(Collections.<ConnectorTaskId>emptySet());
+        worker.startConnector(EasyMock.eq(CONN1), EasyMock.<Map<String, String>>anyObject(), EasyMock.<ConnectorContext>anyObject(),
+                EasyMock.eq(herder), EasyMock.eq(TargetState.STARTED));
+        PowerMock.expectLastCall().andReturn(true);
+        EasyMock.expect(worker.isRunning(CONN1)).andReturn(true);
+        EasyMock.expect(worker.connectorTaskConfigs(CONN1, conn1SinkConfig)).andReturn(TASK_CONFIGS);
+        worker.startTask(EasyMock.eq(TASK1), EasyMock.<ClusterConfigState>anyObject(), EasyMock.<Map<String, String>>anyObject(), EasyMock.<Map<String, String>>anyObject(),
+                EasyMock.eq(herder), EasyMock.eq(TargetState.STARTED));
+        PowerMock.expectLastCall().andReturn(true);
+        worker.startTask(EasyMock.eq(TASK2), EasyMock.<ClusterConfigState>anyObject(), EasyMock.<Map<String, String>>anyObject(), EasyMock.<Map<String, String>>anyObject(),
+                EasyMock.eq(herder), EasyMock.eq(TargetState.STARTED));
+        PowerMock.expectLastCall().andReturn(true);
+        member.poll(EasyMock.anyInt());
+        PowerMock.expectLastCall();
+
+        // Only the task that moved to another worker is stopped, and nothing is restarted
+        expectRebalance(Collections.<String>emptyList(), Arrays.asList(TASK2), ConnectProtocol.Assignment.NO_ERROR,
+                1, Arrays.asList(CONN1), Arrays.asList(TASK1), ConnectProtocol.CONNECT_PROTOCOL_V1);
+        EasyMock.expect(worker.connectorNames()).andReturn(Collections.singleton(CONN1));
+        EasyMock.expect(worker.taskIds()).andReturn(Collections.singleton(TASK1));
+        member.poll(EasyMock.anyInt());
+        PowerMock.expectLastCall();
+
+        PowerMock.replayAll();
+
+        herder.tick();
+        time.sleep(1000L);
+        herder.tick();
+
+        HerderMetrics herderMetrics = herder.herderMetrics();
+        MetricGroup group = herderMetrics.metricGroup();
+        assertEquals(1.0d, MockConnectMetrics.currentMetricValueAsDouble(metrics, group, "revoked-tasks-total"), 0.0001d);
+        assertEquals(100.0d, MockConnectMetrics.currentMetricValueAsDouble(metrics, group, "task-downtime-max-ms"), 0.0001d);
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testRebalanceFailedConnector() throws Exception {
         // Join group and get assignment
@@ -1091,6 +1137,58 @@ public class DistributedHerderTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testConnectorPausedWithTaskConfigUpdateDuringIncrementalRebalance() throws Exception {
+        EasyMock.expect(member.memberId()).andStubReturn("member");
+        EasyMock.expect(worker.taskIds()).andStubReturn(Collections.<ConnectorTaskId>emptySet());
+
+        // join
+        expectRebalance(null, null, ConnectProtocol.Assignment.NO_ERROR, 1, Arrays.asList(CONN1),
+                Collections.<ConnectorTaskId>emptyList(), ConnectProtocol.CONNECT_PROTOCOL_V1);
+        expectPostRebalanceCatchup(SNAPSHOT);
+        EasyMock.expect(worker.connectorNames()).andReturn(Collections.<String>emptySet());
+        worker.startConnector(EasyMock.eq(CONN1), EasyMock.<Map<String, String>>anyObject(), EasyMock.<ConnectorContext>anyObject(),
+                EasyMock.eq(herder), EasyMock.eq(TargetState.STARTED));
+        PowerMock.expectLastCall().andReturn(true);
+        EasyMock.expect(worker.getPlugins()).andReturn(plugins);
+        EasyMock.expect(worker.isRunning(CONN1)).andReturn(true);
+        EasyMock.expect(worker.connectorTaskConfigs(CONN1, conn1SinkConfig)).andReturn(TASK_CONFIGS);
+        member.poll(EasyMock.anyInt());
+        PowerMock.expectLastCall();
+
+        // the task config update and the state change arrive in the same tick, which requests a rebalance
+        member.wakeup();
+        PowerMock.expectLastCall().times(2);
+        member.ensureActive();
+        PowerMock.expectLastCall();
+        EasyMock.expect(configBackingStore.snapshot()).andReturn(SNAPSHOT_PAUSED_CONN1);
+        member.requestRejoin();
+        PowerMock.expectLastCall();
+
+        // the connector remains assigned and keeps running through the rebalance
+        expectRebalance(Collections.<String>emptyList(), Collections.<ConnectorTaskId>emptyList(),
+                ConnectProtocol.Assignment.NO_ERROR, 1, Arrays.asList(CONN1), Collections.<ConnectorTaskId>emptyList(),
+                ConnectProtocol.CONNECT_PROTOCOL_V1);
+        EasyMock.expect(worker.connectorNames()).andReturn(Collections.singleton(CONN1));
+
+        // so the state change is applied once the rebalance has completed
+        EasyMock.expect(configBackingStore.snapshot()).andReturn(SNAPSHOT_PAUSED_CONN1);
+        worker.setTargetState(CONN1, TargetState.PAUSED);
+        PowerMock.expectLastCall();
+        member.poll(EasyMock.anyInt());
+        PowerMock.expectLastCall();
+
+        PowerMock.replayAll();
+
+        herder.tick(); // join
+        configUpdateListener.onTaskConfigUpdate(Arrays.asList(TASK0, TASK1, TASK2));
+        configUpdateListener.onConnectorTargetStateChange(CONN1); // state changes to paused
+        herder.tick(); // request the rebalance
+        herder.tick(); // rebalance and apply the state change
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testUnknownConnectorPaused() throws Exception {
         EasyMock.expect(member.memberId()).andStubReturn("member");
@@ -1452,6 +1550,17 @@ public class DistributedHerderTest {
                                  final long offset,
                                  final List<String> assignedConnectors,
                                  final List<ConnectorTaskId> assignedTasks) {
+        expectRebalance(revokedConnectors, revokedTasks, error, offset, assignedConnectors, assignedTasks,
+                ConnectProtocol.CONNECT_PROTOCOL_V0);
+    }
+
+    private void expectRebalance(final Collection<String> revokedConnectors,
+                                 final List<ConnectorTaskId> revokedTasks,
+                                 final short error,
+                                 final long offset,
+                                 final List<String> assignedConnectors,
+                                 final List<ConnectorTaskId> assignedTasks,
+                                 final short version) {
         member.ensureActive();
         PowerMock.expectLastCall().andAnswer(new IAnswer<Object>() {
             @Override
@@ -1459,7 +1568,7 @@ public class DistributedHerderTest {
                 if (revokedConnectors != null)
                     rebalanceListener.onRevoked("leader", revokedConnectors, revokedTasks);
                 ConnectProtocol.Assignment assignment = new ConnectProtocol.Assignment(
-                        error, "leader", "leaderUrl", offset, assignedConnectors, assignedTasks);
+                        error, "leader", "leaderUrl", offset, assignedConnectors, assignedTasks, version);
                 rebalanceListener.onAssigned(assignment, 3);
                 time.sleep(100L);
                 return null;
@@ -24,6 +24,7 @@ import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.protocol.Errors;
 import org.apache.kafka.common.requests.AbstractRequest;
 import org.apache.kafka.common.requests.FindCoordinatorResponse;
+import org.apache.kafka.common.requests.JoinGroupRequest;
 import org.apache.kafka.common.requests.JoinGroupRequest.ProtocolMetadata;
 import org.apache.kafka.common.requests.JoinGroupResponse;
 import org.apache.kafka.common.requests.SyncGroupRequest;
@@ -52,6 +53,7 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class WorkerCoordinatorTest {
 
@@ -79,6 +81,7 @@ public class WorkerCoordinatorTest {
     private ConsumerNetworkClient consumerClient;
     private MockRebalanceListener rebalanceListener;
     @Mock private KafkaConfigBackingStore configStorage;
+    private LogContext loggerFactory;
     private WorkerCoordinator coordinator;
 
     private ClusterConfigState configState1;
@@ -87,7 +90,7 @@ public class WorkerCoordinatorTest {
 
     @Before
     public void setup() {
-        LogContext loggerFactory = new LogContext();
+        this.loggerFactory = new LogContext();
 
         this.time = new MockTime();
         this.metadata = new Metadata(0, Long.MAX_VALUE, true);
@@ -99,20 +102,7 @@ public class WorkerCoordinatorTest {
         this.rebalanceListener = new MockRebalanceListener();
         this.configStorage = PowerMock.createMock(KafkaConfigBackingStore.class);
 
-        this.coordinator = new WorkerCoordinator(
-                loggerFactory,
-                consumerClient,
-                groupId,
-                rebalanceTimeoutMs,
-                sessionTimeoutMs,
-                heartbeatIntervalMs,
-                metrics,
-                "consumer" + groupId,
-                time,
-                retryBackoffMs,
-                LEADER_URL,
-                configStorage,
-                rebalanceListener);
+        this.coordinator = coordinator(ConnectProtocolCompatibility.EAGER);
 
         configState1 = new ClusterConfigState(
                 1L,
@@ -176,6 +166,24 @@ public class WorkerCoordinatorTest {
         this.metrics.close();
     }
 
+    private WorkerCoordinator coordinator(ConnectProtocolCompatibility compatibility) {
+        return new WorkerCoordinator(
+                loggerFactory,
+                consumerClient,
+                groupId,
+                rebalanceTimeoutMs,
+                sessionTimeoutMs,
+                heartbeatIntervalMs,
+                metrics,
+                "consumer" + groupId + compatibility,
+                time,
+                retryBackoffMs,
+                LEADER_URL,
+                configStorage,
+                rebalanceListener,
+                compatibility);
+    }
+
     // We only test functionality unique to WorkerCoordinator. Most functionality is already well tested via the tests
     // that cover AbstractCoordinator & ConsumerCoordinator.
 
@@ -196,6 +204,31 @@ public class WorkerCoordinatorTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testMetadataCompatible() {
+        coordinator = coordinator(ConnectProtocolCompatibility.COMPATIBLE);
+        EasyMock.expect(configStorage.snapshot()).andReturn(configState1);
+
+        PowerMock.replayAll();
+
+        List<ProtocolMetadata> serialized = coordinator.metadata();
+        assertEquals(2, serialized.size());
+
+        // Incremental rebalancing is preferred, with eager rebalancing as the fallback
+        ProtocolMetadata compatibleMetadata = serialized.get(0);
+        assertEquals(WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, compatibleMetadata.name());
+        ConnectProtocol.WorkerState state = ConnectProtocol.deserializeMetadata(compatibleMetadata.metadata());
+        assertEquals(1, state.offset());
+        assertEquals(Collections.emptyList(), state.connectors());
+        assertEquals(Collections.emptyList(), state.tasks());
+
+        ProtocolMetadata defaultMetadata = serialized.get(1);
+        assertEquals(WorkerCoordinator.DEFAULT_SUBPROTOCOL, defaultMetadata.name());
+        assertEquals(1, ConnectProtocol.deserializeMetadata(defaultMetadata.metadata()).offset());
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testNormalJoinGroupLeader() {
         EasyMock.expect(configStorage.snapshot()).andReturn(configState1);
@@ -461,6 +494,166 @@ public class WorkerCoordinatorTest {
     }
 
 
+    @Test
+    public void testIncrementalRejoinOnlyRevokesUnassignedWork() {
+        coordinator = coordinator(ConnectProtocolCompatibility.COMPATIBLE);
+        EasyMock.expect(configStorage.snapshot()).andReturn(configState2).times(3);
+
+        PowerMock.replayAll();
+
+        client.prepareResponse(groupCoordinatorResponse(node, Errors.NONE));
+        coordinator.ensureCoordinatorReady(time.timer(Long.MAX_VALUE));
+
+        // join the group once
+        client.prepareResponse(joinGroupFollowerResponse(1, "consumer", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, Errors.NONE));
+        client.prepareResponse(syncGroupResponse(ConnectProtocol.Assignment.NO_ERROR, "leader", 2L, Collections.singletonList(connectorId1),
+                Arrays.asList(taskId1x0, taskId1x1), ConnectProtocol.CONNECT_PROTOCOL_V1, Errors.NONE));
+        coordinator.ensureActiveGroup();
+
+        assertEquals(0, rebalanceListener.revokedCount);
+        assertEquals(1, rebalanceListener.assignedCount);
+        assertTrue(rebalanceListener.assignment.incremental());
+
+        // the next rebalance moves one task away, which is revoked after the assignment instead of everything before
+        // the join, and the revocation makes the worker rejoin right away
+        coordinator.requestRejoin();
+        client.prepareResponse(new MockClient.RequestMatcher() {
+            @Override
+            public boolean matches(AbstractRequest body) {
+                JoinGroupRequest join = (JoinGroupRequest) body;
+                ConnectProtocol.WorkerState state = ConnectProtocol.deserializeMetadata(join.groupProtocols().get(0).metadata());
+                return state.connectors().equals(Collections.singletonList(connectorId1)) &&
+                        state.tasks().equals(Arrays.asList(taskId1x0, taskId1x1));
+            }
+        }, joinGroupFollowerResponse(2, "consumer", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, Errors.NONE));
+        client.prepareResponse(syncGroupResponse(ConnectProtocol.Assignment.NO_ERROR, "leader", 2L, Collections.singletonList(connectorId1),
+                Collections.singletonList(taskId1x0), ConnectProtocol.CONNECT_PROTOCOL_V1, Errors.NONE));
+        client.prepareResponse(joinGroupFollowerResponse(3, "consumer", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, Errors.NONE));
+        client.prepareResponse(syncGroupResponse(ConnectProtocol.Assignment.NO_ERROR, "leader", 2L, Collections.singletonList(connectorId1),
+                Collections.singletonList(taskId1x0), ConnectProtocol.CONNECT_PROTOCOL_V1, Errors.NONE));
+        coordinator.ensureActiveGroup();
+
+        assertFalse(coordinator.rejoinNeededOrPending());
+        assertEquals(1, rebalanceListener.revokedCount);
+        assertEquals(Collections.emptyList(), rebalanceListener.revokedConnectors);
+        assertEquals(Collections.singletonList(taskId1x1), rebalanceListener.revokedTasks);
+        assertEquals(3, rebalanceListener.assignedCount);
+        assertEquals(Collections.singletonList(taskId1x0), rebalanceListener.assignment.tasks());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testFallbackToEagerRebalancingRevokesEverything() {
+        coordinator = coordinator(ConnectProtocolCompatibility.COMPATIBLE);
+        EasyMock.expect(configStorage.snapshot()).andReturn(configState1).times(2);
+
+        PowerMock.replayAll();
+
+        client.prepareResponse(groupCoordinatorResponse(node, Errors.NONE));
+        coordinator.ensureCoordinatorReady(time.timer(Long.MAX_VALUE));
+
+        client.prepareResponse(joinGroupFollowerResponse(1, "consumer", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, Errors.NONE));
+        client.prepareResponse(syncGroupResponse(ConnectProtocol.Assignment.NO_ERROR, "leader", 1L, Collections.<String>emptyList(),
+                Collections.singletonList(taskId1x0), ConnectProtocol.CONNECT_PROTOCOL_V1, Errors.NONE));
+        coordinator.ensureActiveGroup();
+
+        // a worker that only supports eager rebalancing joins the group
+        coordinator.requestRejoin();
+        client.prepareResponse(joinGroupFollowerResponse(2, "consumer", "leader", WorkerCoordinator.DEFAULT_SUBPROTOCOL, Errors.NONE));
+        client.prepareResponse(syncGroupResponse(ConnectProtocol.Assignment.NO_ERROR, "leader", 1L, Collections.singletonList(connectorId1),
+                Collections.<ConnectorTaskId>emptyList(), Errors.NONE));
+        coordinator.ensureActiveGroup();
+
+        assertFalse(coordinator.rejoinNeededOrPending());
+        assertEquals(1, rebalanceListener.revokedCount);
+        assertEquals(Collections.singletonList(taskId1x0), rebalanceListener.revokedTasks);
+        assertFalse(rebalanceListener.assignment.incremental());
+        assertEquals(Collections.singletonList(connectorId1), rebalanceListener.assignment.connectors());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testLeaderPerformIncrementalAssignment() throws Exception {
+        coordinator = coordinator(ConnectProtocolCompatibility.COMPATIBLE);
+        EasyMock.expect(configStorage.snapshot()).andReturn(configState2);
+
+        PowerMock.replayAll();
+
+        // Prime the current configuration state
+        coordinator.metadata();
+
+        // The leader runs everything when a new member joins
+        Map<String, ByteBuffer> configs = new HashMap<>();
+        configs.put("leader", compatibleMetadata(LEADER_URL, Arrays.asList(connectorId1, connectorId2),
+                Arrays.asList(taskId1x0, taskId1x1, taskId2x0)));
+        configs.put("member", compatibleMetadata(MEMBER_URL, Collections.<String>emptyList(),
+                Collections.<ConnectorTaskId>emptyList()));
+        Map<String, ByteBuffer> result = Whitebox.invokeMethod(coordinator, "performAssignment", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, configs);
+
+        // The leader keeps its share and the excess is revoked, without being assigned to the new member yet
+        ConnectProtocol.Assignment leaderAssignment = ConnectProtocol.deserializeAssignment(result.get("leader"));
+        assertTrue(leaderAssignment.incremental());
+        assertEquals(Collections.singletonList(connectorId1), leaderAssignment.connectors());
+        assertEquals(Arrays.asList(taskId1x0, taskId1x1), leaderAssignment.tasks());
+
+        ConnectProtocol.Assignment memberAssignment = ConnectProtocol.deserializeAssignment(result.get("member"));
+        assertTrue(memberAssignment.incremental());
+        assertEquals(Collections.emptyList(), memberAssignment.connectors());
+        assertEquals(Collections.emptyList(), memberAssignment.tasks());
+
+        // Once the leader stopped the revoked work and rejoined, it is assigned to the new member
+        configs.put("member", compatibleMetadata(MEMBER_URL, Collections.<String>emptyList(),
+                Collections.<ConnectorTaskId>emptyList()));
+        configs.put("leader", compatibleMetadata(LEADER_URL, Collections.singletonList(connectorId1),
+                Arrays.asList(taskId1x0, taskId1x1)));
+        result = Whitebox.invokeMethod(coordinator, "performAssignment", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, configs);
+
+        leaderAssignment = ConnectProtocol.deserializeAssignment(result.get("leader"));
+        assertEquals(Collections.singletonList(connectorId1), leaderAssignment.connectors());
+        assertEquals(Arrays.asList(taskId1x0, taskId1x1), leaderAssignment.tasks());
+
+        memberAssignment = ConnectProtocol.deserializeAssignment(result.get("member"));
+        assertEquals(Collections.singletonList(connectorId2), memberAssignment.connectors());
+        assertEquals(Collections.singletonList(taskId2x0), memberAssignment.tasks());
+
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testLeaderPerformIncrementalAssignmentDropsDuplicatesAndDeletedWork() throws Exception {
+        coordinator = coordinator(ConnectProtocolCompatibility.COMPATIBLE);
+        EasyMock.expect(configStorage.snapshot()).andReturn(configState1);
+
+        PowerMock.replayAll();
+
+        coordinator.metadata();
+
+        // Both members still run task 0 of connector 1, and the member runs connector 2 which has been deleted
+        Map<String, ByteBuffer> configs = new HashMap<>();
+        configs.put("leader", compatibleMetadata(LEADER_URL, Collections.<String>emptyList(),
+                Collections.singletonList(taskId1x0)));
+        configs.put("member", compatibleMetadata(MEMBER_URL, Collections.singletonList(connectorId2),
+                Arrays.asList(taskId1x0, taskId2x0)));
+        Map<String, ByteBuffer> result = Whitebox.invokeMethod(coordinator, "performAssignment", "leader", WorkerCoordinator.COMPATIBLE_SUBPROTOCOL, configs);
+
+        ConnectProtocol.Assignment leaderAssignment = ConnectProtocol.deserializeAssignment(result.get("leader"));
+        assertEquals(Collections.singletonList(connectorId1), leaderAssignment.connectors());
+        assertEquals(Collections.singletonList(taskId1x0), leaderAssignment.tasks());
+
+        ConnectProtocol.Assignment memberAssignment = ConnectProtocol.deserializeAssignment(result.get("member"));
+        assertEquals(Collections.emptyList(), memberAssignment.connectors());
+        assertEquals(Collections.emptyList(), memberAssignment.tasks());
+
+        PowerMock.verifyAll();
+    }
+
+    private ByteBuffer compatibleMetadata(String url, List<String> connectorIds, List<ConnectorTaskId> taskIds) {
+        return ConnectProtocol.serializeMetadata(new ConnectProtocol.WorkerState(url, 1L, connectorIds, taskIds),
+                ConnectProtocol.CONNECT_PROTOCOL_V1);
+    }
+
     private FindCoordinatorResponse groupCoordinatorResponse(Node node, Errors error) {
         return new FindCoordinatorResponse(error, node);
     }
@@ -479,13 +672,23 @@ public class WorkerCoordinatorTest {
     }
 
     private JoinGroupResponse joinGroupFollowerResponse(int generationId, String memberId, String leaderId, Errors error) {
-        return new JoinGroupResponse(error, generationId, WorkerCoordinator.DEFAULT_SUBPROTOCOL, memberId, leaderId,
+        return joinGroupFollowerResponse(generationId, memberId, leaderId, WorkerCoordinator.DEFAULT_SUBPROTOCOL, error);
+    }
+
+    private JoinGroupResponse joinGroupFollowerResponse(int generationId, String memberId, String leaderId, String protocol, Errors error) {
+        return new JoinGroupResponse(error, generationId, protocol, memberId, leaderId,
                 Collections.<String, ByteBuffer>emptyMap());
     }
 
     private SyncGroupResponse syncGroupResponse(short assignmentError, String leader, long configOffset, List<String> connectorIds,
                                      List<ConnectorTaskId> taskIds, Errors error) {
-        ConnectProtocol.Assignment assignment = new ConnectProtocol.Assignment(assignmentError, leader, LEADER_URL, configOffset, connectorIds, taskIds);
+        return syncGroupResponse(assignmentError, leader, configOffset, connectorIds, taskIds, ConnectProtocol.CONNECT_PROTOCOL_V0, error);
+    }
+
+    private SyncGroupResponse syncGroupResponse(short assignmentError, String leader, long configOffset, List<String> connectorIds,
+                                     List<ConnectorTaskId> taskIds, short version, Errors error) {
+        ConnectProtocol.Assignment assignment = new ConnectProtocol.Assignment(assignmentError, leader, LEADER_URL, configOffset,
+                connectorIds, taskIds, version);
         ByteBuffer buf = ConnectProtocol.serializeAssignment(assignment);
         return new SyncGroupResponse(error, buf);
     }
@@ -23,9 +23,12 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
 import org.apache.kafka.connect.runtime.distributed.DistributedConfig;
 import org.apache.kafka.connect.util.Callback;
 import org.apache.kafka.connect.util.KafkaBasedLog;
+import org.apache.kafka.connect.util.KafkaBasedLogSnapshot;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
@@ -139,6 +142,20 @@ public class KafkaOffsetBackingStoreTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testReadCommittedWithExactlyOnceSource() throws Exception {
+        expectConfigure();
+        PowerMock.replayAll();
+
+        Map<String, String> props = new HashMap<>(DEFAULT_PROPS);
+        props.put(DistributedConfig.EXACTLY_ONCE_SOURCE_ENABLED_CONFIG, "true");
+        store.configure(new DistributedConfig(props));
+        // Offsets of aborted transactions must not be read
+        assertEquals("read_committed", capturedConsumerProps.getValue().get(ConsumerConfig.ISOLATION_LEVEL_CONFIG));
+
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testReloadOnStart() throws Exception {
         expectConfigure();
@@ -405,10 +422,68 @@ public class KafkaOffsetBackingStoreTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testIndexedOffsets() throws Exception {
+        JsonConverter converter = new JsonConverter();
+        converter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, "false"), true);
+        Map<String, Object> partition0 = Collections.singletonMap("file", (Object) "a.txt");
+        Map<String, Object> partition1 = Collections.singletonMap("file", (Object) "b.txt");
+        final byte[] key0 = converter.fromConnectData("conn", null, Arrays.asList("conn", partition0));
+        final byte[] key1 = converter.fromConnectData("conn", null, Arrays.asList("conn", partition1));
+        final byte[] otherKey = converter.fromConnectData("other", null, Arrays.asList("other", partition0));
+        final byte[] value0 = converter.fromConnectData("conn", null, Collections.singletonMap("line", 10L));
+        final byte[] value1 = converter.fromConnectData("conn", null, Collections.singletonMap("line", 20L));
+
+        expectConfigure();
+        expectStart(Arrays.asList(
+                new ConsumerRecord<>(TOPIC, 0, 0, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, key0, value0),
+                new ConsumerRecord<>(TOPIC, 1, 0, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, otherKey, value0)
+        ));
+        expectStop();
+
+        // Each lookup reads to the end of the log first, picking up offsets written by others
+        final Capture<Callback<Void>> firstReadToEndCallback = EasyMock.newCapture();
+        storeLog.readToEnd(EasyMock.capture(firstReadToEndCallback));
+        PowerMock.expectLastCall().andAnswer(() -> {
+            capturedConsumedCallback.getValue().onCompletion(null, new ConsumerRecord<>(TOPIC, 0, 1, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, key1, value1));
+            firstReadToEndCallback.getValue().onCompletion(null, null);
+            return null;
+        });
+        final Capture<Callback<Void>> secondReadToEndCallback = EasyMock.newCapture();
+        storeLog.readToEnd(EasyMock.capture(secondReadToEndCallback));
+        PowerMock.expectLastCall().andAnswer(() -> {
+            capturedConsumedCallback.getValue().onCompletion(null, new ConsumerRecord<>(TOPIC, 0, 2, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, key0, null));
+            secondReadToEndCallback.getValue().onCompletion(null, null);
+            return null;
+        });
+
+        PowerMock.replayAll();
+
+        store.configure(DEFAULT_DISTRIBUTED_CONFIG);
+        store.configureIndex(converter, converter);
+        store.start();
+
+        Map<Map<String, Object>, Map<String, Object>> expected = new HashMap<>();
+        expected.put(partition0, Collections.singletonMap("line", (Object) 10L));
+        expected.put(partition1, Collections.singletonMap("line", (Object) 20L));
+        assertEquals(expected, store.offsets("conn", null).get(10000, TimeUnit.MILLISECONDS));
+
+        Map<ByteBuffer, Map<String, Object>> offsets = store.offsets("conn",
+                Arrays.asList(ByteBuffer.wrap(key0), ByteBuffer.wrap(key1)), null).get(10000, TimeUnit.MILLISECONDS);
+        assertEquals(2, offsets.size());
+        assertNull(offsets.get(ByteBuffer.wrap(key0)));
+        assertEquals(Collections.singletonMap("line", 20L), offsets.get(ByteBuffer.wrap(key1)));
+
+        store.stop();
+
+        PowerMock.verifyAll();
+    }
+
     private void expectConfigure() throws Exception {
         PowerMock.expectPrivate(store, "createKafkaBasedLog", EasyMock.capture(capturedTopic), EasyMock.capture(capturedProducerProps),
                 EasyMock.capture(capturedConsumerProps), EasyMock.capture(capturedConsumedCallback),
-                EasyMock.capture(capturedNewTopic), EasyMock.capture(capturedAdminProps))
+                EasyMock.capture(capturedNewTopic), EasyMock.capture(capturedAdminProps),
+                EasyMock.<KafkaBasedLogSnapshot<?, ?>>isNull())
                 .andReturn(storeLog);
     }
 
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffsetIndexTest {
+    private static final String NAMESPACE = "connector";
+    private static final Map<String, Object> PARTITION0 = Collections.singletonMap("file", (Object) "a.txt");
+    private static final Map<String, Object> PARTITION1 = Collections.singletonMap("file", (Object) "b.txt");
+
+    private JsonConverter converter;
+    private OffsetIndex index;
+
+    @Before
+    public void setUp() {
+        converter = new JsonConverter();
+        converter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, "false"), true);
+        index = new OffsetIndex(converter, converter);
+    }
+
+    @Test
+    public void shouldIndexLatestOffsetOfEachPartitionByNamespace() {
+        index.update(key(NAMESPACE, PARTITION0), value(10L));
+        index.update(key(NAMESPACE, PARTITION1), value(20L));
+        index.update(key("other", PARTITION0), value(30L));
+        index.update(key(NAMESPACE, PARTITION0), value(11L));
+
+        Map<Map<String, Object>, Map<String, Object>> expected = new HashMap<>();
+        expected.put(PARTITION0, offset(11L));
+        expected.put(PARTITION1, offset(20L));
+        assertEquals(expected, index.offsets(NAMESPACE));
+        assertEquals(Collections.singletonMap(PARTITION0, offset(30L)), index.offsets("other"));
+        assertEquals(Collections.emptyMap(), index.offsets("unknown"));
+
+        Map<ByteBuffer, Map<String, Object>> offsets = index.offsets(NAMESPACE, Arrays.asList(
+                key(NAMESPACE, PARTITION1), key(NAMESPACE, Collections.singletonMap("file", (Object) "c.txt"))));
+        assertEquals(2, offsets.size());
+        assertEquals(offset(20L), offsets.get(key(NAMESPACE, PARTITION1)));
+        assertTrue(offsets.containsKey(key(NAMESPACE, Collections.singletonMap("file", (Object) "c.txt"))));
+        assertNull(offsets.get(key(NAMESPACE, Collections.singletonMap("file", (Object) "c.txt"))));
+    }
+
+    @Test
+    public void shouldRemoveOffsetsOnTombstones() {
+        index.update(key(NAMESPACE, PARTITION0), value(10L));
+        index.update(key(NAMESPACE, PARTITION0), null);
+
+        assertEquals(Collections.emptyMap(), index.offsets(NAMESPACE));
+        assertNull(index.offsets(NAMESPACE, Collections.singleton(key(NAMESPACE, PARTITION0))).get(key(NAMESPACE, PARTITION0)));
+    }
+
+    @Test
+    public void shouldLeaveOutOffsetsThatCannotBeDeserialized() {
+        index.update(key(NAMESPACE, PARTITION0), ByteBuffer.wrap("not json".getBytes()));
+        index.update(key(NAMESPACE, PARTITION1), ByteBuffer.wrap("[1, 2]".getBytes()));
+        // Keys that are not a namespace and a partition are ignored
+        index.update(ByteBuffer.wrap("\"key\"".getBytes()), value(10L));
+
+        assertEquals(Collections.emptyMap(), index.offsets(NAMESPACE));
+        assertFalse(index.offsets(NAMESPACE, Collections.singleton(key(NAMESPACE, PARTITION0))).containsKey(key(NAMESPACE, PARTITION0)));
+    }
+
+    @Test
+    public void shouldNotExposeIndexedOffsetsToModification() {
+        index.update(key(NAMESPACE, PARTITION0), value(10L));
+
+        index.offsets(NAMESPACE).get(PARTITION0).put("position", 99L);
+        index.offsets(NAMESPACE, Collections.singleton(key(NAMESPACE, PARTITION0))).get(key(NAMESPACE, PARTITION0)).clear();
+
+        assertEquals(Collections.singletonMap(PARTITION0, offset(10L)), index.offsets(NAMESPACE));
+    }
+
+    private ByteBuffer key(String namespace, Map<String, Object> partition) {
+        return ByteBuffer.wrap(converter.fromConnectData(namespace, null, Arrays.asList(namespace, partition)));
+    }
+
+    private ByteBuffer value(long position) {
+        return ByteBuffer.wrap(converter.fromConnectData(NAMESPACE, null, offset(position)));
+    }
+
+    private static Map<String, Object> offset(long position) {
+        return Collections.singletonMap("position", (Object) position);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.apache.kafka.connect.util.Callback;
+import org.apache.kafka.connect.util.FutureCallback;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OffsetStorageReaderImplTest {
+    private static final String NAMESPACE = "connector";
+    private static final Map<String, Integer> PARTITION0 = Collections.singletonMap("table", 0);
+    private static final Map<String, Integer> PARTITION1 = Collections.singletonMap("table", 1);
+    private static final Map<String, Object> OFFSET = Collections.singletonMap("id", (Object) 42L);
+
+    private JsonConverter converter;
+
+    @Before
+    public void setUp() {
+        converter = new JsonConverter();
+        converter.configure(Collections.singletonMap(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, "false"), true);
+    }
+
+    @Test
+    public void shouldLookUpIndexedOffsetsWithoutDeserializingThem() throws Exception {
+        IndexedOffsetBackingStore store = EasyMock.createMock(IndexedOffsetBackingStore.class);
+        Map<ByteBuffer, Map<String, Object>> indexed = new HashMap<>();
+        indexed.put(key(PARTITION0), OFFSET);
+        indexed.put(key(PARTITION1), null);
+        EasyMock.expect(store.offsets(EasyMock.eq(NAMESPACE), EasyMock.<Collection<ByteBuffer>>eq(
+                new HashMap<>(indexed).keySet()), EasyMock.<Callback<Map<ByteBuffer, Map<String, Object>>>>isNull()))
+                .andReturn(completed(indexed));
+        EasyMock.replay(store);
+
+        // The value converter is not needed, the store has already deserialized the offsets
+        OffsetStorageReaderImpl reader = new OffsetStorageReaderImpl(store, NAMESPACE, converter, null);
+        Map<Map<String, Integer>, Map<String, Object>> expected = new HashMap<>();
+        expected.put(PARTITION0, OFFSET);
+        expected.put(PARTITION1, null);
+        assertEquals(expected, reader.offsets(Arrays.asList(PARTITION0, PARTITION1)));
+
+        EasyMock.verify(store);
+    }
+
+    @Test
+    public void shouldListOffsetsOfNamespace() throws Exception {
+        IndexedOffsetBackingStore store = EasyMock.createMock(IndexedOffsetBackingStore.class);
+        Map<Map<String, Object>, Map<String, Object>> offsets =
+                Collections.singletonMap(Collections.singletonMap("table", (Object) 0L), OFFSET);
+        EasyMock.expect(store.offsets(EasyMock.eq(NAMESPACE),
+                EasyMock.<Callback<Map<Map<String, Object>, Map<String, Object>>>>isNull()))
+                .andReturn(completed(offsets));
+        EasyMock.replay(store);
+
+        assertEquals(offsets, new OffsetStorageReaderImpl(store, NAMESPACE, converter, converter).offsets());
+
+        EasyMock.verify(store);
+    }
+
+    @Test
+    public void shouldNotListOffsetsOfStoreWithoutIndex() {
+        OffsetBackingStore store = EasyMock.createMock(OffsetBackingStore.class);
+        EasyMock.replay(store);
+
+        assertNull(new OffsetStorageReaderImpl(store, NAMESPACE, converter, converter).offsets());
+
+        EasyMock.verify(store);
+    }
+
+    private ByteBuffer key(Map<String, Integer> partition) {
+        return ByteBuffer.wrap(converter.fromConnectData(NAMESPACE, null, Arrays.asList(NAMESPACE, partition)));
+    }
+
+    private static <T> FutureCallback<T> completed(T result) {
+        FutureCallback<T> future = new FutureCallback<>();
+        future.onCompletion(null, result);
+        return future;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.storage;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.connect.util.FutureCallback;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionalOffsetBackingStoreTest {
+    private static final String TOPIC = "connect-offsets";
+
+    private MockProducer<byte[], byte[]> producer;
+    private TransactionalOffsetBackingStore store;
+
+    @Before
+    public void setUp() {
+        producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+        producer.initTransactions();
+        store = new TransactionalOffsetBackingStore(producer, TOPIC);
+    }
+
+    @Test
+    public void testSetWritesOffsetsInTransaction() throws Exception {
+        Map<ByteBuffer, ByteBuffer> offsets = new HashMap<>();
+        offsets.put(ByteBuffer.wrap("key".getBytes()), ByteBuffer.wrap("value".getBytes()));
+        offsets.put(ByteBuffer.wrap("removed".getBytes()), null);
+
+        producer.beginTransaction();
+        FutureCallback<Void> callback = new FutureCallback<>();
+        Future<Void> written = store.set(offsets, callback);
+        assertFalse(written.isDone());
+
+        // The offsets are only written once all of them have been sent
+        producer.completeNext();
+        assertFalse(written.isDone());
+        producer.completeNext();
+        assertNull(written.get(1000, TimeUnit.MILLISECONDS));
+        assertNull(callback.get(1000, TimeUnit.MILLISECONDS));
+
+        // Nothing is committed until the transaction is
+        assertTrue(producer.history().isEmpty());
+        producer.commitTransaction();
+        List<ProducerRecord<byte[], byte[]>> sent = producer.history();
+        assertEquals(2, sent.size());
+        Map<String, byte[]> values = new HashMap<>();
+        for (ProducerRecord<byte[], byte[]> record : sent) {
+            assertEquals(TOPIC, record.topic());
+            values.put(new String(record.key()), record.value());
+        }
+        assertArrayEquals("value".getBytes(), values.get("key"));
+        assertTrue(values.containsKey("removed"));
+        assertNull(values.get("removed"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetIsNotSupported() {
+        store.get(Collections.singletonList(ByteBuffer.wrap("key".getBytes())), null);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.util;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.test.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaBasedLogSnapshotTest {
+    private static final String TOPIC = "connect-offsets";
+    private static final TopicPartition TP0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition TP1 = new TopicPartition(TOPIC, 1);
+    private static final Set<TopicPartition> PARTITIONS = new HashSet<>(Arrays.asList(TP0, TP1));
+    private static final String CLUSTER_ID = "cluster-1";
+
+    private File file;
+    private KafkaBasedLogSnapshot<byte[], byte[]> snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(TestUtils.tempDirectory(), TOPIC + ".snapshot");
+        snapshot = snapshot();
+    }
+
+    @Test
+    public void shouldKeepLatestRecordOfEachKeyInOffsetOrder() throws Exception {
+        snapshot.track(record(0, 0, "a", "1"));
+        snapshot.track(record(0, 1, "b", "2"));
+        snapshot.track(record(0, 2, "a", "3"));
+        snapshot.track(record(0, 3, null, "4"));
+        snapshot.track(record(1, 0, "a", "5"));
+        snapshot.track(record(1, 1, "b", null));
+        snapshot.write(positions(4L, 2L));
+
+        KafkaBasedLogSnapshot<byte[], byte[]> loaded = snapshot();
+        assertEquals(positions(4L, 2L), loaded.load(PARTITIONS));
+
+        List<ConsumerRecord<byte[], byte[]>> tp0 = loaded.records(TP0);
+        assertEquals(3, tp0.size());
+        assertRecord(tp0.get(0), 1, "b", "2");
+        assertRecord(tp0.get(1), 2, "a", "3");
+        assertRecord(tp0.get(2), 3, null, "4");
+
+        // Tombstones are kept, since they have to remove what earlier records of the key put in place
+        List<ConsumerRecord<byte[], byte[]>> tp1 = loaded.records(TP1);
+        assertEquals(2, tp1.size());
+        assertRecord(tp1.get(0), 0, "a", "5");
+        assertRecord(tp1.get(1), 1, "b", null);
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() {
+        assertNull(snapshot.load(PARTITIONS));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        snapshot.track(record(0, 0, "a", "1"));
+        snapshot.write(positions(1L, 0L));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 12);
+            int b = raf.read();
+            raf.seek(raf.length() - 12);
+            raf.write(b ^ 0xff);
+        }
+
+        KafkaBasedLogSnapshot<byte[], byte[]> loaded = snapshot();
+        assertNull(loaded.load(PARTITIONS));
+        assertEquals(Collections.emptyList(), loaded.records(TP0));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotOfOtherPartitions() throws Exception {
+        snapshot.track(record(0, 0, "a", "1"));
+        snapshot.write(Collections.singletonMap(TP0, 1L));
+
+        assertNull(snapshot().load(PARTITIONS));
+        assertEquals(Collections.singletonMap(TP0, 1L), snapshot().load(Collections.singleton(TP0)));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotOfOtherCluster() throws Exception {
+        snapshot.track(record(0, 0, "a", "1"));
+        snapshot.write(positions(1L, 0L));
+
+        KafkaBasedLogSnapshot<byte[], byte[]> loaded = new KafkaBasedLogSnapshot<>(file, "cluster-2", Serdes.ByteArray(), Serdes.ByteArray());
+        assertNull(loaded.load(PARTITIONS));
+        assertEquals(Collections.emptyList(), loaded.records(TP0));
+    }
+
+    @Test
+    public void shouldRecognizeLastRecordOfEachPartition() throws Exception {
+        snapshot.track(record(0, 0, "a", "1"));
+        snapshot.track(record(0, 1, "b", "2"));
+        snapshot.track(record(0, 2, "a", "3"));
+        snapshot.write(positions(4L, 0L));
+
+        KafkaBasedLogSnapshot<byte[], byte[]> loaded = snapshot();
+        assertEquals(positions(4L, 0L), loaded.load(PARTITIONS));
+        assertEquals(Long.valueOf(2L), loaded.lastOffset(TP0));
+        assertNull(loaded.lastOffset(TP1));
+
+        assertTrue(loaded.isLastRecord(record(0, 2, "a", "3")));
+        // A recreated topic may have another record at the same offset
+        assertFalse(loaded.isLastRecord(record(0, 2, "a", "4")));
+        assertFalse(loaded.isLastRecord(record(0, 2, "b", "3")));
+        assertFalse(loaded.isLastRecord(record(0, 2, "a", null)));
+        assertFalse(loaded.isLastRecord(record(0, 1, "b", "2")));
+        assertFalse(loaded.isLastRecord(record(1, 2, "a", "3")));
+    }
+
+    @Test
+    public void shouldOnlyCreateSnapshotsInConfiguredDirectory() {
+        assertNull(KafkaBasedLogSnapshot.inDirectory("", TOPIC, null, Serdes.ByteArray(), Serdes.ByteArray()));
+        assertNull(KafkaBasedLogSnapshot.inDirectory(null, TOPIC, null, Serdes.ByteArray(), Serdes.ByteArray()));
+    }
+
+    private KafkaBasedLogSnapshot<byte[], byte[]> snapshot() {
+        return new KafkaBasedLogSnapshot<>(file, CLUSTER_ID, Serdes.ByteArray(), Serdes.ByteArray());
+    }
+
+    private static ConsumerRecord<byte[], byte[]> record(int partition, long offset, String key, String value) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, 1000L + offset, TimestampType.CREATE_TIME, 0L, 0, 0,
+                key == null ? null : key.getBytes(), value == null ? null : value.getBytes());
+    }
+
+    private static void assertRecord(ConsumerRecord<byte[], byte[]> record, long offset, String key, String value) {
+        assertEquals(offset, record.offset());
+        assertEquals(1000L + offset, record.timestamp());
+        assertArrayEquals(key == null ? null : key.getBytes(), record.key());
+        assertArrayEquals(value == null ? null : value.getBytes(), record.value());
+    }
+
+    private static Map<TopicPartition, Long> positions(long tp0, long tp1) {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        positions.put(TP0, tp0);
+        positions.put(TP1, tp1);
+        return positions;
+    }
+}
@@ -33,8 +33,10 @@ import org.apache.kafka.common.errors.LeaderNotAvailableException;
 import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.protocol.Errors;
 import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.common.utils.MockTime;
+import org.apache.kafka.test.TestUtils;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.junit.Before;
@@ -47,6 +49,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -101,6 +104,8 @@ public class KafkaBasedLogTest {
     private static final PartitionInfo TPINFO0 = new PartitionInfo(TOPIC, 0, LEADER, new Node[]{REPLICA}, new Node[]{REPLICA});
     private static final PartitionInfo TPINFO1 = new PartitionInfo(TOPIC, 1, LEADER, new Node[]{REPLICA}, new Node[]{REPLICA});
 
+    private static final String CLUSTER_ID = "cluster-1";
+
     private static final String TP0_KEY = "TP0KEY";
     private static final String TP1_KEY = "TP1KEY";
     private static final String TP0_VALUE = "VAL0";
@@ -259,6 +264,161 @@ public class KafkaBasedLogTest {
         PowerMock.verifyAll();
     }
 
+    @Test
+    public void testResumeFromSnapshot() throws Exception {
+        File snapshotFile = new File(TestUtils.tempDirectory(), TOPIC + ".snapshot");
+        KafkaBasedLogSnapshot<String, String> previous = snapshot(snapshotFile);
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 0, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE));
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 1, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP1_KEY, TP1_VALUE));
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 2, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE_NEW));
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        positions.put(TP0, 3L);
+        positions.put(TP1, 0L);
+        previous.write(positions);
+
+        store = createStore(snapshot(snapshotFile));
+        expectStart();
+        expectStop();
+
+        PowerMock.replayAll();
+
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        endOffsets.put(TP0, 4L);
+        endOffsets.put(TP1, 0L);
+        consumer.updateEndOffsets(endOffsets);
+        final CountDownLatch finishedLatch = new CountDownLatch(1);
+        consumer.schedulePollTask(new Runnable() {
+            @Override
+            public void run() {
+                // The last record of the snapshot is read back to check that it is still in the topic
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 2, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE_NEW));
+                consumer.schedulePollTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 3, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP1_KEY, TP1_VALUE_NEW));
+                        consumer.schedulePollTask(new Runnable() {
+                            @Override
+                            public void run() {
+                                finishedLatch.countDown();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        store.start();
+        assertTrue(finishedLatch.await(10000, TimeUnit.MILLISECONDS));
+
+        // Only the latest record of each key is replayed from the snapshot, and the log is read from where it ends
+        List<ConsumerRecord<String, String>> records = consumedRecords.get(TP0);
+        assertEquals(3, records.size());
+        assertEquals(1L, records.get(0).offset());
+        assertEquals(TP1_VALUE, records.get(0).value());
+        assertEquals(2L, records.get(1).offset());
+        assertEquals(TP0_VALUE_NEW, records.get(1).value());
+        assertEquals(3L, records.get(2).offset());
+        assertEquals(TP1_VALUE_NEW, records.get(2).value());
+        assertNull(consumedRecords.get(TP1));
+
+        store.stop();
+
+        // The snapshot now covers the records read from the topic as well
+        KafkaBasedLogSnapshot<String, String> updated = snapshot(snapshotFile);
+        positions.put(TP0, 4L);
+        assertEquals(positions, updated.load(CONSUMER_ASSIGNMENT));
+        assertEquals(2, updated.records(TP0).size());
+        assertEquals(TP1_VALUE_NEW, updated.records(TP0).get(1).value());
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testReadFromBeginningWhenTopicWasRecreatedWithAsManyRecords() throws Exception {
+        File snapshotFile = new File(TestUtils.tempDirectory(), TOPIC + ".snapshot");
+        KafkaBasedLogSnapshot<String, String> previous = snapshot(snapshotFile);
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 0, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE));
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 1, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP1_KEY, TP1_VALUE));
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        positions.put(TP0, 2L);
+        positions.put(TP1, 0L);
+        previous.write(positions);
+
+        store = createStore(snapshot(snapshotFile));
+        expectStart();
+        expectStop();
+
+        PowerMock.replayAll();
+
+        // The topic was recreated and has as many records as before, but not the same ones
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        endOffsets.put(TP0, 2L);
+        endOffsets.put(TP1, 0L);
+        consumer.updateEndOffsets(endOffsets);
+        final Runnable addRecreatedRecords = new Runnable() {
+            @Override
+            public void run() {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE_NEW));
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP1_KEY, TP1_VALUE_NEW));
+            }
+        };
+        // Once to check the last record of the snapshot, and once more to read the topic from the beginning
+        consumer.schedulePollTask(addRecreatedRecords);
+        consumer.schedulePollTask(addRecreatedRecords);
+        store.start();
+
+        List<ConsumerRecord<String, String>> records = consumedRecords.get(TP0);
+        assertEquals(2, records.size());
+        assertEquals(0L, records.get(0).offset());
+        assertEquals(TP0_VALUE_NEW, records.get(0).value());
+        assertEquals(1L, records.get(1).offset());
+        assertEquals(TP1_VALUE_NEW, records.get(1).value());
+        assertNull(consumedRecords.get(TP1));
+
+        store.stop();
+
+        KafkaBasedLogSnapshot<String, String> updated = snapshot(snapshotFile);
+        assertEquals(positions, updated.load(CONSUMER_ASSIGNMENT));
+        assertEquals(2, updated.records(TP0).size());
+        assertEquals(TP0_VALUE_NEW, updated.records(TP0).get(0).value());
+        assertEquals(TP1_VALUE_NEW, updated.records(TP0).get(1).value());
+        PowerMock.verifyAll();
+    }
+
+    @Test
+    public void testReadFromBeginningWhenSnapshotIsBeyondLogEnd() throws Exception {
+        File snapshotFile = new File(TestUtils.tempDirectory(), TOPIC + ".snapshot");
+        KafkaBasedLogSnapshot<String, String> previous = snapshot(snapshotFile);
+        previous.track(new ConsumerRecord<>(TOPIC, 0, 4, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, TP0_KEY, TP0_VALUE));
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        positions.put(TP0, 5L);
+        positions.put(TP1, 0L);
+        previous.write(positions);
+
+        store = createStore(snapshot(snapshotFile));
+        expectStart();
+        expectStop();
+
+        PowerMock.replayAll();
+
+        // The topic was recreated and is empty
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        endOffsets.put(TP0, 0L);
+        endOffsets.put(TP1, 0L);
+        consumer.updateEndOffsets(endOffsets);
+        store.start();
+
+        assertTrue(consumedRecords.isEmpty());
+        assertEquals(0L, consumer.position(TP0));
+        assertEquals(0L, consumer.position(TP1));
+
+        store.stop();
+
+        positions.put(TP0, 0L);
+        KafkaBasedLogSnapshot<String, String> updated = snapshot(snapshotFile);
+        assertEquals(positions, updated.load(CONSUMER_ASSIGNMENT));
+        assertTrue(updated.records(TP0).isEmpty());
+        PowerMock.verifyAll();
+    }
+
     @Test
     public void testSendAndReadToEnd() throws Exception {
         expectStart();
@@ -465,6 +625,16 @@ public class KafkaBasedLogTest {
     }
 
 
+    @SuppressWarnings("unchecked")
+    private KafkaBasedLog<String, String> createStore(KafkaBasedLogSnapshot<String, String> snapshot) {
+        return PowerMock.createPartialMock(KafkaBasedLog.class, new String[]{"createConsumer", "createProducer"},
+                TOPIC, PRODUCER_PROPS, CONSUMER_PROPS, consumedCallback, time, initializer, snapshot);
+    }
+
+    private static KafkaBasedLogSnapshot<String, String> snapshot(File file) {
+        return new KafkaBasedLogSnapshot<>(file, CLUSTER_ID, Serdes.String(), Serdes.String());
+    }
+
     private void expectStart() throws Exception {
         initializer.run();
         EasyMock.expectLastCall().times(1);
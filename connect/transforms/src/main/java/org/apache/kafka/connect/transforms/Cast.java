@@ -32,6 +32,7 @@ import org.apache.kafka.connect.data.Values;
 import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.transforms.util.SchemaUtil;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +46,7 @@ import java.util.Set;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
 
-public abstract class Cast<R extends ConnectRecord<R>> implements Transformation<R> {
+public abstract class Cast<R extends ConnectRecord<R>> implements StructProjectingTransformation<R> {
     private static final Logger log = LoggerFactory.getLogger(Cast.class);
 
     // TODO: Currently we only support top-level field casting. Ideally we could use a dotted notation in the spec to
@@ -165,6 +166,24 @@ public abstract class Cast<R extends ConnectRecord<R>> implements Transformation
         return newRecord(record, updatedSchema, updatedValue);
     }
 
+    @Override
+    public StructProjection<R> projection(Schema schema) {
+        // Casting the entire value does not operate on the fields of a struct
+        if (wholeValueCastType != null || schema.type() != Schema.Type.STRUCT)
+            return null;
+        final StructProjection.Builder<R> builder = StructProjection.builder(schema, getOrBuildSchema(schema));
+        for (Field field : schema.fields()) {
+            final Schema.Type targetType = casts.get(field.name());
+            if (targetType == null) {
+                builder.copy(field.name(), field.name());
+            } else {
+                final Schema fieldSchema = field.schema();
+                builder.convert(field.name(), field.name(), value -> castValueToType(fieldSchema, value, targetType));
+            }
+        }
+        return builder.build();
+    }
+
     private Schema getOrBuildSchema(Schema valueSchema) {
         Schema updatedSchema = schemaUpdateCache.get(valueSchema);
         if (updatedSchema != null)
@@ -407,6 +426,11 @@ public abstract class Cast<R extends ConnectRecord<R>> implements Transformation
     }
 
     public static final class Key<R extends ConnectRecord<R>> extends Cast<R> {
+        @Override
+        public Operand operand() {
+            return Operand.KEY;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.keySchema();
@@ -424,6 +448,11 @@ public abstract class Cast<R extends ConnectRecord<R>> implements Transformation
     }
 
     public static final class Value<R extends ConnectRecord<R>> extends Cast<R> {
+        @Override
+        public Operand operand() {
+            return Operand.VALUE;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.valueSchema();
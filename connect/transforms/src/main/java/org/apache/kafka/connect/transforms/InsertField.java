@@ -29,6 +29,7 @@ import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Timestamp;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
 import org.apache.kafka.connect.transforms.util.SchemaUtil;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -38,7 +39,7 @@ import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireSinkRecord;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
 
-public abstract class InsertField<R extends ConnectRecord<R>> implements Transformation<R> {
+public abstract class InsertField<R extends ConnectRecord<R>> implements StructProjectingTransformation<R> {
 
     public static final String OVERVIEW_DOC =
             "Insert field(s) using attributes from the record metadata or a configured static value."
@@ -161,11 +162,7 @@ public abstract class InsertField<R extends ConnectRecord<R>> implements Transfo
     private R applyWithSchema(R record) {
         final Struct value = requireStruct(operatingValue(record), PURPOSE);
 
-        Schema updatedSchema = schemaUpdateCache.get(value.schema());
-        if (updatedSchema == null) {
-            updatedSchema = makeUpdatedSchema(value.schema());
-            schemaUpdateCache.put(value.schema(), updatedSchema);
-        }
+        final Schema updatedSchema = getOrBuildSchema(value.schema());
 
         final Struct updatedValue = new Struct(updatedSchema);
 
@@ -192,6 +189,42 @@ public abstract class InsertField<R extends ConnectRecord<R>> implements Transfo
         return newRecord(record, updatedSchema, updatedValue);
     }
 
+    @Override
+    public StructProjection<R> projection(Schema schema) {
+        if (schema.type() != Schema.Type.STRUCT)
+            return null;
+        final StructProjection.Builder<R> builder = StructProjection.builder(schema, getOrBuildSchema(schema));
+        for (Field field : schema.fields()) {
+            builder.copy(field.name(), field.name());
+        }
+
+        if (topicField != null) {
+            builder.insert(topicField.name, ConnectRecord::topic);
+        }
+        if (partitionField != null) {
+            builder.insert(partitionField.name, ConnectRecord::kafkaPartition);
+        }
+        if (offsetField != null) {
+            builder.insert(offsetField.name, record -> requireSinkRecord(record, PURPOSE).kafkaOffset());
+        }
+        if (timestampField != null) {
+            builder.insert(timestampField.name, record -> record.timestamp() == null ? null : new Date(record.timestamp()));
+        }
+        if (staticField != null) {
+            builder.insert(staticField.name, record -> staticValue);
+        }
+        return builder.build();
+    }
+
+    private Schema getOrBuildSchema(Schema schema) {
+        Schema updatedSchema = schemaUpdateCache.get(schema);
+        if (updatedSchema == null) {
+            updatedSchema = makeUpdatedSchema(schema);
+            schemaUpdateCache.put(schema, updatedSchema);
+        }
+        return updatedSchema;
+    }
+
     private Schema makeUpdatedSchema(Schema schema) {
         final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
 
@@ -236,6 +269,11 @@ public abstract class InsertField<R extends ConnectRecord<R>> implements Transfo
 
     public static class Key<R extends ConnectRecord<R>> extends InsertField<R> {
 
+        @Override
+        public Operand operand() {
+            return Operand.KEY;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.keySchema();
@@ -255,6 +293,11 @@ public abstract class InsertField<R extends ConnectRecord<R>> implements Transfo
 
     public static class Value<R extends ConnectRecord<R>> extends InsertField<R> {
 
+        @Override
+        public Operand operand() {
+            return Operand.VALUE;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.valueSchema();
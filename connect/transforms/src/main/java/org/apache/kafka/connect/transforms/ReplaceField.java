@@ -28,6 +28,7 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.transforms.util.SchemaUtil;
 import org.apache.kafka.connect.transforms.util.SimpleConfig;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -37,7 +38,7 @@ import java.util.Map;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireMap;
 import static org.apache.kafka.connect.transforms.util.Requirements.requireStruct;
 
-public abstract class ReplaceField<R extends ConnectRecord<R>> implements Transformation<R> {
+public abstract class ReplaceField<R extends ConnectRecord<R>> implements StructProjectingTransformation<R> {
 
     public static final String OVERVIEW_DOC = "Filter or rename fields."
             + "<p/>Use the concrete transformation type designed for the record key (<code>" + Key.class.getName() + "</code>) "
@@ -149,11 +150,7 @@ public abstract class ReplaceField<R extends ConnectRecord<R>> implements Transf
     private R applyWithSchema(R record) {
         final Struct value = requireStruct(operatingValue(record), PURPOSE);
 
-        Schema updatedSchema = schemaUpdateCache.get(value.schema());
-        if (updatedSchema == null) {
-            updatedSchema = makeUpdatedSchema(value.schema());
-            schemaUpdateCache.put(value.schema(), updatedSchema);
-        }
+        final Schema updatedSchema = getOrBuildSchema(value.schema());
 
         final Struct updatedValue = new Struct(updatedSchema);
 
@@ -165,6 +162,27 @@ public abstract class ReplaceField<R extends ConnectRecord<R>> implements Transf
         return newRecord(record, updatedSchema, updatedValue);
     }
 
+    @Override
+    public StructProjection<R> projection(Schema schema) {
+        if (schema.type() != Schema.Type.STRUCT)
+            return null;
+        final Schema updatedSchema = getOrBuildSchema(schema);
+        final StructProjection.Builder<R> builder = StructProjection.builder(schema, updatedSchema);
+        for (Field field : updatedSchema.fields()) {
+            builder.copy(field.name(), reverseRenamed(field.name()));
+        }
+        return builder.build();
+    }
+
+    private Schema getOrBuildSchema(Schema schema) {
+        Schema updatedSchema = schemaUpdateCache.get(schema);
+        if (updatedSchema == null) {
+            updatedSchema = makeUpdatedSchema(schema);
+            schemaUpdateCache.put(schema, updatedSchema);
+        }
+        return updatedSchema;
+    }
+
     private Schema makeUpdatedSchema(Schema schema) {
         final SchemaBuilder builder = SchemaUtil.copySchemaBasics(schema, SchemaBuilder.struct());
         for (Field field : schema.fields()) {
@@ -193,6 +211,11 @@ public abstract class ReplaceField<R extends ConnectRecord<R>> implements Transf
 
     public static class Key<R extends ConnectRecord<R>> extends ReplaceField<R> {
 
+        @Override
+        public Operand operand() {
+            return Operand.KEY;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.keySchema();
@@ -212,6 +235,11 @@ public abstract class ReplaceField<R extends ConnectRecord<R>> implements Transf
 
     public static class Value<R extends ConnectRecord<R>> extends ReplaceField<R> {
 
+        @Override
+        public Operand operand() {
+            return Operand.VALUE;
+        }
+
         @Override
         protected Schema operatingSchema(R record) {
             return record.valueSchema();
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.transforms;
+
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.transforms.util.StructProjection;
+
+/**
+ * A transformation that rewrites the fields of a struct key or value, and can describe that rewrite for a given
+ * schema as a {@link StructProjection}. The framework may fuse the projections of consecutive such transformations
+ * and apply them in a single pass instead of calling {@link #apply} on each of them; the result must be the same.
+ */
+public interface StructProjectingTransformation<R extends ConnectRecord<R>> extends Transformation<R> {
+
+    enum Operand {
+        KEY, VALUE
+    }
+
+    /**
+     * @return whether the transformation rewrites the key or the value of records
+     */
+    Operand operand();
+
+    /**
+     * Describe the effect of this transformation on a struct with the given schema.
+     *
+     * @param schema the schema of the struct; never null
+     * @return the projection, or null if the effect on such structs cannot be described as a projection
+     */
+    StructProjection<R> projection(Schema schema);
+}
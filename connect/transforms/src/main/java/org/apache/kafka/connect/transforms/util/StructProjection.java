@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.transforms.util;
+
+import org.apache.kafka.connect.connector.ConnectRecord;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A precompiled rewrite of a struct with a given input schema into a struct with a given output schema. Each output
+ * field is either copied from an input field, optionally converting its value, or computed from the record.
+ * <p>
+ * Projections of consecutive transformations can be {@link #andThen(StructProjection) fused}, so that the struct is
+ * rewritten in a single pass without building the intermediate structs and schemas for every record.
+ */
+public final class StructProjection<R extends ConnectRecord<R>> {
+
+    private final Schema inputSchema;
+    private final Schema schema;
+    private final Field[] outputFields;
+    private final FieldSource<R>[] sources;
+
+    private StructProjection(Schema inputSchema, Schema schema, FieldSource<R>[] sources) {
+        this.inputSchema = inputSchema;
+        this.schema = schema;
+        this.outputFields = schema.fields().toArray(new Field[0]);
+        this.sources = sources;
+    }
+
+    /**
+     * Start building the projection of structs with the given input schema into structs with the given output schema.
+     * Every output field must be defined exactly once.
+     */
+    public static <R extends ConnectRecord<R>> Builder<R> builder(Schema inputSchema, Schema outputSchema) {
+        return new Builder<>(inputSchema, outputSchema);
+    }
+
+    /**
+     * @return the schema of the structs this projection is applied to
+     */
+    public Schema inputSchema() {
+        return inputSchema;
+    }
+
+    /**
+     * @return the schema of the structs this projection produces
+     */
+    public Schema schema() {
+        return schema;
+    }
+
+    /**
+     * Rewrite the given struct.
+     *
+     * @param input the struct to rewrite, which must have the {@link #inputSchema() input schema}
+     * @param record the record the struct belongs to
+     * @return the rewritten struct, which has the {@link #schema() output schema}
+     */
+    public Struct apply(Struct input, R record) {
+        final Struct result = new Struct(schema);
+        for (int i = 0; i < outputFields.length; i++) {
+            final FieldSource<R> source = sources[i];
+            Object value = source.inputField != null ? input.get(source.inputField) : source.recordValue.apply(record);
+            if (value == null) {
+                if (source.skipIfNull)
+                    continue;
+            } else if (source.conversion != null) {
+                value = source.conversion.apply(value);
+            }
+            result.put(outputFields[i], value);
+        }
+        return result;
+    }
+
+    /**
+     * Fuse this projection with one that is applied to its output.
+     *
+     * @param next the projection applied to the output of this one, built for this projection's {@link #schema()}
+     * @return a projection with the combined effect of this and the next projection
+     */
+    public StructProjection<R> andThen(StructProjection<R> next) {
+        if (next.inputSchema != schema)
+            throw new DataException("Projection does not apply to the output schema of this projection");
+        final FieldSource<R>[] fused = newSources(next.sources.length);
+        for (int i = 0; i < fused.length; i++) {
+            final FieldSource<R> outer = next.sources[i];
+            if (outer.inputField == null) {
+                fused[i] = outer;
+            } else {
+                final FieldSource<R> inner = sources[outer.inputField.index()];
+                fused[i] = new FieldSource<>(inner.inputField, inner.recordValue,
+                        compose(inner.conversion, outer.conversion), outer.skipIfNull);
+            }
+        }
+        return new StructProjection<>(inputSchema, next.schema, fused);
+    }
+
+    private static Function<Object, Object> compose(Function<Object, Object> first, Function<Object, Object> second) {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+        return value -> {
+            final Object converted = first.apply(value);
+            return converted == null ? null : second.apply(converted);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends ConnectRecord<R>> FieldSource<R>[] newSources(int length) {
+        return (FieldSource<R>[]) new FieldSource[length];
+    }
+
+    private static final class FieldSource<R> {
+        final Field inputField;
+        final Function<R, Object> recordValue;
+        final Function<Object, Object> conversion;
+        final boolean skipIfNull;
+
+        FieldSource(Field inputField, Function<R, Object> recordValue, Function<Object, Object> conversion, boolean skipIfNull) {
+            this.inputField = inputField;
+            this.recordValue = recordValue;
+            this.conversion = conversion;
+            this.skipIfNull = skipIfNull;
+        }
+    }
+
+    public static final class Builder<R extends ConnectRecord<R>> {
+        private final Schema inputSchema;
+        private final Schema outputSchema;
+        private final FieldSource<R>[] sources;
+
+        private Builder(Schema inputSchema, Schema outputSchema) {
+            this.inputSchema = inputSchema;
+            this.outputSchema = outputSchema;
+            this.sources = newSources(outputSchema.fields().size());
+        }
+
+        /**
+         * Copy the value of an input field.
+         */
+        public Builder<R> copy(String outputField, String inputField) {
+            return convert(outputField, inputField, null);
+        }
+
+        /**
+         * Copy the converted value of an input field. The conversion is not applied to null values.
+         */
+        public Builder<R> convert(String outputField, String inputField, Function<Object, Object> conversion) {
+            final Field field = inputSchema.field(inputField);
+            if (field == null)
+                throw new DataException(inputField + " is not a valid field name");
+            return define(outputField, new FieldSource<>(field, null, conversion, false));
+        }
+
+        /**
+         * Compute the value of a field from the record. The field is left unset when the value is null.
+         */
+        public Builder<R> insert(String outputField, Function<R, Object> recordValue) {
+            return define(outputField, new FieldSource<>(null, recordValue, null, true));
+        }
+
+        private Builder<R> define(String outputField, FieldSource<R> source) {
+            final Field field = outputSchema.field(outputField);
+            if (field == null)
+                throw new DataException(outputField + " is not a valid field name");
+            if (sources[field.index()] != null)
+                throw new DataException("Field " + outputField + " is defined more than once");
+            sources[field.index()] = source;
+            return this;
+        }
+
+        public StructProjection<R> build() {
+            final List<Field> fields = outputSchema.fields();
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] == null)
+                    throw new DataException("Field " + fields.get(i).name() + " is not defined");
+            }
+            return new StructProjection<>(inputSchema, outputSchema, sources);
+        }
+    }
+}
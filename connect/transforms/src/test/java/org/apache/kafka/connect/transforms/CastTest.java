@@ -26,6 +26,7 @@ import org.apache.kafka.connect.data.Timestamp;
 import org.apache.kafka.connect.data.Values;
 import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 import org.junit.After;
 import org.junit.Test;
 
@@ -419,4 +420,34 @@ public class CastTest {
         assertEquals(42, ((Map<String, Object>) transformed.value()).get("string"));
     }
 
+    @Test
+    public void castFieldsWithSchemaProjectionMatchesApply() {
+        xformValue.configure(Collections.singletonMap(Cast.SPEC_CONFIG, "int8:int16,string:int32,float64:boolean,optional:int32"));
+
+        Schema schema = SchemaBuilder.struct()
+                .field("int8", Schema.INT8_SCHEMA)
+                .field("string", Schema.STRING_SCHEMA)
+                .field("float64", SchemaBuilder.float64().defaultValue(-1.125).build())
+                .field("optional", Schema.OPTIONAL_FLOAT32_SCHEMA)
+                .field("untouched", Schema.INT64_SCHEMA)
+                .build();
+        Struct value = new Struct(schema)
+                .put("int8", (byte) 8)
+                .put("string", "42")
+                .put("untouched", 64L);
+        SourceRecord record = new SourceRecord(null, null, "topic", 0, schema, value);
+
+        StructProjection<SourceRecord> projection = xformValue.projection(schema);
+        SourceRecord transformed = xformValue.apply(record);
+        assertEquals(transformed.valueSchema(), projection.schema());
+        assertEquals(transformed.value(), projection.apply(value, record));
+    }
+
+    @Test
+    public void castWholeValueHasNoProjection() {
+        xformKey.configure(Collections.singletonMap(Cast.SPEC_CONFIG, "int8"));
+        assertNull(xformKey.projection(SchemaBuilder.struct().field("int8", Schema.INT8_SCHEMA).build()));
+        assertEquals(StructProjectingTransformation.Operand.KEY, xformKey.operand());
+    }
+
 }
@@ -22,14 +22,17 @@ import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Timestamp;
 import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 public class InsertFieldTest {
@@ -111,4 +114,29 @@ public class InsertFieldTest {
         assertEquals("my-instance-id", ((Map) transformedRecord.value()).get("instance_id"));
     }
 
+    @Test
+    public void projectionMatchesApply() {
+        final Map<String, Object> props = new HashMap<>();
+        props.put("topic.field", "topic_field!");
+        props.put("partition.field", "partition_field");
+        props.put("timestamp.field", "timestamp_field?");
+        props.put("static.field", "instance_id");
+        props.put("static.value", "my-instance-id");
+
+        xform.configure(props);
+
+        final Schema simpleStructSchema = SchemaBuilder.struct().name("name").version(1).doc("doc").field("magic", Schema.OPTIONAL_INT64_SCHEMA).build();
+        final Struct simpleStruct = new Struct(simpleStructSchema).put("magic", 42L);
+        final StructProjection<SourceRecord> projection = xform.projection(simpleStructSchema);
+
+        for (SourceRecord record : Arrays.asList(
+                new SourceRecord(null, null, "test", 0, null, null, simpleStructSchema, simpleStruct, 1000L),
+                new SourceRecord(null, null, "test", null, simpleStructSchema, simpleStruct))) {
+            final SourceRecord transformedRecord = xform.apply(record);
+            assertEquals(transformedRecord.valueSchema(), projection.schema());
+            assertEquals(transformedRecord.value(), projection.apply(simpleStruct, record));
+        }
+        assertNull(xform.projection(Schema.INT32_SCHEMA));
+    }
+
 }
@@ -20,6 +20,7 @@ import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.transforms.util.StructProjection;
 import org.junit.After;
 import org.junit.Test;
 
@@ -91,4 +92,28 @@ public class ReplaceFieldTest {
         assertEquals(true, updatedValue.getBoolean("bar"));
     }
 
+    @Test
+    public void projectionMatchesApply() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("blacklist", "dont");
+        props.put("renames", "abc:xyz");
+
+        xform.configure(props);
+
+        final Schema schema = SchemaBuilder.struct()
+                .field("dont", Schema.STRING_SCHEMA)
+                .field("abc", Schema.INT32_SCHEMA)
+                .field("etc", SchemaBuilder.string().defaultValue("default").build())
+                .build();
+
+        final Struct value = new Struct(schema).put("dont", "whatever").put("abc", 42);
+        final SinkRecord record = new SinkRecord("test", 0, null, null, schema, value, 0);
+
+        final StructProjection<SinkRecord> projection = xform.projection(schema);
+        final SinkRecord transformedRecord = xform.apply(record);
+        assertEquals(transformedRecord.valueSchema(), projection.schema());
+        assertEquals(transformedRecord.value(), projection.apply(value, record));
+        assertEquals(StructProjectingTransformation.Operand.VALUE, xform.operand());
+    }
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.connect.transforms.util;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StructProjectionTest {
+
+    private static final Schema INPUT_SCHEMA = SchemaBuilder.struct()
+            .field("id", Schema.INT64_SCHEMA)
+            .field("name", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    private static final Schema RENAMED_SCHEMA = SchemaBuilder.struct()
+            .field("key", Schema.INT64_SCHEMA)
+            .field("topic", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("partition", Schema.OPTIONAL_INT32_SCHEMA)
+            .build();
+
+    private static final Schema CAST_SCHEMA = SchemaBuilder.struct()
+            .field("key", Schema.STRING_SCHEMA)
+            .field("partition", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    private final SourceRecord record = new SourceRecord(null, null, "test", null, INPUT_SCHEMA, null);
+
+    @Test
+    public void shouldCopyConvertAndInsertFields() {
+        StructProjection<SourceRecord> projection = rename();
+
+        Struct result = projection.apply(new Struct(INPUT_SCHEMA).put("id", 42L), record);
+
+        assertEquals(RENAMED_SCHEMA, projection.schema());
+        assertEquals(new Struct(RENAMED_SCHEMA).put("key", 42L).put("topic", "test"), result);
+    }
+
+    @Test
+    public void shouldFuseWithProjectionOfOutput() {
+        StructProjection<SourceRecord> first = rename();
+        StructProjection<SourceRecord> second = StructProjection.<SourceRecord>builder(first.schema(), CAST_SCHEMA)
+                .convert("key", "key", value -> "#" + value)
+                .convert("partition", "partition", Object::toString)
+                .build();
+
+        StructProjection<SourceRecord> fused = first.andThen(second);
+        assertEquals(INPUT_SCHEMA, fused.inputSchema());
+        assertEquals(CAST_SCHEMA, fused.schema());
+
+        Struct input = new Struct(INPUT_SCHEMA).put("id", 42L);
+        assertEquals(second.apply(first.apply(input, record), record), fused.apply(input, record));
+        // The inserted partition is null, the conversion is skipped and the copied value stays unset
+        Struct result = fused.apply(input, record);
+        assertEquals("#42", result.get("key"));
+        assertNull(result.get("partition"));
+
+        SourceRecord withPartition = new SourceRecord(null, null, "test", 3, INPUT_SCHEMA, null);
+        assertEquals("3", fused.apply(input, withPartition).get("partition"));
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldNotFuseWithProjectionOfOtherSchema() {
+        StructProjection<SourceRecord> other = StructProjection.<SourceRecord>builder(INPUT_SCHEMA, INPUT_SCHEMA)
+                .copy("id", "id")
+                .copy("name", "name")
+                .build();
+        rename().andThen(other);
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldRequireAllFieldsToBeDefined() {
+        StructProjection.<SourceRecord>builder(INPUT_SCHEMA, RENAMED_SCHEMA)
+                .copy("key", "id")
+                .build();
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldNotDefineFieldTwice() {
+        StructProjection.<SourceRecord>builder(INPUT_SCHEMA, RENAMED_SCHEMA)
+                .copy("key", "id")
+                .copy("key", "id");
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldRejectUnknownInputField() {
+        StructProjection.<SourceRecord>builder(INPUT_SCHEMA, RENAMED_SCHEMA)
+                .copy("key", "unknown");
+    }
+
+    private static StructProjection<SourceRecord> rename() {
+        return StructProjection.<SourceRecord>builder(INPUT_SCHEMA, RENAMED_SCHEMA)
+                .copy("key", "id")
+                .insert("topic", SourceRecord::topic)
+                .insert("partition", SourceRecord::kafkaPartition)
+                .build();
+    }
+}
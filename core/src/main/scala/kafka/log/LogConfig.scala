@@ -26,7 +26,7 @@ import kafka.server.{KafkaConfig, ThrottledReplicaListValidator}
 import kafka.utils.Implicits._
 import org.apache.kafka.common.errors.InvalidConfigurationException
 import org.apache.kafka.common.config.{AbstractConfig, ConfigDef, TopicConfig}
-import org.apache.kafka.common.record.{LegacyRecord, TimestampType}
+import org.apache.kafka.common.record.{CompressionConfig, LegacyRecord, TimestampType}
 import org.apache.kafka.common.utils.Utils
 
 import scala.collection.{Map, mutable}
@@ -56,6 +56,8 @@ object Defaults {
   val UncleanLeaderElectionEnable = kafka.server.Defaults.UncleanLeaderElectionEnable
   val MinInSyncReplicas = kafka.server.Defaults.MinInSyncReplicas
   val CompressionType = kafka.server.Defaults.CompressionType
+  val CompressionLevel = kafka.server.Defaults.CompressionLevel
+  val CompressionZstdDictionaryId = kafka.server.Defaults.CompressionZstdDictionaryId
   val PreAllocateEnable = kafka.server.Defaults.LogPreAllocateEnable
   val MessageFormatVersion = kafka.server.Defaults.LogMessageFormatVersion
   val MessageTimestampType = kafka.server.Defaults.LogMessageTimestampType
@@ -98,6 +100,8 @@ case class LogConfig(props: java.util.Map[_, _], overriddenConfigs: Set[String]
   val LeaderReplicationThrottledReplicas = getList(LogConfig.LeaderReplicationThrottledReplicasProp)
   val FollowerReplicationThrottledReplicas = getList(LogConfig.FollowerReplicationThrottledReplicasProp)
   val messageDownConversionEnable = getBoolean(LogConfig.MessageDownConversionEnableProp)
+  val compressionLevel = getInt(LogConfig.CompressionLevelProp).intValue
+  val compressionZstdDictionaryId = getLong(LogConfig.CompressionZstdDictionaryIdProp).longValue
 
   def randomSegmentJitter: Long =
     if (segmentJitterMs == 0) 0 else Utils.abs(scala.util.Random.nextInt()) % math.min(segmentJitterMs, segmentMs)
@@ -129,6 +133,8 @@ object LogConfig {
   val UncleanLeaderElectionEnableProp = TopicConfig.UNCLEAN_LEADER_ELECTION_ENABLE_CONFIG
   val MinInSyncReplicasProp = TopicConfig.MIN_IN_SYNC_REPLICAS_CONFIG
   val CompressionTypeProp = TopicConfig.COMPRESSION_TYPE_CONFIG
+  val CompressionLevelProp = TopicConfig.COMPRESSION_LEVEL_CONFIG
+  val CompressionZstdDictionaryIdProp = TopicConfig.COMPRESSION_ZSTD_DICTIONARY_ID_CONFIG
   val PreAllocateEnableProp = TopicConfig.PREALLOCATE_CONFIG
   val MessageFormatVersionProp = TopicConfig.MESSAGE_FORMAT_VERSION_CONFIG
   val MessageTimestampTypeProp = TopicConfig.MESSAGE_TIMESTAMP_TYPE_CONFIG
@@ -162,6 +168,8 @@ object LogConfig {
   val MessageTimestampTypeDoc = TopicConfig.MESSAGE_TIMESTAMP_TYPE_DOC
   val MessageTimestampDifferenceMaxMsDoc = TopicConfig.MESSAGE_TIMESTAMP_DIFFERENCE_MAX_MS_DOC
   val MessageDownConversionEnableDoc = TopicConfig.MESSAGE_DOWNCONVERSION_ENABLE_DOC
+  val CompressionLevelDoc = TopicConfig.COMPRESSION_LEVEL_DOC
+  val CompressionZstdDictionaryIdDoc = TopicConfig.COMPRESSION_ZSTD_DICTIONARY_ID_DOC
 
   val LeaderReplicationThrottledReplicasDoc = "A list of replicas for which log replication should be throttled on " +
     "the leader side. The list should describe a set of replicas in the form " +
@@ -268,6 +276,10 @@ object LogConfig {
         FollowerReplicationThrottledReplicasDoc, FollowerReplicationThrottledReplicasProp)
       .define(MessageDownConversionEnableProp, BOOLEAN, Defaults.MessageDownConversionEnable, LOW,
         MessageDownConversionEnableDoc, KafkaConfig.LogMessageDownConversionEnableProp)
+      .define(CompressionZstdDictionaryIdProp, LONG, Defaults.CompressionZstdDictionaryId, between(0, 0xffffffffL), LOW,
+        CompressionZstdDictionaryIdDoc, KafkaConfig.CompressionZstdDictionaryIdProp)
+      .define(CompressionLevelProp, INT, Defaults.CompressionLevel, atLeast(CompressionConfig.DEFAULT_LEVEL), LOW,
+        CompressionLevelDoc, KafkaConfig.CompressionLevelProp)
   }
 
   def apply(): LogConfig = LogConfig(new Properties())
@@ -332,7 +344,9 @@ object LogConfig {
     MessageFormatVersionProp -> KafkaConfig.LogMessageFormatVersionProp,
     MessageTimestampTypeProp -> KafkaConfig.LogMessageTimestampTypeProp,
     MessageTimestampDifferenceMaxMsProp -> KafkaConfig.LogMessageTimestampDifferenceMaxMsProp,
-    MessageDownConversionEnableProp -> KafkaConfig.LogMessageDownConversionEnableProp
+    MessageDownConversionEnableProp -> KafkaConfig.LogMessageDownConversionEnableProp,
+    CompressionZstdDictionaryIdProp -> KafkaConfig.CompressionZstdDictionaryIdProp,
+    CompressionLevelProp -> KafkaConfig.CompressionLevelProp
   )
 
 }
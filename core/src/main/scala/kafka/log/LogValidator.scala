@@ -23,7 +23,7 @@ import kafka.common.LongRef
 import kafka.message.{CompressionCodec, NoCompressionCodec, ZStdCompressionCodec}
 import kafka.utils.Logging
 import org.apache.kafka.common.errors.{InvalidTimestampException, UnsupportedCompressionTypeException, UnsupportedForMessageFormatException}
-import org.apache.kafka.common.record.{AbstractRecords, CompressionType, InvalidRecordException, MemoryRecords, Record, RecordBatch, RecordConversionStats, TimestampType}
+import org.apache.kafka.common.record.{AbstractRecords, BufferSupplier, CompressionConfig, CompressionType, DefaultRecordBatch, InvalidRecordException, MemoryRecords, Record, RecordBatch, RecordConversionStats, TimestampType, ZstdDictionary}
 import org.apache.kafka.common.utils.Time
 
 import scala.collection.mutable
@@ -31,6 +31,11 @@ import scala.collection.JavaConverters._
 
 private[kafka] object LogValidator extends Logging {
 
+  // Decompression buffers are reused across the produce requests handled by each request handler thread
+  private val decompressionBufferSupplier = new ThreadLocal[BufferSupplier] {
+    override def initialValue(): BufferSupplier = BufferSupplier.create()
+  }
+
   /**
    * Update the offsets for this message set and do further validation on messages including:
    * 1. Messages for compacted topics must have keys
@@ -43,6 +48,8 @@ private[kafka] object LogValidator extends Logging {
    * conversion or value overwriting is required for messages, this method will perform in-place operations to
    * avoid expensive re-compression.
    *
+   * Records the broker compresses itself with zstd use the dictionary with the given id if it is registered.
+   *
    * Returns a ValidationAndOffsetAssignResult containing the validated message set, maximum timestamp, the offset
    * of the shallow message with the max timestamp and a boolean indicating whether the message sizes may have changed.
    */
@@ -58,7 +65,9 @@ private[kafka] object LogValidator extends Logging {
                                                       timestampDiffMaxMs: Long,
                                                       partitionLeaderEpoch: Int,
                                                       isFromClient: Boolean,
-                                                      interBrokerProtocolVersion: ApiVersion): ValidationAndOffsetAssignResult = {
+                                                      interBrokerProtocolVersion: ApiVersion,
+                                                      compressionLevel: Int = CompressionConfig.DEFAULT_LEVEL,
+                                                      zstdDictionaryId: Long = ZstdDictionary.NO_DICTIONARY_ID): ValidationAndOffsetAssignResult = {
     if (sourceCodec == NoCompressionCodec && targetCodec == NoCompressionCodec) {
       // check the magic value
       if (!records.hasMatchingMagic(magic))
@@ -70,7 +79,8 @@ private[kafka] object LogValidator extends Logging {
           partitionLeaderEpoch, isFromClient, magic)
     } else {
       validateMessagesAndAssignOffsetsCompressed(records, offsetCounter, time, now, sourceCodec, targetCodec, compactedTopic,
-        magic, timestampType, timestampDiffMaxMs, partitionLeaderEpoch, isFromClient, interBrokerProtocolVersion)
+        magic, timestampType, timestampDiffMaxMs, partitionLeaderEpoch, isFromClient, interBrokerProtocolVersion,
+        compressionLevel, zstdDictionaryId)
     }
   }
 
@@ -248,7 +258,9 @@ private[kafka] object LogValidator extends Logging {
                                                  timestampDiffMaxMs: Long,
                                                  partitionLeaderEpoch: Int,
                                                  isFromClient: Boolean,
-                                                 interBrokerProtocolVersion: ApiVersion): ValidationAndOffsetAssignResult = {
+                                                 interBrokerProtocolVersion: ApiVersion,
+                                                 compressionLevel: Int = CompressionConfig.DEFAULT_LEVEL,
+                                                 zstdDictionaryId: Long = ZstdDictionary.NO_DICTIONARY_ID): ValidationAndOffsetAssignResult = {
       // No in place assignment situation 1 and 2
       var inPlaceAssignment = sourceCodec == targetCodec && toMagic > RecordBatch.MAGIC_VALUE_V0
 
@@ -257,6 +269,8 @@ private[kafka] object LogValidator extends Logging {
       val validatedRecords = new mutable.ArrayBuffer[Record]
 
       var uncompressedSizeInBytes = 0
+      // Whether some records were validated without reading their keys, values and headers
+      var skippedKeyValues = false
 
       for (batch <- records.batches.asScala) {
         validateBatch(batch, isFromClient, toMagic)
@@ -266,29 +280,42 @@ private[kafka] object LogValidator extends Logging {
         if (sourceCodec == NoCompressionCodec && batch.isControlBatch)
           inPlaceAssignment = true
 
-        for (record <- batch.asScala) {
-          if (sourceCodec != NoCompressionCodec && record.isCompressed)
-            throw new InvalidRecordException("Compressed outer record should not have an inner record with a " +
-              s"compression attribute set: $record")
-          if (targetCodec == ZStdCompressionCodec && interBrokerProtocolVersion < KAFKA_2_1_IV0)
-            throw new UnsupportedCompressionTypeException("Produce requests to inter.broker.protocol.version < 2.1 broker " + "are not allowed to use ZStandard compression")
-          validateRecord(batch, record, now, timestampType, timestampDiffMaxMs, compactedTopic)
-
-          uncompressedSizeInBytes += record.sizeInBytes()
-          if (batch.magic > RecordBatch.MAGIC_VALUE_V0 && toMagic > RecordBatch.MAGIC_VALUE_V0) {
-            // Check if we need to overwrite offset
-            // No in place assignment situation 3
-            if (record.offset != expectedInnerOffset.getAndIncrement())
+        // As long as the batch can be written as is, its records are only validated, which does not need their keys,
+        // values and headers. Older records are always read whole, since their CRC has to be checked
+        val recordsIterator = batch match {
+          case defaultBatch: DefaultRecordBatch if inPlaceAssignment && toMagic >= RecordBatch.MAGIC_VALUE_V2 =>
+            skippedKeyValues = true
+            defaultBatch.skipKeyValueIterator(decompressionBufferSupplier.get)
+          case _ =>
+            batch.streamingIterator(decompressionBufferSupplier.get)
+        }
+        try {
+          for (record <- recordsIterator.asScala) {
+            if (sourceCodec != NoCompressionCodec && record.isCompressed)
+              throw new InvalidRecordException("Compressed outer record should not have an inner record with a " +
+                s"compression attribute set: $record")
+            if (targetCodec == ZStdCompressionCodec && interBrokerProtocolVersion < KAFKA_2_1_IV0)
+              throw new UnsupportedCompressionTypeException("Produce requests to inter.broker.protocol.version < 2.1 broker " + "are not allowed to use ZStandard compression")
+            validateRecord(batch, record, now, timestampType, timestampDiffMaxMs, compactedTopic)
+
+            uncompressedSizeInBytes += record.sizeInBytes()
+            if (batch.magic > RecordBatch.MAGIC_VALUE_V0 && toMagic > RecordBatch.MAGIC_VALUE_V0) {
+              // Check if we need to overwrite offset
+              // No in place assignment situation 3
+              if (record.offset != expectedInnerOffset.getAndIncrement())
+                inPlaceAssignment = false
+              if (record.timestamp > maxTimestamp)
+                maxTimestamp = record.timestamp
+            }
+
+            // No in place assignment situation 4
+            if (!record.hasMagic(toMagic))
               inPlaceAssignment = false
-            if (record.timestamp > maxTimestamp)
-              maxTimestamp = record.timestamp
-          }
-
-          // No in place assignment situation 4
-          if (!record.hasMagic(toMagic))
-            inPlaceAssignment = false
 
-          validatedRecords += record
+            validatedRecords += record
+          }
+        } finally {
+          recordsIterator.close()
         }
       }
 
@@ -300,8 +327,13 @@ private[kafka] object LogValidator extends Logging {
           val first = records.batches.asScala.head
           (first.producerId, first.producerEpoch, first.baseSequence, first.isTransactional)
         }
-        buildRecordsAndAssignOffsets(toMagic, offsetCounter, time, timestampType, CompressionType.forId(targetCodec.codec), now,
-          validatedRecords, producerId, producerEpoch, sequence, isTransactional, partitionLeaderEpoch, isFromClient,
+        // The records have to be read whole to be rebuilt if in place assignment turned out to be impossible only
+        // after some of them were validated without reading their keys and values
+        val recordsToBuild = if (skippedKeyValues) records.records.asScala.toBuffer else validatedRecords
+        val compressionConfig = targetCompressionConfig(CompressionType.forId(targetCodec.codec), compressionLevel,
+          zstdDictionaryId)
+        buildRecordsAndAssignOffsets(toMagic, offsetCounter, time, timestampType, compressionConfig, now,
+          recordsToBuild, producerId, producerEpoch, sequence, isTransactional, partitionLeaderEpoch, isFromClient,
           uncompressedSizeInBytes)
       } else {
         // we can update the batch only and write the compressed payload as is
@@ -328,11 +360,28 @@ private[kafka] object LogValidator extends Logging {
       }
   }
 
+  private def targetCompressionConfig(compressionType: CompressionType, compressionLevel: Int,
+                                      zstdDictionaryId: Long): CompressionConfig = {
+    // The level of a topic applies to whichever codec the batches end up with, so it may not suit all of them
+    val level = if (compressionType.isValidLevel(compressionLevel)) compressionLevel else {
+      debug(s"Compressing at the default level since ${compressionType.name} does not support level $compressionLevel")
+      CompressionConfig.DEFAULT_LEVEL
+    }
+    if (compressionType != CompressionType.ZSTD || zstdDictionaryId == ZstdDictionary.NO_DICTIONARY_ID)
+      CompressionConfig.of(compressionType, level)
+    else {
+      val dictionary = ZstdDictionary.registered(zstdDictionaryId)
+      if (dictionary == null)
+        debug(s"Compressing without a dictionary since the zstd dictionary $zstdDictionaryId is not registered")
+      CompressionConfig.zstd(dictionary, level)
+    }
+  }
+
   private def buildRecordsAndAssignOffsets(magic: Byte,
                                            offsetCounter: LongRef,
                                            time: Time,
                                            timestampType: TimestampType,
-                                           compressionType: CompressionType,
+                                           compressionConfig: CompressionConfig,
                                            logAppendTime: Long,
                                            validatedRecords: Seq[Record],
                                            producerId: Long,
@@ -343,10 +392,10 @@ private[kafka] object LogValidator extends Logging {
                                            isFromClient: Boolean,
                                            uncompresssedSizeInBytes: Int): ValidationAndOffsetAssignResult = {
     val startNanos = time.nanoseconds
-    val estimatedSize = AbstractRecords.estimateSizeInBytes(magic, offsetCounter.value, compressionType,
+    val estimatedSize = AbstractRecords.estimateSizeInBytes(magic, offsetCounter.value, compressionConfig.`type`,
       validatedRecords.asJava)
     val buffer = ByteBuffer.allocate(estimatedSize)
-    val builder = MemoryRecords.builder(buffer, magic, compressionType, timestampType, offsetCounter.value,
+    val builder = MemoryRecords.builder(buffer, magic, compressionConfig, timestampType, offsetCounter.value,
       logAppendTime, producerId, producerEpoch, baseSequence, isTransactional, partitionLeaderEpoch)
 
     validatedRecords.foreach { record =>
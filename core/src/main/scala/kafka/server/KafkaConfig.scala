@@ -34,7 +34,7 @@ import org.apache.kafka.common.config.internals.BrokerSecurityConfigs
 import org.apache.kafka.common.config.{AbstractConfig, ConfigDef, ConfigException, SaslConfigs, SslConfigs, TopicConfig}
 import org.apache.kafka.common.metrics.Sensor
 import org.apache.kafka.common.network.ListenerName
-import org.apache.kafka.common.record.{LegacyRecord, Records, TimestampType}
+import org.apache.kafka.common.record.{CompressionConfig, LegacyRecord, Records, TimestampType}
 import org.apache.kafka.common.security.auth.SecurityProtocol
 import org.apache.kafka.common.utils.Utils
 
@@ -196,6 +196,8 @@ object Defaults {
   val DeleteTopicEnable = true
 
   val CompressionType = "producer"
+  val CompressionLevel = CompressionConfig.DEFAULT_LEVEL
+  val CompressionZstdDictionaryId = 0L
 
   val MaxIdMapSnapshots = 2
   /** ********* Kafka Metrics Configuration ***********/
@@ -415,6 +417,9 @@ object KafkaConfig {
 
   val DeleteTopicEnableProp = "delete.topic.enable"
   val CompressionTypeProp = "compression.type"
+  val CompressionLevelProp = "compression.level"
+  val CompressionZstdDictionariesProp = "compression.zstd.dictionaries"
+  val CompressionZstdDictionaryIdProp = "compression.zstd.dictionary.id"
 
   /** ********* Kafka Metrics Configuration ***********/
   val MetricSampleWindowMsProp = CommonClientConfigs.METRICS_SAMPLE_WINDOW_MS_CONFIG
@@ -748,6 +753,10 @@ object KafkaConfig {
   val CompressionTypeDoc = "Specify the final compression type for a given topic. This configuration accepts the standard compression codecs " +
   "('gzip', 'snappy', 'lz4', 'zstd'). It additionally accepts 'uncompressed' which is equivalent to no compression; and " +
   "'producer' which means retain the original compression codec set by the producer."
+  val CompressionLevelDoc = TopicConfig.COMPRESSION_LEVEL_DOC
+  val CompressionZstdDictionariesDoc = "The paths of the zstd dictionaries the broker can decompress and compress batches with. " +
+  "Batches compressed by producers with a dictionary that is not listed here are rejected."
+  val CompressionZstdDictionaryIdDoc = TopicConfig.COMPRESSION_ZSTD_DICTIONARY_ID_DOC
 
   /** ********* Kafka Metrics Configuration ***********/
   val MetricSampleWindowMsDoc = CommonClientConfigs.METRICS_SAMPLE_WINDOW_MS_DOC
@@ -974,6 +983,11 @@ object KafkaConfig {
       .define(OffsetCommitRequiredAcksProp, SHORT, Defaults.OffsetCommitRequiredAcks, HIGH, OffsetCommitRequiredAcksDoc)
       .define(DeleteTopicEnableProp, BOOLEAN, Defaults.DeleteTopicEnable, HIGH, DeleteTopicEnableDoc)
       .define(CompressionTypeProp, STRING, Defaults.CompressionType, HIGH, CompressionTypeDoc)
+      .define(CompressionLevelProp, INT, Defaults.CompressionLevel, atLeast(CompressionConfig.DEFAULT_LEVEL), LOW,
+        CompressionLevelDoc)
+      .define(CompressionZstdDictionariesProp, LIST, Collections.emptyList(), LOW, CompressionZstdDictionariesDoc)
+      .define(CompressionZstdDictionaryIdProp, LONG, Defaults.CompressionZstdDictionaryId, between(0, 0xffffffffL), LOW,
+        CompressionZstdDictionaryIdDoc)
 
       /** ********* Transaction management configuration ***********/
       .define(TransactionalIdExpirationMsProp, INT, Defaults.TransactionalIdExpirationMs, atLeast(1), HIGH, TransactionalIdExpirationMsDoc)
@@ -1326,6 +1340,9 @@ class KafkaConfig(val props: java.util.Map[_, _], doLog: Boolean, dynamicConfigO
 
   val deleteTopicEnable = getBoolean(KafkaConfig.DeleteTopicEnableProp)
   def compressionType = getString(KafkaConfig.CompressionTypeProp)
+  def compressionLevel: java.lang.Integer = getInt(KafkaConfig.CompressionLevelProp)
+  def compressionZstdDictionaries = getList(KafkaConfig.CompressionZstdDictionariesProp)
+  def compressionZstdDictionaryId: java.lang.Long = getLong(KafkaConfig.CompressionZstdDictionaryIdProp)
 
   def addReconfigurable(reconfigurable: Reconfigurable): Unit = {
     dynamicConfig.addReconfigurable(reconfigurable)
@@ -77,6 +77,7 @@ class LogConfigTest {
       case LogConfig.MinCleanableDirtyRatioProp => assertPropertyInvalid(name, "not_a_number", "-0.1", "1.2")
       case LogConfig.MinInSyncReplicasProp => assertPropertyInvalid(name, "not_a_number", "0", "-1")
       case LogConfig.MessageFormatVersionProp => assertPropertyInvalid(name, "")
+      case LogConfig.CompressionLevelProp => assertPropertyInvalid(name, "not_a_number", "-2")
       case _ => assertPropertyInvalid(name, "not_a_number", "-1")
     })
   }
@@ -19,12 +19,14 @@ package kafka.log
 import java.nio.ByteBuffer
 import java.util.concurrent.TimeUnit
 
+import com.github.luben.zstd.Zstd
+
 import kafka.api.{ApiVersion, KAFKA_2_0_IV1}
 import kafka.common.LongRef
 import kafka.message._
 import org.apache.kafka.common.errors.{InvalidTimestampException, UnsupportedCompressionTypeException, UnsupportedForMessageFormatException}
 import org.apache.kafka.common.record._
-import org.apache.kafka.common.utils.Time
+import org.apache.kafka.common.utils.{Time, Utils}
 import org.apache.kafka.test.TestUtils
 import org.junit.Assert._
 import org.junit.Test
@@ -1066,6 +1068,135 @@ class LogValidatorTest {
       interBrokerProtocolVersion = ApiVersion.latestVersion)
   }
 
+  @Test
+  def testRecompressionAfterNonConsecutiveInnerOffsetsV2(): Unit = {
+    val buf = ByteBuffer.allocate(512)
+    val builder = MemoryRecords.builder(buf, RecordBatch.MAGIC_VALUE_V2, CompressionType.GZIP, TimestampType.CREATE_TIME, 0L)
+    builder.appendWithOffset(0, 1234L, "a".getBytes, "hello".getBytes)
+    builder.appendWithOffset(2, 1234L, "b".getBytes, "there".getBytes)
+    builder.appendWithOffset(3, 1234L, null, "beautiful".getBytes)
+    val records = builder.build()
+
+    // The gap in the inner offsets is only found after the first record was validated without reading its key
+    // and value, but all of them have to be rebuilt
+    val offset = 1234567
+    val validatedResults = LogValidator.validateMessagesAndAssignOffsets(records,
+      offsetCounter = new LongRef(offset),
+      time = time,
+      now = System.currentTimeMillis(),
+      sourceCodec = DefaultCompressionCodec,
+      targetCodec = DefaultCompressionCodec,
+      compactedTopic = false,
+      magic = RecordBatch.MAGIC_VALUE_V2,
+      timestampType = TimestampType.CREATE_TIME,
+      timestampDiffMaxMs = Long.MaxValue,
+      partitionLeaderEpoch = RecordBatch.NO_PARTITION_LEADER_EPOCH,
+      isFromClient = false,
+      interBrokerProtocolVersion = ApiVersion.latestVersion)
+
+    assertTrue("Message size should have been changed", validatedResults.messageSizeMaybeChanged)
+    val validatedRecords = validatedResults.validatedRecords
+    checkOffsets(validatedRecords, offset)
+    assertEquals(Seq("hello", "there", "beautiful"),
+      validatedRecords.records.asScala.map(record => Utils.utf8(record.value)).toSeq)
+    assertEquals(Seq("a", "b", null),
+      validatedRecords.records.asScala.map(record => if (record.hasKey) Utils.utf8(record.key) else null).toSeq)
+  }
+
+  @Test
+  def testRecompressionWithZstdDictionary(): Unit = {
+    val values = (0 until 1000).map(i => s"""{"event":"view","userId":${i * 7919 % 10000},"page":"/products/${i % 50}"}""")
+    val dictionary = ZstdDictionary.register(ZstdDictionary.train(values.map(_.getBytes).asJava, 4 * 1024))
+
+    def validate(zstdDictionaryId: Long): MemoryRecords = {
+      val records = MemoryRecords.withRecords(RecordBatch.MAGIC_VALUE_V2, 0L, CompressionType.GZIP,
+        values.take(10).map(value => new SimpleRecord(1234L, value.getBytes)): _*)
+      LogValidator.validateMessagesAndAssignOffsets(records,
+        offsetCounter = new LongRef(0),
+        time = time,
+        now = System.currentTimeMillis(),
+        sourceCodec = GZIPCompressionCodec,
+        targetCodec = ZStdCompressionCodec,
+        compactedTopic = false,
+        magic = RecordBatch.MAGIC_VALUE_V2,
+        timestampType = TimestampType.CREATE_TIME,
+        timestampDiffMaxMs = Long.MaxValue,
+        partitionLeaderEpoch = RecordBatch.NO_PARTITION_LEADER_EPOCH,
+        isFromClient = true,
+        interBrokerProtocolVersion = ApiVersion.latestVersion,
+        zstdDictionaryId = zstdDictionaryId).validatedRecords
+    }
+
+    def frameDictionaryId(records: MemoryRecords): Long = {
+      val buffer = records.buffer
+      buffer.position(DefaultRecordBatch.RECORD_BATCH_OVERHEAD)
+      Zstd.getDictIdFromFrame(Utils.toArray(buffer))
+    }
+
+    val withDictionary = validate(dictionary.id)
+    assertEquals(dictionary.id, frameDictionaryId(withDictionary))
+    assertEquals(values.take(10), withDictionary.records.asScala.map(record => Utils.utf8(record.value)).toSeq)
+
+    // The broker compresses without a dictionary if the one of the topic is not registered
+    val withUnknownDictionary = validate(dictionary.id + 1)
+    assertEquals(ZstdDictionary.NO_DICTIONARY_ID, frameDictionaryId(withUnknownDictionary))
+    assertEquals(values.take(10), withUnknownDictionary.records.asScala.map(record => Utils.utf8(record.value)).toSeq)
+  }
+
+  @Test
+  def testRecompressionWithCompressionLevel(): Unit = {
+    val values = (0 until 500).map(i => s"""{"event":"view","userId":${i * 7919 % 10000},"page":"/products/${i % 50}"}""")
+
+    def validate(compressionLevel: Int): MemoryRecords = {
+      val records = MemoryRecords.withRecords(RecordBatch.MAGIC_VALUE_V2, 0L, CompressionType.NONE,
+        values.map(value => new SimpleRecord(1234L, value.getBytes)): _*)
+      LogValidator.validateMessagesAndAssignOffsets(records,
+        offsetCounter = new LongRef(0),
+        time = time,
+        now = System.currentTimeMillis(),
+        sourceCodec = NoCompressionCodec,
+        targetCodec = GZIPCompressionCodec,
+        compactedTopic = false,
+        magic = RecordBatch.MAGIC_VALUE_V2,
+        timestampType = TimestampType.CREATE_TIME,
+        timestampDiffMaxMs = Long.MaxValue,
+        partitionLeaderEpoch = RecordBatch.NO_PARTITION_LEADER_EPOCH,
+        isFromClient = true,
+        interBrokerProtocolVersion = ApiVersion.latestVersion,
+        compressionLevel = compressionLevel).validatedRecords
+    }
+
+    val fastest = validate(1)
+    val smallest = validate(9)
+    assertTrue(s"Level 9 should compress better than level 1, but got ${smallest.sizeInBytes} and ${fastest.sizeInBytes} bytes",
+      smallest.sizeInBytes < fastest.sizeInBytes)
+    assertEquals(values, smallest.records.asScala.map(record => Utils.utf8(record.value)).toSeq)
+
+    // A level the codec does not support falls back to the default level of the codec
+    assertEquals(validate(CompressionConfig.DEFAULT_LEVEL).sizeInBytes, validate(20).sizeInBytes)
+  }
+
+  @Test(expected = classOf[InvalidRecordException])
+  def testCompressedRecordWithoutKeyNotAllowedInCompactedTopicV2(): Unit = {
+    val buf = ByteBuffer.allocate(512)
+    val builder = MemoryRecords.builder(buf, RecordBatch.MAGIC_VALUE_V2, CompressionType.GZIP, TimestampType.CREATE_TIME, 0L)
+    builder.appendWithOffset(0, 1234L, "a".getBytes, "hello".getBytes)
+    builder.appendWithOffset(1, 1234L, null, "there".getBytes)
+    LogValidator.validateMessagesAndAssignOffsets(builder.build(),
+      offsetCounter = new LongRef(0),
+      time = time,
+      now = System.currentTimeMillis(),
+      sourceCodec = DefaultCompressionCodec,
+      targetCodec = DefaultCompressionCodec,
+      compactedTopic = true,
+      magic = RecordBatch.MAGIC_VALUE_V2,
+      timestampType = TimestampType.LOG_APPEND_TIME,
+      timestampDiffMaxMs = Long.MaxValue,
+      partitionLeaderEpoch = RecordBatch.NO_PARTITION_LEADER_EPOCH,
+      isFromClient = true,
+      interBrokerProtocolVersion = ApiVersion.latestVersion)
+  }
+
   @Test(expected = classOf[InvalidRecordException])
   def testCompressedBatchWithoutRecordsNotAllowed(): Unit = {
     testBatchWithoutRecordsNotAllowed(DefaultCompressionCodec, DefaultCompressionCodec)
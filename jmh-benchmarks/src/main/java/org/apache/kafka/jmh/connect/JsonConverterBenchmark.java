@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.jmh.connect;
+
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.json.JsonConverter;
+import org.apache.kafka.connect.json.JsonConverterConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree based and the streaming conversion of {@link JsonConverter} for a typical record with a
+ * nested struct, an array and a map, with and without schemas in the serialized JSON.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonConverterBenchmark {
+
+    private static final String TOPIC = "topic";
+
+    private static final Schema ADDRESS_SCHEMA = SchemaBuilder.struct().name("address")
+            .field("street", Schema.STRING_SCHEMA)
+            .field("city", Schema.STRING_SCHEMA)
+            .field("zip", Schema.OPTIONAL_INT32_SCHEMA)
+            .build();
+
+    private static final Schema RECORD_SCHEMA = SchemaBuilder.struct().name("customer")
+            .field("id", Schema.INT64_SCHEMA)
+            .field("name", Schema.STRING_SCHEMA)
+            .field("active", Schema.BOOLEAN_SCHEMA)
+            .field("score", Schema.FLOAT64_SCHEMA)
+            .field("balance", Decimal.schema(2))
+            .field("updated", Timestamp.SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .field("counters", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.INT32_SCHEMA).build())
+            .field("address", ADDRESS_SCHEMA)
+            .build();
+
+    @Param(value = {"false", "true"})
+    private boolean streaming;
+
+    @Param(value = {"true", "false"})
+    private boolean schemasEnabled;
+
+    private JsonConverter converter;
+    private Struct record;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(JsonConverterConfig.STREAMING_ENABLE_CONFIG, streaming);
+        props.put(JsonConverterConfig.SCHEMAS_ENABLE_CONFIG, schemasEnabled);
+        converter = new JsonConverter();
+        converter.configure(props, false);
+
+        List<String> tags = new ArrayList<>();
+        Map<String, Integer> counters = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tags.add("tag-" + i);
+            counters.put("counter-" + i, i * 1000);
+        }
+        record = new Struct(RECORD_SCHEMA)
+                .put("id", 123456789L)
+                .put("name", "Jane Doe")
+                .put("active", true)
+                .put("score", 0.87)
+                .put("balance", new BigDecimal("1234.56"))
+                .put("updated", new Date(1554120000000L))
+                .put("tags", tags)
+                .put("counters", counters)
+                .put("address", new Struct(ADDRESS_SCHEMA)
+                        .put("street", "1 Main Street")
+                        .put("city", "Springfield")
+                        .put("zip", 12345));
+        serialized = converter.fromConnectData(TOPIC, RECORD_SCHEMA, record);
+    }
+
+    @Benchmark
+    public byte[] fromConnectData() {
+        return converter.fromConnectData(TOPIC, RECORD_SCHEMA, record);
+    }
+
+    @Benchmark
+    public SchemaAndValue toConnectData() {
+        return converter.toConnectData(TOPIC, serialized);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JsonConverterBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.jmh.record;
+
+import org.apache.kafka.common.record.CompressionConfig;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures the throughput of compressing a batch of JSON like records per codec and compression level. The resulting
+ * compression ratio of each combination is printed when the benchmark is set up, since it does not change between
+ * iterations, e.g. to pick the level of topics kept for a long time or of busy topics.
+ *
+ * The levels of the matrix are valid for all of gzip, lz4 and zstd, others can be run with e.g. {@code -p level=19}.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CompressionLevelBenchmark {
+
+    private static final int BATCH_SIZE = 16 * 1024;
+
+    @Param(value = {"GZIP", "LZ4", "ZSTD"})
+    private CompressionType compressionType = CompressionType.ZSTD;
+
+    @Param(value = {"1", "3", "6", "9"})
+    private int level = CompressionConfig.DEFAULT_LEVEL;
+
+    @Param(value = {"100", "1000"})
+    private int messageSize = 100;
+
+    private CompressionConfig compressionConfig;
+    private byte[][] values;
+
+    @Setup
+    public void init() {
+        compressionConfig = CompressionConfig.of(compressionType, level);
+        Random random = new Random(0);
+        values = new byte[Math.max(1, BATCH_SIZE / messageSize)][];
+        for (int i = 0; i < values.length; i++)
+            values[i] = value(random);
+
+        int uncompressedSize = build(CompressionConfig.NONE).sizeInBytes();
+        int compressedSize = build(compressionConfig).sizeInBytes();
+        System.out.println(String.format(Locale.ROOT, "%n%s: %d records of %d bytes compressed from %d to %d bytes, ratio %.2f",
+                compressionConfig, values.length, messageSize, uncompressedSize, compressedSize,
+                (double) uncompressedSize / compressedSize));
+    }
+
+    private byte[] value(Random random) {
+        StringBuilder value = new StringBuilder();
+        while (value.length() < messageSize)
+            value.append("{\"event\":\"view\",\"userId\":").append(random.nextInt(100000))
+                .append(",\"page\":\"/products/").append(random.nextInt(500))
+                .append("\",\"durationMs\":").append(random.nextInt(10000)).append('}');
+        return value.substring(0, messageSize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private MemoryRecords build(CompressionConfig compressionConfig) {
+        MemoryRecordsBuilder builder = MemoryRecords.builder(ByteBuffer.allocate(BATCH_SIZE), RecordBatch.CURRENT_MAGIC_VALUE,
+                compressionConfig, TimestampType.CREATE_TIME, 0L);
+        for (byte[] value : values)
+            builder.append(0L, null, value);
+        return builder.build();
+    }
+
+    @Benchmark
+    public MemoryRecords measureCompressBatch() {
+        return build(compressionConfig);
+    }
+}
@@ -883,6 +883,7 @@ public class KafkaStreams implements AutoCloseable {
                     globalStreamThread = null;
                 }
 
+                stateDirectory.close();
                 adminClient.close();
 
                 metrics.close();
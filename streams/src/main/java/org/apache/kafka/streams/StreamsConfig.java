@@ -392,6 +392,14 @@ public class StreamsConfig extends AbstractConfig {
     public static final String POLL_MS_CONFIG = "poll.ms";
     private static final String POLL_MS_DOC = "The amount of time in milliseconds to block waiting for input.";
 
+    /** {@code processing.batch.size} */
+    @SuppressWarnings("WeakerAccess")
+    public static final String PROCESSING_BATCH_SIZE_CONFIG = "processing.batch.size";
+    private static final String PROCESSING_BATCH_SIZE_DOC = "The maximum number of records a stateless task, i.e., a task without state stores, processes in a row " +
+        "before its stream thread moves on to the next task and checks whether it needs to commit, punctuate or poll. " +
+        "The default of 1 processes one record per task at a time; larger values reduce the per-record overhead of stateless topologies. " +
+        "Tasks with state stores always process one record at a time.";
+
     /** {@code processing.guarantee} */
     @SuppressWarnings("WeakerAccess")
     public static final String PROCESSING_GUARANTEE_CONFIG = "processing.guarantee";
@@ -451,6 +459,20 @@ public class StreamsConfig extends AbstractConfig {
     public static final String STATE_DIR_CONFIG = "state.dir";
     private static final String STATE_DIR_DOC = "Directory location for state store.";
 
+    /** {@code state.snapshot.dir} */
+    @SuppressWarnings("WeakerAccess")
+    public static final String STATE_SNAPSHOT_DIR_CONFIG = "state.snapshot.dir";
+    private static final String STATE_SNAPSHOT_DIR_DOC = "Directory location for periodic snapshots of persistent state stores, together with their changelog offsets. " +
+        "The directory may be local or a mount shared between instances. A task whose local state is missing is seeded from the newest snapshot and only restores the remaining changelog tail. " +
+        "Stores are checkpointed next to their local state on commit and copied into this directory in the background. " +
+        "Snapshots are disabled if not set.";
+
+    /** {@code state.snapshot.interval.ms} */
+    @SuppressWarnings("WeakerAccess")
+    public static final String STATE_SNAPSHOT_INTERVAL_MS_CONFIG = "state.snapshot.interval.ms";
+    private static final String STATE_SNAPSHOT_INTERVAL_MS_DOC = "The minimum amount of time in milliseconds between two state snapshots of a task. " +
+        "Snapshots are taken on commit, so the effective interval is also bounded by <code>" + COMMIT_INTERVAL_MS_CONFIG + "</code>. Only used if <code>" + STATE_SNAPSHOT_DIR_CONFIG + "</code> is set.";
+
     /** {@code topology.optimization} */
     public static final String TOPOLOGY_OPTIMIZATION = "topology.optimization";
     private static final String TOPOLOGY_OPTIMIZATION_DOC = "A configuration telling Kafka Streams if it should optimize the topology, disabled by default";
@@ -629,6 +651,12 @@ public class StreamsConfig extends AbstractConfig {
                     100L,
                     Importance.LOW,
                     POLL_MS_DOC)
+            .define(PROCESSING_BATCH_SIZE_CONFIG,
+                    Type.INT,
+                    1,
+                    atLeast(1),
+                    Importance.LOW,
+                    PROCESSING_BATCH_SIZE_DOC)
             .define(RECEIVE_BUFFER_CONFIG,
                     Type.INT,
                     32 * 1024,
@@ -681,6 +709,17 @@ public class StreamsConfig extends AbstractConfig {
                     10 * 60 * 1000L,
                     Importance.LOW,
                     STATE_CLEANUP_DELAY_MS_DOC)
+            .define(STATE_SNAPSHOT_DIR_CONFIG,
+                    Type.STRING,
+                    null,
+                    Importance.LOW,
+                    STATE_SNAPSHOT_DIR_DOC)
+            .define(STATE_SNAPSHOT_INTERVAL_MS_CONFIG,
+                    Type.LONG,
+                    10 * 60 * 1000L,
+                    atLeast(0),
+                    Importance.LOW,
+                    STATE_SNAPSHOT_INTERVAL_MS_DOC)
             .define(UPGRADE_FROM_CONFIG,
                     ConfigDef.Type.STRING,
                     null,
@@ -225,6 +225,8 @@ public abstract class AbstractTask implements Task {
         }
         log.trace("Initializing state stores");
 
+        stateMgr.maybeSeedFromSnapshot();
+
         // set initial offset limits
         updateOffsetLimits();
 
@@ -196,8 +196,8 @@ class AssignedStreamsTasks extends AssignedTasks<StreamTask> implements Restorin
         while (it.hasNext()) {
             final StreamTask task = it.next().getValue();
             try {
-                if (task.isProcessable(now) && task.process()) {
-                    processed++;
+                if (task.isProcessable(now)) {
+                    processed += task.process();
                 }
             } catch (final TaskMigratedException e) {
                 log.info("Failed to process stream task {} since it got migrated to another thread already. " +
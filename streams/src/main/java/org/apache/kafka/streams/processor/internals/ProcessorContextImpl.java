@@ -16,6 +16,7 @@
  */
 package org.apache.kafka.streams.processor.internals;
 
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.errors.StreamsException;
@@ -245,12 +246,23 @@ public class ProcessorContextImpl extends AbstractProcessorContext implements Re
             return wrapped().get(key);
         }
 
+        @Override
+        public List<V> getAll(final List<K> keys) {
+            return wrapped().getAll(keys);
+        }
+
         @Override
         public KeyValueIterator<K, V> range(final K from,
                                             final K to) {
             return wrapped().range(from, to);
         }
 
+        @Override
+        public <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix,
+                                                                              final PS prefixKeySerializer) {
+            return wrapped().prefixScan(prefix, prefixKeySerializer);
+        }
+
         @Override
         public KeyValueIterator<K, V> all() {
             return wrapped().all();
@@ -424,12 +436,23 @@ public class ProcessorContextImpl extends AbstractProcessorContext implements Re
             return wrapped().get(key);
         }
 
+        @Override
+        public List<V> getAll(final List<K> keys) {
+            return wrapped().getAll(keys);
+        }
+
         @Override
         public KeyValueIterator<K, V> range(final K from,
                                             final K to) {
             return wrapped().range(from, to);
         }
 
+        @Override
+        public <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix,
+                                                                              final PS prefixKeySerializer) {
+            return wrapped().prefixScan(prefix, prefixKeySerializer);
+        }
+
         @Override
         public KeyValueIterator<K, V> all() {
             return wrapped().all();
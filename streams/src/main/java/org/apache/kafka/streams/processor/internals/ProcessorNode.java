@@ -113,15 +113,24 @@ public class ProcessorNode<K, V> {
 
 
     public void process(final K key, final V value) {
-        final long startNs = time.nanoseconds();
-        processor.process(key, value);
-        nodeMetrics.nodeProcessTimeSensor.record(time.nanoseconds() - startNs);
+        // node-level sensors are recorded at debug level only, so avoid reading the clock per record otherwise
+        if (nodeMetrics.nodeProcessTimeSensor.shouldRecord()) {
+            final long startNs = time.nanoseconds();
+            processor.process(key, value);
+            nodeMetrics.nodeProcessTimeSensor.record(time.nanoseconds() - startNs);
+        } else {
+            processor.process(key, value);
+        }
     }
 
     public void punctuate(final long timestamp, final Punctuator punctuator) {
-        final long startNs = time.nanoseconds();
-        punctuator.punctuate(timestamp);
-        nodeMetrics.nodePunctuateTimeSensor.record(time.nanoseconds() - startNs);
+        if (nodeMetrics.nodePunctuateTimeSensor.shouldRecord()) {
+            final long startNs = time.nanoseconds();
+            punctuator.punctuate(timestamp);
+            nodeMetrics.nodePunctuateTimeSensor.record(time.nanoseconds() - startNs);
+        } else {
+            punctuator.punctuate(timestamp);
+        }
     }
 
     /**
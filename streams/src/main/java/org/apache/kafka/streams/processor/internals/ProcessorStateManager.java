@@ -26,6 +26,8 @@ import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.TaskId;
 import org.apache.kafka.streams.state.internals.OffsetCheckpoint;
 import org.apache.kafka.streams.state.internals.RecordConverter;
+import org.apache.kafka.streams.state.internals.SnapshottableStore;
+import org.apache.kafka.streams.state.internals.WrappedStateStore;
 import org.slf4j.Logger;
 
 import java.io.File;
@@ -54,6 +56,7 @@ public class ProcessorStateManager extends AbstractStateManager {
     private final Map<String, StateRestoreCallback> restoreCallbacks; // used for standby tasks, keyed by state topic name
     private final Map<String, RecordConverter> recordConverters; // used for standby tasks, keyed by state topic name
     private final Map<String, String> storeToChangelogTopic;
+    private final StateDirectory stateDirectory;
 
     // must be maintained in topological order
     private final FixedOrderMap<String, Optional<StateStore>> registeredStores = new FixedOrderMap<>();
@@ -93,6 +96,7 @@ public class ProcessorStateManager extends AbstractStateManager {
         restoreCallbacks = isStandby ? new HashMap<>() : null;
         recordConverters = isStandby ? new HashMap<>() : null;
         this.storeToChangelogTopic = new HashMap<>(storeToChangelogTopic);
+        this.stateDirectory = stateDirectory;
 
         // load the checkpoint information
         checkpointableOffsets.putAll(checkpoint.read());
@@ -309,9 +313,96 @@ public class ProcessorStateManager extends AbstractStateManager {
         }
     }
 
+    /**
+     * Seed the stores from the newest state snapshot of this task if there is no local checkpoint.
+     * Must be called while holding the task directory lock and before any store is initialized.
+     */
+    void maybeSeedFromSnapshot() {
+        final StateSnapshotDirectory snapshotDirectory = stateDirectory.snapshotDirectory();
+        if (snapshotDirectory == null || !checkpointableOffsets.isEmpty()) {
+            return;
+        }
+
+        try {
+            final Map<TopicPartition, Long> snapshotOffsets = snapshotDirectory.seed(taskId, baseDir);
+            checkpointableOffsets.putAll(snapshotOffsets);
+            log.trace("Checkpointable offsets read from state snapshot: {}", snapshotOffsets);
+        } catch (final IOException e) {
+            log.warn("Failed to seed state from snapshot, restoring from the changelog instead", e);
+        }
+    }
+
+    /**
+     * Write a state snapshot of all snapshottable, persistent and logged stores if the snapshot interval elapsed.
+     * The stores must have been flushed beforehand.
+     */
+    void maybeSnapshot(final Map<TopicPartition, Long> checkpointableOffsets) {
+        final StateSnapshotDirectory snapshotDirectory = stateDirectory.snapshotDirectory();
+        if (snapshotDirectory == null || !snapshotDirectory.snapshotDue(taskId)) {
+            return;
+        }
+
+        updateCheckpointableOffsets(checkpointableOffsets);
+
+        final List<SnapshottableStore> stores = new ArrayList<>();
+        final Map<TopicPartition, Long> snapshotOffsets = new HashMap<>();
+        for (final Map.Entry<String, Optional<StateStore>> entry : registeredStores.entrySet()) {
+            if (!entry.getValue().isPresent()) {
+                continue;
+            }
+            final StateStore store = entry.getValue().get();
+            final String changelogTopic = storeToChangelogTopic.get(store.name());
+            final SnapshottableStore snapshottableStore = snapshottable(store);
+            if (store.persistent() && changelogTopic != null && snapshottableStore != null) {
+                final TopicPartition topicPartition = new TopicPartition(changelogTopic, getPartition(changelogTopic));
+                final Long offset = this.checkpointableOffsets.get(topicPartition);
+                if (offset != null) {
+                    stores.add(snapshottableStore);
+                    snapshotOffsets.put(topicPartition, offset);
+                }
+            }
+        }
+
+        if (stores.isEmpty()) {
+            return;
+        }
+
+        try {
+            snapshotDirectory.snapshot(taskId, baseDir, stores, snapshotOffsets);
+        } catch (final IOException | ProcessorStateException e) {
+            log.warn("Failed to write state snapshot", e);
+        }
+    }
+
+    private static SnapshottableStore snapshottable(final StateStore store) {
+        if (store instanceof SnapshottableStore) {
+            return (SnapshottableStore) store;
+        } else if (store instanceof WrappedStateStore) {
+            return snapshottable(((WrappedStateStore<?>) store).wrapped());
+        } else {
+            return null;
+        }
+    }
+
     // write the checkpoint
     @Override
     public void checkpoint(final Map<TopicPartition, Long> checkpointableOffsets) {
+        updateCheckpointableOffsets(checkpointableOffsets);
+
+        // write the checkpoint file before closing
+        if (checkpoint == null) {
+            checkpoint = new OffsetCheckpoint(new File(baseDir, CHECKPOINT_FILE_NAME));
+        }
+
+        log.trace("Writing checkpoint: {}", this.checkpointableOffsets);
+        try {
+            checkpoint.write(this.checkpointableOffsets);
+        } catch (final IOException e) {
+            log.warn("Failed to write offset checkpoint file to [{}]", checkpoint, e);
+        }
+    }
+
+    private void updateCheckpointableOffsets(final Map<TopicPartition, Long> checkpointableOffsets) {
         this.checkpointableOffsets.putAll(changelogReader.restoredOffsets());
         log.trace("Checkpointable offsets updated with restored offsets: {}", this.checkpointableOffsets);
         for (final Map.Entry<String, Optional<StateStore>> entry : registeredStores.entrySet()) {
@@ -336,18 +427,6 @@ public class ProcessorStateManager extends AbstractStateManager {
         }
 
         log.trace("Checkpointable offsets updated with active acked offsets: {}", this.checkpointableOffsets);
-
-        // write the checkpoint file before closing
-        if (checkpoint == null) {
-            checkpoint = new OffsetCheckpoint(new File(baseDir, CHECKPOINT_FILE_NAME));
-        }
-
-        log.trace("Writing checkpoint: {}", this.checkpointableOffsets);
-        try {
-            checkpoint.write(this.checkpointableOffsets);
-        } catch (final IOException e) {
-            log.warn("Failed to write offset checkpoint file to [{}]", checkpoint, e);
-        }
     }
 
     private int getPartition(final String topic) {
@@ -99,6 +99,7 @@ public class StandbyTask extends AbstractTask {
     public void commit() {
         log.trace("Committing");
         flushAndCheckpointState();
+        stateMgr.maybeSnapshot(Collections.emptyMap());
         // reinitialize offset limits
         updateOffsetLimits();
 
@@ -53,6 +53,7 @@ public class StateDirectory {
     private final HashMap<TaskId, FileChannel> channels = new HashMap<>();
     private final HashMap<TaskId, LockAndOwner> locks = new HashMap<>();
     private final Time time;
+    private final StateSnapshotDirectory snapshotDirectory;
 
     private FileChannel globalStateChannel;
     private FileLock globalStateLock;
@@ -89,6 +90,32 @@ public class StateDirectory {
             throw new ProcessorStateException(
                 String.format("state directory [%s] doesn't exist and couldn't be created", stateDir.getPath()));
         }
+
+        final String snapshotDirName = config.getString(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG);
+        if (this.createStateDirectory && snapshotDirName != null) {
+            snapshotDirectory = new StateSnapshotDirectory(
+                new File(new File(snapshotDirName), config.getString(StreamsConfig.APPLICATION_ID_CONFIG)),
+                config.getLong(StreamsConfig.STATE_SNAPSHOT_INTERVAL_MS_CONFIG),
+                time);
+        } else {
+            snapshotDirectory = null;
+        }
+    }
+
+    /**
+     * @return the manager for state snapshots, or {@code null} if snapshots are disabled
+     */
+    StateSnapshotDirectory snapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * Wait for the state snapshots that are still being copied into the snapshot directory.
+     */
+    public void close() {
+        if (snapshotDirectory != null) {
+            snapshotDirectory.close();
+        }
     }
 
     /**
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.processor.internals;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.KafkaThread;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.processor.TaskId;
+import org.apache.kafka.streams.state.internals.OffsetCheckpoint;
+import org.apache.kafka.streams.state.internals.SnapshottableStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Manages periodic snapshots of the persistent state of tasks, taken into the directory configured by
+ * {@link org.apache.kafka.streams.StreamsConfig#STATE_SNAPSHOT_DIR_CONFIG}. A snapshot lives in
+ * {@code <snapshot-dir>/<application-id>/<task-id>/<timestamp>} and contains a copy of every
+ * {@link SnapshottableStore} of the task plus a checkpoint file with the changelog offsets the copies reflect.
+ * <p>
+ * The stream thread only checkpoints the stores into a staging directory within the task directory, which
+ * hard links their files since both are on the same file system. A background thread copies the staging
+ * directory into the snapshot directory, which may be on another file system, so that the copy of large stores
+ * does not block processing. While the copy of a snapshot is in progress, no new snapshot of the task is taken.
+ * <p>
+ * Snapshots are written to a temporary directory and renamed once complete, so a task never gets seeded
+ * from a partial snapshot. Only the newest snapshot of each task is retained.
+ * <p>
+ * The snapshot directory may be shared between instances, so a snapshot may be replaced while another instance
+ * seeds a task from it. The seeding instance pins the snapshot first by hard linking its files into a reader
+ * directory next to it, which keeps them readable after the snapshot is deleted. The stores are copied into a
+ * temporary directory within the task directory and only moved into place once all of them were copied.
+ */
+public class StateSnapshotDirectory {
+    private static final Logger log = LoggerFactory.getLogger(StateSnapshotDirectory.class);
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("\\d+");
+    private static final String TEMP_SNAPSHOT_PREFIX = ".tmp-";
+    private static final String STAGING_SNAPSHOT_PREFIX = ".snapshot-";
+    private static final String READER_PREFIX = ".reader-";
+    private static final String SEED_PREFIX = ".seed-";
+    private static final int MAX_SEED_ATTEMPTS = 3;
+    // reader directories of instances that failed while seeding are removed once they are this old
+    private static final long STALE_READER_DIR_MS = 24 * 60 * 60 * 1000L;
+    private static final long CLOSE_TIMEOUT_MS = 30_000L;
+    // RocksDB writes a CURRENT file into every database directory
+    private static final String DB_MARKER_FILE_NAME = "CURRENT";
+    private static final String SST_FILE_SUFFIX = ".sst";
+
+    private final File snapshotDir;
+    private final long snapshotIntervalMs;
+    private final Time time;
+    private final Map<TaskId, Long> lastSnapshotMs = new ConcurrentHashMap<>();
+    private final Set<TaskId> pendingCopies = ConcurrentHashMap.newKeySet();
+    private final ExecutorService copier;
+
+    StateSnapshotDirectory(final File snapshotDir,
+                           final long snapshotIntervalMs,
+                           final Time time) {
+        this.snapshotDir = snapshotDir;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.time = time;
+        this.copier = Executors.newSingleThreadExecutor(
+            runnable -> KafkaThread.daemon(snapshotDir.getName() + "-state-snapshot-copier", runnable));
+    }
+
+    File directoryForTask(final TaskId taskId) {
+        return new File(snapshotDir, taskId.toString());
+    }
+
+    boolean snapshotDue(final TaskId taskId) {
+        if (copyPending(taskId)) {
+            return false;
+        }
+        final Long lastMs = lastSnapshotMs.get(taskId);
+        return lastMs == null || time.milliseconds() - lastMs >= snapshotIntervalMs;
+    }
+
+    /**
+     * @return true if the newest snapshot of the task is still being copied into the snapshot directory
+     */
+    boolean copyPending(final TaskId taskId) {
+        return pendingCopies.contains(taskId);
+    }
+
+    /**
+     * Checkpoint the given stores into a staging directory within the task directory and hand it to the background
+     * thread, which copies it into a new snapshot and removes older snapshots of the task.
+     *
+     * @param taskDir the task directory of the stores
+     * @param offsets the changelog offsets reflected by the stores
+     * @throws IOException if the stores could not be checkpointed
+     */
+    void snapshot(final TaskId taskId,
+                  final File taskDir,
+                  final Collection<SnapshottableStore> stores,
+                  final Map<TopicPartition, Long> offsets) throws IOException {
+        final long now = time.milliseconds();
+        // staging directories left behind by a failure are not in use, since there is no copy pending for the task
+        final File[] staleStagingDirs = taskDir.listFiles(file -> file.getName().startsWith(STAGING_SNAPSHOT_PREFIX));
+        if (staleStagingDirs != null) {
+            for (final File file : staleStagingDirs) {
+                Utils.delete(file);
+            }
+        }
+
+        final File stagingDir = new File(taskDir, STAGING_SNAPSHOT_PREFIX + now);
+        try {
+            Files.createDirectories(stagingDir.toPath());
+            for (final SnapshottableStore store : stores) {
+                store.snapshot(stagingDir);
+            }
+            new OffsetCheckpoint(new File(stagingDir, AbstractStateManager.CHECKPOINT_FILE_NAME)).write(offsets);
+        } catch (final IOException | RuntimeException e) {
+            Utils.delete(stagingDir);
+            throw e;
+        }
+        lastSnapshotMs.put(taskId, now);
+
+        pendingCopies.add(taskId);
+        try {
+            copier.execute(() -> publish(taskId, stagingDir, now, offsets));
+        } catch (final RejectedExecutionException e) {
+            log.debug("Copying state snapshot of task {} in the calling thread since the copier has been closed", taskId);
+            publish(taskId, stagingDir, now, offsets);
+        }
+    }
+
+    private void publish(final TaskId taskId,
+                         final File stagingDir,
+                         final long snapshotMs,
+                         final Map<TopicPartition, Long> offsets) {
+        final File taskSnapshotDir = directoryForTask(taskId);
+        final File tempDir = new File(taskSnapshotDir, TEMP_SNAPSHOT_PREFIX + snapshotMs);
+        final File completeDir = new File(taskSnapshotDir, Long.toString(snapshotMs));
+        try {
+            Files.createDirectories(taskSnapshotDir.toPath());
+            Utils.delete(tempDir);
+            copyTree(stagingDir.toPath(), tempDir.toPath(), false);
+            Utils.atomicMoveWithFallback(tempDir.toPath(), completeDir.toPath());
+            log.debug("Wrote state snapshot {} for task {} with changelog offsets {}", completeDir, taskId, offsets);
+
+            final long now = time.milliseconds();
+            final File[] obsolete = taskSnapshotDir.listFiles(
+                file -> !file.getName().equals(completeDir.getName()) &&
+                    (SNAPSHOT_NAME.matcher(file.getName()).matches() || file.getName().startsWith(TEMP_SNAPSHOT_PREFIX) ||
+                        file.getName().startsWith(READER_PREFIX) && now - file.lastModified() >= STALE_READER_DIR_MS));
+            if (obsolete != null) {
+                for (final File file : obsolete) {
+                    Utils.delete(file);
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Failed to write state snapshot {} for task {}", completeDir, taskId, e);
+        } finally {
+            try {
+                Utils.delete(tempDir);
+                Utils.delete(stagingDir);
+            } catch (final IOException e) {
+                log.warn("Failed to delete the staging directory {} of a state snapshot", stagingDir, e);
+            }
+            pendingCopies.remove(taskId);
+        }
+    }
+
+    /**
+     * Wait for the snapshots that are still being copied and stop the background thread. Snapshots that are taken
+     * afterwards are copied by the calling thread.
+     */
+    void close() {
+        copier.shutdown();
+        try {
+            if (!copier.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out waiting for state snapshots to be copied, aborting the remaining copies");
+                copier.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            copier.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Copy the stores of the newest snapshot of the task into its task directory, replacing any
+     * existing files of those stores. SST files are hard linked where possible since they are immutable.
+     * A store is a directory that holds a RocksDB database. The stores are only moved into place once the whole snapshot was copied. If that fails, the stores
+     * that were already moved are deleted, so that the task directory never holds a partially seeded store.
+     *
+     * @return the changelog offsets the seeded stores reflect, or an empty map if there is no snapshot
+     * @throws IOException if the snapshot could not be copied
+     */
+    Map<TopicPartition, Long> seed(final TaskId taskId,
+                                   final File taskDir) throws IOException {
+        // seed directories left behind by a failure are not in use, since the caller holds the task directory lock
+        final File[] staleSeedDirs = taskDir.listFiles(file -> file.getName().startsWith(SEED_PREFIX));
+        if (staleSeedDirs != null) {
+            for (final File file : staleSeedDirs) {
+                Utils.delete(file);
+            }
+        }
+
+        final File taskSnapshotDir = directoryForTask(taskId);
+        for (int attempt = 1; ; attempt++) {
+            final File newestSnapshot = newestSnapshot(taskSnapshotDir);
+            if (newestSnapshot == null) {
+                return Collections.emptyMap();
+            }
+
+            final File readerDir = new File(taskSnapshotDir, READER_PREFIX + UUID.randomUUID());
+            try {
+                final Map<TopicPartition, Long> offsets = seedFrom(pin(newestSnapshot, readerDir), taskDir);
+                if (!offsets.isEmpty()) {
+                    log.info("Seeded state of task {} from snapshot {}", taskId, newestSnapshot);
+                }
+                return offsets;
+            } catch (final NoSuchFileException e) {
+                // another instance replaced the snapshot and deleted it before it could be pinned
+                final File replacement = newestSnapshot(taskSnapshotDir);
+                if (attempt >= MAX_SEED_ATTEMPTS || replacement == null || replacement.equals(newestSnapshot)) {
+                    throw e;
+                }
+                log.debug("State snapshot {} of task {} was replaced while seeding, retrying with {}",
+                    newestSnapshot, taskId, replacement);
+            } finally {
+                Utils.delete(readerDir);
+            }
+        }
+    }
+
+    /**
+     * Hard link the files of a snapshot into a reader directory, so that they remain readable if the snapshot is
+     * deleted. Falls back to the snapshot itself if its file system does not support hard links.
+     *
+     * @return the directory to read the snapshot from
+     * @throws NoSuchFileException if the snapshot was deleted before it was pinned
+     */
+    private static File pin(final File snapshot, final File readerDir) throws IOException {
+        final Path source = snapshot.toPath();
+        final Path target = readerDir.toPath();
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(target.resolve(source.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    Files.createLink(target.resolve(source.relativize(file)), file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return readerDir;
+        } catch (final NoSuchFileException e) {
+            throw e;
+        } catch (final IOException | UnsupportedOperationException e) {
+            log.debug("Could not pin state snapshot {}, reading it directly instead", snapshot, e);
+            Utils.delete(readerDir);
+            return snapshot;
+        }
+    }
+
+    private Map<TopicPartition, Long> seedFrom(final File snapshot, final File taskDir) throws IOException {
+        final Map<TopicPartition, Long> offsets =
+            new OffsetCheckpoint(new File(snapshot, AbstractStateManager.CHECKPOINT_FILE_NAME)).read();
+        if (offsets.isEmpty()) {
+            return offsets;
+        }
+
+        final Path seedDir = new File(taskDir, SEED_PREFIX + time.milliseconds()).toPath();
+        final List<File> movedStores = new ArrayList<>();
+        try {
+            for (final Path store : copyTree(snapshot.toPath(), seedDir, true)) {
+                final File storeDir = taskDir.toPath().resolve(store).toFile();
+                movedStores.add(storeDir);
+                Utils.delete(storeDir);
+                Files.createDirectories(storeDir.getParentFile().toPath());
+                Utils.atomicMoveWithFallback(seedDir.resolve(store), storeDir.toPath());
+            }
+        } catch (final IOException | RuntimeException e) {
+            for (final File storeDir : movedStores) {
+                try {
+                    Utils.delete(storeDir);
+                } catch (final IOException deleteException) {
+                    e.addSuppressed(deleteException);
+                }
+            }
+            throw e;
+        } finally {
+            Utils.delete(seedDir.toFile());
+        }
+        return offsets;
+    }
+
+    /**
+     * Copy the stores of a snapshot into the target directory. SST files are hard linked where possible since they
+     * are immutable.
+     *
+     * @return the directories of the stores, relative to the target directory
+     */
+    private static List<Path> copyTree(final Path source, final Path target, final boolean skipCheckpoint) throws IOException {
+        final List<Path> stores = new ArrayList<>();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                final Path relativeDir = source.relativize(dir);
+                if (Files.exists(dir.resolve(DB_MARKER_FILE_NAME))) {
+                    stores.add(relativeDir);
+                }
+                Files.createDirectories(target.resolve(relativeDir));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (skipCheckpoint && file.getParent().equals(source) &&
+                    file.getFileName().toString().equals(AbstractStateManager.CHECKPOINT_FILE_NAME)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                final Path targetFile = target.resolve(source.relativize(file));
+                if (file.getFileName().toString().endsWith(SST_FILE_SUFFIX)) {
+                    try {
+                        Files.createLink(targetFile, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (final IOException | UnsupportedOperationException e) {
+                        log.trace("Could not hard link {}, copying it instead", file, e);
+                    }
+                }
+                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return stores;
+    }
+
+    private static File newestSnapshot(final File taskSnapshotDir) {
+        final File[] snapshots = taskSnapshotDir.listFiles(
+            file -> file.isDirectory() && SNAPSHOT_NAME.matcher(file.getName()).matches());
+        if (snapshots == null) {
+            return null;
+        }
+
+        File newest = null;
+        for (final File snapshot : snapshots) {
+            if (newest == null || Long.parseLong(snapshot.getName()) > Long.parseLong(newest.getName())) {
+                newest = snapshot;
+            }
+        }
+        return newest;
+    }
+}
@@ -69,6 +69,7 @@ public class StreamTask extends AbstractTask implements ProcessorNodePunctuator
     private final Time time;
     private final long maxTaskIdleMs;
     private final int maxBufferedSize;
+    private final int processingBatchSize;
     private final TaskMetrics taskMetrics;
     private final PartitionGroup partitionGroup;
     private final RecordCollector recordCollector;
@@ -211,6 +212,8 @@ public class StreamTask extends AbstractTask implements ProcessorNodePunctuator
         systemTimePunctuationQueue = new PunctuationQueue();
         maxTaskIdleMs = config.getLong(StreamsConfig.MAX_TASK_IDLE_MS_CONFIG);
         maxBufferedSize = config.getInt(StreamsConfig.BUFFERED_RECORDS_PER_PARTITION_CONFIG);
+        // batching is restricted to stateless tasks, so that the timing of cache flushes and changelog writes is unchanged
+        processingBatchSize = topology.stateStores().isEmpty() ? config.getInt(StreamsConfig.PROCESSING_BATCH_SIZE_CONFIG) : 1;
 
         // initialize the consumed and committed offset cache
         consumedOffsets = new HashMap<>();
@@ -340,13 +343,26 @@ public class StreamTask extends AbstractTask implements ProcessorNodePunctuator
     }
 
     /**
-     * Process one record.
+     * Process one record, or for stateless tasks up to {@link StreamsConfig#PROCESSING_BATCH_SIZE_CONFIG} records.
+     * A batch ends early if the buffer of any partition runs empty, to preserve the timestamp synchronization
+     * between partitions.
      *
-     * @return true if this method processes a record, false if it does not process a record.
+     * @return the number of records this method processed, 0 if it did not process a record
      * @throws TaskMigratedException if the task producer got fenced (EOS only)
      */
+    public int process() {
+        if (!processRecord()) {
+            return 0;
+        }
+        int processed = 1;
+        while (processed < processingBatchSize && partitionGroup.allPartitionsBuffered() && processRecord()) {
+            processed++;
+        }
+        return processed;
+    }
+
     @SuppressWarnings("unchecked")
-    public boolean process() {
+    private boolean processRecord() {
         // get the next record to process
         final StampedRecord record = partitionGroup.nextRecord(recordInfo);
 
@@ -500,6 +516,8 @@ public class StreamTask extends AbstractTask implements ProcessorNodePunctuator
             throw new TaskMigratedException(this, error);
         }
 
+        stateMgr.maybeSnapshot(activeTaskCheckpointableOffsets());
+
         commitNeeded = false;
         commitRequested = false;
         taskMetrics.taskCommitTimeSensor.record(time.nanoseconds() - startNs);
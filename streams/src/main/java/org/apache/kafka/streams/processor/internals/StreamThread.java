@@ -890,7 +890,12 @@ public class StreamThread extends Thread {
 
                     if (processed > 0) {
                         final long processLatency = advanceNowAndComputeLatency();
-                        streamsMetrics.processTimeSensor.record(processLatency / (double) processed, now);
+                        // record every processed record, so that the process rate and total count records even if
+                        // tasks process them in batches
+                        final double recordProcessLatency = processLatency / (double) processed;
+                        for (int r = 0; r < processed; r++) {
+                            streamsMetrics.processTimeSensor.record(recordProcessLatency, now);
+                        }
 
                         // commit any tasks that have requested a commit
                         final int committed = taskManager.maybeCommitActiveTasksPerUserRequested();
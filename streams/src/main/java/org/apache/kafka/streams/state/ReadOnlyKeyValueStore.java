@@ -16,8 +16,12 @@
  */
 package org.apache.kafka.streams.state;
 
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A key-value store that only supports read operations.
  * Implementations should be thread-safe as concurrent reads and writes are expected.
@@ -43,6 +47,23 @@ public interface ReadOnlyKeyValueStore<K, V> {
      */
     V get(K key);
 
+    /**
+     * Get the values corresponding to the given keys. Stores may look up all keys at once,
+     * which is cheaper than calling {@link #get(Object)} for each of them.
+     *
+     * @param keys The keys to fetch
+     * @return The values in the order of the given keys, with null for every key that has no value.
+     * @throws NullPointerException If null is used for keys or any of the keys.
+     * @throws InvalidStateStoreException if the store is not initialized
+     */
+    default List<V> getAll(final List<K> keys) {
+        final List<V> values = new ArrayList<>(keys.size());
+        for (final K key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
     /**
      * Get an iterator over a given range of keys. This iterator must be closed after use.
      * The returned iterator must be safe from {@link java.util.ConcurrentModificationException}s
@@ -64,6 +85,29 @@ public interface ReadOnlyKeyValueStore<K, V> {
      */
     KeyValueIterator<K, V> all();
 
+    /**
+     * Return an iterator over all keys with the specified prefix. This iterator must be closed after use.
+     * Since the type of the prefix can be different from that of the key, a serializer to convert the
+     * prefix into the format in which the keys are stored in the store needs to be passed to this method.
+     * The returned iterator must be safe from {@link java.util.ConcurrentModificationException}s
+     * and must not return null values. Since {@code prefixScan()} relies on the byte lexicographical ordering
+     * of the serialized keys and not on the ordering of the key type, results for some types might be unexpected.
+     * For example, if the key type is {@code Integer} and the store contains keys {@code [1, 2, 11, 13]},
+     * a prefix scan for {@code 1} returns only {@code [1]} and not {@code [1, 11, 13]}.
+     *
+     * @param prefix The prefix
+     * @param prefixKeySerializer Serializer for the prefix
+     * @param <PS> Prefix serializer type
+     * @param <P> Prefix type
+     * @return The iterator for keys having the specified prefix.
+     * @throws NullPointerException If null is used for prefix or prefixKeySerializer.
+     * @throws InvalidStateStoreException if the store is not initialized
+     * @throws UnsupportedOperationException if the store does not support prefix scans
+     */
+    default <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix, final PS prefixKeySerializer) {
+        throw new UnsupportedOperationException("Prefix scans are not supported by this store");
+    }
+
     /**
      * Return an approximate count of key-value mappings in this store.
      *
@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
@@ -28,6 +29,7 @@ import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.locks.Lock;
@@ -162,6 +164,61 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<Bytes,
         }
     }
 
+    @Override
+    public List<byte[]> getAll(final List<Bytes> keys) {
+        validateStoreOpen();
+        final Lock theLock;
+        if (Thread.currentThread().equals(streamThread)) {
+            theLock = lock.writeLock();
+        } else {
+            theLock = lock.readLock();
+        }
+        theLock.lock();
+        try {
+            return getAllInternal(keys);
+        } finally {
+            theLock.unlock();
+        }
+    }
+
+    private List<byte[]> getAllInternal(final List<Bytes> keys) {
+        final List<byte[]> values = new ArrayList<>(keys.size());
+        final List<Bytes> missingKeys = new ArrayList<>();
+        final List<Integer> missingKeyIndexes = new ArrayList<>();
+        for (final Bytes key : keys) {
+            Objects.requireNonNull(key, "key cannot be null");
+            LRUCacheEntry entry = null;
+            if (cache != null) {
+                entry = cache.get(cacheName, key);
+            }
+            if (entry == null) {
+                missingKeys.add(key);
+                missingKeyIndexes.add(values.size());
+                values.add(null);
+            } else {
+                values.add(entry.value());
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return values;
+        }
+
+        // look up all cache misses at once
+        final List<byte[]> rawValues = wrapped().getAll(missingKeys);
+        for (int i = 0; i < missingKeys.size(); i++) {
+            final byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                values.set(missingKeyIndexes.get(i), rawValue);
+                // only update the cache if this call is on the streamThread
+                // as we don't want other threads to trigger an eviction/flush
+                if (Thread.currentThread().equals(streamThread)) {
+                    cache.put(cacheName, missingKeys.get(i), new LRUCacheEntry(rawValue));
+                }
+            }
+        }
+        return values;
+    }
+
     private byte[] getInternal(final Bytes key) {
         LRUCacheEntry entry = null;
         if (cache != null) {
@@ -192,6 +249,17 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<Bytes,
         return new MergedSortedCacheKeyValueBytesStoreIterator(cacheIterator, storeIterator);
     }
 
+    @Override
+    public <PS extends Serializer<P>, P> KeyValueIterator<Bytes, byte[]> prefixScan(final P prefix,
+                                                                                   final PS prefixKeySerializer) {
+        validateStoreOpen();
+        final KeyValueIterator<Bytes, byte[]> storeIterator = wrapped().prefixScan(prefix, prefixKeySerializer);
+        final Bytes from = Bytes.wrap(prefixKeySerializer.serialize(null, prefix));
+        final ThreadCache.MemoryLRUCacheBytesIterator cacheIterator =
+            cache.range(cacheName, from, OrderedBytes.prefixUpperBound(from), false);
+        return new MergedSortedCacheKeyValueBytesStoreIterator(cacheIterator, storeIterator);
+    }
+
     @Override
     public KeyValueIterator<Bytes, byte[]> all() {
         validateStoreOpen();
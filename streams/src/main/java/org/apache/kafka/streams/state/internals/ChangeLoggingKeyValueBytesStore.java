@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
@@ -93,12 +94,23 @@ public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore<KeyValueS
         return wrapped().get(key);
     }
 
+    @Override
+    public List<byte[]> getAll(final List<Bytes> keys) {
+        return wrapped().getAll(keys);
+    }
+
     @Override
     public KeyValueIterator<Bytes, byte[]> range(final Bytes from,
                                                  final Bytes to) {
         return wrapped().range(from, to);
     }
 
+    @Override
+    public <PS extends Serializer<P>, P> KeyValueIterator<Bytes, byte[]> prefixScan(final P prefix,
+                                                                                   final PS prefixKeySerializer) {
+        return wrapped().prefixScan(prefix, prefixKeySerializer);
+    }
+
     @Override
     public KeyValueIterator<Bytes, byte[]> all() {
         return wrapped().all();
@@ -16,11 +16,14 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.QueryableStoreType;
 import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -64,6 +67,37 @@ public class CompositeReadOnlyKeyValueStore<K, V> implements ReadOnlyKeyValueSto
         return null;
     }
 
+    @Override
+    public List<V> getAll(final List<K> keys) {
+        Objects.requireNonNull(keys);
+        final List<V> values = new ArrayList<>(Collections.<V>nCopies(keys.size(), null));
+        final List<ReadOnlyKeyValueStore<K, V>> stores = storeProvider.stores(storeName, storeType);
+        for (final ReadOnlyKeyValueStore<K, V> store : stores) {
+            final List<K> missingKeys = new ArrayList<>();
+            final List<Integer> missingKeyIndexes = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (values.get(i) == null) {
+                    missingKeys.add(Objects.requireNonNull(keys.get(i)));
+                    missingKeyIndexes.add(i);
+                }
+            }
+            if (missingKeys.isEmpty()) {
+                break;
+            }
+
+            final List<V> storeValues;
+            try {
+                storeValues = store.getAll(missingKeys);
+            } catch (final InvalidStateStoreException e) {
+                throw new InvalidStateStoreException("State store is not available anymore and may have been migrated to another instance; please re-discover its location from the state metadata.");
+            }
+            for (int i = 0; i < missingKeys.size(); i++) {
+                values.set(missingKeyIndexes.get(i), storeValues.get(i));
+            }
+        }
+        return values;
+    }
+
     @Override
     public KeyValueIterator<K, V> range(final K from, final K to) {
         Objects.requireNonNull(from);
@@ -82,6 +116,25 @@ public class CompositeReadOnlyKeyValueStore<K, V> implements ReadOnlyKeyValueSto
         return new DelegatingPeekingKeyValueIterator<>(storeName, new CompositeKeyValueIterator<>(stores.iterator(), nextIteratorFunction));
     }
 
+    @Override
+    public <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix,
+                                                                          final PS prefixKeySerializer) {
+        Objects.requireNonNull(prefix);
+        Objects.requireNonNull(prefixKeySerializer);
+        final NextIteratorFunction<K, V, ReadOnlyKeyValueStore<K, V>> nextIteratorFunction = new NextIteratorFunction<K, V, ReadOnlyKeyValueStore<K, V>>() {
+            @Override
+            public KeyValueIterator<K, V> apply(final ReadOnlyKeyValueStore<K, V> store) {
+                try {
+                    return store.prefixScan(prefix, prefixKeySerializer);
+                } catch (final InvalidStateStoreException e) {
+                    throw new InvalidStateStoreException("State store is not available anymore and may have been migrated to another instance; please re-discover its location from the state metadata.");
+                }
+            }
+        };
+        final List<ReadOnlyKeyValueStore<K, V>> stores = storeProvider.stores(storeName, storeType);
+        return new DelegatingPeekingKeyValueIterator<>(storeName, new CompositeKeyValueIterator<>(stores.iterator(), nextIteratorFunction));
+    }
+
     @Override
     public KeyValueIterator<K, V> all() {
         final NextIteratorFunction<K, V, ReadOnlyKeyValueStore<K, V>> nextIteratorFunction = new NextIteratorFunction<K, V, ReadOnlyKeyValueStore<K, V>>() {
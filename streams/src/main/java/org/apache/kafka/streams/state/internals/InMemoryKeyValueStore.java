@@ -16,7 +16,10 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.BytesDeserializer;
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
@@ -25,10 +28,12 @@ import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.TreeMap;
 
 public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
@@ -37,6 +42,8 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
     private final Serde<V> valueSerde;
     private final NavigableMap<K, V> map;
     private volatile boolean open = false;
+    // prefix scans compare serialized keys, so they need the keys of the map to be Bytes
+    private boolean bytesKeys = false;
 
     private StateSerdes<K, V> serdes;
 
@@ -66,6 +73,7 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
             ProcessorStateManager.storeChangelogTopic(context.applicationId(), name),
             keySerde == null ? (Serde<K>) context.keySerde() : keySerde,
             valueSerde == null ? (Serde<V>) context.valueSerde() : valueSerde);
+        this.bytesKeys = serdes.keySerde().deserializer() instanceof BytesDeserializer;
 
         if (root != null) {
             // register the store
@@ -97,6 +105,15 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return this.map.get(key);
     }
 
+    @Override
+    public synchronized List<V> getAll(final List<K> keys) {
+        final List<V> values = new ArrayList<>(keys.size());
+        for (final K key : keys) {
+            values.add(this.map.get(key));
+        }
+        return values;
+    }
+
     @Override
     public synchronized void put(final K key,
                                  final V value) {
@@ -137,6 +154,30 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
             new InMemoryKeyValueIterator<>(this.map.subMap(from, true, to, true).entrySet().iterator()));
     }
 
+    /**
+     * Prefix scans compare the serialized prefix to the keys of the store byte by byte,
+     * so they are only supported by stores with {@link Bytes} keys.
+     *
+     * @throws UnsupportedOperationException if the keys of the store are not {@link Bytes}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix,
+                                                                                       final PS prefixKeySerializer) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        Objects.requireNonNull(prefixKeySerializer, "prefixKeySerializer cannot be null");
+        if (!bytesKeys) {
+            throw new UnsupportedOperationException("Prefix scans are only supported by in-memory stores with Bytes keys");
+        }
+
+        final K from = (K) Bytes.wrap(prefixKeySerializer.serialize(null, prefix));
+        final K to = (K) OrderedBytes.prefixUpperBound((Bytes) from);
+        final NavigableMap<K, V> subMap = to == null ? this.map.tailMap(from, true) : this.map.subMap(from, true, to, false);
+        return new DelegatingPeekingKeyValueIterator<>(
+            name,
+            new InMemoryKeyValueIterator<>(subMap.entrySet().iterator()));
+    }
+
     @Override
     public synchronized KeyValueIterator<K, V> all() {
         final TreeMap<K, V> copy = new TreeMap<>(this.map);
@@ -18,6 +18,7 @@ package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.streams.KeyValue;
@@ -33,6 +34,7 @@ import org.apache.kafka.streams.state.StateSerdes;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import static org.apache.kafka.common.metrics.Sensor.RecordingLevel.DEBUG;
 import static org.apache.kafka.streams.state.internals.metrics.Sensors.createTaskAndStoreLatencyAndThroughputSensors;
@@ -56,10 +58,12 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
     private Sensor putTime;
     private Sensor putIfAbsentTime;
     private Sensor getTime;
+    private Sensor getAllTime;
     private Sensor deleteTime;
     private Sensor putAllTime;
     private Sensor allTime;
     private Sensor rangeTime;
+    private Sensor prefixScanTime;
     private Sensor flushTime;
     private StreamsMetricsImpl metrics;
     private String taskName;
@@ -96,8 +100,10 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
         putIfAbsentTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "put-if-absent", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         putAllTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "put-all", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         getTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "get", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
+        getAllTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "get-all", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         allTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "all", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         rangeTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "range", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
+        prefixScanTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "prefix-scan", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         flushTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "flush", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         deleteTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "delete", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
         final Sensor restoreTime = createTaskAndStoreLatencyAndThroughputSensors(DEBUG, "restore", metrics, metricsGroup, taskName, name(), taskTags, storeTags);
@@ -140,6 +146,20 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
         }
     }
 
+    @Override
+    public List<V> getAll(final List<K> keys) {
+        try {
+            if (getAllTime.shouldRecord()) {
+                return measureLatency(() -> outerValues(wrapped().getAll(keysBytes(keys))), getAllTime);
+            } else {
+                return outerValues(wrapped().getAll(keysBytes(keys)));
+            }
+        } catch (final ProcessorStateException e) {
+            final String message = String.format(e.getMessage(), keys);
+            throw new ProcessorStateException(message, e);
+        }
+    }
+
     @Override
     public void put(final K key,
                     final V value) {
@@ -206,6 +226,14 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
             rangeTime);
     }
 
+    @Override
+    public <PS extends Serializer<P>, P> KeyValueIterator<K, V> prefixScan(final P prefix,
+                                                                          final PS prefixKeySerializer) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        Objects.requireNonNull(prefixKeySerializer, "prefixKeySerializer cannot be null");
+        return new MeteredKeyValueIterator(wrapped().prefixScan(prefix, prefixKeySerializer), prefixScanTime);
+    }
+
     @Override
     public KeyValueIterator<K, V> all() {
         return new MeteredKeyValueIterator(wrapped().all(), allTime);
@@ -229,8 +257,8 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
         V execute();
     }
 
-    private V measureLatency(final Action<V> action,
-                             final Sensor sensor) {
+    private <T> T measureLatency(final Action<T> action,
+                                 final Sensor sensor) {
         final long startNs = time.nanoseconds();
         try {
             return action.execute();
@@ -243,10 +271,26 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore<KeyValueStore<
         return value == null ? null : serdes.valueFrom(value);
     }
 
+    private List<V> outerValues(final List<byte[]> values) {
+        final List<V> outerValues = new ArrayList<>(values.size());
+        for (final byte[] value : values) {
+            outerValues.add(outerValue(value));
+        }
+        return outerValues;
+    }
+
     private Bytes keyBytes(final K key) {
         return Bytes.wrap(serdes.rawKey(key));
     }
 
+    private List<Bytes> keysBytes(final List<K> keys) {
+        final List<Bytes> keysBytes = new ArrayList<>(keys.size());
+        for (final K key : keys) {
+            keysBytes.add(keyBytes(key));
+        }
+        return keysBytes;
+    }
+
     private List<KeyValue<Bytes, byte[]>> innerEntries(final List<KeyValue<K, V>> from) {
         final List<KeyValue<Bytes, byte[]>> byteEntries = new ArrayList<>();
         for (final KeyValue<K, V> entry : from) {
@@ -270,6 +270,13 @@ class NamedCache {
         return keySetIterator(cache.navigableKeySet().subSet(from, true, to, true));
     }
 
+    synchronized Iterator<Bytes> keyRange(final Bytes from, final Bytes to, final boolean toInclusive) {
+        if (to == null) {
+            return keySetIterator(cache.navigableKeySet().tailSet(from, true));
+        }
+        return keySetIterator(cache.navigableKeySet().subSet(from, true, to, toInclusive));
+    }
+
     private Iterator<Bytes> keySetIterator(final Set<Bytes> keySet) {
         return new TreeSet<>(keySet).iterator();
     }
@@ -20,6 +20,7 @@ package org.apache.kafka.streams.state.internals;
 import org.apache.kafka.common.utils.Bytes;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 class OrderedBytes {
 
@@ -65,4 +66,27 @@ class OrderedBytes {
                 .array()
         );
     }
+
+    /**
+     * Returns the smallest key that is greater than every key starting with the given prefix,
+     * or {@code null} if there is no such key, i.e., if the prefix is empty or consists of {@code 0xFF} bytes only.
+     */
+    static Bytes prefixUpperBound(final Bytes prefix) {
+        final byte[] bytes = prefix.get();
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] != (byte) 0xFF) {
+                final byte[] upperBound = Arrays.copyOf(bytes, i + 1);
+                upperBound[i]++;
+                return Bytes.wrap(upperBound);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the smallest key that is greater than the given key.
+     */
+    static Bytes successor(final Bytes key) {
+        return Bytes.wrap(Arrays.copyOf(key.get(), key.get().length + 1));
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.Slice;
+
+/**
+ * Read options for RocksDB iterators over a range of keys. If an upper bound is given, it is set as
+ * {@code iterate_upper_bound}, so that RocksDB stops at the end of the range instead of reading the
+ * next data block or skipping over tombstones beyond it. Must be closed after the iterators created with them.
+ */
+class RocksDBBoundedReadOptions implements AutoCloseable {
+    private final ReadOptions readOptions = new ReadOptions();
+    private final Slice upperBound;
+
+    /**
+     * @param exclusiveUpperBound the first key after the range, or {@code null} if the range is unbounded
+     */
+    RocksDBBoundedReadOptions(final Bytes exclusiveUpperBound) {
+        if (exclusiveUpperBound != null) {
+            upperBound = new Slice(exclusiveUpperBound.get());
+            readOptions.setIterateUpperBound(upperBound);
+        } else {
+            upperBound = null;
+        }
+    }
+
+    ReadOptions readOptions() {
+        return readOptions;
+    }
+
+    @Override
+    public void close() {
+        readOptions.close();
+        if (upperBound != null) {
+            upperBound.close();
+        }
+    }
+}
@@ -30,17 +30,29 @@ class RocksDBRangeIterator extends RocksDbIterator {
     // safe to just force lexicographic comparator here for now.
     private final Comparator<byte[]> comparator = Bytes.BYTES_LEXICO_COMPARATOR;
     private final byte[] rawToKey;
+    private final boolean toInclusive;
 
+    /**
+     * @param to the upper end of the range, or {@code null} if the range is unbounded
+     * @param readOptions the read options {@code iter} was created with, closed together with this iterator
+     */
     RocksDBRangeIterator(final String storeName,
                          final RocksIterator iter,
                          final Set<KeyValueIterator<Bytes, byte[]>> openIterators,
                          final Bytes from,
-                         final Bytes to) {
-        super(storeName, iter, openIterators);
+                         final Bytes to,
+                         final boolean toInclusive,
+                         final RocksDBBoundedReadOptions readOptions) {
+        super(storeName, iter, openIterators, readOptions);
         iter.seek(from.get());
-        rawToKey = to.get();
-        if (rawToKey == null) {
-            throw new NullPointerException("RocksDBRangeIterator: RawToKey is null for key " + to);
+        this.toInclusive = toInclusive;
+        if (to == null) {
+            rawToKey = null;
+        } else {
+            rawToKey = to.get();
+            if (rawToKey == null) {
+                throw new NullPointerException("RocksDBRangeIterator: RawToKey is null for key " + to);
+            }
         }
     }
 
@@ -51,7 +63,11 @@ class RocksDBRangeIterator extends RocksDbIterator {
         if (next == null) {
             return allDone();
         } else {
-            if (comparator.compare(next.key.get(), rawToKey) <= 0) {
+            if (rawToKey == null) {
+                return next;
+            }
+            final int result = comparator.compare(next.key.get(), rawToKey);
+            if (result < 0 || toInclusive && result == 0) {
                 return next;
             } else {
                 return allDone();
@@ -33,6 +33,7 @@ import org.rocksdb.WriteBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,7 +43,7 @@ import java.util.Set;
 
 import static org.apache.kafka.streams.processor.internals.metrics.StreamsMetricsImpl.addInvocationRateAndCount;
 
-public class RocksDBSegmentedBytesStore implements SegmentedBytesStore {
+public class RocksDBSegmentedBytesStore implements SegmentedBytesStore, SnapshottableStore {
     private static final Logger LOG = LoggerFactory.getLogger(RocksDBSegmentedBytesStore.class);
     private final String name;
     private final KeyValueSegments segments;
@@ -188,6 +189,13 @@ public class RocksDBSegmentedBytesStore implements SegmentedBytesStore {
         segments.close();
     }
 
+    @Override
+    public void snapshot(final File taskSnapshotDir) {
+        for (final KeyValueSegment segment : segments.allSegments()) {
+            segment.snapshot(taskSnapshotDir);
+        }
+    }
+
     @Override
     public boolean persistent() {
         return true;
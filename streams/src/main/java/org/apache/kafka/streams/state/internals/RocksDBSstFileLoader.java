@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.errors.ProcessorStateException;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Restores changelog records into an empty RocksDB store by sorting them into external SST files
+ * and ingesting those files directly, instead of inserting them into the memtable and compacting.
+ * <p>
+ * Records are buffered in key order until the buffer reaches {@code maxBufferBytes}, then written
+ * to a single SST file and ingested. Since every ingested file gets a newer global sequence number
+ * than the ones before it, later updates and tombstones for a key override earlier ones exactly as
+ * they would with a {@link org.rocksdb.WriteBatch}.
+ */
+class RocksDBSstFileLoader implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RocksDBSstFileLoader.class);
+
+    interface Ingestor {
+        void ingest(final String sstFilePath) throws RocksDBException;
+    }
+
+    private final String storeName;
+    private final File stagingDir;
+    private final Options options;
+    private final long maxBufferBytes;
+    private final Ingestor ingestor;
+    private final TreeMap<byte[], byte[]> buffer = new TreeMap<>(Bytes.BYTES_LEXICO_COMPARATOR);
+
+    private long bufferedBytes = 0L;
+    private int filesIngested = 0;
+
+    RocksDBSstFileLoader(final String storeName,
+                         final File stagingDir,
+                         final Options options,
+                         final long maxBufferBytes,
+                         final Ingestor ingestor) {
+        this.storeName = storeName;
+        this.stagingDir = stagingDir;
+        this.options = options;
+        this.maxBufferBytes = maxBufferBytes;
+        this.ingestor = ingestor;
+
+        try {
+            Files.createDirectories(stagingDir.toPath());
+        } catch (final IOException fatal) {
+            throw new ProcessorStateException("Error creating SST staging directory " + stagingDir + " for store " + storeName, fatal);
+        }
+    }
+
+    void add(final Collection<KeyValue<byte[], byte[]>> records) {
+        for (final KeyValue<byte[], byte[]> record : records) {
+            if (!buffer.containsKey(record.key)) {
+                bufferedBytes += record.key.length;
+            }
+            final byte[] oldValue = buffer.put(record.key, record.value);
+            if (oldValue != null) {
+                bufferedBytes -= oldValue.length;
+            }
+            if (record.value != null) {
+                bufferedBytes += record.value.length;
+            }
+        }
+
+        if (bufferedBytes >= maxBufferBytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all buffered records into an SST file and ingest it into the store.
+     */
+    void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        final File sstFile = new File(stagingDir, "restore-" + filesIngested + ".sst");
+        try (final EnvOptions envOptions = new EnvOptions();
+             final SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+            writer.open(sstFile.getAbsolutePath());
+            for (final Map.Entry<byte[], byte[]> entry : buffer.entrySet()) {
+                if (entry.getValue() == null) {
+                    writer.delete(entry.getKey());
+                } else {
+                    writer.put(entry.getKey(), entry.getValue());
+                }
+            }
+            writer.finish();
+
+            ingestor.ingest(sstFile.getAbsolutePath());
+        } catch (final RocksDBException e) {
+            throw new ProcessorStateException("Error ingesting restored SST file into store " + storeName, e);
+        } finally {
+            if (!sstFile.delete() && sstFile.exists()) {
+                log.warn("Failed to delete staged SST file {} for store {}", sstFile, storeName);
+            }
+        }
+
+        log.trace("Ingested {} restored records into store {}", buffer.size(), storeName);
+        filesIngested++;
+        buffer.clear();
+        bufferedBytes = 0L;
+    }
+
+    // visible for testing
+    int filesIngested() {
+        return filesIngested;
+    }
+
+    @Override
+    public void close() {
+        buffer.clear();
+        bufferedBytes = 0L;
+        try {
+            Utils.delete(stagingDir);
+        } catch (final IOException e) {
+            log.warn("Failed to delete SST staging directory {} for store {}", stagingDir, storeName, e);
+        }
+    }
+}
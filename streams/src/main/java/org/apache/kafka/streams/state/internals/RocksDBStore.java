@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.KeyValue;
@@ -32,6 +33,7 @@ import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.RocksDBConfigSetter;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -39,6 +41,7 @@ import org.rocksdb.CompactionStyle;
 import org.rocksdb.CompressionType;
 import org.rocksdb.DBOptions;
 import org.rocksdb.FlushOptions;
+import org.rocksdb.IngestExternalFileOptions;
 import org.rocksdb.InfoLogLevel;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
@@ -65,7 +68,7 @@ import java.util.regex.Pattern;
 /**
  * A persistent key-value store based on RocksDB.
  */
-public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
+public class RocksDBStore implements KeyValueStore<Bytes, byte[]>, SnapshottableStore {
     private static final Logger log = LoggerFactory.getLogger(RocksDBStore.class);
 
     private static final Pattern SST_FILE_EXTENSION = Pattern.compile(".*\\.sst");
@@ -77,6 +80,7 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
     private static final long BLOCK_SIZE = 4096L;
     private static final int MAX_WRITE_BUFFERS = 3;
     private static final String DB_FILE_DIR = "rocksdb";
+    private static final String SST_STAGING_DIR_SUFFIX = ".bulkload";
 
     final String name;
     private final String parentDir;
@@ -93,6 +97,7 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
     private BloomFilter filter;
 
     private volatile boolean prepareForBulkload = false;
+    private RocksDBSstFileLoader sstFileLoader;
     ProcessorContext internalProcessorContext;
     // visible for testing
     volatile BatchingStateRestoreCallback batchingStateRestoreCallback = null;
@@ -206,6 +211,11 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         return prepareForBulkload;
     }
 
+    // visible for testing
+    boolean isRestoringViaSstIngestion() {
+        return sstFileLoader != null;
+    }
+
     @Override
     public String name() {
         return name;
@@ -268,6 +278,22 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         }
     }
 
+    @Override
+    public synchronized List<byte[]> getAll(final List<Bytes> keys) {
+        validateStoreOpen();
+        final List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (final Bytes key : keys) {
+            Objects.requireNonNull(key, "key cannot be null");
+            rawKeys.add(key.get());
+        }
+        try {
+            return dbAccessor.getAll(rawKeys);
+        } catch (final RocksDBException e) {
+            // String format is happening in wrapping stores. So formatted message is thrown from wrapping stores.
+            throw new ProcessorStateException("Error while getting values for keys from store " + name, e);
+        }
+    }
+
     @Override
     public synchronized byte[] delete(final Bytes key) {
         Objects.requireNonNull(key, "key cannot be null");
@@ -295,6 +321,20 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         return rocksDBRangeIterator;
     }
 
+    @Override
+    public synchronized <PS extends Serializer<P>, P> KeyValueIterator<Bytes, byte[]> prefixScan(final P prefix,
+                                                                                                final PS prefixKeySerializer) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        Objects.requireNonNull(prefixKeySerializer, "prefixKeySerializer cannot be null");
+        validateStoreOpen();
+
+        final Bytes prefixBytes = Bytes.wrap(prefixKeySerializer.serialize(null, prefix));
+        final KeyValueIterator<Bytes, byte[]> rocksDBPrefixIterator = dbAccessor.prefixScan(prefixBytes);
+        openIterators.add(rocksDBPrefixIterator);
+
+        return rocksDBPrefixIterator;
+    }
+
     @Override
     public synchronized KeyValueIterator<Bytes, byte[]> all() {
         validateStoreOpen();
@@ -340,6 +380,9 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         if (db == null) {
             return;
         }
+        if (sstFileLoader != null) {
+            sstFileLoader.flush();
+        }
         try {
             dbAccessor.flush();
         } catch (final RocksDBException e) {
@@ -347,6 +390,23 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         }
     }
 
+    @Override
+    public synchronized void snapshot(final File taskSnapshotDir) {
+        validateStoreOpen();
+        final File snapshotDbDir = new File(new File(taskSnapshotDir, parentDir), name);
+        try {
+            Files.createDirectories(snapshotDbDir.getParentFile().toPath());
+        } catch (final IOException fatal) {
+            throw new ProcessorStateException(fatal);
+        }
+
+        try (final Checkpoint checkpoint = Checkpoint.create(db)) {
+            checkpoint.createCheckpoint(snapshotDbDir.getAbsolutePath());
+        } catch (final RocksDBException e) {
+            throw new ProcessorStateException("Error while creating snapshot of store " + name + " at location " + snapshotDbDir.toString(), e);
+        }
+    }
+
     void toggleDbForBulkLoading(final boolean prepareForBulkload) {
         if (prepareForBulkload) {
             // if the store is not empty, we need to compact to get around the num.levels check for bulk loading
@@ -362,6 +422,49 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         openDB(internalProcessorContext);
     }
 
+    /**
+     * Switch restoration to SST file ingestion if the store is empty. Must be called after the store
+     * was prepared for bulk loading; the loader is released on the next {@link #close()}.
+     */
+    void maybeRestoreViaSstIngestion() {
+        if (sstFileLoader != null || !isEmpty()) {
+            return;
+        }
+
+        log.debug("Restoring empty store {} via SST file ingestion", name);
+        sstFileLoader = new RocksDBSstFileLoader(
+            name,
+            new File(dbDir.getParentFile(), name + SST_STAGING_DIR_SUFFIX),
+            userSpecifiedOptions,
+            userSpecifiedOptions.writeBufferSize(),
+            sstFilePath -> {
+                try (final IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+                    ingestOptions.setMoveFiles(true);
+                    dbAccessor.ingestExternalFile(sstFilePath, ingestOptions);
+                }
+            });
+    }
+
+    private boolean isEmpty() {
+        try (final KeyValueIterator<Bytes, byte[]> iterator = dbAccessor.all()) {
+            return !iterator.hasNext();
+        }
+    }
+
+    void restoreAll(final Collection<KeyValue<byte[], byte[]>> records) {
+        if (sstFileLoader != null) {
+            sstFileLoader.add(records);
+            return;
+        }
+
+        try (final WriteBatch batch = new WriteBatch()) {
+            dbAccessor.prepareBatchForRestore(records, batch);
+            write(batch);
+        } catch (final RocksDBException e) {
+            throw new ProcessorStateException("Error restoring batch to store " + name, e);
+        }
+    }
+
     void write(final WriteBatch batch) throws RocksDBException {
         db.write(wOptions, batch);
     }
@@ -372,6 +475,15 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
             return;
         }
 
+        if (sstFileLoader != null) {
+            try {
+                sstFileLoader.flush();
+            } finally {
+                sstFileLoader.close();
+                sstFileLoader = null;
+            }
+        }
+
         open = false;
         closeOpenIterators();
         dbAccessor.close();
@@ -413,6 +525,13 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
 
         byte[] get(final byte[] key) throws RocksDBException;
 
+        /**
+         * Look up all keys with a single multi-get.
+         *
+         * @return the values in the order of the given keys, with null for missing keys
+         */
+        List<byte[]> getAll(final List<byte[]> keys) throws RocksDBException;
+
         /**
          * In contrast to get(), we don't migrate the key to new CF.
          * <p>
@@ -423,6 +542,8 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         KeyValueIterator<Bytes, byte[]> range(final Bytes from,
                                               final Bytes to);
 
+        KeyValueIterator<Bytes, byte[]> prefixScan(final Bytes prefix);
+
         KeyValueIterator<Bytes, byte[]> all();
 
         long approximateNumEntries() throws RocksDBException;
@@ -432,6 +553,12 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         void prepareBatchForRestore(final Collection<KeyValue<byte[], byte[]>> records,
                                     final WriteBatch batch) throws RocksDBException;
 
+        /**
+         * Ingest an external SST file. Only used to restore into an empty store.
+         */
+        void ingestExternalFile(final String sstFilePath,
+                                final IngestExternalFileOptions ingestOptions) throws RocksDBException;
+
         void close();
 
         void toggleDbForBulkLoading();
@@ -482,6 +609,17 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
             return db.get(columnFamily, key);
         }
 
+        @Override
+        public List<byte[]> getAll(final List<byte[]> keys) throws RocksDBException {
+            // the returned map is keyed by the given key arrays, which do not override equals()
+            final Map<byte[], byte[]> result = db.multiGet(Collections.nCopies(keys.size(), columnFamily), keys);
+            final List<byte[]> values = new ArrayList<>(keys.size());
+            for (final byte[] key : keys) {
+                values.add(result.get(key));
+            }
+            return values;
+        }
+
         @Override
         public byte[] getOnly(final byte[] key) throws RocksDBException {
             return db.get(columnFamily, key);
@@ -490,12 +628,29 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
         @Override
         public KeyValueIterator<Bytes, byte[]> range(final Bytes from,
                                                      final Bytes to) {
+            final RocksDBBoundedReadOptions readOptions = new RocksDBBoundedReadOptions(OrderedBytes.successor(to));
             return new RocksDBRangeIterator(
                 name,
-                db.newIterator(columnFamily),
+                db.newIterator(columnFamily, readOptions.readOptions()),
                 openIterators,
                 from,
-                to);
+                to,
+                true,
+                readOptions);
+        }
+
+        @Override
+        public KeyValueIterator<Bytes, byte[]> prefixScan(final Bytes prefix) {
+            final Bytes upperBound = OrderedBytes.prefixUpperBound(prefix);
+            final RocksDBBoundedReadOptions readOptions = new RocksDBBoundedReadOptions(upperBound);
+            return new RocksDBRangeIterator(
+                name,
+                db.newIterator(columnFamily, readOptions.readOptions()),
+                openIterators,
+                prefix,
+                upperBound,
+                false,
+                readOptions);
         }
 
         @Override
@@ -527,6 +682,12 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
             }
         }
 
+        @Override
+        public void ingestExternalFile(final String sstFilePath,
+                                       final IngestExternalFileOptions ingestOptions) throws RocksDBException {
+            db.ingestExternalFile(columnFamily, Collections.singletonList(sstFilePath), ingestOptions);
+        }
+
         @Override
         public void close() {
             columnFamily.close();
@@ -553,12 +714,7 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
 
         @Override
         public void restoreAll(final Collection<KeyValue<byte[], byte[]>> records) {
-            try (final WriteBatch batch = new WriteBatch()) {
-                rocksDBStore.dbAccessor.prepareBatchForRestore(records, batch);
-                rocksDBStore.write(batch);
-            } catch (final RocksDBException e) {
-                throw new ProcessorStateException("Error restoring batch to store " + rocksDBStore.name, e);
-            }
+            rocksDBStore.restoreAll(records);
         }
 
         @Override
@@ -567,6 +723,7 @@ public class RocksDBStore implements KeyValueStore<Bytes, byte[]> {
                                    final long startingOffset,
                                    final long endingOffset) {
             rocksDBStore.toggleDbForBulkLoading(true);
+            rocksDBStore.maybeRestoreViaSstIngestion();
         }
 
         @Override
@@ -26,6 +26,7 @@ import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.IngestExternalFileOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
@@ -36,8 +37,10 @@ import org.slf4j.LoggerFactory;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
@@ -172,6 +175,37 @@ public class RocksDBTimestampedStore extends RocksDBStore {
             return null;
         }
 
+        @Override
+        public List<byte[]> getAll(final List<byte[]> keys) throws RocksDBException {
+            // the returned maps are keyed by the given key arrays, which do not override equals()
+            final Map<byte[], byte[]> valuesWithTimestamp = db.multiGet(Collections.nCopies(keys.size(), newColumnFamily), keys);
+
+            final List<byte[]> notMigratedKeys = new ArrayList<>();
+            for (final byte[] key : keys) {
+                if (!valuesWithTimestamp.containsKey(key)) {
+                    notMigratedKeys.add(key);
+                }
+            }
+            final Map<byte[], byte[]> plainValues = notMigratedKeys.isEmpty()
+                ? Collections.emptyMap()
+                : db.multiGet(Collections.nCopies(notMigratedKeys.size(), oldColumnFamily), notMigratedKeys);
+
+            final List<byte[]> values = new ArrayList<>(keys.size());
+            for (final byte[] key : keys) {
+                byte[] value = valuesWithTimestamp.get(key);
+                if (value == null) {
+                    final byte[] plainValue = plainValues.get(key);
+                    if (plainValue != null) {
+                        value = getValueWithUnknownTimestamp(plainValue);
+                        // migrate the same way as get() does
+                        put(key, value);
+                    }
+                }
+                values.add(value);
+            }
+            return values;
+        }
+
         @Override
         public byte[] getOnly(final byte[] key) throws RocksDBException {
             final byte[] valueWithTimestamp = db.get(newColumnFamily, key);
@@ -190,12 +224,29 @@ public class RocksDBTimestampedStore extends RocksDBStore {
         @Override
         public KeyValueIterator<Bytes, byte[]> range(final Bytes from,
                                                      final Bytes to) {
+            final RocksDBBoundedReadOptions readOptions = new RocksDBBoundedReadOptions(OrderedBytes.successor(to));
             return new RocksDBDualCFRangeIterator(
                 name,
-                db.newIterator(newColumnFamily),
-                db.newIterator(oldColumnFamily),
+                db.newIterator(newColumnFamily, readOptions.readOptions()),
+                db.newIterator(oldColumnFamily, readOptions.readOptions()),
                 from,
-                to);
+                to,
+                true,
+                readOptions);
+        }
+
+        @Override
+        public KeyValueIterator<Bytes, byte[]> prefixScan(final Bytes prefix) {
+            final Bytes upperBound = OrderedBytes.prefixUpperBound(prefix);
+            final RocksDBBoundedReadOptions readOptions = new RocksDBBoundedReadOptions(upperBound);
+            return new RocksDBDualCFRangeIterator(
+                name,
+                db.newIterator(newColumnFamily, readOptions.readOptions()),
+                db.newIterator(oldColumnFamily, readOptions.readOptions()),
+                prefix,
+                upperBound,
+                false,
+                readOptions);
         }
 
         @Override
@@ -204,7 +255,7 @@ public class RocksDBTimestampedStore extends RocksDBStore {
             innerIterWithTimestamp.seekToFirst();
             final RocksIterator innerIterNoTimestamp = db.newIterator(oldColumnFamily);
             innerIterNoTimestamp.seekToFirst();
-            return new RocksDBDualCFIterator(name, innerIterWithTimestamp, innerIterNoTimestamp);
+            return new RocksDBDualCFIterator(name, innerIterWithTimestamp, innerIterNoTimestamp, null);
         }
 
         @Override
@@ -233,6 +284,13 @@ public class RocksDBTimestampedStore extends RocksDBStore {
             }
         }
 
+        @Override
+        public void ingestExternalFile(final String sstFilePath,
+                                       final IngestExternalFileOptions ingestOptions) throws RocksDBException {
+            // only used when restoring into an empty store, so there is nothing to migrate from the old column family
+            db.ingestExternalFile(newColumnFamily, Collections.singletonList(sstFilePath), ingestOptions);
+        }
+
         @Override
         public void close() {
             oldColumnFamily.close();
@@ -265,6 +323,7 @@ public class RocksDBTimestampedStore extends RocksDBStore {
         private final String storeName;
         private final RocksIterator iterWithTimestamp;
         private final RocksIterator iterNoTimestamp;
+        private final RocksDBBoundedReadOptions readOptions;
 
         private volatile boolean open = true;
 
@@ -274,9 +333,11 @@ public class RocksDBTimestampedStore extends RocksDBStore {
 
         RocksDBDualCFIterator(final String storeName,
                               final RocksIterator iterWithTimestamp,
-                              final RocksIterator iterNoTimestamp) {
+                              final RocksIterator iterNoTimestamp,
+                              final RocksDBBoundedReadOptions readOptions) {
             this.iterWithTimestamp = iterWithTimestamp;
             this.iterNoTimestamp = iterNoTimestamp;
+            this.readOptions = readOptions;
             this.storeName = storeName;
         }
 
@@ -342,6 +403,9 @@ public class RocksDBTimestampedStore extends RocksDBStore {
             openIterators.remove(this);
             iterNoTimestamp.close();
             iterWithTimestamp.close();
+            if (readOptions != null) {
+                readOptions.close();
+            }
             open = false;
         }
 
@@ -360,18 +424,26 @@ public class RocksDBTimestampedStore extends RocksDBStore {
         // safe to just force lexicographic comparator here for now.
         private final Comparator<byte[]> comparator = Bytes.BYTES_LEXICO_COMPARATOR;
         private final byte[] upperBoundKey;
+        private final boolean toInclusive;
 
         RocksDBDualCFRangeIterator(final String storeName,
                                    final RocksIterator iterWithTimestamp,
                                    final RocksIterator iterNoTimestamp,
                                    final Bytes from,
-                                   final Bytes to) {
-            super(storeName, iterWithTimestamp, iterNoTimestamp);
+                                   final Bytes to,
+                                   final boolean toInclusive,
+                                   final RocksDBBoundedReadOptions readOptions) {
+            super(storeName, iterWithTimestamp, iterNoTimestamp, readOptions);
             iterWithTimestamp.seek(from.get());
             iterNoTimestamp.seek(from.get());
-            upperBoundKey = to.get();
-            if (upperBoundKey == null) {
-                throw new NullPointerException("RocksDBDualCFRangeIterator: upperBoundKey is null for key " + to);
+            this.toInclusive = toInclusive;
+            if (to == null) {
+                upperBoundKey = null;
+            } else {
+                upperBoundKey = to.get();
+                if (upperBoundKey == null) {
+                    throw new NullPointerException("RocksDBDualCFRangeIterator: upperBoundKey is null for key " + to);
+                }
             }
         }
 
@@ -382,7 +454,11 @@ public class RocksDBTimestampedStore extends RocksDBStore {
             if (next == null) {
                 return allDone();
             } else {
-                if (comparator.compare(next.key.get(), upperBoundKey) <= 0) {
+                if (upperBoundKey == null) {
+                    return next;
+                }
+                final int result = comparator.compare(next.key.get(), upperBoundKey);
+                if (result < 0 || toInclusive && result == 0) {
                     return next;
                 } else {
                     return allDone();
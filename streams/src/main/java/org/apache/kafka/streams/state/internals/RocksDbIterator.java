@@ -31,6 +31,7 @@ class RocksDbIterator extends AbstractIterator<KeyValue<Bytes, byte[]>> implemen
     private final String storeName;
     private final RocksIterator iter;
     private final Set<KeyValueIterator<Bytes, byte[]>> openIterators;
+    private final RocksDBBoundedReadOptions readOptions;
 
     private volatile boolean open = true;
 
@@ -39,9 +40,20 @@ class RocksDbIterator extends AbstractIterator<KeyValue<Bytes, byte[]>> implemen
     RocksDbIterator(final String storeName,
                     final RocksIterator iter,
                     final Set<KeyValueIterator<Bytes, byte[]>> openIterators) {
+        this(storeName, iter, openIterators, null);
+    }
+
+    /**
+     * @param readOptions the read options {@code iter} was created with, closed together with this iterator
+     */
+    RocksDbIterator(final String storeName,
+                    final RocksIterator iter,
+                    final Set<KeyValueIterator<Bytes, byte[]>> openIterators,
+                    final RocksDBBoundedReadOptions readOptions) {
         this.storeName = storeName;
         this.iter = iter;
         this.openIterators = openIterators;
+        this.readOptions = readOptions;
     }
 
     @Override
@@ -76,6 +88,9 @@ class RocksDbIterator extends AbstractIterator<KeyValue<Bytes, byte[]>> implemen
     public synchronized void close() {
         openIterators.remove(this);
         iter.close();
+        if (readOptions != null) {
+            readOptions.close();
+        }
         open = false;
     }
 
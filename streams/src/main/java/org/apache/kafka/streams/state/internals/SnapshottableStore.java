@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import java.io.File;
+
+/**
+ * A persistent store that can write a consistent, point-in-time copy of its on-disk state.
+ */
+public interface SnapshottableStore {
+    /**
+     * Write a snapshot of the store into the given task snapshot directory, at the same relative
+     * location the store uses within its task directory. The store must be flushed beforehand.
+     *
+     * @param taskSnapshotDir the snapshot directory of the task owning this store
+     */
+    void snapshot(final File taskSnapshotDir);
+}
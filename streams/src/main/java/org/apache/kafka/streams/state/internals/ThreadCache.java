@@ -185,6 +185,17 @@ public class ThreadCache {
         return new MemoryLRUCacheBytesIterator(cache.keyRange(from, to), cache);
     }
 
+    /**
+     * @param to the upper end of the range, or {@code null} if the range is unbounded
+     */
+    public MemoryLRUCacheBytesIterator range(final String namespace, final Bytes from, final Bytes to, final boolean toInclusive) {
+        final NamedCache cache = getCache(namespace);
+        if (cache == null) {
+            return new MemoryLRUCacheBytesIterator(Collections.<Bytes>emptyIterator(), new NamedCache(namespace, this.metrics));
+        }
+        return new MemoryLRUCacheBytesIterator(cache.keyRange(from, to, toInclusive), cache);
+    }
+
     public MemoryLRUCacheBytesIterator all(final String namespace) {
         final NamedCache cache = getCache(namespace);
         if (cache == null) {
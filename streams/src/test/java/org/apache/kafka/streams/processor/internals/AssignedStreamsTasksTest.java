@@ -377,7 +377,7 @@ public class AssignedStreamsTasksTest {
     public void shouldAlwaysProcessProcessableTasks() {
         mockTaskInitialization();
         EasyMock.expect(t1.isProcessable(0L)).andReturn(true);
-        EasyMock.expect(t1.process()).andReturn(true).once();
+        EasyMock.expect(t1.process()).andReturn(1).once();
 
         EasyMock.replay(t1);
 
@@ -44,6 +44,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
@@ -459,6 +460,92 @@ public class ProcessorStateManagerTest {
         assertThat(read, equalTo(singletonMap(persistentStorePartition, 11L)));
     }
 
+    @Test
+    public void shouldSeedStoresFromSnapshotIfThereIsNoCheckpoint() throws IOException {
+        final File snapshotDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(new StreamsConfig(new Properties() {
+            {
+                put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+                put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:1234");
+                put(StreamsConfig.STATE_DIR_CONFIG, baseDir.getPath());
+                put(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG, snapshotDir.getPath());
+            }
+        }), new MockTime(), true);
+
+        try {
+            stateDirectory.snapshotDirectory().snapshot(
+                taskId,
+                stateDirectory.directoryForTask(taskId),
+                singletonList(taskSnapshotDir -> {
+                    final File dbDir = new File(taskSnapshotDir, persistentStoreName);
+                    assertTrue(dbDir.mkdirs());
+                    try {
+                        assertTrue(new File(dbDir, "CURRENT").createNewFile());
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }),
+                singletonMap(persistentStorePartition, 10L));
+            // waits for the snapshot to be copied
+            stateDirectory.close();
+
+            final ProcessorStateManager stateMgr = new ProcessorStateManager(
+                taskId,
+                noPartitions,
+                false,
+                stateDirectory,
+                singletonMap(persistentStore.name(), persistentStoreTopicName),
+                changelogReader,
+                false,
+                logContext);
+            stateMgr.maybeSeedFromSnapshot();
+
+            assertThat(stateMgr.checkpointableOffsets, equalTo(singletonMap(persistentStorePartition, 10L)));
+            assertTrue(new File(stateDirectory.directoryForTask(taskId), persistentStoreName).isDirectory());
+        } finally {
+            Utils.delete(snapshotDir);
+        }
+    }
+
+    @Test
+    public void shouldNotSeedStoresFromSnapshotIfThereIsACheckpoint() throws IOException {
+        checkpoint.write(singletonMap(persistentStorePartition, 5L));
+        final File snapshotDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(new StreamsConfig(new Properties() {
+            {
+                put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+                put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:1234");
+                put(StreamsConfig.STATE_DIR_CONFIG, baseDir.getPath());
+                put(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG, snapshotDir.getPath());
+            }
+        }), new MockTime(), true);
+
+        try {
+            stateDirectory.snapshotDirectory().snapshot(
+                taskId,
+                stateDirectory.directoryForTask(taskId),
+                singletonList(taskSnapshotDir -> { }),
+                singletonMap(persistentStorePartition, 10L));
+            // waits for the snapshot to be copied
+            stateDirectory.close();
+
+            final ProcessorStateManager stateMgr = new ProcessorStateManager(
+                taskId,
+                noPartitions,
+                false,
+                stateDirectory,
+                singletonMap(persistentStore.name(), persistentStoreTopicName),
+                changelogReader,
+                false,
+                logContext);
+            stateMgr.maybeSeedFromSnapshot();
+
+            assertThat(stateMgr.checkpointableOffsets, equalTo(singletonMap(persistentStorePartition, 5L)));
+        } finally {
+            Utils.delete(snapshotDir);
+        }
+    }
+
     @Test
     public void shouldWriteCheckpointForStandbyReplica() throws IOException {
         final ProcessorStateManager stateMgr = new ProcessorStateManager(
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.processor.internals;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.MockTime;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.processor.TaskId;
+import org.apache.kafka.streams.state.internals.SnapshottableStore;
+import org.apache.kafka.test.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StateSnapshotDirectoryTest {
+
+    private final MockTime time = new MockTime();
+    private final TaskId taskId = new TaskId(0, 0);
+    private final TopicPartition changelogPartition = new TopicPartition("app-store-changelog", 0);
+    private File snapshotDir;
+    private File taskDir;
+    private StateSnapshotDirectory directory;
+
+    @Before
+    public void before() {
+        snapshotDir = TestUtils.tempDirectory();
+        taskDir = TestUtils.tempDirectory();
+        directory = new StateSnapshotDirectory(snapshotDir, 1000L, time);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        directory.close();
+        Utils.delete(snapshotDir);
+        Utils.delete(taskDir);
+    }
+
+    @Test
+    public void shouldReturnEmptyOffsetsWhenSeedingWithoutSnapshot() throws IOException {
+        assertTrue(directory.seed(taskId, taskDir).isEmpty());
+    }
+
+    @Test
+    public void shouldSeedTaskDirectoryFromNewestSnapshot() throws Exception {
+        snapshot(storeWithContent("old"), 5L);
+        time.sleep(1000L);
+        snapshot(storeWithContent("new"), 10L);
+
+        final File staleFile = new File(taskDir, "rocksdb/store/000001.log");
+        Files.createDirectories(staleFile.getParentFile().toPath());
+        Files.write(staleFile.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+
+        final Map<TopicPartition, Long> offsets = directory.seed(taskId, taskDir);
+
+        assertThat(offsets, equalTo(Collections.singletonMap(changelogPartition, 10L)));
+        assertThat(read(new File(taskDir, "rocksdb/store/000002.sst")), equalTo("new"));
+        assertThat(read(new File(taskDir, "rocksdb/store/CURRENT")), equalTo("MANIFEST-000001"));
+        assertFalse(staleFile.exists());
+        assertFalse(new File(taskDir, ProcessorStateManager.CHECKPOINT_FILE_NAME).exists());
+    }
+
+    @Test
+    public void shouldNotMoveAnyStoreIntoPlaceIfSeedFails() throws Exception {
+        snapshot(Arrays.asList(storeWithContent("rocksdb/a", "a"), storeWithContent("rocksdb/b", "b")), 10L);
+        // a file of the second store that cannot be read
+        final File snapshot = new File(directory.directoryForTask(taskId), Long.toString(time.milliseconds()));
+        Files.createSymbolicLink(new File(snapshot, "rocksdb/b/000003.log").toPath(), new File(snapshotDir, "missing").toPath());
+
+        final File localFile = new File(taskDir, "rocksdb/a/000001.log");
+        Files.createDirectories(localFile.getParentFile().toPath());
+        Files.write(localFile.toPath(), "local".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            directory.seed(taskId, taskDir);
+            fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // expected
+        }
+
+        assertThat(read(localFile), equalTo("local"));
+        assertThat(new File(taskDir, "rocksdb/a").list().length, equalTo(1));
+        assertFalse(new File(taskDir, "rocksdb/b").exists());
+        assertThat(taskDir.list(), equalTo(new String[] {"rocksdb"}));
+        assertThat(directory.directoryForTask(taskId).list(), equalTo(new String[] {snapshot.getName()}));
+    }
+
+    @Test
+    public void shouldRemoveStaleReaderDirectoriesOfSnapshots() throws Exception {
+        final File taskSnapshotDir = directory.directoryForTask(taskId);
+        final File staleReaderDir = new File(taskSnapshotDir, ".reader-stale");
+        final File activeReaderDir = new File(taskSnapshotDir, ".reader-active");
+        assertTrue(staleReaderDir.mkdirs());
+        assertTrue(activeReaderDir.mkdirs());
+        assertTrue(staleReaderDir.setLastModified(time.milliseconds() - 24 * 60 * 60 * 1000L));
+        assertTrue(activeReaderDir.setLastModified(time.milliseconds()));
+
+        snapshot(storeWithContent("data"), 5L);
+
+        assertFalse(staleReaderDir.exists());
+        assertTrue(activeReaderDir.exists());
+    }
+
+    @Test
+    public void shouldOnlyRetainNewestSnapshot() throws Exception {
+        snapshot(storeWithContent("old"), 5L);
+        time.sleep(1000L);
+        snapshot(storeWithContent("new"), 10L);
+
+        final String[] snapshots = directory.directoryForTask(taskId).list();
+        assertThat(snapshots.length, equalTo(1));
+        assertThat(snapshots[0], equalTo(Long.toString(time.milliseconds())));
+    }
+
+    @Test
+    public void shouldNotLeaveSnapshotIfStoreFails() throws IOException {
+        final SnapshottableStore failingStore = taskSnapshotDir -> {
+            throw new IllegalStateException("KABOOM!");
+        };
+
+        try {
+            directory.snapshot(taskId, taskDir, Collections.singletonList(failingStore), Collections.singletonMap(changelogPartition, 5L));
+        } catch (final IllegalStateException expected) {
+            // expected
+        }
+
+        assertFalse(directory.directoryForTask(taskId).exists());
+        assertThat(taskDir.list().length, equalTo(0));
+        assertTrue(directory.seed(taskId, taskDir).isEmpty());
+    }
+
+    @Test
+    public void shouldStageSnapshotInTaskDirectoryAndCopyItInBackground() throws Exception {
+        final File staleStagingDir = new File(taskDir, ".snapshot-1");
+        assertTrue(staleStagingDir.mkdirs());
+
+        snapshot(storeWithContent("data"), 5L);
+
+        // the staging directory of the snapshot is removed once it was copied, as is the stale one
+        assertThat(taskDir.list().length, equalTo(0));
+        final File snapshot = new File(directory.directoryForTask(taskId), Long.toString(time.milliseconds()));
+        assertThat(read(new File(snapshot, "rocksdb/store/000002.sst")), equalTo("data"));
+        assertTrue(new File(snapshot, ProcessorStateManager.CHECKPOINT_FILE_NAME).exists());
+    }
+
+    @Test
+    public void shouldCopySnapshotInCallingThreadOnceClosed() throws IOException {
+        directory.close();
+        directory.snapshot(taskId, taskDir, Collections.singletonList(storeWithContent("data")),
+            Collections.singletonMap(changelogPartition, 5L));
+
+        assertFalse(directory.copyPending(taskId));
+        assertThat(directory.seed(taskId, TestUtils.tempDirectory()), equalTo(Collections.singletonMap(changelogPartition, 5L)));
+    }
+
+    private void snapshot(final SnapshottableStore store, final long offset) throws Exception {
+        snapshot(Collections.singletonList(store), offset);
+    }
+
+    private void snapshot(final List<SnapshottableStore> stores, final long offset) throws Exception {
+        directory.snapshot(taskId, taskDir, stores, Collections.singletonMap(changelogPartition, offset));
+        TestUtils.waitForCondition(() -> !directory.copyPending(taskId), "The snapshot was not copied");
+    }
+
+    @Test
+    public void shouldOnlySnapshotAfterIntervalElapsed() throws Exception {
+        assertTrue(directory.snapshotDue(taskId));
+        snapshot(storeWithContent("data"), 5L);
+        assertFalse(directory.snapshotDue(taskId));
+
+        time.sleep(999L);
+        assertFalse(directory.snapshotDue(taskId));
+
+        time.sleep(1L);
+        assertTrue(directory.snapshotDue(taskId));
+    }
+
+    private static SnapshottableStore storeWithContent(final String content) {
+        return storeWithContent("rocksdb/store", content);
+    }
+
+    private static SnapshottableStore storeWithContent(final String path, final String content) {
+        return taskSnapshotDir -> {
+            final File dbDir = new File(taskSnapshotDir, path);
+            try {
+                Files.createDirectories(dbDir.toPath());
+                Files.write(new File(dbDir, "CURRENT").toPath(), "MANIFEST-000001".getBytes(StandardCharsets.UTF_8));
+                Files.write(new File(dbDir, "000002.sst").toPath(), content.getBytes(StandardCharsets.UTF_8));
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
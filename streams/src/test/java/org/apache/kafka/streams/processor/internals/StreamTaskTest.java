@@ -176,6 +176,10 @@ public class StreamTaskTest {
     }
 
     private StreamsConfig createConfig(final boolean enableEoS) {
+        return createConfig(enableEoS, 1);
+    }
+
+    private StreamsConfig createConfig(final boolean enableEoS, final int processingBatchSize) {
         final String canonicalPath;
         try {
             canonicalPath = baseDir.getCanonicalPath();
@@ -189,7 +193,8 @@ public class StreamTaskTest {
             mkEntry(StreamsConfig.STATE_DIR_CONFIG, canonicalPath),
             mkEntry(StreamsConfig.DEFAULT_TIMESTAMP_EXTRACTOR_CLASS_CONFIG, MockTimestampExtractor.class.getName()),
             mkEntry(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, enableEoS ? StreamsConfig.EXACTLY_ONCE : StreamsConfig.AT_LEAST_ONCE),
-            mkEntry(StreamsConfig.MAX_TASK_IDLE_MS_CONFIG, "100")
+            mkEntry(StreamsConfig.MAX_TASK_IDLE_MS_CONFIG, "100"),
+            mkEntry(StreamsConfig.PROCESSING_BATCH_SIZE_CONFIG, Integer.toString(processingBatchSize))
         )));
     }
 
@@ -359,37 +364,85 @@ public class StreamTaskTest {
             getConsumerRecord(partition2, 45)
         ));
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(5, task.numBuffered());
         assertEquals(1, source1.numReceived);
         assertEquals(0, source2.numReceived);
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(4, task.numBuffered());
         assertEquals(2, source1.numReceived);
         assertEquals(0, source2.numReceived);
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(3, task.numBuffered());
         assertEquals(2, source1.numReceived);
         assertEquals(1, source2.numReceived);
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(2, task.numBuffered());
         assertEquals(3, source1.numReceived);
         assertEquals(1, source2.numReceived);
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(1, task.numBuffered());
         assertEquals(3, source1.numReceived);
         assertEquals(2, source2.numReceived);
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(0, task.numBuffered());
         assertEquals(3, source1.numReceived);
         assertEquals(3, source2.numReceived);
     }
 
+    @Test
+    public void shouldProcessBatchOfRecordsIfTaskIsStateless() {
+        task = createStatelessTask(createConfig(false, 3));
+
+        task.addRecords(partition1, asList(
+            getConsumerRecord(partition1, 10),
+            getConsumerRecord(partition1, 20),
+            getConsumerRecord(partition1, 30)
+        ));
+
+        task.addRecords(partition2, asList(
+            getConsumerRecord(partition2, 25),
+            getConsumerRecord(partition2, 35),
+            getConsumerRecord(partition2, 45)
+        ));
+
+        // records are still processed in timestamp order across partitions
+        assertEquals(3, task.process());
+        assertEquals(3, task.numBuffered());
+        assertEquals(2, source1.numReceived);
+        assertEquals(1, source2.numReceived);
+
+        // the batch ends once the buffer of partition1 runs empty
+        assertEquals(1, task.process());
+        assertEquals(2, task.numBuffered());
+        assertEquals(3, source1.numReceived);
+        assertEquals(1, source2.numReceived);
+    }
+
+    @Test
+    public void shouldProcessOneRecordAtATimeIfTaskIsStateful() {
+        task = createStatefulTask(createConfig(false, 3), false);
+
+        task.addRecords(partition1, asList(
+            getConsumerRecord(partition1, 10),
+            getConsumerRecord(partition1, 20)
+        ));
+
+        task.addRecords(partition2, asList(
+            getConsumerRecord(partition2, 25),
+            getConsumerRecord(partition2, 35)
+        ));
+
+        assertEquals(1, task.process());
+        assertEquals(3, task.numBuffered());
+        assertEquals(1, source1.numReceived);
+        assertEquals(0, source2.numReceived);
+    }
 
     @Test
     public void testMetrics() {
@@ -435,7 +488,7 @@ public class StreamTaskTest {
             getConsumerRecord(partition2, 65)
         ));
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(1, source1.numReceived);
         assertEquals(0, source2.numReceived);
 
@@ -452,21 +505,21 @@ public class StreamTaskTest {
         assertTrue(consumer.paused().contains(partition1));
         assertTrue(consumer.paused().contains(partition2));
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(2, source1.numReceived);
         assertEquals(0, source2.numReceived);
 
         assertEquals(1, consumer.paused().size());
         assertTrue(consumer.paused().contains(partition2));
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(3, source1.numReceived);
         assertEquals(0, source2.numReceived);
 
         assertEquals(1, consumer.paused().size());
         assertTrue(consumer.paused().contains(partition2));
 
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(3, source1.numReceived);
         assertEquals(1, source2.numReceived);
 
@@ -498,14 +551,14 @@ public class StreamTaskTest {
         assertFalse(task.maybePunctuateStreamTime()); // punctuate at 20
 
         // st: 20
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(7, task.numBuffered());
         assertEquals(1, source1.numReceived);
         assertEquals(0, source2.numReceived);
         assertTrue(task.maybePunctuateStreamTime());
 
         // st: 25
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(6, task.numBuffered());
         assertEquals(1, source1.numReceived);
         assertEquals(1, source2.numReceived);
@@ -513,7 +566,7 @@ public class StreamTaskTest {
 
         // st: 142
         // punctuate at 142
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(5, task.numBuffered());
         assertEquals(2, source1.numReceived);
         assertEquals(1, source2.numReceived);
@@ -521,7 +574,7 @@ public class StreamTaskTest {
 
         // st: 145
         // only one punctuation after 100ms gap
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(4, task.numBuffered());
         assertEquals(2, source1.numReceived);
         assertEquals(2, source2.numReceived);
@@ -529,28 +582,28 @@ public class StreamTaskTest {
 
         // st: 155
         // punctuate at 155
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(3, task.numBuffered());
         assertEquals(3, source1.numReceived);
         assertEquals(2, source2.numReceived);
         assertTrue(task.maybePunctuateStreamTime());
 
         // st: 159
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(2, task.numBuffered());
         assertEquals(3, source1.numReceived);
         assertEquals(3, source2.numReceived);
         assertFalse(task.maybePunctuateStreamTime());
 
         // st: 160, aligned at 0
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(1, task.numBuffered());
         assertEquals(4, source1.numReceived);
         assertEquals(3, source2.numReceived);
         assertTrue(task.maybePunctuateStreamTime());
 
         // st: 161
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertEquals(0, task.numBuffered());
         assertEquals(4, source1.numReceived);
         assertEquals(4, source2.numReceived);
@@ -580,17 +633,17 @@ public class StreamTaskTest {
         assertFalse(task.maybePunctuateStreamTime());
 
         // st is now 20
-        assertTrue(task.process());
+        assertEquals(1, task.process());
 
         assertTrue(task.maybePunctuateStreamTime());
 
         // st is now 25
-        assertTrue(task.process());
+        assertEquals(1, task.process());
 
         assertFalse(task.maybePunctuateStreamTime());
 
         // st is now 30
-        assertTrue(task.process());
+        assertEquals(1, task.process());
 
         processorStreamTime.mockProcessor.scheduleCancellable.cancel();
 
@@ -622,7 +675,7 @@ public class StreamTaskTest {
         assertFalse(task.commitNeeded());
 
         task.addRecords(partition1, singletonList(getConsumerRecord(partition1, 0)));
-        assertTrue(task.process());
+        assertEquals(1, task.process());
         assertTrue(task.commitNeeded());
 
         task.commit();
@@ -1402,8 +1455,8 @@ public class StreamTaskTest {
         task.addRecords(partition1, singletonList(getConsumerRecord(partition1, 5L)));
         task.addRecords(repartition, singletonList(getConsumerRecord(repartition, 10L)));
 
-        assertTrue(task.process());
-        assertTrue(task.process());
+        assertEquals(1, task.process());
+        assertEquals(1, task.process());
 
         task.commit();
 
@@ -712,6 +712,47 @@ public class StreamThreadTest {
         thread.rebalanceListener.onPartitionsAssigned(Collections.emptyList());
     }
 
+    @Test
+    public void shouldRecordProcessMetricsPerRecordIfStatelessTasksProcessBatches() {
+        internalTopologyBuilder.addSource(null, "source", null, null, null, topic1);
+        internalTopologyBuilder.addSink("sink", "dummyTopic", null, null, null, "source");
+
+        final Properties props = configProps(false);
+        props.setProperty(StreamsConfig.PROCESSING_BATCH_SIZE_CONFIG, "10");
+        final StreamThread thread = createStreamThread(clientId, new StreamsConfig(props), false);
+
+        final MockConsumer<byte[], byte[]> consumer = clientSupplier.consumer;
+        consumer.updatePartitions(topic1, singletonList(new PartitionInfo(topic1, 1, null, null, null)));
+
+        thread.setState(StreamThread.State.STARTING);
+        thread.rebalanceListener.onPartitionsRevoked(null);
+
+        final List<TopicPartition> assignedPartitions = singletonList(t1p1);
+        thread.taskManager().setAssignmentMetadata(Collections.singletonMap(task1, Collections.singleton(t1p1)),
+            Collections.emptyMap());
+
+        final MockConsumer<byte[], byte[]> mockConsumer = (MockConsumer<byte[], byte[]>) thread.consumer;
+        mockConsumer.assign(assignedPartitions);
+        mockConsumer.updateBeginningOffsets(Collections.singletonMap(t1p1, 0L));
+        thread.rebalanceListener.onPartitionsAssigned(assignedPartitions);
+        thread.runOnce();
+        assertThat(thread.tasks().size(), equalTo(1));
+
+        // change consumer subscription from "pattern" to "manual" to be able to call .addRecords()
+        consumer.unsubscribe();
+        consumer.assign(new HashSet<>(assignedPartitions));
+        for (long offset = 0; offset < 4; offset++) {
+            consumer.addRecord(new ConsumerRecord<>(topic1, 1, offset, new byte[0], new byte[0]));
+        }
+        thread.runOnce();
+
+        // the task processes all four records in one batch, the metrics still count each of them
+        final Map<String, String> tags = Collections.singletonMap("client-id", thread.getName());
+        final Metric processTotal = metrics.metrics().get(
+            metrics.metricName("process-total", "stream-metrics", "The total number of process calls", tags));
+        assertThat(processTotal.metricValue(), equalTo(4.0));
+    }
+
     @Test
     public void shouldCloseTaskAsZombieAndRemoveFromActiveTasksIfProducerWasFencedWhileProcessing() throws Exception {
         internalTopologyBuilder.addSource(null, "source", null, null, null, topic1);
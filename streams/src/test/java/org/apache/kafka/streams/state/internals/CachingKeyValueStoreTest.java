@@ -19,6 +19,7 @@ package org.apache.kafka.streams.state.internals;
 import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.common.utils.LogContext;
 import org.apache.kafka.streams.KeyValue;
@@ -39,6 +40,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -246,6 +248,39 @@ public class CachingKeyValueStoreTest extends AbstractKeyValueStoreTest {
         assertEquals(items, results.size());
     }
 
+    @Test
+    public void shouldGetAllFromCacheAndUnderlyingStore() {
+        underlyingStore.put(bytesKey("a"), bytesValue("1"));
+        store.put(bytesKey("b"), bytesValue("2"));
+
+        final List<byte[]> values = store.getAll(Arrays.asList(bytesKey("a"), bytesKey("b"), bytesKey("c")));
+
+        assertEquals(3, values.size());
+        assertEquals("1", new String(values.get(0)));
+        assertEquals("2", new String(values.get(1)));
+        assertNull(values.get(2));
+        // values read from the underlying store are put into the cache
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void shouldMergeCacheAndStoreOnPrefixScan() {
+        store.put(bytesKey("a1"), bytesValue("1"));
+        store.put(bytesKey("a3"), bytesValue("2"));
+        store.put(bytesKey("b1"), bytesValue("3"));
+        store.flush();
+        store.delete(bytesKey("a1"));
+        store.put(bytesKey("a2"), bytesValue("4"));
+
+        final List<Bytes> results = new ArrayList<>();
+        try (final KeyValueIterator<Bytes, byte[]> iterator = store.prefixScan("a", new StringSerializer())) {
+            while (iterator.hasNext()) {
+                results.add(iterator.next().key);
+            }
+        }
+        assertEquals(Arrays.asList(bytesKey("a2"), bytesKey("a3")), results);
+    }
+
     @Test
     public void shouldDeleteItemsFromCache() {
         store.put(bytesKey("a"), bytesValue("a"));
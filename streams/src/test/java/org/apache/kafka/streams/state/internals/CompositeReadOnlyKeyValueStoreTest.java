@@ -167,6 +167,19 @@ public class CompositeReadOnlyKeyValueStoreTest {
         assertEquals("key-one-value", theStore.get("key-one"));
     }
 
+    @Test
+    public void shouldGetAllValuesAcrossMultipleKVStores() {
+        final KeyValueStore<String, String> cache = newStoreInstance();
+        stubProviderTwo.addStore(storeName, cache);
+
+        cache.put("key-two", "key-two-value");
+        stubOneUnderlying.put("key-one", "key-one-value");
+
+        assertEquals(
+            Arrays.asList("key-two-value", null, "key-one-value"),
+            theStore.getAll(Arrays.asList("key-two", "whatever", "key-one")));
+    }
+
     @Test
     public void shouldSupportRange() {
         stubOneUnderlying.put("a", "a");
@@ -16,14 +16,21 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StoreBuilder;
 import org.apache.kafka.streams.state.Stores;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -61,4 +68,32 @@ public class InMemoryKeyValueStoreTest extends AbstractKeyValueStoreTest {
 
         assertThat(store.get(0), nullValue());
     }
+
+    @Test
+    public void shouldReturnKeysWithPrefix() {
+        store.put(1, "one");
+        store.put(2, "two");
+        store.put(256, "two-fifty-six");
+        store.put(257, "two-fifty-seven");
+        store.put(65536, "sixty-five-thousand");
+
+        final List<String> values = new ArrayList<>();
+        // integer keys are serialized big-endian, so 0x000001 is the prefix of the keys 256 to 511
+        try (final KeyValueIterator<Integer, String> iterator = store.prefixScan(new byte[] {0, 0, 1}, new ByteArraySerializer())) {
+            while (iterator.hasNext()) {
+                values.add(iterator.next().value);
+            }
+        }
+        assertEquals(Arrays.asList("two-fifty-six", "two-fifty-seven"), values);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotSupportPrefixScanIfKeysAreNotBytes() {
+        final InMemoryKeyValueStore<Integer, String> integerStore =
+            new InMemoryKeyValueStore<>("integer-store", Serdes.Integer(), Serdes.String());
+        integerStore.init(context, null);
+        integerStore.put(1, "one");
+
+        integerStore.prefixScan(new byte[] {0}, new ByteArraySerializer());
+    }
 }
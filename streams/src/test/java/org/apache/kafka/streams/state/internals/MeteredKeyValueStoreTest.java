@@ -23,6 +23,7 @@ import org.apache.kafka.common.metrics.KafkaMetric;
 import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.common.utils.MockTime;
 import org.apache.kafka.streams.KeyValue;
@@ -131,6 +132,18 @@ public class MeteredKeyValueStoreTest {
         EasyMock.verify(inner);
     }
 
+    @Test
+    public void shouldGetAllBytesFromInnerStoreAndRecordGetAllMetric() {
+        EasyMock.expect(inner.getAll(Collections.singletonList(keyBytes))).andReturn(Collections.singletonList(valueBytes));
+        init();
+
+        assertThat(metered.getAll(Collections.singletonList(key)), equalTo(Collections.singletonList(value)));
+
+        final KafkaMetric metric = metric("get-all-rate");
+        assertTrue((Double) metric.metricValue() > 0);
+        EasyMock.verify(inner);
+    }
+
     @Test
     public void shouldPutIfAbsentAndRecordPutIfAbsentMetric() {
         EasyMock.expect(inner.putIfAbsent(EasyMock.eq(keyBytes), EasyMock.aryEq(valueBytes)))
@@ -193,6 +206,24 @@ public class MeteredKeyValueStoreTest {
         EasyMock.verify(inner);
     }
 
+    @Test
+    public void shouldGetPrefixScanFromInnerStoreAndRecordPrefixScanMetric() {
+        final StringSerializer prefixSerializer = new StringSerializer();
+        EasyMock.expect(inner.prefixScan(key, prefixSerializer))
+                .andReturn(new KeyValueIteratorStub<>(Collections.singletonList(KeyValue.pair(keyBytes, valueBytes)).iterator()));
+
+        init();
+
+        final KeyValueIterator<String, String> iterator = metered.prefixScan(key, prefixSerializer);
+        assertThat(iterator.next().value, equalTo(value));
+        assertFalse(iterator.hasNext());
+        iterator.close();
+
+        final KafkaMetric metric = metric("prefix-scan-rate");
+        assertTrue((Double) metric.metricValue() > 0);
+        EasyMock.verify(inner);
+    }
+
     @Test
     public void shouldGetAllFromInnerStoreAndRecordAllMetric() {
         EasyMock.expect(inner.all())
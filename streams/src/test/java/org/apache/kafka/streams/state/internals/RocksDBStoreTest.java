@@ -16,6 +16,7 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.serialization.Serializer;
@@ -41,7 +42,9 @@ import org.rocksdb.Options;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +56,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -195,6 +199,94 @@ public class RocksDBStoreTest {
                 rocksDBStore.get(new Bytes(stringSerializer.serialize(null, "3")))));
     }
 
+    @Test
+    public void shouldGetAll() {
+        rocksDBStore.init(context, rocksDBStore);
+        final Bytes keyA = new Bytes(stringSerializer.serialize(null, "a"));
+        final Bytes keyB = new Bytes(stringSerializer.serialize(null, "b"));
+        rocksDBStore.put(keyA, stringSerializer.serialize(null, "1"));
+        rocksDBStore.put(keyB, stringSerializer.serialize(null, "2"));
+
+        final List<byte[]> values = rocksDBStore.getAll(Arrays.asList(
+            keyB,
+            new Bytes(stringSerializer.serialize(null, "c")),
+            keyA,
+            new Bytes(stringSerializer.serialize(null, "b"))));
+
+        assertEquals(4, values.size());
+        assertEquals("2", stringDeserializer.deserialize(null, values.get(0)));
+        assertNull(values.get(1));
+        assertEquals("1", stringDeserializer.deserialize(null, values.get(2)));
+        assertEquals("2", stringDeserializer.deserialize(null, values.get(3)));
+    }
+
+    @Test
+    public void shouldReturnKeysWithPrefix() {
+        rocksDBStore.init(context, rocksDBStore);
+        rocksDBStore.put(new Bytes(stringSerializer.serialize(null, "k")), stringSerializer.serialize(null, "a"));
+        rocksDBStore.put(new Bytes(stringSerializer.serialize(null, "k1")), stringSerializer.serialize(null, "b"));
+        rocksDBStore.put(new Bytes(stringSerializer.serialize(null, "k2")), stringSerializer.serialize(null, "c"));
+        rocksDBStore.put(new Bytes(stringSerializer.serialize(null, "l")), stringSerializer.serialize(null, "d"));
+        rocksDBStore.put(new Bytes(stringSerializer.serialize(null, "j")), stringSerializer.serialize(null, "e"));
+        rocksDBStore.flush();
+
+        final List<String> values = new ArrayList<>();
+        try (final KeyValueIterator<Bytes, byte[]> iterator = rocksDBStore.prefixScan("k", stringSerializer)) {
+            while (iterator.hasNext()) {
+                values.add(stringDeserializer.deserialize(null, iterator.next().value));
+            }
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c"), values);
+    }
+
+    @Test
+    public void shouldReturnKeysWithPrefixOfMaximumBytes() {
+        rocksDBStore.init(context, rocksDBStore);
+        final byte[] prefix = {(byte) 0xFF, (byte) 0xFF};
+        rocksDBStore.put(Bytes.wrap(new byte[] {(byte) 0xFF}), stringSerializer.serialize(null, "a"));
+        rocksDBStore.put(Bytes.wrap(prefix), stringSerializer.serialize(null, "b"));
+        rocksDBStore.put(Bytes.wrap(new byte[] {(byte) 0xFF, (byte) 0xFF, 0x00}), stringSerializer.serialize(null, "c"));
+
+        final List<String> values = new ArrayList<>();
+        try (final KeyValueIterator<Bytes, byte[]> iterator = rocksDBStore.prefixScan(prefix, new ByteArraySerializer())) {
+            while (iterator.hasNext()) {
+                values.add(stringDeserializer.deserialize(null, iterator.next().value));
+            }
+        }
+
+        assertEquals(Arrays.asList("b", "c"), values);
+    }
+
+    @Test
+    public void shouldIncludeUpperBoundButNotItsSuccessorInRange() {
+        rocksDBStore.init(context, rocksDBStore);
+        rocksDBStore.put(Bytes.wrap(new byte[] {0x01}), stringSerializer.serialize(null, "a"));
+        rocksDBStore.put(Bytes.wrap(new byte[] {0x02}), stringSerializer.serialize(null, "b"));
+        rocksDBStore.put(Bytes.wrap(new byte[] {0x02, 0x00}), stringSerializer.serialize(null, "c"));
+
+        final List<String> values = new ArrayList<>();
+        try (final KeyValueIterator<Bytes, byte[]> iterator =
+                 rocksDBStore.range(Bytes.wrap(new byte[] {0x01}), Bytes.wrap(new byte[] {0x02}))) {
+            while (iterator.hasNext()) {
+                values.add(stringDeserializer.deserialize(null, iterator.next().value));
+            }
+        }
+
+        assertEquals(Arrays.asList("a", "b"), values);
+    }
+
+    @Test
+    public void shouldThrowNullPointerExceptionOnNullPrefix() {
+        rocksDBStore.init(context, rocksDBStore);
+        try {
+            rocksDBStore.prefixScan(null, stringSerializer);
+            fail("Should have thrown NullPointerException on null prefix");
+        } catch (final NullPointerException e) {
+            // this is good
+        }
+    }
+
     @Test
     public void shouldTogglePrepareForBulkloadSetting() {
         rocksDBStore.init(context, rocksDBStore);
@@ -225,6 +317,75 @@ public class RocksDBStoreTest {
         assertFalse("Should have set bulk loading to false", rocksDBStore.isPrepareForBulkload());
     }
 
+    @Test
+    public void shouldRestoreEmptyStoreViaSstIngestion() {
+        rocksDBStore.init(context, rocksDBStore);
+        final RocksDBStore.RocksDBBatchingRestoreCallback restoreListener =
+            (RocksDBStore.RocksDBBatchingRestoreCallback) rocksDBStore.batchingStateRestoreCallback;
+
+        restoreListener.onRestoreStart(null, null, 0, 0);
+        assertTrue("Should restore via SST ingestion", rocksDBStore.isRestoringViaSstIngestion());
+
+        final List<KeyValue<byte[], byte[]>> firstBatch = new ArrayList<>();
+        firstBatch.add(new KeyValue<>("3".getBytes(UTF_8), "c".getBytes(UTF_8)));
+        firstBatch.add(new KeyValue<>("1".getBytes(UTF_8), "a".getBytes(UTF_8)));
+        firstBatch.add(new KeyValue<>("2".getBytes(UTF_8), "b".getBytes(UTF_8)));
+        restoreListener.restoreAll(firstBatch);
+        rocksDBStore.flush();
+
+        final List<KeyValue<byte[], byte[]>> secondBatch = new ArrayList<>();
+        secondBatch.add(new KeyValue<>("1".getBytes(UTF_8), null));
+        secondBatch.add(new KeyValue<>("2".getBytes(UTF_8), "b2".getBytes(UTF_8)));
+        secondBatch.add(new KeyValue<>("4".getBytes(UTF_8), "d".getBytes(UTF_8)));
+        secondBatch.add(new KeyValue<>("4".getBytes(UTF_8), "d2".getBytes(UTF_8)));
+        restoreListener.restoreAll(secondBatch);
+
+        restoreListener.onRestoreEnd(null, null, 0);
+        assertFalse(rocksDBStore.isRestoringViaSstIngestion());
+
+        assertThat(rocksDBStore.get(new Bytes("1".getBytes(UTF_8))), equalTo(null));
+        assertThat(new String(rocksDBStore.get(new Bytes("2".getBytes(UTF_8))), UTF_8), equalTo("b2"));
+        assertThat(new String(rocksDBStore.get(new Bytes("3".getBytes(UTF_8))), UTF_8), equalTo("c"));
+        assertThat(new String(rocksDBStore.get(new Bytes("4".getBytes(UTF_8))), UTF_8), equalTo("d2"));
+        assertFalse(new File(rocksDBStore.dbDir.getParentFile(), DB_NAME + ".bulkload").exists());
+    }
+
+    @Test
+    public void shouldNotRestoreViaSstIngestionIntoNonEmptyStore() {
+        rocksDBStore.init(context, rocksDBStore);
+        rocksDBStore.put(new Bytes("1".getBytes(UTF_8)), "a".getBytes(UTF_8));
+
+        final RocksDBStore.RocksDBBatchingRestoreCallback restoreListener =
+            (RocksDBStore.RocksDBBatchingRestoreCallback) rocksDBStore.batchingStateRestoreCallback;
+
+        restoreListener.onRestoreStart(null, null, 0, 0);
+        assertFalse("Should not restore via SST ingestion", rocksDBStore.isRestoringViaSstIngestion());
+        restoreListener.onRestoreEnd(null, null, 0);
+    }
+
+    @Test
+    public void shouldSnapshotIntoStoreLocationRelativeToTaskSnapshotDirectory() throws IOException {
+        rocksDBStore.init(context, rocksDBStore);
+        rocksDBStore.put(new Bytes("1".getBytes(UTF_8)), "a".getBytes(UTF_8));
+        rocksDBStore.flush();
+
+        final File taskSnapshotDir = TestUtils.tempDirectory();
+        try {
+            rocksDBStore.snapshot(taskSnapshotDir);
+            rocksDBStore.put(new Bytes("2".getBytes(UTF_8)), "b".getBytes(UTF_8));
+            rocksDBStore.close();
+
+            Utils.delete(rocksDBStore.dbDir);
+            Files.move(new File(taskSnapshotDir, "rocksdb/" + DB_NAME).toPath(), rocksDBStore.dbDir.toPath());
+            rocksDBStore.init(context, rocksDBStore);
+
+            assertThat(new String(rocksDBStore.get(new Bytes("1".getBytes(UTF_8))), UTF_8), equalTo("a"));
+            assertThat(rocksDBStore.get(new Bytes("2".getBytes(UTF_8))), equalTo(null));
+        } finally {
+            Utils.delete(taskSnapshotDir);
+        }
+    }
+
     @Test
     public void shouldRestoreAll() {
         final List<KeyValue<byte[], byte[]>> entries = getKeyValueEntries();
@@ -275,6 +275,51 @@ public class RocksDBTimestampedStoreTest extends RocksDBStoreTest {
         LogCaptureAppender.unregister(appender);
     }
 
+    @Test
+    public void shouldMigrateDataFromDefaultToTimestampColumnFamilyOnGetAll() throws Exception {
+        prepareOldStore();
+        rocksDBStore.init(context, rocksDBStore);
+
+        // key2 is migrated before the multi-get, key1 and key3 by it
+        rocksDBStore.put(new Bytes("key2".getBytes()), "timestamp+22".getBytes());
+        final List<byte[]> values = rocksDBStore.getAll(asList(
+            new Bytes("key1".getBytes()),
+            new Bytes("key2".getBytes()),
+            new Bytes("unknown".getBytes()),
+            new Bytes("key3".getBytes())));
+
+        // unknown timestamp == -1 plus value
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, '1'}, values.get(0));
+        assertArrayEquals("timestamp+22".getBytes(), values.get(1));
+        assertThat(values.get(2), new IsNull<>());
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, '3', '3', '3'}, values.get(3));
+        rocksDBStore.close();
+
+        final DBOptions dbOptions = new DBOptions();
+        final ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions();
+        final List<ColumnFamilyDescriptor> columnFamilyDescriptors = asList(
+            new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, columnFamilyOptions),
+            new ColumnFamilyDescriptor("keyValueWithTimestamp".getBytes(StandardCharsets.UTF_8), columnFamilyOptions));
+        final List<ColumnFamilyHandle> columnFamilies = new ArrayList<>(columnFamilyDescriptors.size());
+        try (final RocksDB db = RocksDB.open(
+                dbOptions,
+                new File(new File(context.stateDir(), "rocksdb"), DB_NAME).getAbsolutePath(),
+                columnFamilyDescriptors,
+                columnFamilies)) {
+            assertThat(db.get(columnFamilies.get(0), "key1".getBytes()), new IsNull<>());
+            assertThat(db.get(columnFamilies.get(0), "key3".getBytes()), new IsNull<>());
+            assertThat(db.get(columnFamilies.get(0), "key4".getBytes()).length, is(4));
+            assertThat(db.get(columnFamilies.get(1), "key1".getBytes()).length, is(8 + 1));
+            assertThat(db.get(columnFamilies.get(1), "key3".getBytes()).length, is(8 + 3));
+        } finally {
+            for (final ColumnFamilyHandle columnFamily : columnFamilies) {
+                columnFamily.close();
+            }
+            dbOptions.close();
+            columnFamilyOptions.close();
+        }
+    }
+
     private void prepareOldStore() {
         final RocksDBStore keyValueStore = new RocksDBStore(DB_NAME);
         keyValueStore.init(context, keyValueStore);
@@ -0,0 +1,109 @@
+# Licensed to the Apache Software Foundation (ASF) under one or more
+# contributor license agreements.  See the NOTICE file distributed with
+# this work for additional information regarding copyright ownership.
+# The ASF licenses this file to You under the Apache License, Version 2.0
+# (the "License"); you may not use this file except in compliance with
+# the License.  You may obtain a copy of the License at
+#
+#    http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+from ducktape.mark import matrix
+from ducktape.mark.resource import cluster
+from ducktape.tests.test import Test
+from ducktape.utils.util import wait_until
+
+from kafkatest.services.connect import ConnectDistributedService, VerifiableSource
+from kafkatest.services.kafka import KafkaService
+from kafkatest.services.zookeeper import ZookeeperService
+
+import time
+
+
+class ConnectSourceBenchmark(Test):
+    """
+    Benchmark of the throughput of Kafka Connect source tasks, comparing exactly-once source tasks, which write their
+    records and offsets in producer transactions, with at-least-once source tasks.
+    """
+
+    TOPIC = "connect-source-benchmark"
+    OFFSETS_TOPIC = "connect-offsets"
+    CONFIG_TOPIC = "connect-configs"
+    STATUS_TOPIC = "connect-status"
+    REPLICATION_FACTOR = 3
+    # The tasks only print every REPORT_INTERVAL-th record, so that printing does not limit their throughput
+    REPORT_INTERVAL = 10000
+
+    def __init__(self, test_context):
+        super(ConnectSourceBenchmark, self).__init__(test_context)
+        self.num_tasks = 3
+        self.duration_sec = 60
+        self.zk = ZookeeperService(test_context, num_nodes=1)
+        self.kafka = KafkaService(test_context, num_nodes=3, zk=self.zk, topics={
+            self.TOPIC: {'partitions': 6, 'replication-factor': self.REPLICATION_FACTOR}
+        })
+        self.kafka.log_level = "INFO"
+        self.cc = ConnectDistributedService(test_context, 1, self.kafka, [])
+
+    def setUp(self):
+        self.zk.start()
+        self.kafka.start()
+
+    @cluster(num_nodes=5)
+    @matrix(exactly_once=[False])
+    @matrix(exactly_once=[True], commit_interval_ms=[0, 100, 1000])
+    def test_source_throughput(self, exactly_once, commit_interval_ms=100):
+        """
+        Setup: 1 node zk + 3 node kafka cluster + 1 Connect worker
+        Run a verifiable source connector with 3 unthrottled tasks for a minute and report the rate at which records
+        were acknowledged. With exactly-once, the transactions of each task are committed at most every
+        commit_interval_ms, where 0 commits one transaction per poll.
+
+        The rate is computed from the seqnos and commit timestamps the tasks print, over the period in which all tasks
+        were running, so that the time taken to collect and parse the output of the worker is not measured.
+        """
+        self.exactly_once = exactly_once
+        self.commit_interval_ms = commit_interval_ms
+        self.cc.set_configs(lambda node: self.render("connect-distributed.properties", node=node))
+        self.cc.start()
+
+        self.source = VerifiableSource(self.cc, topic=self.TOPIC, tasks=self.num_tasks, throughput=-1,
+                                       report_interval=self.REPORT_INTERVAL)
+        self.source.start()
+        wait_until(lambda: len(set(m['task'] for m in self.source.committed_messages())) == self.num_tasks,
+                   timeout_sec=60, err_msg="The source tasks did not write any records")
+        time.sleep(self.duration_sec)
+        self.source.stop()
+        committed = self.source.committed_messages()
+        self.cc.stop()
+
+        records_per_sec = self.committed_records_per_sec(committed)
+        self.logger.info("Source tasks wrote %f records/sec (exactly once: %s, commit interval: %d ms)",
+                         records_per_sec, exactly_once, commit_interval_ms)
+        return {"records_per_sec": records_per_sec}
+
+    def committed_records_per_sec(self, committed):
+        """
+        Sum the rates at which the tasks committed records, each measured between the first and the last record it
+        committed while all tasks were running.
+        """
+        samples = {}
+        for message in committed:
+            samples.setdefault(message['task'], []).append((message['time_ms'], message['seqno']))
+        assert len(samples) == self.num_tasks, "Only tasks %s committed records" % sorted(samples.keys())
+        window_start_ms = max(min(samples[task])[0] for task in samples)
+        window_end_ms = min(max(samples[task])[0] for task in samples)
+
+        records_per_sec = 0.0
+        for task in samples:
+            in_window = sorted(s for s in samples[task] if window_start_ms <= s[0] <= window_end_ms)
+            assert len(in_window) > 1 and in_window[-1][0] > in_window[0][0], \
+                "Task %s committed too few records while all tasks were running" % task
+            (first_ms, first_seqno), (last_ms, last_seqno) = in_window[0], in_window[-1]
+            records_per_sec += (last_seqno - first_seqno) * 1000.0 / (last_ms - first_ms)
+        return records_per_sec
@@ -100,6 +100,47 @@ class Benchmark(Test):
         self.producer.run()
         return compute_aggregate_throughput(self.producer)
 
+    @cluster(num_nodes=5)
+    @matrix(partitioner=["org.apache.kafka.clients.producer.internals.DefaultPartitioner",
+                         "org.apache.kafka.clients.producer.RoundRobinPartitioner"],
+            linger_ms=[0, 10], target_throughput=[10000, 100000])
+    def test_producer_partitioner(self, partitioner, linger_ms, target_throughput, acks=1, topic=TOPIC_REP_THREE):
+        """
+        Setup: 1 node zk + 3 node kafka cluster
+        Produce keyless 100 byte messages at a fixed rate for a minute to a topic with 6 partitions, either sticking to one
+        partition until its batch is closed (DefaultPartitioner) or spreading consecutive records over the partitions
+        (RoundRobinPartitioner).
+
+        Return the aggregate throughput and latency statistics along with the average batch size and request rate
+        of the producer, which show how well the records were batched.
+
+        (This runs ProducerPerformance.java under the hood)
+        """
+        self.start_kafka('PLAINTEXT', 'PLAINTEXT', DEV_BRANCH)
+        self.producer = ProducerPerformanceService(
+            self.test_context, 1, self.kafka,
+            topic=topic, num_records=60 * target_throughput, record_size=DEFAULT_RECORD_SIZE, throughput=target_throughput,
+            settings={
+                'acks': acks,
+                'linger.ms': linger_ms,
+                'partitioner.class': partitioner,
+                'batch.size': self.batch_size,
+                'buffer.memory': self.buffer_memory},
+            print_metrics=True)
+        self.producer.run()
+
+        result = self.producer.results[0]
+        metrics = self.producer.metrics[0]
+        data = {
+            "throughput": throughput(result['records_per_sec'], result['mbps']),
+            "latency": latency(result['latency_50th_ms'], result['latency_99th_ms'], result['latency_999th_ms']),
+            "batch_size_avg": metrics.get('batch-size-avg'),
+            "request_rate": metrics.get('request-rate')
+        }
+        self.logger.info("Producer with %s, linger.ms=%d at %d records/sec: %s", partitioner, linger_ms,
+                         target_throughput, str(data))
+        return data
+
     @cluster(num_nodes=5)
     @parametrize(security_protocol='SSL', interbroker_security_protocol='PLAINTEXT')
     @matrix(security_protocol=['PLAINTEXT', 'SSL'], compression_type=["none", "snappy"])
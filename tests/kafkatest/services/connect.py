@@ -408,15 +408,17 @@ class VerifiableConnector(object):
 class VerifiableSource(VerifiableConnector):
     """
     Helper class for running a verifiable source connector on a Kafka Connect cluster and analyzing the output.
+    With a report_interval above 1, the tasks only print the messages whose seqno is a multiple of it.
     """
 
-    def __init__(self, cc, name="verifiable-source", tasks=1, topic="verifiable", throughput=1000):
+    def __init__(self, cc, name="verifiable-source", tasks=1, topic="verifiable", throughput=1000, report_interval=1):
         self.cc = cc
         self.logger = self.cc.logger
         self.name = name
         self.tasks = tasks
         self.topic = topic
         self.throughput = throughput
+        self.report_interval = report_interval
 
     def committed_messages(self):
         return filter(lambda m: 'committed' in m and m['committed'], self.messages())
@@ -431,7 +433,8 @@ class VerifiableSource(VerifiableConnector):
             'connector.class': 'org.apache.kafka.connect.tools.VerifiableSourceConnector',
             'tasks.max': self.tasks,
             'topic': self.topic,
-            'throughput': self.throughput
+            'throughput': self.throughput,
+            'report.interval': self.report_interval
         })
 
 
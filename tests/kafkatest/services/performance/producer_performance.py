@@ -35,7 +35,7 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
     LOG4J_CONFIG = os.path.join(PERSISTENT_ROOT, "tools-log4j.properties")
 
     def __init__(self, context, num_nodes, kafka, topic, num_records, record_size, throughput, version=DEV_BRANCH, settings=None,
-                 intermediate_stats=False, client_id="producer-performance"):
+                 intermediate_stats=False, client_id="producer-performance", print_metrics=False):
 
         super(ProducerPerformanceService, self).__init__(context=context, num_nodes=num_nodes)
 
@@ -68,6 +68,9 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
         self.settings = settings or {}
         self.intermediate_stats = intermediate_stats
         self.client_id = client_id
+        # the producer metrics printed at the end of each run, by metric name
+        self.print_metrics = print_metrics
+        self.metrics = [{} for _ in range(num_nodes)]
 
         for node in self.nodes:
             node.version = version
@@ -78,7 +81,8 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
             'bootstrap_servers': self.kafka.bootstrap_servers(self.security_config.security_protocol),
             'client_id': self.client_id,
             'kafka_run_class': self.path.script("kafka-run-class.sh", node),
-            'metrics_props': ' '.join(["%s=%s" % (k, v) for k, v in self.http_metrics_client_configs.iteritems()])
+            'metrics_props': ' '.join(["%s=%s" % (k, v) for k, v in self.http_metrics_client_configs.iteritems()]),
+            'print_metrics': "--print-metrics " if self.print_metrics else ""
             })
 
         cmd = ""
@@ -95,7 +99,7 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
 
         cmd += " export KAFKA_LOG4J_OPTS=\"-Dlog4j.configuration=file:%s\"; " % ProducerPerformanceService.LOG4J_CONFIG
         cmd += "KAFKA_OPTS=%(kafka_opts)s KAFKA_HEAP_OPTS=\"-XX:+HeapDumpOnOutOfMemoryError\" %(kafka_run_class)s org.apache.kafka.tools.ProducerPerformance " \
-              "--topic %(topic)s --num-records %(num_records)d --record-size %(record_size)d --throughput %(throughput)d --producer-props bootstrap.servers=%(bootstrap_servers)s client.id=%(client_id)s %(metrics_props)s" % args
+              "--topic %(topic)s --num-records %(num_records)d --record-size %(record_size)d --throughput %(throughput)d %(print_metrics)s--producer-props bootstrap.servers=%(bootstrap_servers)s client.id=%(client_id)s %(metrics_props)s" % args
 
         self.security_config.setup_node(node)
         if self.security_config.security_protocol != SecurityConfig.PLAINTEXT:
@@ -143,8 +147,16 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
 
         # parse producer output from file
         last = None
+        in_metrics = False
         producer_output = node.account.ssh_capture("cat %s" % ProducerPerformanceService.STDOUT_CAPTURE)
         for line in producer_output:
+            # the metrics are printed after the aggregate statistics
+            if self.print_metrics and (in_metrics or line.startswith("Metric Name")):
+                in_metrics = True
+                self.parse_metric(idx, line)
+                continue
+            if not line.strip():
+                continue
             if self.intermediate_stats:
                 try:
                     self.stats[idx-1].append(self.parse_stats(line))
@@ -158,6 +170,15 @@ class ProducerPerformanceService(HttpMetricsCollector, PerformanceService):
         except:
             raise Exception("Unable to parse aggregate performance statistics on node %d: %s" % (idx, last))
 
+    def parse_metric(self, idx, line):
+        parts = line.rsplit(' : ', 1)
+        if len(parts) != 2 or not parts[0].startswith("producer-metrics:"):
+            return
+        try:
+            self.metrics[idx-1][parts[0].split(':')[1]] = float(parts[1])
+        except ValueError:
+            pass
+
     def parse_stats(self, line):
 
         parts = line.split(',')
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.tools;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.apache.kafka.common.record.FileRecords;
+import org.apache.kafka.common.record.Record;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.ZstdDictionary;
+import org.apache.kafka.common.utils.Exit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static net.sourceforge.argparse4j.impl.Arguments.store;
+
+/**
+ * Trains a zstd dictionary from a sample of the records in the log segments of a topic, for producers to compress
+ * the batches of the topic with, see the <code>compression.zstd.dictionary</code> producer config.
+ */
+public class ZstdDictionaryTrainer {
+
+    public static void main(String[] args) throws IOException {
+        ArgumentParser parser = argParser();
+        try {
+            Namespace res = parser.parseArgs(args);
+            List<String> logDirs = res.getList("logDirs");
+            String output = res.getString("output");
+            int dictionarySize = res.getInt("dictionarySize");
+            int maxSamples = res.getInt("maxSamples");
+
+            List<File> dirs = new ArrayList<>();
+            for (String logDir : logDirs)
+                dirs.add(new File(logDir));
+            List<byte[]> samples = sample(dirs, maxSamples, new Random());
+            if (samples.isEmpty())
+                throw new ArgumentParserException("No records found in the log segments of " + logDirs, parser);
+
+            ZstdDictionary dictionary = ZstdDictionary.train(samples, dictionarySize);
+            Files.write(Paths.get(output), dictionary.bytes());
+            System.out.println("Trained dictionary with id " + dictionary.id() + " and size " + dictionary.bytes().length +
+                    " bytes from " + samples.size() + " records, written to " + output);
+        } catch (ArgumentParserException e) {
+            if (args.length == 0) {
+                parser.printHelp();
+                Exit.exit(0);
+            } else {
+                parser.handleError(e);
+                Exit.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Sample the records of the log segments in the given partition directories uniformly, each sample being the
+     * key of a record followed by its value.
+     */
+    static List<byte[]> sample(List<File> logDirs, int maxSamples, Random random) throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        long seen = 0;
+        for (File logDir : logDirs) {
+            File[] segments = logDir.listFiles((dir, name) -> name.endsWith(".log"));
+            if (segments == null)
+                throw new IOException("Could not list the log segments of " + logDir);
+            Arrays.sort(segments);
+            for (File segment : segments) {
+                try (FileRecords records = FileRecords.open(segment, false)) {
+                    for (RecordBatch batch : records.batches()) {
+                        if (batch.isControlBatch())
+                            continue;
+                        for (Record record : batch) {
+                            seen++;
+                            // Reservoir sampling, so that the samples represent the whole log and not its beginning
+                            if (samples.size() < maxSamples)
+                                samples.add(sampleOf(record));
+                            else {
+                                long index = (long) (random.nextDouble() * seen);
+                                if (index < maxSamples)
+                                    samples.set((int) index, sampleOf(record));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static byte[] sampleOf(Record record) {
+        int keySize = Math.max(record.keySize(), 0);
+        int valueSize = Math.max(record.valueSize(), 0);
+        ByteBuffer sample = ByteBuffer.allocate(keySize + valueSize);
+        if (record.hasKey())
+            sample.put(record.key());
+        if (record.hasValue())
+            sample.put(record.value());
+        return sample.array();
+    }
+
+    private static ArgumentParser argParser() {
+        ArgumentParser parser = ArgumentParsers
+                .newArgumentParser("zstd-dictionary-trainer")
+                .defaultHelp(true)
+                .description("This tool trains a zstd dictionary from a sample of the records in the log segments of a topic. " +
+                        "Producers compress batches with the dictionary if it is set as their compression.zstd.dictionary, " +
+                        "and brokers and consumers need it in their compression.zstd.dictionaries to read them.");
+
+        parser.addArgument("--log-dirs")
+                .nargs("+")
+                .required(true)
+                .type(String.class)
+                .metavar("LOG-DIR")
+                .dest("logDirs")
+                .help("the directories of the partitions of the topic to read the log segments of, e.g. /tmp/kafka-logs/my-topic-0");
+
+        parser.addArgument("--output")
+                .action(store())
+                .required(true)
+                .type(String.class)
+                .metavar("OUTPUT-FILE")
+                .help("the file to write the dictionary to");
+
+        parser.addArgument("--dictionary-size")
+                .action(store())
+                .required(false)
+                .type(Integer.class)
+                .metavar("DICTIONARY-SIZE")
+                .dest("dictionarySize")
+                .setDefault(64 * 1024)
+                .help("the maximum size of the dictionary in bytes");
+
+        parser.addArgument("--max-samples")
+                .action(store())
+                .required(false)
+                .type(Integer.class)
+                .metavar("MAX-SAMPLES")
+                .dest("maxSamples")
+                .setDefault(100000)
+                .help("the maximum number of records to train the dictionary with, sampled from all the log segments");
+
+        return parser;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.tools;
+
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.FileRecords;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.SimpleRecord;
+import org.apache.kafka.common.record.ZstdDictionary;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZstdDictionaryTrainerTest {
+
+    @Test
+    public void testSampleAndTrain() throws Exception {
+        File logDir = Files.createTempDirectory("zstd-dictionary-trainer").toFile();
+        try {
+            checkSampleAndTrain(logDir);
+        } finally {
+            Utils.delete(logDir);
+        }
+    }
+
+    private void checkSampleAndTrain(File logDir) throws Exception {
+        Set<String> written = new HashSet<>();
+        long offset = 0;
+        for (int segment = 0; segment < 2; segment++) {
+            File file = new File(logDir, String.format("%020d.log", offset));
+            try (FileRecords records = FileRecords.open(file)) {
+                for (int batch = 0; batch < 50; batch++) {
+                    SimpleRecord[] batchRecords = new SimpleRecord[20];
+                    for (int i = 0; i < batchRecords.length; i++) {
+                        String key = "user-" + offset;
+                        String value = "{\"event\":\"view\",\"page\":\"/products/" + offset % 37 + "\",\"offset\":" + offset + "}";
+                        written.add(key + value);
+                        batchRecords[i] = new SimpleRecord(key.getBytes(), value.getBytes());
+                        offset++;
+                    }
+                    records.append(MemoryRecords.withRecords(offset - batchRecords.length, CompressionType.GZIP, batchRecords));
+                }
+            }
+        }
+        // Files other than the segments are ignored
+        assertTrue(new File(logDir, String.format("%020d.index", 0)).createNewFile());
+
+        List<byte[]> samples = ZstdDictionaryTrainer.sample(Collections.singletonList(logDir), 500, new Random(1));
+        assertEquals(500, samples.size());
+        Set<String> sampled = new HashSet<>();
+        for (byte[] sample : samples)
+            sampled.add(new String(sample));
+        assertEquals(500, sampled.size());
+        assertTrue(written.containsAll(sampled));
+
+        ZstdDictionary dictionary = ZstdDictionary.train(ZstdDictionaryTrainer.sample(Collections.singletonList(logDir),
+                2000, new Random(1)), 4 * 1024);
+        assertTrue(dictionary.bytes().length <= 4 * 1024);
+    }
+}